@@ -0,0 +1,37 @@
+package com.farukgenc.boilerplate.springboot.configuration;
+
+import com.farukgenc.boilerplate.springboot.repository.InterfaceSamplePartitions;
+import com.farukgenc.boilerplate.springboot.repository.InterfaceSampleRepository;
+import com.farukgenc.boilerplate.springboot.service.metrics.DatabaseSampleStorage;
+import com.farukgenc.boilerplate.springboot.service.metrics.SampleStorage;
+import com.farukgenc.boilerplate.springboot.service.metrics.SegmentSampleStorage;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of where interface samples are stored
+ */
+@Slf4j
+@Configuration
+public class SampleStorageConfiguration {
+
+    /**
+     * The storage {@code app.snmp.samples.storage} selects. The segment store is opened, and its
+     * open partitions replayed from their logs, before the poller starts writing.
+     */
+    @Bean
+    public SampleStorage sampleStorage(SnmpProperties properties,
+                                       InterfaceSampleRepository interfaceSampleRepository,
+                                       InterfaceSamplePartitions interfaceSamplePartitions,
+                                       MeterRegistry meterRegistry) {
+        return switch (properties.getSamples().getStorage()) {
+            case DATABASE -> new DatabaseSampleStorage(interfaceSampleRepository, interfaceSamplePartitions, properties);
+            case SEGMENTS -> {
+                log.info("Storing interface samples in segment files under {}", properties.getSamples().getSegments().getDirectory());
+                yield new SegmentSampleStorage(properties, meterRegistry);
+            }
+        };
+    }
+}
@@ -3,11 +3,9 @@ package com.farukgenc.boilerplate.springboot.configuration;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
-
-import java.util.concurrent.Executor;
 
 /**
  * Configuration for SNMP polling async tasks and scheduling
@@ -19,27 +17,19 @@ import java.util.concurrent.Executor;
 public class SnmpAsyncConfiguration {
 
     /**
-     * Task executor for SNMP polling operations
+     * Task executor for SNMP polling operations. Every task gets its own virtual thread, so
+     * submissions are never queued behind a fixed pool or rejected. Scheduled polls do not use it;
+     * they run on the bounded stages of {@code PollPipeline}.
      */
     @Bean(name = "snmpTaskExecutor")
-    public Executor snmpTaskExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(5);
-        executor.setMaxPoolSize(20);
-        executor.setQueueCapacity(100);
-        executor.setThreadNamePrefix("SNMP-Poll-");
-        executor.setWaitForTasksToCompleteOnShutdown(true);
-        executor.setAwaitTerminationSeconds(60);
-        
-        executor.setRejectedExecutionHandler((runnable, executor1) -> {
-            log.warn("SNMP polling task rejected: {}", runnable);
-            // Could implement a fallback strategy here
-        });
-        
-        executor.initialize();
-        log.info("SNMP Task Executor initialized with core pool size: {}, max pool size: {}", 
-                executor.getCorePoolSize(), executor.getMaxPoolSize());
-        
+    public SimpleAsyncTaskExecutor snmpTaskExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("SNMP-Poll-");
+        executor.setVirtualThreads(true);
+        // Let running polls finish on shutdown
+        executor.setTaskTerminationTimeout(60_000);
+
+        log.info("SNMP Task Executor initialized with virtual threads");
+
         return executor;
     }
 }
@@ -0,0 +1,364 @@
+package com.farukgenc.boilerplate.springboot.configuration;
+
+import com.farukgenc.boilerplate.springboot.model.RollupTier;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Tuning knobs for the SNMP polling engine, bound from {@code app.snmp.*}
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "app.snmp")
+public class SnmpProperties {
+
+    private Pool pool = new Pool();
+
+    private Walk walk = new Walk();
+
+    private Plan plan = new Plan();
+
+    private Rtt rtt = new Rtt();
+
+    private Limiter limiter = new Limiter();
+
+    private Scheduler scheduler = new Scheduler();
+
+    private Pipeline pipeline = new Pipeline();
+
+    private ChangeDetection changeDetection = new ChangeDetection();
+
+    private Samples samples = new Samples();
+
+    private Rollups rollups = new Rollups();
+
+    @Getter
+    @Setter
+    public static class Pool {
+
+        /**
+         * Number of UDP transports (sockets) all targets are multiplexed over
+         */
+        private int transports = 4;
+
+        /**
+         * Targets unused for longer than this are evicted
+         */
+        private Duration idleTimeout = Duration.ofMinutes(30);
+
+        /**
+         * Upper bound on cached targets; least recently used entries are evicted beyond it
+         */
+        private int maxTargets = 20000;
+
+    }
+
+    @Getter
+    @Setter
+    public static class Walk {
+
+        /**
+         * GETBULK max-repetitions used for a device before anything has been learned about it
+         */
+        private int initialMaxRepetitions = 10;
+
+        /**
+         * Upper bound for the learned max-repetitions of any device
+         */
+        private int maxRepetitions = 50;
+
+        /**
+         * Response size the tuner aims for, kept below a typical UDP MTU to avoid fragmentation
+         */
+        private int targetResponseBytes = 1400;
+
+    }
+
+    @Getter
+    @Setter
+    public static class Plan {
+
+        /**
+         * Largest SNMP message an agent is assumed to accept and return; poll plans are packed to fit it
+         */
+        private int maxMessageSize = 1472;
+
+        /**
+         * Estimated encoded size of a scalar value, used to predict response size while packing
+         */
+        private int estimatedValueBytes = 12;
+
+    }
+
+    @Getter
+    @Setter
+    public static class Rtt {
+
+        /**
+         * Lower bound for a derived request timeout, however fast a device has answered so far
+         */
+        private Duration minTimeout = Duration.ofMillis(100);
+
+        /**
+         * Consecutive timed out requests after which a device is treated as dead and probed
+         * once per request, without retries
+         */
+        private int deadAfterTimeouts = 3;
+
+    }
+
+    @Getter
+    @Setter
+    public static class Limiter {
+
+        /**
+         * In-flight requests allowed per target; agents are often single-threaded and slow
+         */
+        private int perTarget = 2;
+
+        /**
+         * Global in-flight limit at startup, adapted afterwards between min-limit and max-limit
+         */
+        private int initialLimit = 64;
+
+        private int minLimit = 8;
+
+        private int maxLimit = 2048;
+
+        /**
+         * Factor applied to the global limit on congestion (timeout or latency spike)
+         */
+        private double backoffRatio = 0.9;
+
+        /**
+         * A response slower than this multiple of the target's smoothed RTT counts as congestion
+         */
+        private double latencyTolerance = 3.0;
+
+    }
+
+    @Getter
+    @Setter
+    public static class Scheduler {
+
+        /**
+         * Resolution of the poll timing wheel; a device fires at most this late
+         */
+        private Duration tick = Duration.ofMillis(250);
+
+        /**
+         * Buckets in the timing wheel; one revolution covers tick × wheel-size
+         */
+        private int wheelSize = 512;
+
+    }
+
+    @Getter
+    @Setter
+    public static class Pipeline {
+
+        /**
+         * Network stage: devices queried at once, each on its own virtual thread
+         */
+        private Stage fetch = new Stage(64, 1024);
+
+        /**
+         * CPU stage: parses collected values; more workers than cores only adds contention
+         */
+        private Stage transform = new Stage(2, 256);
+
+        /**
+         * Database stage: each worker holds a connection while writing, keep below the Hikari pool size
+         */
+        private Stage persist = new Stage(4, 256);
+
+        /**
+         * Snapshots a persist worker writes in one transaction; it flushes early once it has this many
+         */
+        private int persistBatchSize = 100;
+
+        /**
+         * Longest a persist worker holds a partial batch before writing it
+         */
+        private Duration persistFlushInterval = Duration.ofSeconds(1);
+
+        /**
+         * Write interfaces, system units and IP/UDP profiles with bulk upserts on databases that
+         * support them (PostgreSQL, H2) instead of loading and saving them through JPA
+         */
+        private boolean nativeUpsert = true;
+
+        @Getter
+        @Setter
+        public static class Stage {
+
+            /**
+             * Worker threads draining the stage's queue
+             */
+            private int concurrency;
+
+            /**
+             * Polls waiting for a worker; a full queue blocks the stage feeding it
+             */
+            private int queueCapacity;
+
+            public Stage() {
+            }
+
+            public Stage(int concurrency, int queueCapacity) {
+                this.concurrency = concurrency;
+                this.queueCapacity = queueCapacity;
+            }
+
+        }
+
+    }
+
+    @Getter
+    @Setter
+    public static class ChangeDetection {
+
+        /**
+         * Skip writing polled rows whose values are the same as the last ones written
+         */
+        private boolean enabled = true;
+
+        /**
+         * Rows unchanged for this long are written anyway, repairing rows edited outside the poller
+         */
+        private Duration maxAge = Duration.ofHours(1);
+
+    }
+
+    @Getter
+    @Setter
+    public static class Samples {
+
+        /**
+         * Store per-interval interface counter rates computed from successive polls
+         */
+        private boolean enabled = true;
+
+        /**
+         * Polls further apart than this start a new series instead of yielding a rate, as a
+         * 32-bit counter may have wrapped more than once in between
+         */
+        private Duration maxInterval = Duration.ofMinutes(30);
+
+        /**
+         * Where samples are stored: {@code interface_samples} in the database, or the embedded
+         * segment files under {@code segments.directory}
+         */
+        private Storage storage = Storage.DATABASE;
+
+        private Recent recent = new Recent();
+
+        private Segments segments = new Segments();
+
+        public enum Storage {
+            DATABASE, SEGMENTS
+        }
+
+        @Getter
+        @Setter
+        public static class Recent {
+
+            /**
+             * Keep the latest points of every polled counter in compressed in-memory ring buffers
+             */
+            private boolean enabled = true;
+
+            /**
+             * History kept per series; up to one block more is held until the oldest block expires
+             */
+            private Duration window = Duration.ofHours(6);
+
+            /**
+             * Span of one compressed block, the unit in which history expires
+             */
+            private Duration block = Duration.ofHours(1);
+
+            /**
+             * Series beyond this many are not buffered; each costs roughly 0.5 KB plus 1-5 bytes per point
+             */
+            private int maxSeries = 1_000_000;
+
+        }
+
+        @Getter
+        @Setter
+        public static class Segments {
+
+            /**
+             * Directory of the write-ahead logs and segment files; must not be shared between instances
+             */
+            private String directory = "data/metrics";
+
+            /**
+             * Time span of one segment file, the unit in which samples are sealed and expire
+             */
+            private Duration partition = Duration.ofHours(1);
+
+            /**
+             * A partition is sealed this long after it ends; samples arriving later are dropped
+             */
+            private Duration sealDelay = Duration.ofMinutes(5);
+
+        }
+
+    }
+
+    @Getter
+    @Setter
+    public static class Rollups {
+
+        /**
+         * Aggregate samples into 1-minute, 5-minute, 1-hour and 1-day buckets and expire old data
+         */
+        private boolean enabled = true;
+
+        /**
+         * Buckets are rolled up this long after they end, so samples still queued for writing have landed
+         */
+        private Duration delay = Duration.ofMinutes(2);
+
+        /**
+         * Upper bound on buckets of one tier rolled up per run, which limits catch-up work after downtime
+         */
+        private int maxBucketsPerRun = 1440;
+
+        /**
+         * Daily sample partitions created ahead of time on PostgreSQL
+         */
+        private int partitionDaysAhead = 2;
+
+        private Duration rawRetention = Duration.ofDays(3);
+
+        private Duration minuteRetention = Duration.ofDays(7);
+
+        private Duration fiveMinuteRetention = Duration.ofDays(35);
+
+        private Duration hourRetention = Duration.ofDays(400);
+
+        private Duration dayRetention = Duration.ofDays(5 * 365);
+
+        /**
+         * Retention of a tier's buckets
+         */
+        public Duration retention(RollupTier tier) {
+            return switch (tier) {
+                case MINUTE -> minuteRetention;
+                case FIVE_MINUTES -> fiveMinuteRetention;
+                case HOUR -> hourRetention;
+                case DAY -> dayRetention;
+            };
+        }
+
+    }
+
+}
@@ -0,0 +1,145 @@
+package com.farukgenc.boilerplate.springboot.controller;
+
+import com.farukgenc.boilerplate.springboot.dto.MetricSeriesDto;
+import com.farukgenc.boilerplate.springboot.model.User;
+import com.farukgenc.boilerplate.springboot.service.metrics.Downsampling;
+import com.farukgenc.boilerplate.springboot.service.metrics.MetricQuery;
+import com.farukgenc.boilerplate.springboot.service.metrics.MetricSeries;
+import com.farukgenc.boilerplate.springboot.service.metrics.MetricsService;
+import com.farukgenc.boilerplate.springboot.utils.SecurityUtils;
+import io.swagger.v3.oas.annotations.Operation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/metrics")
+@RequiredArgsConstructor
+@Tag(name = "Metrics", description = "APIs for querying polled metric history")
+public class MetricsController {
+
+    private final MetricsService metricsService;
+    private final ObjectMapper objectMapper;
+
+    @GetMapping("/recent")
+    @Operation(summary = "Get recent points of a series",
+            description = "Returns a series' points from the in-memory buffers, which cover the last app.snmp.samples.recent.window")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Points retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = MetricSeriesDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid time range"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "404", description = "Device not found")
+    })
+    public ResponseEntity<MetricSeriesDto> getRecentSeries(
+            @Parameter(description = "Device ID") @RequestParam Long deviceId,
+            @Parameter(description = "Interface metric such as in_bps, or the OID of a scalar counter") @RequestParam String metric,
+            @Parameter(description = "Interface ifIndex, 0 for scalars") @RequestParam(defaultValue = "0") int instance,
+            @Parameter(description = "Start of the range, defaults to the start of the window")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "End of the range, defaults to now")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+
+        User user = SecurityUtils.getCurrentUser();
+        MetricSeriesDto series = metricsService.getRecentSeries(deviceId, metric, instance, from, to, user);
+        return ResponseEntity.ok(series);
+    }
+
+    @GetMapping("/history")
+    @Operation(summary = "Get the history of a series",
+            description = "Returns a series at the requested step, read from the coarsest rollup tier (1m, 5m, 1h, 1d) that is no wider than the step and still retains the range; finer steps are served from raw samples")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Points retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = MetricSeriesDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid time range"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "404", description = "Device not found")
+    })
+    public ResponseEntity<MetricSeriesDto> getSeries(
+            @Parameter(description = "Device ID") @RequestParam Long deviceId,
+            @Parameter(description = "Interface metric such as in_bps, or the OID of a scalar counter") @RequestParam String metric,
+            @Parameter(description = "Interface ifIndex, 0 for scalars") @RequestParam(defaultValue = "0") int instance,
+            @Parameter(description = "Start of the range, defaults to an hour before its end")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "End of the range, defaults to now")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Seconds between points, defaults to the range over 500 points")
+            @RequestParam(required = false) Long step) {
+
+        User user = SecurityUtils.getCurrentUser();
+        MetricSeriesDto series = metricsService.getSeries(deviceId, metric, instance, from, to, step, user);
+        return ResponseEntity.ok(series);
+    }
+
+    @GetMapping("/query")
+    @Operation(summary = "Query a range of many series",
+            description = "Returns every selected series (devices x metrics x ifIndexes) downsampled to at most the requested points, read from the rollup tier that fits the range. The JSON array is streamed a series at a time.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Series streamed successfully",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = MetricSeriesDto.class)))),
+            @ApiResponse(responseCode = "400", description = "Invalid selectors, time range or point count"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "404", description = "Device not found")
+    })
+    public ResponseEntity<StreamingResponseBody> query(
+            @Parameter(description = "Device IDs") @RequestParam("deviceId") List<Long> deviceIds,
+            @Parameter(description = "Interface metrics such as in_bps, or OIDs of scalar counters") @RequestParam("metric") List<String> metrics,
+            @Parameter(description = "Interface ifIndexes, defaults to every interface of the device")
+            @RequestParam(name = "ifIndex", required = false) List<Integer> ifIndexes,
+            @Parameter(description = "Start of the range, defaults to an hour before its end")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "End of the range, defaults to now")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Maximum points per series, defaults to 500") @RequestParam(required = false) Integer points,
+            @Parameter(description = "LTTB keeps the shape of the line, MIN_MAX the average, min and max of equal time buckets")
+            @RequestParam(defaultValue = "LTTB") Downsampling downsampling) {
+
+        User user = SecurityUtils.getCurrentUser();
+        MetricQuery query = metricsService.prepareQuery(deviceIds, metrics, ifIndexes, from, to, points, downsampling, user);
+
+        StreamingResponseBody body = outputStream -> {
+            try (SequenceWriter writer = objectMapper.writerFor(MetricSeriesDto.class).writeValuesAsArray(outputStream)) {
+                metricsService.streamQuery(query, series -> {
+                    try {
+                        writer.write(series);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    @GetMapping("/recent/series")
+    @Operation(summary = "List recent series of a device", description = "Lists the series of a device that have buffered points")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Series retrieved successfully"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "404", description = "Device not found")
+    })
+    public ResponseEntity<List<MetricSeries>> getRecentSeriesOfDevice(
+            @Parameter(description = "Device ID") @RequestParam Long deviceId) {
+
+        User user = SecurityUtils.getCurrentUser();
+        List<MetricSeries> series = metricsService.getRecentSeriesOfDevice(deviceId, user);
+        return ResponseEntity.ok(series);
+    }
+}
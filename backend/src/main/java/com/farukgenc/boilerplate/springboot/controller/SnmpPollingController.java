@@ -1,5 +1,6 @@
 package com.farukgenc.boilerplate.springboot.controller;
 
+import com.farukgenc.boilerplate.springboot.service.snmp.RttEstimator;
 import com.farukgenc.boilerplate.springboot.service.snmp.SnmpPollingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -107,6 +108,25 @@ public class SnmpPollingController {
         }
     }
 
+    /**
+     * Get the adaptive timeout state of a device
+     */
+    @GetMapping("/rtt/device/{deviceId}")
+    @PreAuthorize("hasRole('USER')")
+    @Operation(summary = "Get device RTT estimate",
+        description = "Smoothed round-trip time, variance and the timeout/retries derived from them for a device")
+    public ResponseEntity<RttEstimator.Snapshot> getRttEstimate(
+            @Parameter(description = "Device ID", required = true)
+            @PathVariable Long deviceId) {
+        try {
+            return snmpPollingService.getRttEstimate(deviceId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     /**
      * Get SNMP polling statistics
      */
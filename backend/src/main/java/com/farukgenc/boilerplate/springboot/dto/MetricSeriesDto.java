@@ -0,0 +1,29 @@
+package com.farukgenc.boilerplate.springboot.dto;
+
+import lombok.*;
+
+/**
+ * Points of one metric series as parallel arrays; timestamps are epoch milliseconds. Points read
+ * from a rollup tier are bucket averages starting at the timestamp, with the bucket's min and max.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricSeriesDto {
+
+    private Long deviceId;
+    private String metric;
+    private Integer instance;
+
+    /**
+     * {@code raw} or the rollup tier the points were read from, e.g. {@code 5m}
+     */
+    private String resolution;
+
+    private long[] timestamps;
+    private double[] values;
+    private double[] min;
+    private double[] max;
+}
@@ -0,0 +1,47 @@
+package com.farukgenc.boilerplate.springboot.event;
+
+import com.farukgenc.boilerplate.springboot.model.Device;
+import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Event that is published when a device's polling configuration is created, changed or removed
+ */
+@Getter
+public class DeviceConfigChangedEvent extends ApplicationEvent {
+
+    private final Long configId;
+    private final Integer pollInterval;
+    private final boolean pollable;
+    private final boolean neverPolled;
+    private final EventType eventType;
+
+    public DeviceConfigChangedEvent(Object source, Long configId, Integer pollInterval, boolean pollable,
+                                    boolean neverPolled, EventType eventType) {
+        super(source);
+        this.configId = configId;
+        this.pollInterval = pollInterval;
+        this.pollable = pollable;
+        this.neverPolled = neverPolled;
+        this.eventType = eventType;
+    }
+
+    /**
+     * Snapshot of the device's configuration, or {@code null} if the device has none
+     */
+    public static DeviceConfigChangedEvent of(Object source, Device device, EventType eventType) {
+        DeviceConfig config = device.getDeviceConfig();
+        if (config == null || config.getId() == null) {
+            return null;
+        }
+        boolean pollable = Boolean.TRUE.equals(config.getEnabled()) && Boolean.TRUE.equals(device.getMonitoringEnabled());
+        return new DeviceConfigChangedEvent(source, config.getId(), config.getPollInterval(), pollable,
+            config.getLastPollTime() == null, eventType);
+    }
+
+    public enum EventType {
+        SAVED,
+        DELETED
+    }
+}
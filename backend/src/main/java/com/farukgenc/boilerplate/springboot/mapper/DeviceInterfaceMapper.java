@@ -7,20 +7,38 @@ import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
 import org.mapstruct.NullValuePropertyMappingStrategy;
 
+/**
+ * Counters are flattened from the interface's {@code stats} row into the DTO. They are written by
+ * polling only, so DTOs coming in never touch them.
+ */
 @Mapper(componentModel = "spring", nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
 public interface DeviceInterfaceMapper {
 
     @Mapping(source = "device.id", target = "deviceId")
     @Mapping(source = "device.name", target = "deviceName")
+    @Mapping(source = "stats.ifInOctets", target = "ifInOctets")
+    @Mapping(source = "stats.ifInUcastPkts", target = "ifInUcastPkts")
+    @Mapping(source = "stats.ifInNucastPkts", target = "ifInNucastPkts")
+    @Mapping(source = "stats.ifInDiscards", target = "ifInDiscards")
+    @Mapping(source = "stats.ifInErrors", target = "ifInErrors")
+    @Mapping(source = "stats.ifInUnknownProtos", target = "ifInUnknownProtos")
+    @Mapping(source = "stats.ifOutOctets", target = "ifOutOctets")
+    @Mapping(source = "stats.ifOutUcastPkts", target = "ifOutUcastPkts")
+    @Mapping(source = "stats.ifOutNucastPkts", target = "ifOutNucastPkts")
+    @Mapping(source = "stats.ifOutDiscards", target = "ifOutDiscards")
+    @Mapping(source = "stats.ifOutErrors", target = "ifOutErrors")
+    @Mapping(source = "stats.ifOutQLen", target = "ifOutQLen")
     DeviceInterfaceDto toDto(DeviceInterface deviceInterface);
 
     @Mapping(target = "device", ignore = true)
+    @Mapping(target = "stats", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     DeviceInterface toEntity(DeviceInterfaceDto deviceInterfaceDto);
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "device", ignore = true)
+    @Mapping(target = "stats", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     void updateEntity(@MappingTarget DeviceInterface deviceInterface, DeviceInterfaceDto deviceInterfaceDto);
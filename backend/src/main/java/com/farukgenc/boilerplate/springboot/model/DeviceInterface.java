@@ -3,16 +3,19 @@ package com.farukgenc.boilerplate.springboot.model;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 
 /**
- * Device Interface entity representing network interfaces (MIB-2 ifTable)
+ * Device Interface entity representing network interfaces (MIB-2 ifTable).
+ * Holds the descriptive attributes; the counters live in {@link DeviceInterfaceStats}.
  */
 @Getter
 @Setter
 @Entity
+@DynamicUpdate
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,7 +23,8 @@ import java.time.LocalDateTime;
 public class DeviceInterface {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "device_interfaces_seq")
+    @SequenceGenerator(name = "device_interfaces_seq", sequenceName = "device_interfaces_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "if_index", nullable = false)
@@ -53,41 +57,11 @@ public class DeviceInterface {
     @Column(name = "if_last_change")
     private Long ifLastChange;
 
-    @Column(name = "if_in_octets")
-    private Long ifInOctets;
-
-    @Column(name = "if_in_ucast_pkts")
-    private Long ifInUcastPkts;
-
-    @Column(name = "if_in_nucast_pkts")
-    private Long ifInNucastPkts;
-
-    @Column(name = "if_in_discards")
-    private Long ifInDiscards;
-
-    @Column(name = "if_in_errors")
-    private Long ifInErrors;
-
-    @Column(name = "if_in_unknown_protos")
-    private Long ifInUnknownProtos;
-
-    @Column(name = "if_out_octets")
-    private Long ifOutOctets;
-
-    @Column(name = "if_out_ucast_pkts")
-    private Long ifOutUcastPkts;
-
-    @Column(name = "if_out_nucast_pkts")
-    private Long ifOutNucastPkts;
-
-    @Column(name = "if_out_discards")
-    private Long ifOutDiscards;
-
-    @Column(name = "if_out_errors")
-    private Long ifOutErrors;
-
-    @Column(name = "if_out_qlen")
-    private Long ifOutQLen;
+    /**
+     * Counters, written by every poll; see {@link DeviceInterfaceStats}
+     */
+    @OneToOne(mappedBy = "deviceInterface", cascade = CascadeType.ALL, orphanRemoval = true)
+    private DeviceInterfaceStats stats;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "device_id", nullable = false)
@@ -101,6 +75,16 @@ public class DeviceInterface {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    /**
+     * The interface's counters row, created on first use
+     */
+    public DeviceInterfaceStats getOrCreateStats() {
+        if (stats == null) {
+            stats = DeviceInterfaceStats.builder().deviceInterface(this).build();
+        }
+        return stats;
+    }
+
     public enum InterfaceType {
         OTHER, REGULAR1822, HDH1822, DDN_X25, RFC877_X25, ETHERNET_CSMACD,
         ISO88023_CSMACD, ISO88024_TOKENBUS, ISO88025_TOKENRING, ISO88026_MAN,
@@ -0,0 +1,70 @@
+package com.farukgenc.boilerplate.springboot.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Volatile ifTable counters of a {@link DeviceInterface}, kept in a narrow table of their own so a
+ * poll only rewrites this row and leaves the wide interface row alone. Shares the interface's id.
+ */
+@Getter
+@Setter
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "device_interface_stats")
+public class DeviceInterfaceStats {
+
+    @Id
+    @Column(name = "interface_id")
+    private Long id;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "interface_id")
+    private DeviceInterface deviceInterface;
+
+    @Column(name = "if_in_octets")
+    private Long ifInOctets;
+
+    @Column(name = "if_in_ucast_pkts")
+    private Long ifInUcastPkts;
+
+    @Column(name = "if_in_nucast_pkts")
+    private Long ifInNucastPkts;
+
+    @Column(name = "if_in_discards")
+    private Long ifInDiscards;
+
+    @Column(name = "if_in_errors")
+    private Long ifInErrors;
+
+    @Column(name = "if_in_unknown_protos")
+    private Long ifInUnknownProtos;
+
+    @Column(name = "if_out_octets")
+    private Long ifOutOctets;
+
+    @Column(name = "if_out_ucast_pkts")
+    private Long ifOutUcastPkts;
+
+    @Column(name = "if_out_nucast_pkts")
+    private Long ifOutNucastPkts;
+
+    @Column(name = "if_out_discards")
+    private Long ifOutDiscards;
+
+    @Column(name = "if_out_errors")
+    private Long ifOutErrors;
+
+    @Column(name = "if_out_qlen")
+    private Long ifOutQLen;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -20,7 +20,8 @@ import java.time.LocalDateTime;
 public class IcmpProfile {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "icmp_profiles_seq")
+    @SequenceGenerator(name = "icmp_profiles_seq", sequenceName = "icmp_profiles_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "icmp_in_msgs")
@@ -0,0 +1,20 @@
+package com.farukgenc.boilerplate.springboot.model;
+
+import java.util.Locale;
+
+/**
+ * Per-second rates kept for every interface in {@link InterfaceSample}s
+ */
+public enum InterfaceMetric {
+    IN_BPS, OUT_BPS,
+    IN_PPS, OUT_PPS,
+    IN_ERRORS, OUT_ERRORS,
+    IN_DISCARDS, OUT_DISCARDS;
+
+    /**
+     * Name of the metric in series selectors, e.g. {@code in_bps}
+     */
+    public String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
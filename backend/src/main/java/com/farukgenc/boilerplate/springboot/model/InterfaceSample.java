@@ -0,0 +1,116 @@
+package com.farukgenc.boilerplate.springboot.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Counter rates of one interface over one poll interval, ending at {@code sampledAt}. Samples are
+ * append-only and keyed by device, ifIndex and time, so the primary key is the index range scans
+ * of a series walk. They are not tied to the interface row and outlive it. Rates are per second
+ * and stored as {@code real}, which is plenty for graphs and half the size of a double; a rate is
+ * null when the agent did not return its counter or the counter was reset during the interval.
+ * The time index serves the minute rollup, which reads every series of a minute at once.
+ */
+@Getter
+@Setter
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(InterfaceSample.Key.class)
+@Table(name = "interface_samples", indexes = @Index(name = "ix_interface_samples_sampled_at", columnList = "sampled_at"))
+public class InterfaceSample implements Persistable<InterfaceSample.Key> {
+
+    @Id
+    @Column(name = "device_id")
+    private Long deviceId;
+
+    @Id
+    @Column(name = "if_index")
+    private Integer ifIndex;
+
+    @Id
+    @Column(name = "sampled_at")
+    private LocalDateTime sampledAt;
+
+    @Column(name = "interval_ms", nullable = false)
+    private Integer intervalMs;
+
+    @Column(name = "in_bps")
+    private Float inBps;
+
+    @Column(name = "out_bps")
+    private Float outBps;
+
+    @Column(name = "in_pps")
+    private Float inPps;
+
+    @Column(name = "out_pps")
+    private Float outPps;
+
+    @Column(name = "in_errors")
+    private Float inErrors;
+
+    @Column(name = "out_errors")
+    private Float outErrors;
+
+    @Column(name = "in_discards")
+    private Float inDiscards;
+
+    @Column(name = "out_discards")
+    private Float outDiscards;
+
+    public Float get(InterfaceMetric metric) {
+        return switch (metric) {
+            case IN_BPS -> inBps;
+            case OUT_BPS -> outBps;
+            case IN_PPS -> inPps;
+            case OUT_PPS -> outPps;
+            case IN_ERRORS -> inErrors;
+            case OUT_ERRORS -> outErrors;
+            case IN_DISCARDS -> inDiscards;
+            case OUT_DISCARDS -> outDiscards;
+        };
+    }
+
+    public void set(InterfaceMetric metric, Float rate) {
+        switch (metric) {
+            case IN_BPS -> inBps = rate;
+            case OUT_BPS -> outBps = rate;
+            case IN_PPS -> inPps = rate;
+            case OUT_PPS -> outPps = rate;
+            case IN_ERRORS -> inErrors = rate;
+            case OUT_ERRORS -> outErrors = rate;
+            case IN_DISCARDS -> inDiscards = rate;
+            case OUT_DISCARDS -> outDiscards = rate;
+        }
+    }
+
+    @Override
+    public Key getId() {
+        return new Key(deviceId, ifIndex, sampledAt);
+    }
+
+    /**
+     * Samples are only ever inserted, so saving one never has to look it up first
+     */
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+
+        private Long deviceId;
+        private Integer ifIndex;
+        private LocalDateTime sampledAt;
+    }
+}
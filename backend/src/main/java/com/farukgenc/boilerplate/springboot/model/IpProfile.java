@@ -3,6 +3,7 @@ package com.farukgenc.boilerplate.springboot.model;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
@@ -13,6 +14,7 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 @Entity
+@DynamicUpdate
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,7 +22,8 @@ import java.time.LocalDateTime;
 public class IpProfile {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ip_profiles_seq")
+    @SequenceGenerator(name = "ip_profiles_seq", sequenceName = "ip_profiles_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "ip_forwarding")
@@ -0,0 +1,88 @@
+package com.farukgenc.boilerplate.springboot.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Aggregate of one metric series over one bucket of a {@link RollupTier}. Series are named as in
+ * the recent metrics buffers: interface rates by {@link InterfaceMetric#key()} with the ifIndex as
+ * instance, the per-second rates of scalar counters by OID with instance 0. The primary key leads with the series, so a
+ * query of one series and tier reads one contiguous index range; the tier and bucket index serves
+ * the rollup and retention passes. Rollups are written once, when their bucket is complete.
+ */
+@Getter
+@Setter
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(MetricRollup.Key.class)
+@Table(name = "metric_rollups", indexes = @Index(name = "ix_metric_rollups_tier_bucket", columnList = "tier, bucket_start"))
+public class MetricRollup implements Persistable<MetricRollup.Key> {
+
+    @Id
+    @Column(name = "device_id")
+    private Long deviceId;
+
+    @Id
+    @Column(name = "metric", length = 64)
+    private String metric;
+
+    @Id
+    @Column(name = "instance")
+    private Integer instance;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tier", length = 16)
+    private RollupTier tier;
+
+    @Id
+    @Column(name = "bucket_start")
+    private LocalDateTime bucketStart;
+
+    @Column(name = "min_value", nullable = false)
+    private Double min;
+
+    @Column(name = "max_value", nullable = false)
+    private Double max;
+
+    @Column(name = "avg_value", nullable = false)
+    private Double avg;
+
+    @Column(name = "last_value", nullable = false)
+    private Double last;
+
+    @Column(name = "sample_count", nullable = false)
+    private Integer count;
+
+    @Override
+    public Key getId() {
+        return new Key(deviceId, metric, instance, tier, bucketStart);
+    }
+
+    /**
+     * Rollups are only ever inserted, so saving one never has to look it up first
+     */
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+
+        private Long deviceId;
+        private String metric;
+        private Integer instance;
+        private RollupTier tier;
+        private LocalDateTime bucketStart;
+    }
+}
@@ -25,7 +25,8 @@ import java.util.List;
 public class MibObject {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "mib_objects_seq")
+    @SequenceGenerator(name = "mib_objects_seq", sequenceName = "mib_objects_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -0,0 +1,28 @@
+package com.farukgenc.boilerplate.springboot.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * How far a {@link RollupTier} has been rolled up: every bucket starting before
+ * {@code rolledUpTo} is written. Advanced in the same transaction as the bucket's rollups.
+ */
+@Getter
+@Setter
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "metric_rollup_progress")
+public class RollupProgress {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tier", length = 16)
+    private RollupTier tier;
+
+    @Column(name = "rolled_up_to", nullable = false)
+    private LocalDateTime rolledUpTo;
+}
@@ -0,0 +1,63 @@
+package com.farukgenc.boilerplate.springboot.model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Resolutions polled metrics are rolled up to, finest first. Each tier is built from the one
+ * before it, the minute tier from the raw samples. Buckets are aligned to the local clock, so
+ * day buckets start at local midnight.
+ */
+public enum RollupTier {
+
+    MINUTE(Duration.ofMinutes(1), "1m"),
+    FIVE_MINUTES(Duration.ofMinutes(5), "5m"),
+    HOUR(Duration.ofHours(1), "1h"),
+    DAY(Duration.ofDays(1), "1d");
+
+    private final Duration width;
+    private final String label;
+
+    RollupTier(Duration width, String label) {
+        this.width = width;
+        this.label = label;
+    }
+
+    public Duration width() {
+        return width;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    /**
+     * Tier this one is aggregated from, {@code null} for the minute tier which reads raw samples
+     */
+    public RollupTier source() {
+        return ordinal() == 0 ? null : values()[ordinal() - 1];
+    }
+
+    /**
+     * Start of the bucket holding {@code time}
+     */
+    public LocalDateTime bucketStart(LocalDateTime time) {
+        long seconds = width.toSeconds();
+        long epochSecond = time.toEpochSecond(ZoneOffset.UTC);
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochSecond, seconds) * seconds, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Coarsest tier whose buckets are no wider than {@code step}, {@code null} when raw samples are needed
+     */
+    public static RollupTier forStep(Duration step) {
+        RollupTier tier = null;
+        for (RollupTier candidate : values()) {
+            if (candidate.width.compareTo(step) <= 0) {
+                tier = candidate;
+            }
+        }
+        return tier;
+    }
+}
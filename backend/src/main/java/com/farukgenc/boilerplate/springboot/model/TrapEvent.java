@@ -20,7 +20,8 @@ import java.time.LocalDateTime;
 public class TrapEvent {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "trap_events_seq")
+    @SequenceGenerator(name = "trap_events_seq", sequenceName = "trap_events_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "source_ip", nullable = false)
@@ -20,7 +20,8 @@ import java.time.LocalDateTime;
 public class UdpProfile {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "udp_profiles_seq")
+    @SequenceGenerator(name = "udp_profiles_seq", sequenceName = "udp_profiles_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "udp_in_datagrams")
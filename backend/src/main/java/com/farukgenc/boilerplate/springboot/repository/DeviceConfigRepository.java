@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -41,4 +42,13 @@ public interface DeviceConfigRepository extends JpaRepository<DeviceConfig, Long
 
     @Query("SELECT dc FROM DeviceConfig dc LEFT JOIN FETCH dc.device LEFT JOIN FETCH dc.device.user WHERE dc.enabled = true")
     List<DeviceConfig> findByEnabledTrueWithDevice();
+
+    @Query("SELECT dc FROM DeviceConfig dc JOIN FETCH dc.device WHERE dc.id = :id")
+    Optional<DeviceConfig> findByIdWithDevice(@Param("id") Long id);
+
+    @Query("SELECT dc FROM DeviceConfig dc JOIN FETCH dc.device WHERE dc.id IN :ids")
+    List<DeviceConfig> findAllByIdWithDevice(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT dc FROM DeviceConfig dc JOIN FETCH dc.device WHERE dc.device.id = :deviceId")
+    Optional<DeviceConfig> findByDeviceIdWithDevice(@Param("deviceId") Long deviceId);
 }
@@ -2,6 +2,7 @@ package com.farukgenc.boilerplate.springboot.repository;
 
 import com.farukgenc.boilerplate.springboot.model.Device;
 import com.farukgenc.boilerplate.springboot.model.DeviceInterface;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,24 +11,36 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * List queries fetch each interface's counters in the same query; without the entity graph
+ * Hibernate would load the {@code stats} one-to-one with a separate select per interface.
+ */
 @Repository
 public interface DeviceInterfaceRepository extends JpaRepository<DeviceInterface, Long> {
 
+    @EntityGraph(attributePaths = "stats")
     List<DeviceInterface> findByDevice(Device device);
     
+    @EntityGraph(attributePaths = "stats")
     List<DeviceInterface> findByDeviceId(Long deviceId);
 
     Optional<DeviceInterface> findByDeviceAndIfIndex(Device device, Integer ifIndex);
     
     Optional<DeviceInterface> findByDeviceIdAndIfIndex(Long deviceId, Integer ifIndex);
 
+    @EntityGraph(attributePaths = "stats")
     List<DeviceInterface> findByDeviceAndIfAdminStatus(Device device, DeviceInterface.InterfaceStatus status);
 
+    @EntityGraph(attributePaths = "stats")
     List<DeviceInterface> findByDeviceAndIfOperStatus(Device device, DeviceInterface.InterfaceStatus status);
 
+    @EntityGraph(attributePaths = "stats")
     @Query("SELECT di FROM DeviceInterface di WHERE di.device = :device AND di.ifDescr LIKE %:description%")
     List<DeviceInterface> findByDeviceAndIfDescrContaining(@Param("device") Device device, @Param("description") String description);
 
+    @Query("SELECT di.ifIndex FROM DeviceInterface di WHERE di.device.id = :deviceId ORDER BY di.ifIndex")
+    List<Integer> findIfIndexesByDeviceId(@Param("deviceId") Long deviceId);
+
     @Query("SELECT COUNT(di) FROM DeviceInterface di WHERE di.device = :device")
     Long countByDevice(@Param("device") Device device);
 
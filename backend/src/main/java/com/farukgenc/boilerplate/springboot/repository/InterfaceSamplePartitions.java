@@ -0,0 +1,163 @@
+package com.farukgenc.boilerplate.springboot.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Time partitioning of {@code interface_samples}, so expired samples are dropped a day at a time
+ * instead of row by row. On PostgreSQL the table Hibernate created is turned into a table
+ * partitioned by range of {@code sampled_at} the first time {@link #prepare} runs: the existing
+ * table becomes the partition of everything before tomorrow, and one partition per day is created
+ * ahead from there. Dropping a partition removes its rows and index entries without leaving dead
+ * tuples for vacuum.
+ * <p>
+ * A {@code DEFAULT} partition catches samples no daily partition covers yet, e.g. when the
+ * scheduled {@link #prepare} has not run since midnight, so such inserts never fail. Its rows are
+ * moved into the daily partition once that is created, and expire with the other samples.
+ * <p>
+ * Other databases keep a plain table, and {@link #dropBefore} falls back to a single ranged
+ * {@code DELETE}.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class InterfaceSamplePartitions {
+
+    private static final String TABLE = "interface_samples";
+    private static final String LEGACY_PARTITION = TABLE + "_legacy";
+    private static final String DEFAULT_PARTITION = TABLE + "_default";
+    private static final DateTimeFormatter DAY_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final DateTimeFormatter BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean postgres;
+
+    /**
+     * Partitions the table if it is not yet, and creates the daily partitions up to
+     * {@code daysAhead} days after {@code today}
+     */
+    @Transactional
+    public void prepare(LocalDate today, int daysAhead) {
+        if (!isPostgres()) {
+            return;
+        }
+        String kind = jdbcTemplate.queryForObject(
+            "SELECT (SELECT relkind::text FROM pg_class WHERE oid = to_regclass(?))", String.class, TABLE);
+        if (kind == null) {
+            return;
+        }
+        if ("r".equals(kind)) {
+            partition(today.plusDays(1));
+        }
+
+        LocalDate day = partitions().stream()
+            .map(Partition::upperBound)
+            .max(LocalDateTime::compareTo)
+            .map(LocalDateTime::toLocalDate)
+            .orElse(today);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + DEFAULT_PARTITION + " PARTITION OF " + TABLE + " DEFAULT");
+        for (; !day.isAfter(today.plusDays(daysAhead)); day = day.plusDays(1)) {
+            createDay(day);
+        }
+    }
+
+    /**
+     * Removes the samples taken before {@code cutoff}. On PostgreSQL only whole partitions are
+     * dropped, so samples of the partition holding the cutoff stay until the next day.
+     *
+     * @return the number of partitions dropped, or of rows deleted on other databases
+     */
+    @Transactional
+    public int dropBefore(LocalDateTime cutoff) {
+        if (!isPostgres()) {
+            return jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE sampled_at < ?", cutoff);
+        }
+        jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE sampled_at < ?", cutoff);
+        int dropped = 0;
+        for (Partition partition : partitions()) {
+            if (!partition.upperBound().isAfter(cutoff)) {
+                jdbcTemplate.execute("DROP TABLE " + partition.name());
+                log.info("Dropped sample partition {}", partition.name());
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Creates the partition of one day. Samples of that day already caught by the default
+     * partition are moved into it first, since PostgreSQL refuses a partition whose range
+     * overlaps rows of the default partition.
+     */
+    private void createDay(LocalDate day) {
+        String name = TABLE + "_p" + day.format(DAY_SUFFIX);
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime to = day.plusDays(1).atStartOfDay();
+        String bounds = " FOR VALUES FROM ('" + from.format(BOUND) + "') TO ('" + to.format(BOUND) + "')";
+        Integer stray = jdbcTemplate.queryForObject("SELECT count(*) FROM " + DEFAULT_PARTITION
+            + " WHERE sampled_at >= ? AND sampled_at < ?", Integer.class, from, to);
+        if (stray == null || stray == 0) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF " + TABLE + bounds);
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE " + TABLE + " INCLUDING DEFAULTS)");
+        jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION + " WHERE sampled_at >= ? AND sampled_at < ? RETURNING *) "
+            + "INSERT INTO " + name + " SELECT * FROM moved", from, to);
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + name + bounds);
+        log.info("Moved {} samples from {} into {}", stray, DEFAULT_PARTITION, name);
+    }
+
+    private void partition(LocalDate until) {
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + LEGACY_PARTITION);
+        jdbcTemplate.execute("ALTER TABLE " + LEGACY_PARTITION + " RENAME CONSTRAINT " + TABLE + "_pkey TO " + LEGACY_PARTITION + "_pkey");
+        jdbcTemplate.execute("ALTER INDEX IF EXISTS ix_" + TABLE + "_sampled_at RENAME TO ix_" + LEGACY_PARTITION + "_sampled_at");
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + " (LIKE " + LEGACY_PARTITION + " INCLUDING DEFAULTS) PARTITION BY RANGE (sampled_at)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD PRIMARY KEY (device_id, if_index, sampled_at)");
+        jdbcTemplate.execute("CREATE INDEX ix_" + TABLE + "_sampled_at ON " + TABLE + " (sampled_at)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + LEGACY_PARTITION
+            + " FOR VALUES FROM (MINVALUE) TO ('" + until.atStartOfDay().format(BOUND) + "')");
+        jdbcTemplate.execute("CREATE TABLE " + DEFAULT_PARTITION + " PARTITION OF " + TABLE + " DEFAULT");
+        log.info("Partitioned {} by day; existing samples are kept in {}", TABLE, LEGACY_PARTITION);
+    }
+
+    private List<Partition> partitions() {
+        List<Partition> partitions = new ArrayList<>();
+        jdbcTemplate.query("SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) FROM pg_inherits i "
+                + "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = to_regclass(?)",
+            row -> {
+                Matcher matcher = UPPER_BOUND.matcher(row.getString(2));
+                if (matcher.find()) {
+                    partitions.add(new Partition(row.getString(1), LocalDateTime.parse(matcher.group(1), BOUND)));
+                }
+            }, TABLE);
+        return partitions;
+    }
+
+    private boolean isPostgres() {
+        Boolean current = postgres;
+        if (current == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+            current = "PostgreSQL".equalsIgnoreCase(product);
+            postgres = current;
+        }
+        return current;
+    }
+
+    private record Partition(String name, LocalDateTime upperBound) {
+    }
+}
@@ -0,0 +1,29 @@
+package com.farukgenc.boilerplate.springboot.repository;
+
+import com.farukgenc.boilerplate.springboot.model.InterfaceSample;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Range scans follow the primary key (device, ifIndex, time), so they read one contiguous index range
+ */
+@Repository
+public interface InterfaceSampleRepository extends JpaRepository<InterfaceSample, InterfaceSample.Key> {
+
+    List<InterfaceSample> findByDeviceIdAndIfIndexAndSampledAtBetweenOrderBySampledAt(
+        Long deviceId, Integer ifIndex, LocalDateTime from, LocalDateTime to);
+
+    List<InterfaceSample> findByDeviceIdAndSampledAtBetweenOrderByIfIndexAscSampledAtAsc(
+        Long deviceId, LocalDateTime from, LocalDateTime to);
+
+    List<InterfaceSample> findBySampledAtGreaterThanEqualAndSampledAtLessThan(LocalDateTime from, LocalDateTime to);
+
+    @Query("SELECT MIN(s.sampledAt) FROM InterfaceSample s WHERE s.sampledAt >= :from")
+    Optional<LocalDateTime> findOldestSampledAtFrom(@Param("from") LocalDateTime from);
+}
@@ -0,0 +1,37 @@
+package com.farukgenc.boilerplate.springboot.repository;
+
+import com.farukgenc.boilerplate.springboot.model.MetricRollup;
+import com.farukgenc.boilerplate.springboot.model.RollupTier;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Series queries follow the primary key (device, metric, instance, tier, time); rollup and
+ * retention passes use the (tier, time) index
+ */
+@Repository
+public interface MetricRollupRepository extends JpaRepository<MetricRollup, MetricRollup.Key> {
+
+    List<MetricRollup> findByDeviceIdAndMetricAndInstanceAndTierAndBucketStartBetweenOrderByBucketStart(
+        Long deviceId, String metric, Integer instance, RollupTier tier, LocalDateTime from, LocalDateTime to);
+
+    List<MetricRollup> findByTierAndBucketStartGreaterThanEqualAndBucketStartLessThan(
+        RollupTier tier, LocalDateTime from, LocalDateTime to);
+
+    @Query("SELECT MIN(r.bucketStart) FROM MetricRollup r WHERE r.tier = :tier AND r.bucketStart >= :from")
+    Optional<LocalDateTime> findOldestBucketStartFrom(@Param("tier") RollupTier tier, @Param("from") LocalDateTime from);
+
+    /**
+     * Drops a tier's buckets older than its retention with one statement
+     */
+    @Modifying
+    @Query("DELETE FROM MetricRollup r WHERE r.tier = :tier AND r.bucketStart < :before")
+    int deleteExpired(@Param("tier") RollupTier tier, @Param("before") LocalDateTime before);
+}
@@ -0,0 +1,404 @@
+package com.farukgenc.boilerplate.springboot.repository;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import com.farukgenc.boilerplate.springboot.model.DeviceInterface;
+import com.farukgenc.boilerplate.springboot.model.DeviceInterfaceStats;
+import com.farukgenc.boilerplate.springboot.model.IpProfile;
+import com.farukgenc.boilerplate.springboot.model.SystemUnit;
+import com.farukgenc.boilerplate.springboot.model.UdpProfile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.stereotype.Repository;
+
+import java.sql.JDBCType;
+import java.sql.Types;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk upserts of polled rows keyed by their natural key, so poll results can be stored without
+ * JPA's load, mutate, flush cycle. Each call writes every given row with one multi-row
+ * statement (per chunk of {@value #MAX_PARAMETERS} bind parameters):
+ * {@code INSERT ... ON CONFLICT DO UPDATE} on PostgreSQL and {@code MERGE} on H2. The dialect is
+ * picked from the connection; other databases are not supported and {@link #isEnabled()} tells
+ * callers to fall back to JPA.
+ * <p>
+ * Like the JPA updaters, a null value means the agent did not return it and keeps the stored
+ * one. A matched row is only rewritten when one of its values differs, so unchanged rows keep
+ * their {@code updated_at}. New rows take their id straight from the entity's sequence, so they
+ * never collide with the blocks Hibernate's pooled optimizer hands out; on PostgreSQL the sequence
+ * is advanced for conflicting rows too, which only leaves gaps. PostgreSQL needs a unique index on
+ * each natural key, created by {@code db/poll-upsert-postgresql.sql}.
+ */
+@Slf4j
+@Repository
+public class PollUpsertRepository {
+
+    private static final int MAX_PARAMETERS = 30_000;
+
+    enum Dialect { POSTGRESQL, H2, UNSUPPORTED }
+
+    private static final Table<DeviceInterface> INTERFACES = new Table<>("device_interfaces", "device_interfaces_seq", true,
+        List.of(
+            Column.of("device_id", Types.BIGINT, deviceInterface -> deviceInterface.getDevice().getId()),
+            Column.of("if_index", Types.INTEGER, DeviceInterface::getIfIndex)),
+        List.of(
+            Column.of("if_descr", Types.VARCHAR, DeviceInterface::getIfDescr),
+            Column.of("if_type", Types.VARCHAR, deviceInterface -> name(deviceInterface.getIfType())),
+            Column.of("if_mtu", Types.INTEGER, DeviceInterface::getIfMtu),
+            Column.of("if_speed", Types.BIGINT, DeviceInterface::getIfSpeed),
+            Column.of("if_phys_address", Types.VARCHAR, DeviceInterface::getIfPhysAddress),
+            Column.of("if_admin_status", Types.VARCHAR, deviceInterface -> name(deviceInterface.getIfAdminStatus())),
+            Column.of("if_oper_status", Types.VARCHAR, deviceInterface -> name(deviceInterface.getIfOperStatus())),
+            Column.of("if_last_change", Types.BIGINT, DeviceInterface::getIfLastChange)));
+
+    // Keyed by the interface's id, looked up by natural key so the interfaces' ids never have to be read back
+    private static final Table<DeviceInterfaceStats> INTERFACE_STATS = new Table<>("device_interface_stats", null, false,
+        List.of(new Column<>("interface_id", Types.BIGINT,
+            "(SELECT id FROM device_interfaces WHERE device_id = ? AND if_index = ?)",
+            List.of(stats -> stats.getDeviceInterface().getDevice().getId(), stats -> stats.getDeviceInterface().getIfIndex()),
+            List.of(Types.BIGINT, Types.INTEGER))),
+        List.of(
+            Column.of("if_in_octets", Types.BIGINT, DeviceInterfaceStats::getIfInOctets),
+            Column.of("if_in_ucast_pkts", Types.BIGINT, DeviceInterfaceStats::getIfInUcastPkts),
+            Column.of("if_in_nucast_pkts", Types.BIGINT, DeviceInterfaceStats::getIfInNucastPkts),
+            Column.of("if_in_discards", Types.BIGINT, DeviceInterfaceStats::getIfInDiscards),
+            Column.of("if_in_errors", Types.BIGINT, DeviceInterfaceStats::getIfInErrors),
+            Column.of("if_in_unknown_protos", Types.BIGINT, DeviceInterfaceStats::getIfInUnknownProtos),
+            Column.of("if_out_octets", Types.BIGINT, DeviceInterfaceStats::getIfOutOctets),
+            Column.of("if_out_ucast_pkts", Types.BIGINT, DeviceInterfaceStats::getIfOutUcastPkts),
+            Column.of("if_out_nucast_pkts", Types.BIGINT, DeviceInterfaceStats::getIfOutNucastPkts),
+            Column.of("if_out_discards", Types.BIGINT, DeviceInterfaceStats::getIfOutDiscards),
+            Column.of("if_out_errors", Types.BIGINT, DeviceInterfaceStats::getIfOutErrors),
+            Column.of("if_out_qlen", Types.BIGINT, DeviceInterfaceStats::getIfOutQLen)));
+
+    private static final Table<SystemUnit> SYSTEM_UNITS = new Table<>("system_units", "system_units_seq", true,
+        List.of(
+            Column.of("device_id", Types.BIGINT, systemUnit -> systemUnit.getDevice().getId()),
+            Column.of("unit_index", Types.INTEGER, SystemUnit::getUnitIndex)),
+        List.of(
+            Column.of("unit_name", Types.VARCHAR, SystemUnit::getUnitName),
+            Column.of("unit_description", Types.VARCHAR, SystemUnit::getUnitDescription),
+            Column.of("unit_type", Types.VARCHAR, SystemUnit::getUnitType),
+            Column.of("unit_hw_version", Types.VARCHAR, SystemUnit::getUnitHwVersion),
+            Column.of("unit_fw_version", Types.VARCHAR, SystemUnit::getUnitFwVersion),
+            Column.of("unit_sw_version", Types.VARCHAR, SystemUnit::getUnitSwVersion),
+            Column.of("unit_serial_number", Types.VARCHAR, SystemUnit::getUnitSerialNumber),
+            Column.of("unit_mfg_name", Types.VARCHAR, SystemUnit::getUnitMfgName),
+            Column.of("unit_model_name", Types.VARCHAR, SystemUnit::getUnitModelName),
+            Column.of("unit_alias", Types.VARCHAR, SystemUnit::getUnitAlias),
+            Column.of("unit_asset_id", Types.VARCHAR, SystemUnit::getUnitAssetId),
+            Column.of("unit_is_fru", Types.BOOLEAN, SystemUnit::getUnitIsFru),
+            Column.of("unit_mfg_date", Types.TIMESTAMP, SystemUnit::getUnitMfgDate),
+            Column.of("unit_uris", Types.VARCHAR, SystemUnit::getUnitUris)));
+
+    private static final Table<IpProfile> IP_PROFILES = new Table<>("ip_profiles", "ip_profiles_seq", true,
+        List.of(Column.of("device_id", Types.BIGINT, ipProfile -> ipProfile.getDevice().getId())),
+        List.of(
+            Column.of("ip_forwarding", Types.BOOLEAN, IpProfile::getIpForwarding),
+            Column.of("ip_default_ttl", Types.INTEGER, IpProfile::getIpDefaultTTL),
+            Column.of("ip_in_receives", Types.BIGINT, IpProfile::getIpInReceives),
+            Column.of("ip_in_hdr_errors", Types.BIGINT, IpProfile::getIpInHdrErrors),
+            Column.of("ip_in_addr_errors", Types.BIGINT, IpProfile::getIpInAddrErrors),
+            Column.of("ip_forw_datagrams", Types.BIGINT, IpProfile::getIpForwDatagrams),
+            Column.of("ip_in_unknown_protos", Types.BIGINT, IpProfile::getIpInUnknownProtos),
+            Column.of("ip_in_discards", Types.BIGINT, IpProfile::getIpInDiscards),
+            Column.of("ip_in_delivers", Types.BIGINT, IpProfile::getIpInDelivers),
+            Column.of("ip_out_requests", Types.BIGINT, IpProfile::getIpOutRequests),
+            Column.of("ip_out_discards", Types.BIGINT, IpProfile::getIpOutDiscards),
+            Column.of("ip_out_no_routes", Types.BIGINT, IpProfile::getIpOutNoRoutes),
+            Column.of("ip_reasm_timeout", Types.INTEGER, IpProfile::getIpReasmTimeout),
+            Column.of("ip_reasm_reqds", Types.BIGINT, IpProfile::getIpReasmReqds),
+            Column.of("ip_reasm_oks", Types.BIGINT, IpProfile::getIpReasmOKs),
+            Column.of("ip_reasm_fails", Types.BIGINT, IpProfile::getIpReasmFails),
+            Column.of("ip_frag_oks", Types.BIGINT, IpProfile::getIpFragOKs),
+            Column.of("ip_frag_fails", Types.BIGINT, IpProfile::getIpFragFails),
+            Column.of("ip_frag_creates", Types.BIGINT, IpProfile::getIpFragCreates),
+            Column.of("ip_address", Types.VARCHAR, IpProfile::getIpAddress),
+            Column.of("ip_subnet_mask", Types.VARCHAR, IpProfile::getIpSubnetMask),
+            Column.of("ip_broadcast_addr", Types.VARCHAR, IpProfile::getIpBroadcastAddr)));
+
+    private static final Table<UdpProfile> UDP_PROFILES = new Table<>("udp_profiles", "udp_profiles_seq", true,
+        List.of(Column.of("device_id", Types.BIGINT, udpProfile -> udpProfile.getDevice().getId())),
+        List.of(
+            Column.of("udp_in_datagrams", Types.BIGINT, UdpProfile::getUdpInDatagrams),
+            Column.of("udp_no_ports", Types.BIGINT, UdpProfile::getUdpNoPorts),
+            Column.of("udp_in_errors", Types.BIGINT, UdpProfile::getUdpInErrors),
+            Column.of("udp_out_datagrams", Types.BIGINT, UdpProfile::getUdpOutDatagrams),
+            Column.of("udp_local_address", Types.VARCHAR, UdpProfile::getUdpLocalAddress),
+            Column.of("udp_local_port", Types.INTEGER, UdpProfile::getUdpLocalPort),
+            Column.of("udp_remote_address", Types.VARCHAR, UdpProfile::getUdpRemoteAddress),
+            Column.of("udp_remote_port", Types.INTEGER, UdpProfile::getUdpRemotePort),
+            Column.of("udp_entry_status", Types.VARCHAR, udpProfile -> name(udpProfile.getUdpEntryStatus()))));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean nativeUpsert;
+    private volatile Dialect dialect;
+
+    public PollUpsertRepository(JdbcTemplate jdbcTemplate, SnmpProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nativeUpsert = properties.getPipeline().isNativeUpsert();
+    }
+
+    /**
+     * True when native upserts are switched on and the database supports them
+     */
+    public boolean isEnabled() {
+        return nativeUpsert && dialect() != Dialect.UNSUPPORTED;
+    }
+
+    /**
+     * Upserts interfaces by device and ifIndex, then the counters of those that have a stats row
+     *
+     * @return rows inserted or changed in either table
+     */
+    public int upsertInterfaces(Collection<DeviceInterface> interfaces) {
+        List<DeviceInterfaceStats> stats = interfaces.stream()
+            .map(DeviceInterface::getStats)
+            .filter(Objects::nonNull)
+            .toList();
+        return upsert(INTERFACES, interfaces) + upsertInterfaceStats(stats);
+    }
+
+    /**
+     * Upserts the counters of interfaces that are already stored, found by device and ifIndex
+     *
+     * @return stats rows inserted or changed
+     */
+    public int upsertInterfaceStats(Collection<DeviceInterfaceStats> stats) {
+        return upsert(INTERFACE_STATS, stats);
+    }
+
+    /**
+     * Upserts physical entities by device and entPhysicalIndex
+     */
+    public int upsertSystemUnits(Collection<SystemUnit> systemUnits) {
+        return upsert(SYSTEM_UNITS, systemUnits);
+    }
+
+    /**
+     * Upserts IP profiles, one per device
+     */
+    public int upsertIpProfiles(Collection<IpProfile> ipProfiles) {
+        return upsert(IP_PROFILES, ipProfiles);
+    }
+
+    /**
+     * Upserts UDP profiles, one per device
+     */
+    public int upsertUdpProfiles(Collection<UdpProfile> udpProfiles) {
+        return upsert(UDP_PROFILES, udpProfiles);
+    }
+
+    /**
+     * Deletes a device's interfaces, and their counters, other than the given ones. Does nothing
+     * when none are given, like an empty poll leaves the stored interfaces alone.
+     *
+     * @return interfaces deleted
+     */
+    public int deleteInterfacesExcept(Long deviceId, Collection<Integer> ifIndexes) {
+        if (ifIndexes.isEmpty()) {
+            return 0;
+        }
+        Object[] parameters = keepParameters(deviceId, ifIndexes);
+        String stale = "device_id = ? AND if_index NOT IN (" + placeholders(ifIndexes.size()) + ")";
+        jdbcTemplate.update("DELETE FROM device_interface_stats WHERE interface_id IN "
+            + "(SELECT id FROM device_interfaces WHERE " + stale + ")", parameters);
+        return jdbcTemplate.update("DELETE FROM device_interfaces WHERE " + stale, parameters);
+    }
+
+    /**
+     * Deletes a device's physical entities other than the given ones; does nothing when none are given
+     *
+     * @return entities deleted
+     */
+    public int deleteSystemUnitsExcept(Long deviceId, Collection<Integer> unitIndexes) {
+        if (unitIndexes.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update("DELETE FROM system_units WHERE device_id = ? AND unit_index NOT IN ("
+            + placeholders(unitIndexes.size()) + ")", keepParameters(deviceId, unitIndexes));
+    }
+
+    private <E> int upsert(Table<E> table, Collection<E> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        // A statement may not touch the same row twice; the last row given for a key wins
+        Map<List<Object>, E> byKey = new LinkedHashMap<>();
+        for (E row : rows) {
+            byKey.put(table.key(row), row);
+        }
+        List<E> unique = new ArrayList<>(byKey.values());
+
+        Dialect dialect = dialect();
+        int perStatement = Math.max(1, MAX_PARAMETERS / table.parameterCount());
+        int written = 0;
+        for (int from = 0; from < unique.size(); from += perStatement) {
+            List<E> chunk = unique.subList(from, Math.min(unique.size(), from + perStatement));
+            String sql = dialect == Dialect.POSTGRESQL ? postgresSql(table, chunk.size()) : mergeSql(table, chunk.size());
+            written += jdbcTemplate.update(sql, table.parameters(chunk));
+        }
+        log.debug("Upserted {} rows into {}, {} inserted or changed", unique.size(), table.name(), written);
+        return written;
+    }
+
+    /**
+     * {@code INSERT ... ON CONFLICT (key) DO UPDATE ... WHERE changed}
+     */
+    static String postgresSql(Table<?> table, int rows) {
+        String tuple = table.columns().stream()
+            .map(Column::expression)
+            .collect(Collectors.joining(", ",
+                "(" + (table.sequence() != null ? "nextval('" + table.sequence() + "'), " : ""),
+                (table.createdAt() ? ", LOCALTIMESTAMP" : "") + ", LOCALTIMESTAMP)"));
+        return "INSERT INTO " + table.name() + " AS t (" + String.join(", ", table.insertColumns()) + ") VALUES "
+            + String.join(", ", Collections.nCopies(rows, tuple))
+            + " ON CONFLICT (" + names(table.keys()) + ") DO UPDATE SET "
+            + table.values().stream()
+                .map(column -> column.name() + " = COALESCE(EXCLUDED." + column.name() + ", t." + column.name() + ")")
+                .collect(Collectors.joining(", "))
+            + ", updated_at = EXCLUDED.updated_at WHERE " + changedCondition(table, "EXCLUDED");
+    }
+
+    /**
+     * Standard {@code MERGE}, supported by H2; values are cast because H2 cannot type bare parameters in {@code VALUES}
+     */
+    static String mergeSql(Table<?> table, int rows) {
+        String tuple = table.columns().stream()
+            .map(column -> column.expression().equals("?")
+                ? "CAST(? AS " + JDBCType.valueOf(column.sqlType()).getName() + ")"
+                : column.expression())
+            .collect(Collectors.joining(", ", "(", ")"));
+        List<String> inserted = new ArrayList<>();
+        if (table.sequence() != null) {
+            inserted.add("NEXT VALUE FOR " + table.sequence());
+        }
+        table.columns().forEach(column -> inserted.add("s." + column.name()));
+        if (table.createdAt()) {
+            inserted.add("LOCALTIMESTAMP");
+        }
+        inserted.add("LOCALTIMESTAMP");
+
+        return "MERGE INTO " + table.name() + " t USING (VALUES "
+            + String.join(", ", Collections.nCopies(rows, tuple)) + ") AS s(" + names(table.columns()) + ") ON "
+            + table.keys().stream().map(key -> "t." + key.name() + " = s." + key.name()).collect(Collectors.joining(" AND "))
+            + " WHEN MATCHED AND (" + changedCondition(table, "s") + ") THEN UPDATE SET "
+            + table.values().stream()
+                .map(column -> column.name() + " = COALESCE(s." + column.name() + ", t." + column.name() + ")")
+                .collect(Collectors.joining(", "))
+            + ", updated_at = LOCALTIMESTAMP"
+            + " WHEN NOT MATCHED THEN INSERT (" + String.join(", ", table.insertColumns()) + ") VALUES ("
+            + String.join(", ", inserted) + ")";
+    }
+
+    /**
+     * True when a polled value is present and differs from the stored one
+     */
+    private static String changedCondition(Table<?> table, String polled) {
+        return table.values().stream()
+            .map(column -> "t." + column.name() + " IS DISTINCT FROM COALESCE(" + polled + "." + column.name()
+                + ", t." + column.name() + ")")
+            .collect(Collectors.joining(" OR "));
+    }
+
+    private Dialect dialect() {
+        Dialect current = dialect;
+        if (current == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+            current = "PostgreSQL".equalsIgnoreCase(product) ? Dialect.POSTGRESQL
+                : "H2".equalsIgnoreCase(product) ? Dialect.H2
+                : Dialect.UNSUPPORTED;
+            log.info("Poll results are upserted {} on {}", current == Dialect.UNSUPPORTED ? "through JPA" : "natively", product);
+            dialect = current;
+        }
+        return current;
+    }
+
+    private static Object[] keepParameters(Long deviceId, Collection<Integer> indexes) {
+        Object[] parameters = new Object[indexes.size() + 1];
+        parameters[0] = deviceId;
+        int i = 1;
+        for (Integer index : indexes) {
+            parameters[i++] = index;
+        }
+        return parameters;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static String names(List<? extends Column<?>> columns) {
+        return columns.stream().map(Column::name).collect(Collectors.joining(", "));
+    }
+
+    private static String name(Enum<?> value) {
+        return value == null ? null : value.name();
+    }
+
+    /**
+     * A column written by an upsert. Usually bound to one parameter; a key column may instead be
+     * an expression over several.
+     */
+    record Column<E>(String name, int sqlType, String expression, List<Function<E, ?>> values, List<Integer> valueTypes) {
+
+        static <E> Column<E> of(String name, int sqlType, Function<E, ?> value) {
+            return new Column<>(name, sqlType, "?", List.of(value), List.of(sqlType));
+        }
+    }
+
+    /**
+     * A table written by upserts, with the sequence its ids come from ({@code null} if keys are
+     * not generated) and whether it has a {@code created_at} column. Every table has {@code updated_at}.
+     */
+    record Table<E>(String name, String sequence, boolean createdAt, List<Column<E>> keys, List<Column<E>> values) {
+
+        List<Column<E>> columns() {
+            List<Column<E>> columns = new ArrayList<>(keys);
+            columns.addAll(values);
+            return columns;
+        }
+
+        List<String> insertColumns() {
+            List<String> names = new ArrayList<>();
+            if (sequence != null) {
+                names.add("id");
+            }
+            columns().forEach(column -> names.add(column.name()));
+            if (createdAt) {
+                names.add("created_at");
+            }
+            names.add("updated_at");
+            return names;
+        }
+
+        int parameterCount() {
+            return columns().stream().mapToInt(column -> column.values().size()).sum();
+        }
+
+        List<Object> key(E row) {
+            List<Object> key = new ArrayList<>();
+            keys.forEach(column -> column.values().forEach(value -> key.add(value.apply(row))));
+            return key;
+        }
+
+        Object[] parameters(List<E> rows) {
+            List<Column<E>> columns = columns();
+            Object[] parameters = new Object[rows.size() * parameterCount()];
+            int i = 0;
+            for (E row : rows) {
+                for (Column<E> column : columns) {
+                    for (int v = 0; v < column.values().size(); v++) {
+                        parameters[i++] = new SqlParameterValue(column.valueTypes().get(v), column.values().get(v).apply(row));
+                    }
+                }
+            }
+            return parameters;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.farukgenc.boilerplate.springboot.repository;
+
+import com.farukgenc.boilerplate.springboot.model.RollupProgress;
+import com.farukgenc.boilerplate.springboot.model.RollupTier;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RollupProgressRepository extends JpaRepository<RollupProgress, RollupTier> {
+}
@@ -3,6 +3,7 @@ package com.farukgenc.boilerplate.springboot.service.device;
 import com.farukgenc.boilerplate.springboot.dto.DeviceDto;
 import com.farukgenc.boilerplate.springboot.dto.DeviceCreateRequest;
 import com.farukgenc.boilerplate.springboot.dto.DeviceResponse;
+import com.farukgenc.boilerplate.springboot.event.DeviceConfigChangedEvent;
 import com.farukgenc.boilerplate.springboot.mapper.DeviceMapper;
 import com.farukgenc.boilerplate.springboot.model.Device;
 import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
@@ -10,6 +11,7 @@ import com.farukgenc.boilerplate.springboot.model.User;
 import com.farukgenc.boilerplate.springboot.repository.DeviceRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -27,6 +29,7 @@ public class DeviceServiceImpl implements DeviceService {
     private final DeviceRepository deviceRepository;
     private final DeviceMapper deviceMapper;
     private final DeviceMonitoringService deviceMonitoringService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public DeviceDto createDevice(DeviceDto deviceDto, User user) {
@@ -60,6 +63,7 @@ public class DeviceServiceImpl implements DeviceService {
 
         deviceMapper.updateEntity(existingDevice, deviceDto);
         Device updatedDevice = deviceRepository.save(existingDevice);
+        publishConfigChanged(updatedDevice, DeviceConfigChangedEvent.EventType.SAVED);
 
         log.info("Device updated successfully: {}", updatedDevice.getId());
         return deviceMapper.toDto(updatedDevice);
@@ -72,6 +76,7 @@ public class DeviceServiceImpl implements DeviceService {
         Device device = deviceRepository.findByIdAndUser(id, user)
                 .orElseThrow(() -> new IllegalArgumentException("Device not found or access denied"));
 
+        publishConfigChanged(device, DeviceConfigChangedEvent.EventType.DELETED);
         deviceRepository.delete(device);
         log.info("Device deleted successfully: {}", id);
     }
@@ -180,6 +185,7 @@ public class DeviceServiceImpl implements DeviceService {
         device.setDeviceConfig(config);
 
         Device savedDevice = deviceRepository.save(device);
+        publishConfigChanged(savedDevice, DeviceConfigChangedEvent.EventType.SAVED);
         log.info("Device with config created successfully with ID: {}", savedDevice.getId());
 
         return deviceMapper.toResponse(savedDevice);
@@ -227,6 +233,7 @@ public class DeviceServiceImpl implements DeviceService {
         device.setMonitoringEnabled(true);
         device.setStatus(Device.DeviceStatus.ACTIVE);
         device = deviceRepository.save(device);
+        publishConfigChanged(device, DeviceConfigChangedEvent.EventType.SAVED);
 
         log.info("Monitoring enabled and triggered for device: {} ({})", device.getName(),
                 device.getDeviceConfig() != null ? device.getDeviceConfig().getTargetIp() : "N/A");
@@ -238,4 +245,14 @@ public class DeviceServiceImpl implements DeviceService {
             log.error("Error during immediate monitoring trigger for device {}: {}", device.getName(), e.getMessage(), e);
         }
     }
+
+    /**
+     * Lets the poll scheduler pick up the device's configuration once the transaction commits
+     */
+    private void publishConfigChanged(Device device, DeviceConfigChangedEvent.EventType eventType) {
+        DeviceConfigChangedEvent event = DeviceConfigChangedEvent.of(this, device, eventType);
+        if (event != null) {
+            eventPublisher.publishEvent(event);
+        }
+    }
 }
@@ -0,0 +1,105 @@
+package com.farukgenc.boilerplate.springboot.service.metrics;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import com.farukgenc.boilerplate.springboot.model.InterfaceMetric;
+import com.farukgenc.boilerplate.springboot.model.InterfaceSample;
+import com.farukgenc.boilerplate.springboot.repository.InterfaceSamplePartitions;
+import com.farukgenc.boilerplate.springboot.repository.InterfaceSampleRepository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+/**
+ * Samples as rows of {@code interface_samples}, one row per interface and interval with a column
+ * per metric. Expiry goes through {@link InterfaceSamplePartitions}.
+ */
+public class DatabaseSampleStorage implements SampleStorage {
+
+    private final InterfaceSampleRepository interfaceSampleRepository;
+    private final InterfaceSamplePartitions interfaceSamplePartitions;
+    private final int partitionDaysAhead;
+
+    public DatabaseSampleStorage(InterfaceSampleRepository interfaceSampleRepository,
+                                 InterfaceSamplePartitions interfaceSamplePartitions,
+                                 SnmpProperties properties) {
+        this.interfaceSampleRepository = interfaceSampleRepository;
+        this.interfaceSamplePartitions = interfaceSamplePartitions;
+        this.partitionDaysAhead = properties.getRollups().getPartitionDaysAhead();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void write(Collection<InterfaceSample> samples) {
+        interfaceSampleRepository.saveAll(samples);
+    }
+
+    @Override
+    public MetricPoints read(MetricSeries series, LocalDateTime from, LocalDateTime to) {
+        Optional<InterfaceMetric> metric = Arrays.stream(InterfaceMetric.values())
+            .filter(candidate -> candidate.key().equals(series.metric()))
+            .findFirst();
+        if (metric.isEmpty()) {
+            return MetricPoints.empty();
+        }
+
+        MetricPoints.Builder points = MetricPoints.builder();
+        for (InterfaceSample sample : interfaceSampleRepository.findByDeviceIdAndIfIndexAndSampledAtBetweenOrderBySampledAt(
+            series.deviceId(), series.instance(), from, to)) {
+            Float rate = sample.get(metric.get());
+            if (rate != null) {
+                points.add(epochSecond(sample.getSampledAt()), rate);
+            }
+        }
+        return points.build();
+    }
+
+    @Override
+    public void scan(LocalDateTime from, LocalDateTime to, BiConsumer<MetricSeries, MetricPoints> visitor) {
+        List<InterfaceSample> samples = new ArrayList<>(interfaceSampleRepository.findBySampledAtGreaterThanEqualAndSampledAtLessThan(from, to));
+        samples.sort(Comparator.comparing(InterfaceSample::getSampledAt));
+
+        Map<MetricSeries, MetricPoints.Builder> series = new LinkedHashMap<>();
+        for (InterfaceSample sample : samples) {
+            long time = epochSecond(sample.getSampledAt());
+            for (InterfaceMetric metric : InterfaceMetric.values()) {
+                Float rate = sample.get(metric);
+                if (rate != null) {
+                    series.computeIfAbsent(new MetricSeries(sample.getDeviceId(), metric.key(), sample.getIfIndex()),
+                        key -> MetricPoints.builder()).add(time, rate);
+                }
+            }
+        }
+        series.forEach((key, points) -> visitor.accept(key, points.build()));
+    }
+
+    @Override
+    public Optional<LocalDateTime> findOldestFrom(LocalDateTime from) {
+        return interfaceSampleRepository.findOldestSampledAtFrom(from);
+    }
+
+    @Override
+    public void prepare(LocalDate today) {
+        interfaceSamplePartitions.prepare(today, partitionDaysAhead);
+    }
+
+    @Override
+    public int dropBefore(LocalDateTime cutoff) {
+        return interfaceSamplePartitions.dropBefore(cutoff);
+    }
+
+    private static long epochSecond(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+}
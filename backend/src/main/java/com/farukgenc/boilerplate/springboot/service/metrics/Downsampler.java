@@ -0,0 +1,186 @@
+package com.farukgenc.boilerplate.springboot.service.metrics;
+
+import com.farukgenc.boilerplate.springboot.model.MetricRollup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Reduces a series to a number of points for charting. Input and output are {@link Points}:
+ * raw samples have min and max equal to the value, rollups carry their bucket's.
+ */
+final class Downsampler {
+
+    private Downsampler() {
+    }
+
+    /**
+     * Largest-Triangle-Three-Buckets (Steinarsson, 2013): keeps the first and last point and,
+     * from each of {@code threshold - 2} equal-count buckets in between, the point forming the
+     * largest triangle with the point kept before it and the average of the next bucket
+     */
+    static Points lttb(Points input, int threshold) {
+        int size = input.size();
+        if (size <= threshold || threshold < 3) {
+            return input;
+        }
+        long[] t = input.timestamps;
+        double[] v = input.values;
+        int[] selected = new int[threshold];
+        double every = (double) (size - 2) / (threshold - 2);
+
+        int previous = 0;
+        for (int i = 0; i < threshold - 2; i++) {
+            int averageStart = (int) (Math.floor((i + 1) * every) + 1);
+            int averageEnd = Math.min((int) (Math.floor((i + 2) * every) + 1), size);
+            double averageT = 0;
+            double averageV = 0;
+            for (int j = averageStart; j < averageEnd; j++) {
+                averageT += t[j] - t[0];
+                averageV += v[j];
+            }
+            int length = Math.max(1, averageEnd - averageStart);
+            averageT /= length;
+            averageV /= length;
+
+            int rangeStart = (int) (Math.floor(i * every) + 1);
+            int rangeEnd = (int) (Math.floor((i + 1) * every) + 1);
+            double previousT = t[previous] - t[0];
+            double previousV = v[previous];
+            double largest = -1;
+            int next = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((previousT - averageT) * (v[j] - previousV) - (previousT - (t[j] - t[0])) * (averageV - previousV));
+                if (area > largest) {
+                    largest = area;
+                    next = j;
+                }
+            }
+            selected[i + 1] = next;
+            previous = next;
+        }
+        selected[threshold - 1] = size - 1;
+        return input.select(selected);
+    }
+
+    /**
+     * Merges the points into {@code buckets} equal time buckets over {@code from <= t < to}, each
+     * stamped with its start and holding the weighted average, the min and the max of its points
+     */
+    static Points minMax(Points input, long from, long to, int buckets) {
+        long width = Math.max(1, (to - from + buckets - 1) / buckets);
+        Points.Builder out = new Points.Builder(input.size());
+        long bucket = Long.MIN_VALUE;
+        double sum = 0;
+        long weight = 0;
+        double min = Double.NaN;
+        double max = Double.NaN;
+        for (int i = 0; i < input.size(); i++) {
+            long start = from + Math.floorDiv(input.timestamps[i] - from, width) * width;
+            if (start != bucket) {
+                if (bucket != Long.MIN_VALUE) {
+                    out.add(bucket, weight > 0 ? sum / weight : Double.NaN, min, max, weight);
+                }
+                bucket = start;
+                sum = 0;
+                weight = 0;
+                min = Double.NaN;
+                max = Double.NaN;
+            }
+            if (!Double.isNaN(input.values[i])) {
+                sum += input.values[i] * input.weights[i];
+                weight += input.weights[i];
+            }
+            min = Double.isNaN(min) || input.min[i] < min ? input.min[i] : min;
+            max = Double.isNaN(max) || input.max[i] > max ? input.max[i] : max;
+        }
+        if (bucket != Long.MIN_VALUE) {
+            out.add(bucket, weight > 0 ? sum / weight : Double.NaN, min, max, weight);
+        }
+        return out.build();
+    }
+
+    /**
+     * Points of one series as parallel arrays of epoch seconds, values, min, max and the number
+     * of samples behind each point
+     */
+    static final class Points {
+
+        final long[] timestamps;
+        final double[] values;
+        final double[] min;
+        final double[] max;
+        final long[] weights;
+
+        private Points(long[] timestamps, double[] values, double[] min, double[] max, long[] weights) {
+            this.timestamps = timestamps;
+            this.values = values;
+            this.min = min;
+            this.max = max;
+            this.weights = weights;
+        }
+
+        static Points of(MetricPoints points) {
+            Builder out = new Builder(points.size());
+            for (int i = 0; i < points.size(); i++) {
+                out.add(points.timestamp(i), points.value(i), points.value(i), points.value(i), 1);
+            }
+            return out.build();
+        }
+
+        static Points of(List<MetricRollup> rollups, ToLongFunction<MetricRollup> timestamp) {
+            Builder out = new Builder(rollups.size());
+            for (MetricRollup rollup : rollups) {
+                out.add(timestamp.applyAsLong(rollup), rollup.getAvg(), rollup.getMin(), rollup.getMax(), rollup.getCount());
+            }
+            return out.build();
+        }
+
+        int size() {
+            return timestamps.length;
+        }
+
+        private Points select(int[] indexes) {
+            Builder out = new Builder(indexes.length);
+            for (int i : indexes) {
+                out.add(timestamps[i], values[i], min[i], max[i], weights[i]);
+            }
+            return out.build();
+        }
+
+        static final class Builder {
+
+            private final long[] timestamps;
+            private final double[] values;
+            private final double[] min;
+            private final double[] max;
+            private final long[] weights;
+            private int size;
+
+            Builder(int capacity) {
+                timestamps = new long[capacity];
+                values = new double[capacity];
+                min = new double[capacity];
+                max = new double[capacity];
+                weights = new long[capacity];
+            }
+
+            void add(long timestamp, double value, double minValue, double maxValue, long weight) {
+                timestamps[size] = timestamp;
+                values[size] = value;
+                min[size] = minValue;
+                max[size] = maxValue;
+                weights[size] = weight;
+                size++;
+            }
+
+            Points build() {
+                return size == timestamps.length
+                    ? new Points(timestamps, values, min, max, weights)
+                    : new Points(Arrays.copyOf(timestamps, size), Arrays.copyOf(values, size),
+                        Arrays.copyOf(min, size), Arrays.copyOf(max, size), Arrays.copyOf(weights, size));
+            }
+        }
+    }
+}
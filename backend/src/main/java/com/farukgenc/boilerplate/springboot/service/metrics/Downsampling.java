@@ -0,0 +1,17 @@
+package com.farukgenc.boilerplate.springboot.service.metrics;
+
+/**
+ * How a range query reduces a series to the requested number of points
+ */
+public enum Downsampling {
+
+    /**
+     * Largest-Triangle-Three-Buckets: keeps the points that best preserve the shape of the line
+     */
+    LTTB,
+
+    /**
+     * One point per equal time bucket with the bucket's average, min and max, so spikes survive
+     */
+    MIN_MAX
+}
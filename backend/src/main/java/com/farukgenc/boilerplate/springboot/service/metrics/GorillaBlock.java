@@ -0,0 +1,222 @@
+package com.farukgenc.boilerplate.springboot.service.metrics;
+
+/**
+ * An append-only run of points compressed as in Facebook's Gorilla paper and packed into a
+ * {@code long[]} bit stream. Timestamps are whole seconds stored as delta-of-deltas, so points
+ * polled at a steady interval cost one bit; values are XORed with their predecessor and only the
+ * meaningful bits are kept, so a repeated value costs one bit and a slowly moving one a few.
+ * <p>
+ * Not thread-safe; {@link SeriesRingBuffer} guards its blocks.
+ */
+final class GorillaBlock {
+
+    private static final int INITIAL_WORDS = 4;
+
+    private final long start;
+    private long[] words = new long[INITIAL_WORDS];
+    private int bits;
+    private int count;
+
+    private long lastTimestamp;
+    private long lastDelta;
+    private long lastValue;
+    private int lastLeading = -1;
+    private int lastTrailing;
+
+    GorillaBlock(long start) {
+        this.start = start;
+    }
+
+    long getStart() {
+        return start;
+    }
+
+    long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * Heap bytes held by the bit stream
+     */
+    long sizeInBytes() {
+        return 16L + 8L * words.length;
+    }
+
+    /**
+     * Appends a point, which must be later than the last one and at least {@link #getStart()}
+     */
+    void append(long timestamp, double value) {
+        long valueBits = Double.doubleToRawLongBits(value);
+        if (count == 0) {
+            write(timestamp - start, 32);
+            write(valueBits, 64);
+        } else {
+            long delta = timestamp - lastTimestamp;
+            writeDeltaOfDelta(delta - lastDelta);
+            writeValue(valueBits ^ lastValue);
+            lastDelta = delta;
+        }
+        lastTimestamp = timestamp;
+        lastValue = valueBits;
+        count++;
+    }
+
+    /**
+     * Releases the spare capacity of a block that takes no more points
+     */
+    void seal() {
+        int used = (bits + 63) >>> 6;
+        if (used < words.length) {
+            long[] trimmed = new long[Math.max(1, used)];
+            System.arraycopy(words, 0, trimmed, 0, used);
+            words = trimmed;
+        }
+    }
+
+    /**
+     * Decodes the points with {@code from <= timestamp <= to} into {@code out}, oldest first
+     */
+    void read(long from, long to, MetricPoints.Builder out) {
+        if (count == 0 || lastTimestamp < from || start > to) {
+            return;
+        }
+        Reader reader = new Reader(words);
+        long timestamp = start + reader.read(32);
+        long value = reader.read(64);
+        long delta = 0;
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 0; ; i++) {
+            if (timestamp > to) {
+                return;
+            }
+            if (timestamp >= from) {
+                out.add(timestamp, Double.longBitsToDouble(value));
+            }
+            if (i == count - 1) {
+                return;
+            }
+
+            delta += reader.readDeltaOfDelta();
+            timestamp += delta;
+            if (reader.read(1) == 1) {
+                if (reader.read(1) == 1) {
+                    leading = (int) reader.read(5);
+                    int meaningful = (int) reader.read(6) + 1;
+                    trailing = 64 - leading - meaningful;
+                }
+                value ^= reader.read(64 - leading - trailing) << trailing;
+            }
+        }
+    }
+
+    /**
+     * The paper's variable-length buckets, widened to a 32-bit fallback
+     */
+    private void writeDeltaOfDelta(long deltaOfDelta) {
+        if (deltaOfDelta == 0) {
+            write(0b0, 1);
+        } else if (deltaOfDelta >= -63 && deltaOfDelta <= 64) {
+            write(0b10, 2);
+            write(deltaOfDelta + 63, 7);
+        } else if (deltaOfDelta >= -255 && deltaOfDelta <= 256) {
+            write(0b110, 3);
+            write(deltaOfDelta + 255, 9);
+        } else if (deltaOfDelta >= -2047 && deltaOfDelta <= 2048) {
+            write(0b1110, 4);
+            write(deltaOfDelta + 2047, 12);
+        } else {
+            write(0b1111, 4);
+            write(deltaOfDelta, 32);
+        }
+    }
+
+    /**
+     * '0' for an unchanged value; '10' and the meaningful bits when they fit the previous window;
+     * otherwise '11', 5 bits of leading zeros, 6 bits of length and the meaningful bits
+     */
+    private void writeValue(long xor) {
+        if (xor == 0) {
+            write(0b0, 1);
+            return;
+        }
+        int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+        int trailing = Long.numberOfTrailingZeros(xor);
+        if (lastLeading >= 0 && leading >= lastLeading && trailing >= lastTrailing) {
+            write(0b10, 2);
+            write(xor >>> lastTrailing, 64 - lastLeading - lastTrailing);
+            return;
+        }
+        int meaningful = 64 - leading - trailing;
+        write(0b11, 2);
+        write(leading, 5);
+        write(meaningful - 1, 6);
+        write(xor >>> trailing, meaningful);
+        lastLeading = leading;
+        lastTrailing = trailing;
+    }
+
+    private void write(long value, int length) {
+        int needed = (bits + length + 63) >>> 6;
+        if (needed > words.length) {
+            long[] grown = new long[Math.max(needed, words.length + (words.length >>> 1) + 1)];
+            System.arraycopy(words, 0, grown, 0, words.length);
+            words = grown;
+        }
+        while (length > 0) {
+            int free = 64 - (bits & 63);
+            int take = Math.min(free, length);
+            long chunk = (value >>> (length - take)) & mask(take);
+            words[bits >>> 6] |= chunk << (free - take);
+            bits += take;
+            length -= take;
+        }
+    }
+
+    private static long mask(int length) {
+        return length == 64 ? -1L : (1L << length) - 1;
+    }
+
+    private static final class Reader {
+
+        private final long[] words;
+        private int position;
+
+        Reader(long[] words) {
+            this.words = words;
+        }
+
+        long read(int length) {
+            long result = 0;
+            while (length > 0) {
+                int available = 64 - (position & 63);
+                int take = Math.min(available, length);
+                long chunk = (words[position >>> 6] >>> (available - take)) & mask(take);
+                result = take == 64 ? chunk : (result << take) | chunk;
+                position += take;
+                length -= take;
+            }
+            return result;
+        }
+
+        long readDeltaOfDelta() {
+            if (read(1) == 0) {
+                return 0;
+            }
+            if (read(1) == 0) {
+                return read(7) - 63;
+            }
+            if (read(1) == 0) {
+                return read(9) - 255;
+            }
+            if (read(1) == 0) {
+                return read(12) - 2047;
+            }
+            return (int) read(32);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.farukgenc.boilerplate.springboot.service.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Points of one series in time order, as parallel primitive arrays of epoch seconds and values
+ */
+public final class MetricPoints {
+
+    private static final MetricPoints EMPTY = new MetricPoints(new long[0], new double[0]);
+
+    private final long[] timestamps;
+    private final double[] values;
+
+    private MetricPoints(long[] timestamps, double[] values) {
+        this.timestamps = timestamps;
+        this.values = values;
+    }
+
+    public static MetricPoints empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return timestamps.length;
+    }
+
+    public long timestamp(int i) {
+        return timestamps[i];
+    }
+
+    public double value(int i) {
+        return values[i];
+    }
+
+    public long[] timestamps() {
+        return timestamps.clone();
+    }
+
+    public double[] values() {
+        return values.clone();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+
+        private long[] timestamps = new long[64];
+        private double[] values = new double[64];
+        private int size;
+
+        public Builder add(long timestamp, double value) {
+            if (size == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            timestamps[size] = timestamp;
+            values[size] = value;
+            size++;
+            return this;
+        }
+
+        public MetricPoints build() {
+            return size == 0 ? EMPTY : new MetricPoints(Arrays.copyOf(timestamps, size), Arrays.copyOf(values, size));
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.farukgenc.boilerplate.springboot.service.metrics;
+
+import com.farukgenc.boilerplate.springboot.model.RollupTier;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A range query whose selectors have been resolved to series and checked against the user's
+ * devices, ready to be streamed
+ *
+ * @param tier rollup tier the points are read from, or {@code null} for raw samples
+ */
+public record MetricQuery(List<MetricSeries> series, LocalDateTime from, LocalDateTime to,
+                          int points, Downsampling downsampling, RollupTier tier) {
+}
@@ -0,0 +1,235 @@
+package com.farukgenc.boilerplate.springboot.service.metrics;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import com.farukgenc.boilerplate.springboot.model.InterfaceMetric;
+import com.farukgenc.boilerplate.springboot.model.MetricRollup;
+import com.farukgenc.boilerplate.springboot.model.RollupProgress;
+import com.farukgenc.boilerplate.springboot.model.RollupTier;
+import com.farukgenc.boilerplate.springboot.repository.MetricRollupRepository;
+import com.farukgenc.boilerplate.springboot.repository.RollupProgressRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Rolls polled metrics up into the {@link RollupTier}s and expires old data. Each tier advances
+ * a bucket at a time behind its {@link RollupProgress}: the minute tier once
+ * {@code app.snmp.rollups.delay} has passed since the bucket ended, every coarser tier once the
+ * tier below has covered the whole bucket. A bucket's rollups and the progress are written in one
+ * transaction, so a bucket is rolled up exactly once even across restarts.
+ * <p>
+ * The minute tier reads the interface rates from the {@link SampleStorage}. The IP, ICMP and UDP
+ * counters have no raw table, so their minutes are read from the {@link RecentMetricsStore}
+ * instead; minutes that ended before a restart are not rolled up for them.
+ * <p>
+ * Raw samples are dropped by time partition through {@link SampleStorage#dropBefore}, never
+ * before the minute tier has rolled them up; rollups are dropped per tier with one ranged delete.
+ */
+@Slf4j
+@Service
+public class MetricRollupService {
+
+    private static final Set<String> INTERFACE_METRICS = Arrays.stream(InterfaceMetric.values())
+        .map(InterfaceMetric::key)
+        .collect(Collectors.toUnmodifiableSet());
+
+    private final SampleStorage sampleStorage;
+    private final MetricRollupRepository metricRollupRepository;
+    private final RollupProgressRepository rollupProgressRepository;
+    private final RecentMetricsStore recentMetricsStore;
+    private final TransactionTemplate transactionTemplate;
+    private final SnmpProperties.Rollups properties;
+
+    private final Counter rollupsWritten;
+
+    public MetricRollupService(SampleStorage sampleStorage,
+                               MetricRollupRepository metricRollupRepository,
+                               RollupProgressRepository rollupProgressRepository,
+                               RecentMetricsStore recentMetricsStore,
+                               PlatformTransactionManager transactionManager,
+                               SnmpProperties properties,
+                               MeterRegistry meterRegistry) {
+        this.sampleStorage = sampleStorage;
+        this.metricRollupRepository = metricRollupRepository;
+        this.rollupProgressRepository = rollupProgressRepository;
+        this.recentMetricsStore = recentMetricsStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties.getRollups();
+        this.rollupsWritten = Counter.builder("snmp.rollups.written")
+            .description("Rollup rows written across all tiers").register(meterRegistry);
+    }
+
+    /**
+     * Rolls every tier up as far as its source allows, finest tier first
+     */
+    @Scheduled(fixedDelayString = "${app.snmp.rollups.interval:60000}", initialDelayString = "${app.snmp.rollups.interval:60000}")
+    public void rollUp() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (RollupTier tier : RollupTier.values()) {
+            int buckets = 0;
+            while (buckets < properties.getMaxBucketsPerRun()
+                && Boolean.TRUE.equals(transactionTemplate.execute(status -> rollUpNextBucket(tier, now)))) {
+                buckets++;
+            }
+            if (buckets > 0) {
+                log.debug("Rolled up {} {} buckets", buckets, tier.label());
+            }
+        }
+    }
+
+    /**
+     * Creates the sample partitions ahead and drops the samples and rollups past their retention
+     */
+    @Scheduled(fixedDelayString = "${app.snmp.rollups.retention-interval:3600000}")
+    public void applyRetention() {
+        LocalDateTime now = LocalDateTime.now();
+        sampleStorage.prepare(now.toLocalDate());
+
+        LocalDateTime rawCutoff = now.minus(properties.getRawRetention());
+        if (properties.isEnabled()) {
+            // Samples the minute tier has not rolled up yet are kept
+            LocalDateTime rolledUpTo = rollupProgressRepository.findById(RollupTier.MINUTE)
+                .map(RollupProgress::getRolledUpTo)
+                .orElse(LocalDateTime.MIN);
+            if (rolledUpTo.isBefore(rawCutoff)) {
+                rawCutoff = rolledUpTo;
+            }
+        }
+        if (rawCutoff.isAfter(LocalDateTime.MIN)) {
+            int dropped = sampleStorage.dropBefore(rawCutoff);
+            if (dropped > 0) {
+                log.info("Expired interface samples before {} ({} partitions or rows)", rawCutoff, dropped);
+            }
+        }
+
+        for (RollupTier tier : RollupTier.values()) {
+            LocalDateTime cutoff = now.minus(properties.retention(tier));
+            Integer deleted = transactionTemplate.execute(status -> metricRollupRepository.deleteExpired(tier, cutoff));
+            if (deleted != null && deleted > 0) {
+                log.info("Expired {} {} rollups before {}", deleted, tier.label(), cutoff);
+            }
+        }
+    }
+
+    /**
+     * Tier a query with points {@code step} apart is answered from: the coarsest one no wider than
+     * the step, or a coarser one still if its retention does not reach back to {@code from}.
+     *
+     * @return the tier, or {@code null} for raw samples
+     */
+    public RollupTier tierFor(Duration step, LocalDateTime from, LocalDateTime now) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        RollupTier tier = RollupTier.forStep(step);
+        if (tier == null && from.isBefore(now.minus(properties.getRawRetention()))) {
+            tier = RollupTier.MINUTE;
+        }
+        while (tier != null && tier != RollupTier.DAY && from.isBefore(now.minus(properties.retention(tier)))) {
+            tier = RollupTier.values()[tier.ordinal() + 1];
+        }
+        return tier;
+    }
+
+    /**
+     * Writes the tier's next bucket if it is complete
+     *
+     * @return whether a bucket was written
+     */
+    private boolean rollUpNextBucket(RollupTier tier, LocalDateTime now) {
+        LocalDateTime completeUpTo = completeUpTo(tier, now);
+        if (completeUpTo == null) {
+            return false;
+        }
+        RollupProgress progress = rollupProgressRepository.findById(tier)
+            .orElseGet(() -> rollupProgressRepository.save(RollupProgress.builder()
+                .tier(tier)
+                .rolledUpTo(tier.bucketStart(oldestSource(tier, now).orElse(completeUpTo)))
+                .build()));
+
+        LocalDateTime bucketStart = progress.getRolledUpTo();
+        LocalDateTime bucketEnd = bucketStart.plus(tier.width());
+        if (bucketEnd.isAfter(completeUpTo)) {
+            return false;
+        }
+
+        RollupAccumulator accumulator = new RollupAccumulator(tier, bucketStart);
+        if (tier.source() == null) {
+            addRawPoints(accumulator, bucketStart, bucketEnd);
+        } else {
+            metricRollupRepository.findByTierAndBucketStartGreaterThanEqualAndBucketStartLessThan(tier.source(), bucketStart, bucketEnd)
+                .forEach(accumulator::add);
+        }
+        List<MetricRollup> rollups = accumulator.build();
+        metricRollupRepository.saveAll(rollups);
+        rollupsWritten.increment(rollups.size());
+
+        progress.setRolledUpTo(bucketEnd);
+        rollupProgressRepository.save(progress);
+        return true;
+    }
+
+    /**
+     * End of the span whose buckets are complete in the tier's source
+     */
+    private LocalDateTime completeUpTo(RollupTier tier, LocalDateTime now) {
+        if (tier.source() == null) {
+            return tier.bucketStart(now.minus(properties.getDelay()));
+        }
+        return rollupProgressRepository.findById(tier.source())
+            .map(progress -> tier.bucketStart(progress.getRolledUpTo()))
+            .orElse(null);
+    }
+
+    /**
+     * Oldest data of the tier's source that is still retained, where a new tier starts from
+     */
+    private Optional<LocalDateTime> oldestSource(RollupTier tier, LocalDateTime now) {
+        if (tier.source() == null) {
+            return sampleStorage.findOldestFrom(now.minus(properties.getRawRetention()));
+        }
+        return metricRollupRepository.findOldestBucketStartFrom(tier.source(), now.minus(properties.retention(tier.source())));
+    }
+
+    private void addRawPoints(RollupAccumulator accumulator, LocalDateTime bucketStart, LocalDateTime bucketEnd) {
+        sampleStorage.scan(bucketStart, bucketEnd, (series, points) -> {
+            for (int i = 0; i < points.size(); i++) {
+                accumulator.add(series, points.timestamp(i), points.value(i));
+            }
+        });
+
+        if (recentMetricsStore.isEnabled()) {
+            long from = epochSecond(bucketStart);
+            long to = epochSecond(bucketEnd) - 1;
+            for (MetricSeries series : recentMetricsStore.series()) {
+                if (INTERFACE_METRICS.contains(series.metric())) {
+                    continue;
+                }
+                MetricPoints points = recentMetricsStore.read(series, from, to);
+                for (int i = 0; i < points.size(); i++) {
+                    accumulator.add(series, points.timestamp(i), points.value(i));
+                }
+            }
+        }
+    }
+
+    private static long epochSecond(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+}
@@ -0,0 +1,8 @@
+package com.farukgenc.boilerplate.springboot.service.metrics;
+
+/**
+ * Identity of one polled time series: a device, a metric name and the instance the metric is
+ * about, such as the ifIndex for interface metrics or 0 for a device-wide scalar
+ */
+public record MetricSeries(long deviceId, String metric, int instance) {
+}
@@ -0,0 +1,31 @@
+package com.farukgenc.boilerplate.springboot.service.metrics;
+
+import com.farukgenc.boilerplate.springboot.dto.MetricSeriesDto;
+import com.farukgenc.boilerplate.springboot.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface MetricsService {
+
+    MetricSeriesDto getRecentSeries(Long deviceId, String metric, int instance,
+                                    LocalDateTime from, LocalDateTime to, User user);
+
+    MetricSeriesDto getSeries(Long deviceId, String metric, int instance,
+                              LocalDateTime from, LocalDateTime to, Long stepSeconds, User user);
+
+    List<MetricSeries> getRecentSeriesOfDevice(Long deviceId, User user);
+
+    /**
+     * Resolves the selectors to series and checks access; without ifIndexes an interface metric
+     * selects every interface of the device and a scalar instance 0
+     */
+    MetricQuery prepareQuery(List<Long> deviceIds, List<String> metrics, List<Integer> ifIndexes,
+                             LocalDateTime from, LocalDateTime to, Integer points, Downsampling downsampling, User user);
+
+    /**
+     * Reads and downsamples the query's series one at a time, handing each to {@code consumer}
+     */
+    void streamQuery(MetricQuery query, Consumer<MetricSeriesDto> consumer);
+}
@@ -0,0 +1,264 @@
+package com.farukgenc.boilerplate.springboot.service.metrics;
+
+import com.farukgenc.boilerplate.springboot.dto.MetricSeriesDto;
+import com.farukgenc.boilerplate.springboot.model.InterfaceMetric;
+import com.farukgenc.boilerplate.springboot.model.MetricRollup;
+import com.farukgenc.boilerplate.springboot.model.RollupTier;
+import com.farukgenc.boilerplate.springboot.model.User;
+import com.farukgenc.boilerplate.springboot.repository.DeviceInterfaceRepository;
+import com.farukgenc.boilerplate.springboot.repository.DeviceRepository;
+import com.farukgenc.boilerplate.springboot.repository.MetricRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Serves metric history. Raw points come from the {@link RecentMetricsStore} while the range is
+ * inside its window, and from the {@link SampleStorage} before that; coarser queries are answered
+ * from the rollup tier {@link MetricRollupService#tierFor} picks.
+ * <p>
+ * Range queries read and downsample one series at a time, so a query over hundreds of series
+ * never holds more than one of them in memory.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class MetricsServiceImpl implements MetricsService {
+
+    /**
+     * Points a history query returns when it does not ask for a step
+     */
+    private static final int DEFAULT_POINTS = 500;
+
+    /**
+     * Upper bounds on a range query, which keep one request from reading the whole store
+     */
+    private static final int MAX_POINTS = 10_000;
+    private static final int MAX_SERIES = 5_000;
+
+    private static final String RAW = "raw";
+
+    private final RecentMetricsStore recentMetricsStore;
+    private final MetricRollupService metricRollupService;
+    private final SampleStorage sampleStorage;
+    private final MetricRollupRepository metricRollupRepository;
+    private final DeviceRepository deviceRepository;
+    private final DeviceInterfaceRepository deviceInterfaceRepository;
+
+    @Override
+    public MetricSeriesDto getRecentSeries(Long deviceId, String metric, int instance,
+                                           LocalDateTime from, LocalDateTime to, User user) {
+        checkAccess(deviceId, user);
+
+        long now = System.currentTimeMillis() / 1000;
+        long fromSecond = from != null ? epochSecond(from) : recentMetricsStore.windowStart(now);
+        long toSecond = to != null ? epochSecond(to) : now;
+        if (fromSecond > toSecond) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+
+        MetricPoints points = recentMetricsStore.read(new MetricSeries(deviceId, metric, instance), fromSecond, toSecond);
+        return toDto(new MetricSeries(deviceId, metric, instance), points);
+    }
+
+    @Override
+    public MetricSeriesDto getSeries(Long deviceId, String metric, int instance,
+                                     LocalDateTime from, LocalDateTime to, Long stepSeconds, User user) {
+        checkAccess(deviceId, user);
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime end = to != null ? to : now;
+        LocalDateTime start = from != null ? from : end.minusHours(1);
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        if (stepSeconds != null && stepSeconds < 1) {
+            throw new IllegalArgumentException("'step' must be at least one second");
+        }
+        Duration step = stepSeconds != null
+            ? Duration.ofSeconds(stepSeconds)
+            : Duration.between(start, end).dividedBy(DEFAULT_POINTS);
+
+        MetricSeries series = new MetricSeries(deviceId, metric, instance);
+        RollupTier tier = metricRollupService.tierFor(step, start, now);
+        if (tier != null) {
+            return toDto(series, tier, metricRollupRepository.findByDeviceIdAndMetricAndInstanceAndTierAndBucketStartBetweenOrderByBucketStart(
+                deviceId, metric, instance, tier, tier.bucketStart(start), end));
+        }
+
+        return toDto(series, readRaw(series, start, end));
+    }
+
+    @Override
+    public List<MetricSeries> getRecentSeriesOfDevice(Long deviceId, User user) {
+        checkAccess(deviceId, user);
+
+        return recentMetricsStore.seriesOf(deviceId).stream()
+                .sorted(Comparator.comparing(MetricSeries::metric).thenComparingInt(MetricSeries::instance))
+                .toList();
+    }
+
+    @Override
+    public MetricQuery prepareQuery(List<Long> deviceIds, List<String> metrics, List<Integer> ifIndexes,
+                                    LocalDateTime from, LocalDateTime to, Integer points, Downsampling downsampling, User user) {
+        if (deviceIds == null || deviceIds.isEmpty() || metrics == null || metrics.isEmpty()) {
+            throw new IllegalArgumentException("At least one device and one metric must be selected");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime end = to != null ? to : now;
+        LocalDateTime start = from != null ? from : end.minusHours(1);
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        int limit = points != null ? points : DEFAULT_POINTS;
+        if (limit < 2 || limit > MAX_POINTS) {
+            throw new IllegalArgumentException("'points' must be between 2 and " + MAX_POINTS);
+        }
+
+        List<MetricSeries> series = new ArrayList<>();
+        for (Long deviceId : new LinkedHashSet<>(deviceIds)) {
+            checkAccess(deviceId, user);
+            List<Integer> interfaces = ifIndexes != null && !ifIndexes.isEmpty() ? ifIndexes : null;
+            for (String metric : new LinkedHashSet<>(metrics)) {
+                if (interfaces != null) {
+                    interfaces.forEach(ifIndex -> series.add(new MetricSeries(deviceId, metric, ifIndex)));
+                } else if (isInterfaceMetric(metric)) {
+                    deviceInterfaceRepository.findIfIndexesByDeviceId(deviceId)
+                        .forEach(ifIndex -> series.add(new MetricSeries(deviceId, metric, ifIndex)));
+                } else {
+                    series.add(new MetricSeries(deviceId, metric, 0));
+                }
+                if (series.size() > MAX_SERIES) {
+                    throw new IllegalArgumentException("A query may select at most " + MAX_SERIES + " series");
+                }
+            }
+        }
+
+        RollupTier tier = metricRollupService.tierFor(Duration.between(start, end).dividedBy(limit), start, now);
+        return new MetricQuery(List.copyOf(series), start, end, limit,
+            downsampling != null ? downsampling : Downsampling.LTTB, tier);
+    }
+
+    /**
+     * Runs without a surrounding transaction: the caller writes each series to the client as it
+     * goes, and every read takes a connection only for as long as it runs.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void streamQuery(MetricQuery query, Consumer<MetricSeriesDto> consumer) {
+        RollupTier tier = query.tier();
+        for (MetricSeries series : query.series()) {
+            Downsampler.Points points = tier != null
+                ? Downsampler.Points.of(metricRollupRepository.findByDeviceIdAndMetricAndInstanceAndTierAndBucketStartBetweenOrderByBucketStart(
+                    series.deviceId(), series.metric(), series.instance(), tier, tier.bucketStart(query.from()), query.to()),
+                    rollup -> epochSecond(rollup.getBucketStart()))
+                : Downsampler.Points.of(readRaw(series, query.from(), query.to()));
+
+            boolean range = tier != null;
+            if (points.size() > query.points()) {
+                if (query.downsampling() == Downsampling.MIN_MAX) {
+                    points = Downsampler.minMax(points, epochSecond(query.from()), epochSecond(query.to()), query.points());
+                    range = true;
+                } else {
+                    points = Downsampler.lttb(points, query.points());
+                }
+            }
+            consumer.accept(toDto(series, tier != null ? tier.label() : RAW, points, range));
+        }
+    }
+
+    /**
+     * Raw points of a series: from the recent buffers for scalars and for ranges inside their
+     * window, otherwise from the sample storage
+     */
+    private MetricPoints readRaw(MetricSeries series, LocalDateTime start, LocalDateTime end) {
+        long fromSecond = epochSecond(start);
+        if (!isInterfaceMetric(series.metric()) || (recentMetricsStore.isEnabled()
+            && fromSecond >= recentMetricsStore.windowStart(System.currentTimeMillis() / 1000))) {
+            return recentMetricsStore.read(series, fromSecond, epochSecond(end));
+        }
+        return sampleStorage.read(series, start, end);
+    }
+
+    private static boolean isInterfaceMetric(String metric) {
+        return Arrays.stream(InterfaceMetric.values()).anyMatch(candidate -> candidate.key().equals(metric));
+    }
+
+    private void checkAccess(Long deviceId, User user) {
+        deviceRepository.findByIdAndUser(deviceId, user)
+                .orElseThrow(() -> new IllegalArgumentException("Device not found or access denied"));
+    }
+
+    private static MetricSeriesDto toDto(MetricSeries series, MetricPoints points) {
+        long[] timestamps = points.timestamps();
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] *= 1000;
+        }
+        return MetricSeriesDto.builder()
+                .deviceId(series.deviceId())
+                .metric(series.metric())
+                .instance(series.instance())
+                .resolution(RAW)
+                .timestamps(timestamps)
+                .values(points.values())
+                .build();
+    }
+
+    private static MetricSeriesDto toDto(MetricSeries series, RollupTier tier, List<MetricRollup> rollups) {
+        long[] timestamps = new long[rollups.size()];
+        double[] values = new double[rollups.size()];
+        double[] min = new double[rollups.size()];
+        double[] max = new double[rollups.size()];
+        for (int i = 0; i < rollups.size(); i++) {
+            MetricRollup rollup = rollups.get(i);
+            timestamps[i] = epochSecond(rollup.getBucketStart()) * 1000;
+            values[i] = rollup.getAvg();
+            min[i] = rollup.getMin();
+            max[i] = rollup.getMax();
+        }
+        return MetricSeriesDto.builder()
+                .deviceId(series.deviceId())
+                .metric(series.metric())
+                .instance(series.instance())
+                .resolution(tier.label())
+                .timestamps(timestamps)
+                .values(values)
+                .min(min)
+                .max(max)
+                .build();
+    }
+
+    private static MetricSeriesDto toDto(MetricSeries series, String resolution, Downsampler.Points points, boolean range) {
+        long[] timestamps = points.timestamps.clone();
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] *= 1000;
+        }
+        return MetricSeriesDto.builder()
+                .deviceId(series.deviceId())
+                .metric(series.metric())
+                .instance(series.instance())
+                .resolution(resolution)
+                .timestamps(timestamps)
+                .values(points.values)
+                .min(range ? points.min : null)
+                .max(range ? points.max : null)
+                .build();
+    }
+
+    private static long epochSecond(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+}
@@ -0,0 +1,134 @@
+package com.farukgenc.boilerplate.springboot.service.metrics;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * The last {@code app.snmp.samples.recent.window} of every polled counter at full resolution,
+ * kept in memory so recent-window queries never reach the database. Each series is a
+ * {@link SeriesRingBuffer} of Gorilla-compressed blocks in primitive arrays: points polled at a
+ * steady interval cost a few bits of timestamp plus 1-8 bytes of value, and a series about
+ * 0.5 KB of fixed overhead, so a million series of six hours of one-minute polls fit in 1-2 GB.
+ * <p>
+ * Nothing is persisted; after a restart the buffers fill up again from new polls. Timestamps are
+ * epoch seconds.
+ */
+@Slf4j
+@Component
+public class RecentMetricsStore {
+
+    private final boolean enabled;
+    private final long windowSeconds;
+    private final long blockSeconds;
+    private final int blocksPerSeries;
+    private final int maxSeries;
+    private final Map<MetricSeries, SeriesRingBuffer> series = new ConcurrentHashMap<>();
+
+    private final Counter droppedSeries;
+
+    public RecentMetricsStore(SnmpProperties properties, MeterRegistry meterRegistry) {
+        SnmpProperties.Samples.Recent recent = properties.getSamples().getRecent();
+        this.enabled = recent.isEnabled();
+        this.windowSeconds = recent.getWindow().toSeconds();
+        this.blockSeconds = Math.max(1, recent.getBlock().toSeconds());
+        this.blocksPerSeries = (int) ((windowSeconds + blockSeconds - 1) / blockSeconds) + 1;
+        this.maxSeries = recent.getMaxSeries();
+
+        this.droppedSeries = Counter.builder("snmp.samples.recent.dropped")
+            .description("Points not buffered because the series limit was reached").register(meterRegistry);
+        Gauge.builder("snmp.samples.recent.series", series, Map::size)
+            .description("Series held in the recent metrics ring buffers").register(meterRegistry);
+        Gauge.builder("snmp.samples.recent.bytes", this, RecentMetricsStore::sizeInBytes)
+            .description("Approximate heap held by the recent metrics ring buffers").register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Earliest time, in epoch seconds, that a read is sure to be served in full
+     */
+    public long windowStart(long now) {
+        return now - windowSeconds;
+    }
+
+    /**
+     * Appends a point to its series, creating the series while there is room for it
+     */
+    public void append(MetricSeries key, long timestamp, double value) {
+        if (!enabled) {
+            return;
+        }
+        SeriesRingBuffer buffer = series.get(key);
+        if (buffer == null) {
+            if (series.size() >= maxSeries) {
+                droppedSeries.increment();
+                return;
+            }
+            buffer = series.computeIfAbsent(key, k -> new SeriesRingBuffer(blocksPerSeries));
+        }
+        buffer.append(timestamp, value, blockSeconds, windowSeconds);
+    }
+
+    /**
+     * Buffered points of a series with {@code from <= timestamp <= to}, oldest first
+     */
+    public MetricPoints read(MetricSeries key, long from, long to) {
+        SeriesRingBuffer buffer = series.get(key);
+        if (buffer == null) {
+            return MetricPoints.empty();
+        }
+        MetricPoints.Builder points = MetricPoints.builder();
+        buffer.read(from, to, points);
+        return points.build();
+    }
+
+    /**
+     * Every buffered series, as a live view
+     */
+    public Set<MetricSeries> series() {
+        return Collections.unmodifiableSet(series.keySet());
+    }
+
+    /**
+     * Series of a device that have buffered points
+     */
+    public Set<MetricSeries> seriesOf(long deviceId) {
+        return series.keySet().stream()
+            .filter(key -> key.deviceId() == deviceId)
+            .collect(Collectors.toSet());
+    }
+
+    /**
+     * Drops expired blocks, and series left without points such as those of removed devices
+     */
+    @Scheduled(fixedDelayString = "${app.snmp.samples.recent.expiry-interval:60000}")
+    public void expire() {
+        long before = windowStart(System.currentTimeMillis() / 1000);
+        int size = series.size();
+        series.values().removeIf(buffer -> buffer.expire(before));
+        if (series.size() < size) {
+            log.debug("Dropped {} idle series from the recent metrics buffers", size - series.size());
+        }
+    }
+
+    long sizeInBytes() {
+        long bytes = 0;
+        for (Map.Entry<MetricSeries, SeriesRingBuffer> entry : series.entrySet()) {
+            bytes += 96 + entry.getValue().sizeInBytes();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,88 @@
+package com.farukgenc.boilerplate.springboot.service.metrics;
+
+import com.farukgenc.boilerplate.springboot.model.MetricRollup;
+import com.farukgenc.boilerplate.springboot.model.RollupTier;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregates the points, or the finer rollups, of one bucket into a rollup per series. Averages of
+ * finer rollups are weighted by their counts, so every tier averages over the raw points. NaN
+ * points are skipped.
+ */
+final class RollupAccumulator {
+
+    private final RollupTier tier;
+    private final LocalDateTime bucketStart;
+    private final Map<MetricSeries, Aggregate> aggregates = new HashMap<>();
+
+    RollupAccumulator(RollupTier tier, LocalDateTime bucketStart) {
+        this.tier = tier;
+        this.bucketStart = bucketStart;
+    }
+
+    /**
+     * Adds a point; {@code time} only orders the points of a series to find the last one
+     */
+    void add(MetricSeries series, long time, double value) {
+        if (!Double.isNaN(value)) {
+            aggregates.computeIfAbsent(series, key -> new Aggregate()).add(time, value, value, value, value, 1);
+        }
+    }
+
+    /**
+     * Adds a rollup of a finer tier
+     */
+    void add(MetricRollup rollup) {
+        MetricSeries series = new MetricSeries(rollup.getDeviceId(), rollup.getMetric(), rollup.getInstance());
+        aggregates.computeIfAbsent(series, key -> new Aggregate()).add(rollup.getBucketStart().toEpochSecond(ZoneOffset.UTC),
+            rollup.getMin(), rollup.getMax(), rollup.getAvg() * rollup.getCount(), rollup.getLast(), rollup.getCount());
+    }
+
+    boolean isEmpty() {
+        return aggregates.isEmpty();
+    }
+
+    List<MetricRollup> build() {
+        List<MetricRollup> rollups = new ArrayList<>(aggregates.size());
+        aggregates.forEach((series, aggregate) -> rollups.add(MetricRollup.builder()
+            .deviceId(series.deviceId())
+            .metric(series.metric())
+            .instance(series.instance())
+            .tier(tier)
+            .bucketStart(bucketStart)
+            .min(aggregate.min)
+            .max(aggregate.max)
+            .avg(aggregate.sum / aggregate.count)
+            .last(aggregate.last)
+            .count(aggregate.count)
+            .build()));
+        return rollups;
+    }
+
+    private static final class Aggregate {
+
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private double sum;
+        private int count;
+        private long lastTime = Long.MIN_VALUE;
+        private double last;
+
+        void add(long time, double min, double max, double sum, double last, int count) {
+            this.min = Math.min(this.min, min);
+            this.max = Math.max(this.max, max);
+            this.sum += sum;
+            this.count += count;
+            if (time >= lastTime) {
+                lastTime = time;
+                this.last = last;
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.farukgenc.boilerplate.springboot.service.metrics;
+
+import com.farukgenc.boilerplate.springboot.model.InterfaceSample;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+/**
+ * Long-term store of the per-interval interface rates, selected with
+ * {@code app.snmp.samples.storage}: {@link DatabaseSampleStorage} keeps them in
+ * {@code interface_samples}, {@link SegmentSampleStorage} in embedded segment files. Series are
+ * keyed by {@link com.farukgenc.boilerplate.springboot.model.InterfaceMetric#key()} and ifIndex.
+ */
+public interface SampleStorage {
+
+    /**
+     * Stores the samples of a poll batch; called once the batch's transaction has committed,
+     * so a database implementation needs a transaction of its own
+     */
+    void write(Collection<InterfaceSample> samples);
+
+    /**
+     * Points of a series with {@code from <= time <= to}, oldest first
+     */
+    MetricPoints read(MetricSeries series, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Hands every series with points in {@code from <= time < to} to {@code visitor}, once per
+     * series with all of its points in the range
+     */
+    void scan(LocalDateTime from, LocalDateTime to, BiConsumer<MetricSeries, MetricPoints> visitor);
+
+    /**
+     * Where stored samples at or after {@code from} begin, or empty if there are none
+     */
+    Optional<LocalDateTime> findOldestFrom(LocalDateTime from);
+
+    /**
+     * Prepares the storage for the coming days' samples
+     */
+    default void prepare(LocalDate today) {
+    }
+
+    /**
+     * Drops samples before {@code cutoff}, possibly only those in whole partitions before it
+     *
+     * @return number of partitions or rows dropped
+     */
+    int dropBefore(LocalDateTime cutoff);
+}
@@ -0,0 +1,211 @@
+package com.farukgenc.boilerplate.springboot.service.metrics;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Columnar encoding of one series' points in a segment file. Timestamps are a column of zigzag
+ * varint delta-of-deltas, so points polled at a steady interval cost one byte each. Values follow
+ * as a second column: series whose values are all whole numbers, such as counters, store zigzag
+ * varint deltas of them; other series store each value XORed with the previous one, shifted past
+ * its trailing zero bits.
+ * <pre>
+ * varint count | varint timestamp column length | timestamp column | byte value encoding | value column
+ * </pre>
+ */
+final class SegmentCodec {
+
+    private static final byte VALUES_INTEGER = 0;
+    private static final byte VALUES_XOR = 1;
+    private static final int UNCHANGED = 64;
+
+    private SegmentCodec() {
+    }
+
+    static void encode(MetricPoints points, ByteSink out) {
+        int count = points.size();
+        ByteSink timestamps = new ByteSink(count + 8);
+        long previous = 0;
+        long previousDelta = 0;
+        for (int i = 0; i < count; i++) {
+            long delta = points.timestamp(i) - previous;
+            timestamps.writeVarLong(zigzag(i == 0 ? points.timestamp(i) : delta - previousDelta));
+            previousDelta = i == 0 ? 0 : delta;
+            previous = points.timestamp(i);
+        }
+        out.writeVarLong(count);
+        out.writeVarLong(timestamps.size());
+        out.write(timestamps);
+
+        if (isIntegral(points)) {
+            out.writeByte(VALUES_INTEGER);
+            long last = 0;
+            for (int i = 0; i < count; i++) {
+                long value = (long) points.value(i);
+                out.writeVarLong(zigzag(value - last));
+                last = value;
+            }
+        } else {
+            out.writeByte(VALUES_XOR);
+            long last = 0;
+            for (int i = 0; i < count; i++) {
+                long bits = Double.doubleToRawLongBits(points.value(i));
+                long xor = bits ^ last;
+                if (xor == 0) {
+                    out.writeByte(UNCHANGED);
+                } else {
+                    int trailing = Long.numberOfTrailingZeros(xor);
+                    out.writeByte(trailing);
+                    out.writeVarLong(xor >>> trailing);
+                }
+                last = bits;
+            }
+        }
+    }
+
+    /**
+     * Decodes the points with {@code from <= timestamp <= to} from {@code in}'s position
+     */
+    static void decode(ByteBuffer in, long from, long to, MetricPoints.Builder out) {
+        int count = (int) readVarLong(in);
+        int timestampBytes = (int) readVarLong(in);
+        int valuesStart = in.position() + timestampBytes;
+
+        long[] timestamps = new long[count];
+        long previous = 0;
+        long previousDelta = 0;
+        int first = -1;
+        int end = count;
+        for (int i = 0; i < count; i++) {
+            long encoded = unzigzag(readVarLong(in));
+            long delta = i == 0 ? encoded : previousDelta + encoded;
+            timestamps[i] = i == 0 ? encoded : previous + delta;
+            previousDelta = i == 0 ? 0 : delta;
+            previous = timestamps[i];
+            if (timestamps[i] > to) {
+                end = i;
+                break;
+            }
+            if (first < 0 && timestamps[i] >= from) {
+                first = i;
+            }
+        }
+        if (first < 0) {
+            return;
+        }
+
+        in.position(valuesStart);
+        boolean integral = in.get() == VALUES_INTEGER;
+        long last = 0;
+        for (int i = 0; i < end; i++) {
+            double value;
+            if (integral) {
+                last += unzigzag(readVarLong(in));
+                value = last;
+            } else {
+                int trailing = in.get();
+                if (trailing != UNCHANGED) {
+                    last ^= readVarLong(in) << trailing;
+                }
+                value = Double.longBitsToDouble(last);
+            }
+            if (i >= first) {
+                out.add(timestamps[i], value);
+            }
+        }
+    }
+
+    /**
+     * Whether every value converts to a long and back unchanged, which excludes -0.0 and NaN
+     */
+    private static boolean isIntegral(MetricPoints points) {
+        for (int i = 0; i < points.size(); i++) {
+            double value = points.value(i);
+            if (Double.doubleToRawLongBits((double) (long) value) != Double.doubleToRawLongBits(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long result = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+    }
+
+    /**
+     * A growable byte array written to with the codec's primitives
+     */
+    static final class ByteSink {
+
+        private byte[] bytes;
+        private int size;
+
+        ByteSink(int capacity) {
+            this.bytes = new byte[Math.max(16, capacity)];
+        }
+
+        int size() {
+            return size;
+        }
+
+        byte[] array() {
+            return bytes;
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        void write(byte[] source, int offset, int length) {
+            ensure(length);
+            System.arraycopy(source, offset, bytes, size, length);
+            size += length;
+        }
+
+        void write(ByteSink other) {
+            write(other.bytes, 0, other.size);
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(size + extra, bytes.length * 2));
+            }
+        }
+    }
+}
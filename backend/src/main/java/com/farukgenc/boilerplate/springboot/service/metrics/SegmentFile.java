@@ -0,0 +1,203 @@
+package com.farukgenc.boilerplate.springboot.service.metrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable, memory-mapped file of one time partition's points. Each series is a
+ * {@link SegmentCodec} block; the series index after the blocks is read into memory when the file
+ * is opened, so a lookup costs a hash probe and a read decodes straight from the page cache.
+ * <pre>
+ * header: long magic | long partition start | long partition end
+ * blocks: one per series
+ * index:  int series | per series: long device | int instance | int metric length | metric (UTF-8)
+ *         | long first timestamp | long last timestamp | long block offset | long block length
+ * footer: long index offset | long magic
+ * </pre>
+ * Files are written to a temporary name, synced and renamed into place, so a crash never leaves
+ * a partial segment behind. Timestamps are epoch seconds.
+ */
+final class SegmentFile {
+
+    static final String SUFFIX = ".seg";
+
+    private static final long MAGIC = 0x4E4D535345474D31L; // "NMSSEGM1"
+    private static final int HEADER_BYTES = 24;
+    private static final int FOOTER_BYTES = 16;
+
+    private final Path path;
+    private final long partitionStart;
+    private final long partitionEnd;
+    private final ByteBuffer buffer;
+    private final Map<MetricSeries, Entry> index;
+    private final long firstTimestamp;
+    private final long lastTimestamp;
+
+    private SegmentFile(Path path, long partitionStart, long partitionEnd, ByteBuffer buffer, Map<MetricSeries, Entry> index) {
+        this.path = path;
+        this.partitionStart = partitionStart;
+        this.partitionEnd = partitionEnd;
+        this.buffer = buffer;
+        this.index = index;
+        this.firstTimestamp = index.values().stream().mapToLong(Entry::firstTimestamp).min().orElse(partitionEnd);
+        this.lastTimestamp = index.values().stream().mapToLong(Entry::lastTimestamp).max().orElse(partitionStart);
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    long getPartitionStart() {
+        return partitionStart;
+    }
+
+    long getPartitionEnd() {
+        return partitionEnd;
+    }
+
+    long getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    int getSeriesCount() {
+        return index.size();
+    }
+
+    long sizeInBytes() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Writes the series of a partition and maps the new file
+     */
+    static SegmentFile write(Path path, long partitionStart, long partitionEnd, Map<MetricSeries, MetricPoints> series) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        SegmentCodec.ByteSink block = new SegmentCodec.ByteSink(4096);
+        SegmentCodec.ByteSink indexBytes = new SegmentCodec.ByteSink(series.size() * 48);
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putLong(MAGIC).putLong(partitionStart).putLong(partitionEnd).flip();
+            writeFully(channel, header);
+            long offset = HEADER_BYTES;
+            int count = 0;
+            for (Map.Entry<MetricSeries, MetricPoints> entry : series.entrySet()) {
+                MetricPoints points = entry.getValue();
+                if (points.size() == 0) {
+                    continue;
+                }
+                block.reset();
+                SegmentCodec.encode(points, block);
+                writeFully(channel, ByteBuffer.wrap(block.array(), 0, block.size()));
+
+                byte[] metric = entry.getKey().metric().getBytes(StandardCharsets.UTF_8);
+                indexBytes.writeLong(entry.getKey().deviceId());
+                indexBytes.writeLong(((long) entry.getKey().instance() << 32) | (metric.length & 0xFFFFL));
+                indexBytes.write(metric, 0, metric.length);
+                indexBytes.writeLong(points.timestamp(0));
+                indexBytes.writeLong(points.timestamp(points.size() - 1));
+                indexBytes.writeLong(offset);
+                indexBytes.writeLong(block.size());
+                offset += block.size();
+                count++;
+            }
+            long indexOffset = offset;
+            writeFully(channel, ByteBuffer.allocate(4).putInt(count).flip());
+            writeFully(channel, ByteBuffer.wrap(indexBytes.array(), 0, indexBytes.size()));
+            writeFully(channel, ByteBuffer.allocate(FOOTER_BYTES).putLong(indexOffset).putLong(MAGIC).flip());
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Segment " + path + " exceeds 2 GB; use a shorter partition");
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+        return open(path);
+    }
+
+    /**
+     * Maps a segment file and reads its series index
+     */
+    static SegmentFile open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES + 4 + FOOTER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Not a segment file: " + path);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getLong(0) != MAGIC || buffer.getLong(buffer.capacity() - 8) != MAGIC) {
+            throw new IOException("Not a segment file: " + path);
+        }
+        long partitionStart = buffer.getLong(8);
+        long partitionEnd = buffer.getLong(16);
+
+        ByteBuffer in = buffer.duplicate().position((int) buffer.getLong(buffer.capacity() - FOOTER_BYTES));
+        int count = in.getInt();
+        Map<MetricSeries, Entry> index = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            long deviceId = in.getLong();
+            long instanceAndLength = in.getLong();
+            byte[] metric = new byte[(int) (instanceAndLength & 0xFFFF)];
+            in.get(metric);
+            MetricSeries series = new MetricSeries(deviceId, new String(metric, StandardCharsets.UTF_8), (int) (instanceAndLength >> 32));
+            index.put(series, new Entry(in.getLong(), in.getLong(), in.getLong(), (int) in.getLong()));
+        }
+        return new SegmentFile(path, partitionStart, partitionEnd, buffer, index);
+    }
+
+    /**
+     * Decodes the series' points with {@code from <= timestamp <= to} into {@code out}
+     */
+    void read(MetricSeries series, long from, long to, MetricPoints.Builder out) {
+        Entry entry = index.get(series);
+        if (entry != null && entry.overlaps(from, to)) {
+            SegmentCodec.decode(buffer.duplicate().position((int) entry.offset()), from, to, out);
+        }
+    }
+
+    /**
+     * Hands every series with points in {@code from <= timestamp <= to} to {@code visitor}
+     */
+    void scan(long from, long to, BiConsumer<MetricSeries, MetricPoints> visitor) {
+        index.forEach((series, entry) -> {
+            if (entry.overlaps(from, to)) {
+                MetricPoints.Builder points = MetricPoints.builder();
+                SegmentCodec.decode(buffer.duplicate().position((int) entry.offset()), from, to, points);
+                MetricPoints built = points.build();
+                if (built.size() > 0) {
+                    visitor.accept(series, built);
+                }
+            }
+        });
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    private record Entry(long firstTimestamp, long lastTimestamp, long offset, int length) {
+
+        boolean overlaps(long from, long to) {
+            return firstTimestamp <= to && lastTimestamp >= from;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.farukgenc.boilerplate.springboot.service.metrics;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import com.farukgenc.boilerplate.springboot.model.InterfaceMetric;
+import com.farukgenc.boilerplate.springboot.model.InterfaceSample;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Samples in the embedded {@link SegmentStore}, one series per interface metric, for single-node
+ * deployments that should not keep billions of sample rows in the database. Writes are synced to
+ * the write-ahead log once the poll batch has committed; writing a batch again is harmless as
+ * repeated points are rejected.
+ */
+@Slf4j
+public class SegmentSampleStorage implements SampleStorage {
+
+    private final SegmentStore store;
+    private final long sealDelaySeconds;
+
+    private final Counter rejectedPoints;
+
+    public SegmentSampleStorage(SnmpProperties properties, MeterRegistry meterRegistry) {
+        SnmpProperties.Samples.Segments segments = properties.getSamples().getSegments();
+        this.store = new SegmentStore(Path.of(segments.getDirectory()), Math.max(1, segments.getPartition().toSeconds()));
+        this.sealDelaySeconds = segments.getSealDelay().toSeconds();
+
+        this.rejectedPoints = Counter.builder("snmp.samples.segments.rejected")
+            .description("Points not stored because they were out of order or their partition was sealed").register(meterRegistry);
+        Gauge.builder("snmp.samples.segments.bytes", store, SegmentStore::sizeInBytes)
+            .description("Bytes of open partitions' blocks and mapped segment files").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void open() {
+        try {
+            store.open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open the segment store", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        try {
+            store.close();
+        } catch (IOException e) {
+            log.warn("Failed to close the segment store: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void write(Collection<InterfaceSample> samples) {
+        List<InterfaceSample> ordered = new ArrayList<>(samples);
+        ordered.sort(Comparator.comparing(InterfaceSample::getSampledAt));
+
+        List<SeriesPoint> points = new ArrayList<>(ordered.size() * InterfaceMetric.values().length);
+        for (InterfaceSample sample : ordered) {
+            long time = epochSecond(sample.getSampledAt());
+            for (InterfaceMetric metric : InterfaceMetric.values()) {
+                Float rate = sample.get(metric);
+                if (rate != null) {
+                    points.add(new SeriesPoint(new MetricSeries(sample.getDeviceId(), metric.key(), sample.getIfIndex()), time, rate));
+                }
+            }
+        }
+        try {
+            int rejected = store.append(points);
+            if (rejected > 0) {
+                rejectedPoints.increment(rejected);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write samples to the segment store", e);
+        }
+    }
+
+    @Override
+    public MetricPoints read(MetricSeries series, LocalDateTime from, LocalDateTime to) {
+        return store.read(series, epochSecond(from), epochSecond(to));
+    }
+
+    @Override
+    public void scan(LocalDateTime from, LocalDateTime to, BiConsumer<MetricSeries, MetricPoints> visitor) {
+        store.scan(epochSecond(from), epochSecond(to) - 1, visitor);
+    }
+
+    @Override
+    public Optional<LocalDateTime> findOldestFrom(LocalDateTime from) {
+        OptionalLong oldest = store.oldest(epochSecond(from));
+        return oldest.isPresent()
+            ? Optional.of(LocalDateTime.ofInstant(Instant.ofEpochSecond(oldest.getAsLong()), ZoneId.systemDefault()))
+            : Optional.empty();
+    }
+
+    @Override
+    public int dropBefore(LocalDateTime cutoff) {
+        try {
+            return store.dropBefore(epochSecond(cutoff));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete expired segments", e);
+        }
+    }
+
+    /**
+     * Seals the partitions that ended more than {@code seal-delay} ago into segment files
+     */
+    @Scheduled(fixedDelayString = "${app.snmp.samples.segments.seal-interval:60000}")
+    public void seal() {
+        try {
+            int sealed = store.seal(System.currentTimeMillis() / 1000, sealDelaySeconds);
+            if (sealed > 0) {
+                log.info("Sealed {} sample partitions into segment files", sealed);
+            }
+        } catch (IOException e) {
+            log.error("Failed to seal sample partitions, retrying on the next run: {}", e.getMessage(), e);
+        }
+    }
+
+    private static long epochSecond(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+}
@@ -0,0 +1,358 @@
+package com.farukgenc.boilerplate.springboot.service.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Embedded, time-partitioned storage of series points. Points of an open partition go to its
+ * {@link WriteAheadLog} and into one {@link GorillaBlock} per series; once the partition has ended
+ * it is sealed into an immutable, memory-mapped {@link SegmentFile} and its log is deleted.
+ * Expiry deletes whole segment files.
+ * <pre>
+ * directory/wal/&lt;partition start&gt;.wal
+ * directory/segments/&lt;partition start&gt;.seg
+ * </pre>
+ * Points must arrive in time order per series; a point not later than its series' last one, or
+ * for a partition that is sealed or being sealed, is rejected. Appends and reads of open
+ * partitions hold the store's lock, segment reads do not. Timestamps are epoch seconds.
+ */
+@Slf4j
+final class SegmentStore implements Closeable {
+
+    private static final Comparator<MetricSeries> SERIES_ORDER = Comparator
+        .comparingLong(MetricSeries::deviceId)
+        .thenComparing(MetricSeries::metric)
+        .thenComparingInt(MetricSeries::instance);
+
+    private final Path walDirectory;
+    private final Path segmentDirectory;
+    private final long partitionSeconds;
+
+    private final ConcurrentSkipListMap<Long, SegmentFile> segments = new ConcurrentSkipListMap<>();
+    private final TreeMap<Long, HeadPartition> head = new TreeMap<>();
+
+    SegmentStore(Path directory, long partitionSeconds) {
+        this.walDirectory = directory.resolve("wal");
+        this.segmentDirectory = directory.resolve("segments");
+        this.partitionSeconds = partitionSeconds;
+    }
+
+    /**
+     * Maps the sealed segments and replays the logs of the partitions that were still open
+     */
+    synchronized void open() throws IOException {
+        Files.createDirectories(walDirectory);
+        Files.createDirectories(segmentDirectory);
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(segmentDirectory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(SegmentFile.SUFFIX)) {
+                    SegmentFile segment = SegmentFile.open(file);
+                    segments.put(segment.getPartitionStart(), segment);
+                } else if (name.endsWith(".tmp")) {
+                    // Left behind by a seal that did not finish; the log is still there
+                    Files.delete(file);
+                }
+            }
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(walDirectory, "*" + WriteAheadLog.SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                long start = Long.parseLong(name.substring(0, name.length() - WriteAheadLog.SUFFIX.length()));
+                if (segments.containsKey(start)) {
+                    // Sealed, but stopped before the log was deleted
+                    Files.delete(file);
+                    continue;
+                }
+                HeadPartition partition = new HeadPartition(start, start + partitionSeconds);
+                partition.log = WriteAheadLog.open(file, partition::add);
+                head.put(start, partition);
+            }
+        }
+        log.info("Opened metric segment store with {} segments and {} open partitions", segments.size(), head.size());
+    }
+
+    /**
+     * Logs and buffers the points
+     *
+     * @return number of points rejected as out of order or for a sealed partition
+     */
+    synchronized int append(List<SeriesPoint> points) throws IOException {
+        NavigableMap<Long, List<SeriesPoint>> byPartition = new TreeMap<>();
+        for (SeriesPoint point : points) {
+            byPartition.computeIfAbsent(partitionStart(point.timestamp()), start -> new ArrayList<>()).add(point);
+        }
+
+        int rejected = 0;
+        for (Map.Entry<Long, List<SeriesPoint>> entry : byPartition.entrySet()) {
+            long start = entry.getKey();
+            if (segments.containsKey(start)) {
+                rejected += entry.getValue().size();
+                continue;
+            }
+            HeadPartition partition = head.get(start);
+            if (partition == null) {
+                partition = new HeadPartition(start, start + partitionSeconds);
+                partition.log = WriteAheadLog.open(walDirectory.resolve(start + WriteAheadLog.SUFFIX), point -> { });
+                head.put(start, partition);
+            }
+            if (partition.sealing) {
+                rejected += entry.getValue().size();
+                continue;
+            }
+
+            Map<MetricSeries, Long> last = new HashMap<>();
+            List<SeriesPoint> accepted = new ArrayList<>(entry.getValue().size());
+            for (SeriesPoint point : entry.getValue()) {
+                Long previous = last.get(point.series());
+                if (previous == null) {
+                    GorillaBlock block = partition.blocks.get(point.series());
+                    previous = block != null ? block.getLastTimestamp() : Long.MIN_VALUE;
+                }
+                if (point.timestamp() <= previous) {
+                    rejected++;
+                    continue;
+                }
+                last.put(point.series(), point.timestamp());
+                accepted.add(point);
+            }
+            if (!accepted.isEmpty()) {
+                partition.log.append(accepted);
+                accepted.forEach(partition::add);
+            }
+        }
+        return rejected;
+    }
+
+    /**
+     * Points of a series with {@code from <= timestamp <= to}, oldest first
+     */
+    MetricPoints read(MetricSeries series, long from, long to) {
+        NavigableMap<Long, Consumer<MetricPoints.Builder>> sources = new TreeMap<>();
+        synchronized (this) {
+            for (SegmentFile segment : overlapping(from, to)) {
+                sources.put(segment.getPartitionStart(), out -> segment.read(series, from, to, out));
+            }
+            for (HeadPartition partition : head.subMap(partitionStart(from), true, to, true).values()) {
+                GorillaBlock block = partition.blocks.get(series);
+                if (block != null) {
+                    MetricPoints.Builder points = MetricPoints.builder();
+                    block.read(from, to, points);
+                    MetricPoints built = points.build();
+                    sources.put(partition.start, out -> append(built, out));
+                }
+            }
+        }
+        MetricPoints.Builder points = MetricPoints.builder();
+        sources.values().forEach(source -> source.accept(points));
+        return points.build();
+    }
+
+    /**
+     * Hands every series with points in {@code from <= timestamp <= to} to {@code visitor}, once
+     * per series with all of its points in the range
+     */
+    void scan(long from, long to, BiConsumer<MetricSeries, MetricPoints> visitor) {
+        NavigableMap<Long, Consumer<Map<MetricSeries, MetricPoints.Builder>>> sources = new TreeMap<>();
+        synchronized (this) {
+            for (SegmentFile segment : overlapping(from, to)) {
+                sources.put(segment.getPartitionStart(), out -> segment.scan(from, to,
+                    (series, points) -> append(points, out.computeIfAbsent(series, key -> MetricPoints.builder()))));
+            }
+            for (HeadPartition partition : head.subMap(partitionStart(from), true, to, true).values()) {
+                Map<MetricSeries, MetricPoints> read = new HashMap<>();
+                partition.blocks.forEach((series, block) -> {
+                    MetricPoints.Builder points = MetricPoints.builder();
+                    block.read(from, to, points);
+                    MetricPoints built = points.build();
+                    if (built.size() > 0) {
+                        read.put(series, built);
+                    }
+                });
+                sources.put(partition.start, out -> read.forEach(
+                    (series, points) -> append(points, out.computeIfAbsent(series, key -> MetricPoints.builder()))));
+            }
+        }
+        Map<MetricSeries, MetricPoints.Builder> merged = new LinkedHashMap<>();
+        sources.values().forEach(source -> source.accept(merged));
+        merged.forEach((series, points) -> visitor.accept(series, points.build()));
+    }
+
+    /**
+     * A time at or after {@code from} that no stored point is earlier than, found at partition
+     * granularity, or empty when nothing is stored from then on
+     */
+    synchronized OptionalLong oldest(long from) {
+        for (SegmentFile segment : overlapping(from, Long.MAX_VALUE)) {
+            if (segment.getSeriesCount() > 0 && segment.getLastTimestamp() >= from) {
+                return OptionalLong.of(Math.max(from, segment.getFirstTimestamp()));
+            }
+        }
+        for (HeadPartition partition : head.tailMap(partitionStart(from), true).values()) {
+            for (GorillaBlock block : partition.blocks.values()) {
+                if (block.getLastTimestamp() >= from) {
+                    return OptionalLong.of(Math.max(from, partition.start));
+                }
+            }
+        }
+        return OptionalLong.empty();
+    }
+
+    /**
+     * Seals every open partition that ended at least {@code delay} seconds before {@code now}
+     *
+     * @return number of partitions sealed
+     */
+    int seal(long now, long delay) throws IOException {
+        List<HeadPartition> due = new ArrayList<>();
+        synchronized (this) {
+            for (HeadPartition partition : head.values()) {
+                if (partition.end + delay <= now && !partition.sealing) {
+                    partition.sealing = true;
+                    due.add(partition);
+                }
+            }
+        }
+
+        int sealed = 0;
+        for (HeadPartition partition : due) {
+            // No point is added once sealing is set, so the blocks are read without the lock
+            SegmentFile segment = null;
+            try {
+                if (!partition.blocks.isEmpty()) {
+                    Map<MetricSeries, MetricPoints> series = new TreeMap<>(SERIES_ORDER);
+                    partition.blocks.forEach((key, block) -> {
+                        MetricPoints.Builder points = MetricPoints.builder();
+                        block.read(Long.MIN_VALUE, Long.MAX_VALUE, points);
+                        series.put(key, points.build());
+                    });
+                    segment = SegmentFile.write(segmentDirectory.resolve(partition.start + SegmentFile.SUFFIX),
+                        partition.start, partition.end, series);
+                }
+            } catch (IOException | RuntimeException e) {
+                synchronized (this) {
+                    partition.sealing = false;
+                }
+                throw e;
+            }
+
+            synchronized (this) {
+                if (segment != null) {
+                    segments.put(partition.start, segment);
+                }
+                head.remove(partition.start);
+            }
+            partition.log.close();
+            Files.deleteIfExists(partition.log.getPath());
+            sealed++;
+            if (segment != null) {
+                log.debug("Sealed metric partition {} into {} ({} series, {} bytes)", partition.start,
+                    segment.getPath().getFileName(), segment.getSeriesCount(), segment.sizeInBytes());
+            }
+        }
+        return sealed;
+    }
+
+    /**
+     * Deletes the segments that end at or before {@code cutoff}
+     *
+     * @return number of segments deleted
+     */
+    int dropBefore(long cutoff) throws IOException {
+        int dropped = 0;
+        for (SegmentFile segment : segments.headMap(cutoff, false).values()) {
+            if (segment.getPartitionEnd() <= cutoff) {
+                segments.remove(segment.getPartitionStart());
+                // Readers holding the mapping keep it until they are done
+                Files.deleteIfExists(segment.getPath());
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (HeadPartition partition : head.values()) {
+            partition.log.close();
+        }
+        head.clear();
+        segments.clear();
+    }
+
+    /**
+     * Whole-store total of the bytes held by open partitions' blocks and mapped segments
+     */
+    synchronized long sizeInBytes() {
+        long bytes = 0;
+        for (HeadPartition partition : head.values()) {
+            for (GorillaBlock block : partition.blocks.values()) {
+                bytes += block.sizeInBytes();
+            }
+        }
+        for (SegmentFile segment : segments.values()) {
+            bytes += segment.sizeInBytes();
+        }
+        return bytes;
+    }
+
+    private long partitionStart(long timestamp) {
+        return Math.floorDiv(timestamp, partitionSeconds) * partitionSeconds;
+    }
+
+    private Iterable<SegmentFile> overlapping(long from, long to) {
+        Long first = segments.floorKey(from);
+        return segments.subMap(first != null ? first : from, true, to, true).values().stream()
+            .filter(segment -> segment.getPartitionEnd() > from)
+            .toList();
+    }
+
+    private static void append(MetricPoints points, MetricPoints.Builder out) {
+        for (int i = 0; i < points.size(); i++) {
+            out.add(points.timestamp(i), points.value(i));
+        }
+    }
+
+    /**
+     * An open partition: its log and a block per series
+     */
+    private static final class HeadPartition {
+
+        private final long start;
+        private final long end;
+        private final Map<MetricSeries, GorillaBlock> blocks = new HashMap<>();
+        private WriteAheadLog log;
+        private boolean sealing;
+
+        private HeadPartition(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        private void add(SeriesPoint point) {
+            GorillaBlock block = blocks.computeIfAbsent(point.series(), series -> new GorillaBlock(start));
+            if (block.getCount() == 0 || point.timestamp() > block.getLastTimestamp()) {
+                block.append(point.timestamp(), point.value());
+            }
+        }
+    }
+}
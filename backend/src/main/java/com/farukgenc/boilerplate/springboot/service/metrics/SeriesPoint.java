@@ -0,0 +1,7 @@
+package com.farukgenc.boilerplate.springboot.service.metrics;
+
+/**
+ * One point of a series on its way into the {@link SegmentStore}; the timestamp is in epoch seconds
+ */
+record SeriesPoint(MetricSeries series, long timestamp, double value) {
+}
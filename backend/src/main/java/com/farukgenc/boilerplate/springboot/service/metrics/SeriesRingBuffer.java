@@ -0,0 +1,81 @@
+package com.farukgenc.boilerplate.springboot.service.metrics;
+
+/**
+ * The recent points of one series as a ring of {@link GorillaBlock}s, each covering an aligned
+ * span of {@code blockSeconds}. Only the newest block takes points; once the window has moved
+ * past a whole block, the block is dropped, so between one window and one window plus a block of
+ * history is kept.
+ */
+final class SeriesRingBuffer {
+
+    private final GorillaBlock[] blocks;
+    private int oldest;
+    private int size;
+
+    SeriesRingBuffer(int capacity) {
+        this.blocks = new GorillaBlock[capacity];
+    }
+
+    /**
+     * Appends a point; points not later than the last one are ignored
+     *
+     * @return whether the point was kept
+     */
+    synchronized boolean append(long timestamp, double value, long blockSeconds, long windowSeconds) {
+        if (size > 0 && timestamp <= newest().getLastTimestamp()) {
+            return false;
+        }
+        expire(timestamp - windowSeconds);
+        if (size == 0 || timestamp >= newest().getStart() + blockSeconds) {
+            if (size > 0) {
+                newest().seal();
+            }
+            if (size == blocks.length) {
+                dropOldest();
+            }
+            blocks[(oldest + size) % blocks.length] = new GorillaBlock(timestamp - Math.floorMod(timestamp, blockSeconds));
+            size++;
+        }
+        newest().append(timestamp, value);
+        return true;
+    }
+
+    /**
+     * Points with {@code from <= timestamp <= to}, oldest first
+     */
+    synchronized void read(long from, long to, MetricPoints.Builder out) {
+        for (int i = 0; i < size; i++) {
+            blocks[(oldest + i) % blocks.length].read(from, to, out);
+        }
+    }
+
+    /**
+     * Drops the blocks whose points are all older than {@code before}
+     *
+     * @return whether no points are left
+     */
+    synchronized boolean expire(long before) {
+        while (size > 0 && blocks[oldest].getLastTimestamp() < before) {
+            dropOldest();
+        }
+        return size == 0;
+    }
+
+    synchronized long sizeInBytes() {
+        long bytes = 16L + 4L * blocks.length;
+        for (int i = 0; i < size; i++) {
+            bytes += 64 + blocks[(oldest + i) % blocks.length].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    private GorillaBlock newest() {
+        return blocks[(oldest + size - 1) % blocks.length];
+    }
+
+    private void dropOldest() {
+        blocks[oldest] = null;
+        oldest = (oldest + 1) % blocks.length;
+        size--;
+    }
+}
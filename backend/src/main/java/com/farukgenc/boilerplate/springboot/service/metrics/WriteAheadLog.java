@@ -0,0 +1,177 @@
+package com.farukgenc.boilerplate.springboot.service.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of the points of one open partition, replayed into memory after a restart until
+ * the partition is sealed into a {@link SegmentFile}. Each append is one checksummed frame synced
+ * to disk before it returns; a series is defined by the first frame that uses it and referred to
+ * by a small id afterwards.
+ * <pre>
+ * frame: int payload length | int CRC-32 of payload | payload
+ * entry: byte 1 | varint id | long device | varint instance | varint length | metric (UTF-8)
+ *      | byte 2 | varint id | long timestamp | long value bits
+ * </pre>
+ * A frame cut short by a crash, or failing its checksum, ends the log: it is truncated away on
+ * replay, along with anything after it.
+ */
+@Slf4j
+final class WriteAheadLog implements Closeable {
+
+    static final String SUFFIX = ".wal";
+
+    private static final byte DEFINE = 1;
+    private static final byte POINT = 2;
+    private static final int FRAME_HEADER_BYTES = 8;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final Map<MetricSeries, Integer> ids = new HashMap<>();
+    private final CRC32 crc = new CRC32();
+
+    private WriteAheadLog(Path path, FileChannel channel) {
+        this.path = path;
+        this.channel = channel;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    /**
+     * Opens or creates a log, handing the points already in it to {@code replay} in order
+     */
+    static WriteAheadLog open(Path path, Consumer<SeriesPoint> replay) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        WriteAheadLog log = new WriteAheadLog(path, channel);
+        try {
+            log.replay(replay);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return log;
+    }
+
+    /**
+     * Appends the points as one frame and syncs it. When this fails the log is left as it was.
+     */
+    void append(List<SeriesPoint> points) throws IOException {
+        SegmentCodec.ByteSink payload = new SegmentCodec.ByteSink(points.size() * 20);
+        List<MetricSeries> defined = new ArrayList<>();
+        for (SeriesPoint point : points) {
+            Integer id = ids.get(point.series());
+            if (id == null) {
+                id = ids.size();
+                ids.put(point.series(), id);
+                defined.add(point.series());
+
+                byte[] metric = point.series().metric().getBytes(StandardCharsets.UTF_8);
+                payload.writeByte(DEFINE);
+                payload.writeVarLong(id);
+                payload.writeLong(point.series().deviceId());
+                payload.writeVarLong(point.series().instance() & 0xFFFFFFFFL);
+                payload.writeVarLong(metric.length);
+                payload.write(metric, 0, metric.length);
+            }
+            payload.writeByte(POINT);
+            payload.writeVarLong(id);
+            payload.writeLong(point.timestamp());
+            payload.writeLong(Double.doubleToRawLongBits(point.value()));
+        }
+
+        crc.reset();
+        crc.update(payload.array(), 0, payload.size());
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_BYTES + payload.size())
+            .putInt(payload.size())
+            .putInt((int) crc.getValue())
+            .put(payload.array(), 0, payload.size())
+            .flip();
+
+        long frameStart = channel.position();
+        try {
+            while (frame.hasRemaining()) {
+                channel.write(frame);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            defined.forEach(ids::remove);
+            channel.truncate(frameStart);
+            channel.position(frameStart);
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void replay(Consumer<SeriesPoint> replay) throws IOException {
+        List<MetricSeries> series = new ArrayList<>();
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_BYTES);
+        long position = 0;
+        long size = channel.size();
+        while (position + FRAME_HEADER_BYTES <= size) {
+            header.clear();
+            readFully(header, position);
+            int length = header.getInt(0);
+            if (length < 0 || position + FRAME_HEADER_BYTES + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(payload, position + FRAME_HEADER_BYTES);
+            crc.reset();
+            crc.update(payload.array(), 0, length);
+            if ((int) crc.getValue() != header.getInt(4)) {
+                break;
+            }
+
+            payload.flip();
+            while (payload.hasRemaining()) {
+                byte kind = payload.get();
+                int id = (int) SegmentCodec.readVarLong(payload);
+                if (kind == DEFINE) {
+                    long deviceId = payload.getLong();
+                    int instance = (int) SegmentCodec.readVarLong(payload);
+                    byte[] metric = new byte[(int) SegmentCodec.readVarLong(payload)];
+                    payload.get(metric);
+                    MetricSeries defined = new MetricSeries(deviceId, new String(metric, StandardCharsets.UTF_8), instance);
+                    series.add(defined);
+                    ids.put(defined, id);
+                } else {
+                    replay.accept(new SeriesPoint(series.get(id), payload.getLong(), Double.longBitsToDouble(payload.getLong())));
+                }
+            }
+            position += FRAME_HEADER_BYTES + length;
+        }
+
+        if (position < size) {
+            log.warn("Truncating {} bytes of incomplete or corrupt log at the end of {}", size - position, path);
+            channel.truncate(position);
+        }
+        channel.position(position);
+    }
+
+    private void readFully(ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            if (channel.read(target, position + target.position()) < 0) {
+                throw new IOException("Unexpected end of " + path);
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Learns a GETBULK max-repetitions value per device from observed response sizes and
+ * {@code tooBig} errors, so table walks use as few PDUs as the agent comfortably allows.
+ */
+@Component
+public class BulkRepetitionTuner {
+
+    private final SnmpProperties.Walk settings;
+    private final Map<String, Integer> learned = new ConcurrentHashMap<>();
+    private final Map<String, Integer> ceilings = new ConcurrentHashMap<>();
+
+    public BulkRepetitionTuner(SnmpProperties properties) {
+        this.settings = properties.getWalk();
+    }
+
+    /**
+     * Max-repetitions to request next from a device, never above {@code cap}
+     */
+    public int current(String deviceKey, int cap) {
+        int value = learned.getOrDefault(deviceKey, settings.getInitialMaxRepetitions());
+        return Math.max(1, Math.min(value, Math.min(cap, ceiling(deviceKey))));
+    }
+
+    /**
+     * Grows towards the size target when a full response came back comfortably small,
+     * shrinks when it overshot
+     */
+    public void onResponse(String deviceKey, int requested, int bindings, int responseBytes) {
+        if (bindings <= 0) {
+            return;
+        }
+        int bytesPerBinding = Math.max(1, responseBytes / bindings);
+        int fitting = Math.max(1, settings.getTargetResponseBytes() / bytesPerBinding);
+
+        int next;
+        if (responseBytes > settings.getTargetResponseBytes()) {
+            next = Math.min(requested, fitting);
+        } else if (bindings >= requested) {
+            // Response was full: there is more to fetch, grow but never past the size target
+            // or a value the agent has already rejected
+            next = Math.min(Math.min(requested * 2, fitting), ceiling(deviceKey));
+        } else {
+            return;
+        }
+        learned.put(deviceKey, clamp(next));
+    }
+
+    /**
+     * Halves the value after the agent answered {@code tooBig} and remembers that
+     * {@code requested} is more than the agent can return
+     *
+     * @return the max-repetitions to retry with
+     */
+    public int onTooBig(String deviceKey, int requested) {
+        ceilings.merge(deviceKey, clamp(requested - 1), Math::min);
+        int next = clamp(requested / 2);
+        learned.put(deviceKey, next);
+        return next;
+    }
+
+    /**
+     * Large responses are the first to be lost to fragmentation, so back off on timeouts too
+     */
+    public void onTimeout(String deviceKey, int requested) {
+        learned.put(deviceKey, clamp(requested / 2));
+    }
+
+    private int ceiling(String deviceKey) {
+        return ceilings.getOrDefault(deviceKey, settings.getMaxRepetitions());
+    }
+
+    private int clamp(int value) {
+        return Math.max(1, Math.min(value, settings.getMaxRepetitions()));
+    }
+}
@@ -0,0 +1,84 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Network phase of a device poll. Fetches the merged scalars, the interface and system unit tables
+ * and any per-group tables into a {@link DevicePollSnapshot} without opening a transaction, so no
+ * database connection is held while waiting for the agent.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DevicePollCollector {
+
+    private final PollPlanCompiler pollPlanCompiler;
+    private final PollPlanExecutor pollPlanExecutor;
+    private final InterfacePollService interfacePollService;
+    private final SystemUnitPollService systemUnitPollService;
+    private final SnmpTableFetcher snmpTableFetcher;
+
+    /**
+     * Collects everything polled from a device. The config and its device must already be loaded.
+     * The returned future never completes exceptionally; an unreachable agent yields a failed snapshot.
+     */
+    public CompletableFuture<DevicePollSnapshot> collect(DeviceConfig config) {
+        PollPlan plan = pollPlanCompiler.compile(config);
+        LocalDateTime polledAt = LocalDateTime.now();
+
+        // The first scalar response doubles as the liveness check; tables are only walked once it answers
+        return pollPlanExecutor.execute(config, plan).thenCompose(result -> {
+            if (!result.isReachable()) {
+                return CompletableFuture.completedFuture(
+                    DevicePollSnapshot.failed(config.getId(), polledAt, "SNMP agent did not respond"));
+            }
+
+            Map<ScalarPollGroup, SnmpScalars> scalars = new LinkedHashMap<>();
+            Map<ScalarPollGroup, CompletableFuture<List<SnmpTableRow>>> groupTables = new LinkedHashMap<>();
+            for (ScalarPollGroup group : plan.getGroups()) {
+                scalars.put(group, result.valuesFor(group));
+                SnmpColumns columns = group.getTableColumns();
+                if (columns != null) {
+                    groupTables.put(group, orEmpty(config, group.getGroupName(), snmpTableFetcher.fetchTableAsync(config, columns)));
+                }
+            }
+            CompletableFuture<List<SnmpTableRow>> interfaces =
+                orEmpty(config, "Interface", interfacePollService.fetchInterfacesAsync(config));
+            CompletableFuture<List<SnmpTableRow>> systemUnits =
+                orEmpty(config, "System unit", systemUnitPollService.fetchSystemUnitsAsync(config));
+
+            List<CompletableFuture<?>> pending = new ArrayList<>(groupTables.values());
+            pending.add(interfaces);
+            pending.add(systemUnits);
+            return CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+                Map<ScalarPollGroup, List<SnmpTableRow>> tables = new LinkedHashMap<>();
+                groupTables.forEach((group, rows) -> tables.put(group, rows.join()));
+                return DevicePollSnapshot.reachable(config.getId(), polledAt, scalars, tables,
+                    interfaces.join(), systemUnits.join());
+            });
+        });
+    }
+
+    /**
+     * A table whose walk failed part way becomes empty rather than partial: the writers skip an
+     * empty table entirely, while a partial one would have its missing rows deleted as gone
+     */
+    private CompletableFuture<List<SnmpTableRow>> orEmpty(DeviceConfig config, String what,
+                                                          CompletableFuture<List<SnmpTableRow>> rows) {
+        return rows.exceptionally(e -> {
+            log.warn("{} table fetch failed for {}: {}", what, config.getTargetIp(),
+                SnmpClientService.rootCause(e).getMessage());
+            return List.of();
+        });
+    }
+}
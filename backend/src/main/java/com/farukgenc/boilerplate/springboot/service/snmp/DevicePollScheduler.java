@@ -0,0 +1,171 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import com.farukgenc.boilerplate.springboot.event.DeviceConfigChangedEvent;
+import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
+import com.farukgenc.boilerplate.springboot.repository.DeviceConfigRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fires each enabled device exactly every {@code pollInterval} seconds from a {@link PollTimingWheel}.
+ * Every device gets a fixed phase within its interval derived from its config id, so polls are
+ * spread evenly and keep their slot across restarts. The wheel is loaded once at startup and
+ * then maintained from {@link DeviceConfigChangedEvent}s; devices found disabled when they fire
+ * are dropped from it.
+ * <p>
+ * Due devices are handed to the {@link PollPipeline}, which bounds how many are fetched and
+ * written at once. The wheel thread never waits on a poll; if the pipeline's intake is full
+ * the device is skipped for this period and counted as rejected.
+ */
+@Slf4j
+@Component
+public class DevicePollScheduler {
+
+    private final DeviceConfigRepository deviceConfigRepository;
+    private final PollPipeline pollPipeline;
+    private final PollTimingWheel wheel;
+    private final long tickMillis;
+    private final long startWallMillis = System.currentTimeMillis();
+    private final long startNanos = System.nanoTime();
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+    private final Counter fired;
+    private final Counter skipped;
+    private final Counter rejected;
+
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "snmp-poll-scheduler");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public DevicePollScheduler(SnmpProperties properties, DeviceConfigRepository deviceConfigRepository,
+                               PollPipeline pollPipeline, MeterRegistry meterRegistry) {
+        this.deviceConfigRepository = deviceConfigRepository;
+        this.pollPipeline = pollPipeline;
+        this.tickMillis = Math.max(1, properties.getScheduler().getTick().toMillis());
+        this.wheel = new PollTimingWheel(tickMillis, properties.getScheduler().getWheelSize(), now());
+
+        this.fired = Counter.builder("snmp.scheduler.polls").tag("result", "fired")
+            .description("Device polls started by the scheduler").register(meterRegistry);
+        this.skipped = Counter.builder("snmp.scheduler.polls").tag("result", "skipped")
+            .description("Device polls skipped because the previous poll was still running").register(meterRegistry);
+        this.rejected = Counter.builder("snmp.scheduler.polls").tag("result", "rejected")
+            .description("Device polls dropped because the poll pipeline's intake was full").register(meterRegistry);
+        Gauge.builder("snmp.scheduler.devices", wheel, PollTimingWheel::size)
+            .description("Devices scheduled for polling").register(meterRegistry);
+        Gauge.builder("snmp.scheduler.missed.periods", wheel, PollTimingWheel::getMissedPeriods)
+            .description("Poll periods skipped because the scheduler fell a full interval behind").register(meterRegistry);
+    }
+
+    /**
+     * Loads every pollable device into the wheel and starts ticking
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        List<DeviceConfig> configs = deviceConfigRepository.findByEnabledTrueWithDevice();
+        for (DeviceConfig config : configs) {
+            if (Boolean.TRUE.equals(config.getDevice().getMonitoringEnabled())) {
+                schedule(config.getId(), config.getPollInterval(), config.getLastPollTime() == null);
+            }
+        }
+        log.info("Scheduled {} devices for SNMP polling", wheel.size());
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Applies a configuration change once it is committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceConfigChanged(DeviceConfigChangedEvent event) {
+        if (event.getEventType() == DeviceConfigChangedEvent.EventType.DELETED || !event.isPollable()) {
+            if (wheel.cancel(event.getConfigId())) {
+                log.debug("Unscheduled device config {}", event.getConfigId());
+            }
+            return;
+        }
+        schedule(event.getConfigId(), event.getPollInterval(), event.isNeverPolled());
+    }
+
+    public boolean isScheduled(Long configId) {
+        return wheel.contains(configId);
+    }
+
+    void tick() {
+        try {
+            for (Long configId : wheel.advance(now())) {
+                dispatch(configId);
+            }
+        } catch (Exception e) {
+            log.error("SNMP poll scheduler tick failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void dispatch(Long configId) {
+        // A device still being polled keeps its slot; the next period picks it up again
+        if (!running.add(configId)) {
+            skipped.increment();
+            log.debug("Device config {} is still being polled, skipping this period", configId);
+            return;
+        }
+        boolean accepted = pollPipeline.submit(configId, pollable -> {
+            running.remove(configId);
+            if (!pollable) {
+                wheel.cancel(configId);
+                log.debug("Device config {} is no longer pollable, unscheduled", configId);
+            }
+        });
+        if (accepted) {
+            fired.increment();
+        } else {
+            running.remove(configId);
+            rejected.increment();
+            log.warn("Poll pipeline is full, skipping device config {} this period", configId);
+        }
+    }
+
+    private void schedule(Long configId, Integer pollIntervalSeconds, boolean immediately) {
+        long period = Math.max(1, pollIntervalSeconds != null ? pollIntervalSeconds : 300) * 1000L;
+        long now = now();
+        long deadline = immediately ? now : now + Math.floorMod(phase(configId, period) - now, period);
+        wheel.schedule(configId, deadline, period);
+        log.debug("Scheduled device config {} every {} ms, next poll in {} ms", configId, period, deadline - now);
+    }
+
+    /**
+     * Deterministic offset of a device within its interval, so devices sharing an interval are spread evenly
+     */
+    static long phase(long configId, long period) {
+        long h = configId * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return Math.floorMod(h, period);
+    }
+
+    /**
+     * Wall-clock milliseconds advanced by the monotonic clock, so system clock steps do not stall the wheel
+     */
+    private long now() {
+        return startWallMillis + (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    @PreDestroy
+    public void stop() {
+        // Polls already in the pipeline are stopped by the pipeline itself
+        ticker.shutdownNow();
+    }
+}
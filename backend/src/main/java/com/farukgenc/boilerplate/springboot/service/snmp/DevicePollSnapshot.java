@@ -0,0 +1,112 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import lombok.Getter;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.Variable;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything fetched from one device in a poll, produced by {@link DevicePollCollector} without
+ * touching the database and applied afterwards by {@link PollResultWriter}. Holds no entities,
+ * only the config id, so it can cross threads and outlive any persistence context.
+ */
+@Getter
+public final class DevicePollSnapshot {
+
+    private final Long configId;
+    private final LocalDateTime polledAt;
+    private final boolean reachable;
+    private final String failureMessage;
+    private final Map<ScalarPollGroup, SnmpScalars> scalars;
+    private final Map<ScalarPollGroup, List<SnmpTableRow>> groupTables;
+    private final List<SnmpTableRow> interfaces;
+    private final List<SnmpTableRow> systemUnits;
+    private final PollChanges changes;
+    private final List<InterfaceRates> interfaceRates;
+    private final Map<OID, Float> scalarRates;
+
+    private DevicePollSnapshot(Long configId, LocalDateTime polledAt, boolean reachable, String failureMessage,
+                               Map<ScalarPollGroup, SnmpScalars> scalars, Map<ScalarPollGroup, List<SnmpTableRow>> groupTables,
+                               List<SnmpTableRow> interfaces, List<SnmpTableRow> systemUnits, PollChanges changes,
+                               List<InterfaceRates> interfaceRates, Map<OID, Float> scalarRates) {
+        this.configId = configId;
+        this.polledAt = polledAt;
+        this.reachable = reachable;
+        this.failureMessage = failureMessage;
+        this.scalars = Collections.unmodifiableMap(new LinkedHashMap<>(scalars));
+        this.groupTables = Collections.unmodifiableMap(new LinkedHashMap<>(groupTables));
+        this.interfaces = List.copyOf(interfaces);
+        this.systemUnits = List.copyOf(systemUnits);
+        this.changes = changes;
+        this.interfaceRates = List.copyOf(interfaceRates);
+        this.scalarRates = Map.copyOf(scalarRates);
+    }
+
+    /**
+     * A poll that reached the agent; tables that could not be fetched are empty
+     */
+    public static DevicePollSnapshot reachable(Long configId, LocalDateTime polledAt,
+                                               Map<ScalarPollGroup, SnmpScalars> scalars,
+                                               Map<ScalarPollGroup, List<SnmpTableRow>> groupTables,
+                                               List<SnmpTableRow> interfaces, List<SnmpTableRow> systemUnits) {
+        return new DevicePollSnapshot(configId, polledAt, true, null, scalars, groupTables, interfaces, systemUnits,
+            PollChanges.NONE, List.of(), Map.of());
+    }
+
+    /**
+     * A poll that failed before any data was collected
+     */
+    public static DevicePollSnapshot failed(Long configId, LocalDateTime polledAt, String failureMessage) {
+        return new DevicePollSnapshot(configId, polledAt, false, failureMessage, Map.of(), Map.of(), List.of(), List.of(),
+            PollChanges.NONE, List.of(), Map.of());
+    }
+
+    /**
+     * The same snapshot, marked with what changed since the device was last written
+     */
+    public DevicePollSnapshot withChanges(PollChanges changes) {
+        return new DevicePollSnapshot(configId, polledAt, reachable, failureMessage, scalars, groupTables,
+            interfaces, systemUnits, changes, interfaceRates, scalarRates);
+    }
+
+    /**
+     * The same snapshot, with the interface rates computed from its counters
+     */
+    public DevicePollSnapshot withInterfaceRates(List<InterfaceRates> interfaceRates) {
+        return new DevicePollSnapshot(configId, polledAt, reachable, failureMessage, scalars, groupTables,
+            interfaces, systemUnits, changes, interfaceRates, scalarRates);
+    }
+
+    /**
+     * The same snapshot, with the per-second rates of its counter scalars by OID
+     */
+    public DevicePollSnapshot withScalarRates(Map<OID, Float> scalarRates) {
+        return new DevicePollSnapshot(configId, polledAt, reachable, failureMessage, scalars, groupTables,
+            interfaces, systemUnits, changes, interfaceRates, scalarRates);
+    }
+
+    /**
+     * A scalar value polled by any group, or {@code null}
+     */
+    public Variable scalar(OID oid) {
+        for (SnmpScalars values : scalars.values()) {
+            Variable value = values.get(oid);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Rows of the extra table a group asked for, empty if it has none
+     */
+    public List<SnmpTableRow> tableFor(ScalarPollGroup group) {
+        return groupTables.getOrDefault(group, List.of());
+    }
+}
@@ -0,0 +1,97 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import lombok.RequiredArgsConstructor;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.Variable;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * CPU phase of a device poll, between {@link DevicePollCollector} and {@link PollResultWriter}.
+ * Reduces a snapshot to what the writer has to store, so the database stage only spends its
+ * connection on rows worth writing: values are fingerprinted and compared with the ones last
+ * written by {@link PollChangeTracker}. Interface counters are turned into rates by the
+ * {@link InterfaceRateCalculator}, counter scalars by the {@link ScalarRateCalculator}. Must do no
+ * network or database I/O.
+ */
+@Component
+@RequiredArgsConstructor
+public class DevicePollTransformer {
+
+    private final PollChangeTracker pollChangeTracker;
+    private final InterfaceRateCalculator interfaceRateCalculator;
+    private final ScalarRateCalculator scalarRateCalculator;
+
+    public DevicePollSnapshot transform(DevicePollSnapshot snapshot) {
+        if (!snapshot.isReachable()) {
+            return snapshot;
+        }
+
+        // Groups the agent returned nothing for are left untouched rather than overwritten with nulls
+        Map<ScalarPollGroup, SnmpScalars> scalars = new LinkedHashMap<>();
+        snapshot.getScalars().forEach((group, values) -> {
+            if (!values.isEmpty()) {
+                scalars.put(group, values);
+            }
+        });
+        List<SnmpTableRow> interfaces = indexed(snapshot.getInterfaces());
+        List<SnmpTableRow> systemUnits = indexed(snapshot.getSystemUnits());
+
+        // A scalar group is stored as a whole, so it is one row; tables are compared row by row.
+        // Empty tables are not fingerprinted, the writer leaves them alone anyway.
+        Map<String, Map<Object, Long>> fingerprints = new HashMap<>();
+        scalars.forEach((group, values) -> {
+            long fingerprint = values.fingerprint();
+            for (SnmpTableRow row : snapshot.tableFor(group)) {
+                fingerprint = PollChangeTracker.mix(fingerprint, row.fingerprint());
+            }
+            fingerprints.put(group.getGroupName(), Map.of(group.getGroupName(), fingerprint));
+        });
+        // Interface counters move with any traffic, so they must not make the descriptive row count as changed
+        if (!interfaces.isEmpty()) {
+            fingerprints.put(PollChanges.INTERFACES, fingerprintsByIndex(interfaces,
+                row -> row.fingerprint(column -> !InterfacePollService.COUNTER_COLUMNS.contains(column))));
+            fingerprints.put(PollChanges.INTERFACE_COUNTERS, fingerprintsByIndex(interfaces,
+                row -> row.fingerprint(InterfacePollService.COUNTER_COLUMNS::contains)));
+        }
+        if (!systemUnits.isEmpty()) {
+            fingerprints.put(PollChanges.SYSTEM_UNITS, fingerprintsByIndex(systemUnits, SnmpTableRow::fingerprint));
+        }
+
+        Variable sysUpTime = snapshot.scalar(SnmpOids.SYS_UP_TIME);
+        Long upTime = sysUpTime == null ? null : sysUpTime.toLong();
+        List<InterfaceRates> rates = interfaceRateCalculator.sample(snapshot.getConfigId(), snapshot.getPolledAt(),
+            upTime, interfaces);
+        Map<OID, Float> scalarRates = scalarRateCalculator.sample(snapshot.getConfigId(), snapshot.getPolledAt(),
+            upTime, scalars.values());
+
+        return DevicePollSnapshot.reachable(snapshot.getConfigId(), snapshot.getPolledAt(), scalars,
+                snapshot.getGroupTables(), interfaces, systemUnits)
+            .withChanges(pollChangeTracker.compare(snapshot.getConfigId(), fingerprints))
+            .withInterfaceRates(rates)
+            .withScalarRates(scalarRates);
+    }
+
+    /**
+     * Interfaces and physical entities are keyed by a positive integer index; anything else cannot be stored
+     */
+    private static List<SnmpTableRow> indexed(List<SnmpTableRow> rows) {
+        return rows.stream().filter(row -> row.getIndexAsInt() > 0).toList();
+    }
+
+    /**
+     * Keyed like the writers key their rows, so a repeated index keeps the last row's fingerprint
+     */
+    private static Map<Object, Long> fingerprintsByIndex(List<SnmpTableRow> rows, ToLongFunction<SnmpTableRow> fingerprint) {
+        Map<Object, Long> fingerprints = new HashMap<>(rows.size() * 2);
+        for (SnmpTableRow row : rows) {
+            fingerprints.put(row.getIndexAsInt(), fingerprint.applyAsLong(row));
+        }
+        return fingerprints;
+    }
+}
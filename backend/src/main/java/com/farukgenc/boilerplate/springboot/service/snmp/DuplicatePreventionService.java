@@ -9,87 +9,21 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
- * Service for managing duplicate entities during SNMP polling
+ * Service for managing duplicate entities during SNMP polling. Interfaces and system units are
+ * reconciled in bulk by {@link SnapshotReconciler} instead.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class DuplicatePreventionService {
 
-    private final DeviceInterfaceRepository deviceInterfaceRepository;
-    private final SystemUnitRepository systemUnitRepository;
     private final IpProfileRepository ipProfileRepository;
     private final IcmpProfileRepository icmpProfileRepository;
     private final UdpProfileRepository udpProfileRepository;
 
-    /**
-     * Clean up stale interfaces that are no longer present in SNMP data
-     */
-    @Transactional
-    public void cleanupStaleInterfaces(Device device, Set<Integer> activeInterfaceIndices) {
-        List<DeviceInterface> existingInterfaces = deviceInterfaceRepository.findByDeviceId(device.getId());
-        List<DeviceInterface> staleInterfaces = existingInterfaces.stream()
-            .filter(iface -> !activeInterfaceIndices.contains(iface.getIfIndex()))
-            .collect(Collectors.toList());
-
-        if (!staleInterfaces.isEmpty()) {
-            deviceInterfaceRepository.deleteAll(staleInterfaces);
-            log.info("Cleaned up {} stale interfaces for device: {}", staleInterfaces.size(), device.getName());
-        }
-    }
-
-    /**
-     * Get or create interface to avoid duplicates
-     */
-    @Transactional
-    public DeviceInterface getOrCreateInterface(Device device, Integer ifIndex) {
-        Optional<DeviceInterface> existing = deviceInterfaceRepository
-            .findByDeviceIdAndIfIndex(device.getId(), ifIndex);
-
-        return existing.orElse(
-            DeviceInterface.builder()
-                .device(device)
-                .ifIndex(ifIndex)
-                .build()
-        );
-    }
-
-    /**
-     * Clean up stale system units
-     */
-    @Transactional
-    public void cleanupStaleSystemUnits(Device device, Set<Integer> activeUnitIndices) {
-        List<SystemUnit> existingUnits = systemUnitRepository.findByDevice(device);
-        List<SystemUnit> staleUnits = existingUnits.stream()
-            .filter(unit -> !activeUnitIndices.contains(unit.getUnitIndex()))
-            .collect(Collectors.toList());
-
-        if (!staleUnits.isEmpty()) {
-            systemUnitRepository.deleteAll(staleUnits);
-            log.info("Cleaned up {} stale system units for device: {}", staleUnits.size(), device.getName());
-        }
-    }
-
-    /**
-     * Get or create system unit to avoid duplicates
-     */
-    @Transactional
-    public SystemUnit getOrCreateSystemUnit(Device device, Integer unitIndex) {
-        Optional<SystemUnit> existing = systemUnitRepository
-            .findByDeviceAndUnitIndex(device, unitIndex);
-
-        return existing.orElse(
-            SystemUnit.builder()
-                .device(device)
-                .unitIndex(unitIndex)
-                .build()
-        );
-    }
-
     /**
      * Get or create IP profile to avoid duplicates
      */
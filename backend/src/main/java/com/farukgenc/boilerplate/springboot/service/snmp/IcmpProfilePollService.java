@@ -12,88 +12,49 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
 
+import static com.farukgenc.boilerplate.springboot.service.snmp.SnmpOids.*;
+
 /**
  * Service for polling and updating ICMP profile information via SNMP
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class IcmpProfilePollService {
+public class IcmpProfilePollService implements ScalarPollGroup {
 
     private final SnmpClientService snmpClientService;
     private final IcmpProfileRepository icmpProfileRepository;
 
-    // ICMP MIB OIDs
-    private static final String ICMP_IN_MSGS_OID = "1.3.6.1.2.1.5.1.0";              // icmpInMsgs
-    private static final String ICMP_IN_ERRORS_OID = "1.3.6.1.2.1.5.2.0";            // icmpInErrors
-    private static final String ICMP_IN_DEST_UNREACHS_OID = "1.3.6.1.2.1.5.3.0";     // icmpInDestUnreachs
-    private static final String ICMP_IN_TIME_EXCDS_OID = "1.3.6.1.2.1.5.4.0";        // icmpInTimeExcds
-    private static final String ICMP_IN_PARM_PROBS_OID = "1.3.6.1.2.1.5.5.0";        // icmpInParmProbs
-    private static final String ICMP_IN_SRC_QUENCHS_OID = "1.3.6.1.2.1.5.6.0";       // icmpInSrcQuenchs
-    private static final String ICMP_IN_REDIRECTS_OID = "1.3.6.1.2.1.5.7.0";         // icmpInRedirects
-    private static final String ICMP_IN_ECHOS_OID = "1.3.6.1.2.1.5.8.0";             // icmpInEchos
-    private static final String ICMP_IN_ECHO_REPS_OID = "1.3.6.1.2.1.5.9.0";         // icmpInEchoReps
-    private static final String ICMP_IN_TIMESTAMPS_OID = "1.3.6.1.2.1.5.10.0";       // icmpInTimestamps
-    private static final String ICMP_IN_TIMESTAMP_REPS_OID = "1.3.6.1.2.1.5.11.0";   // icmpInTimestampReps
-    private static final String ICMP_IN_ADDR_MASKS_OID = "1.3.6.1.2.1.5.12.0";       // icmpInAddrMasks
-    private static final String ICMP_IN_ADDR_MASK_REPS_OID = "1.3.6.1.2.1.5.13.0";   // icmpInAddrMaskReps
-    private static final String ICMP_OUT_MSGS_OID = "1.3.6.1.2.1.5.14.0";            // icmpOutMsgs
-    private static final String ICMP_OUT_ERRORS_OID = "1.3.6.1.2.1.5.15.0";          // icmpOutErrors
-    private static final String ICMP_OUT_DEST_UNREACHS_OID = "1.3.6.1.2.1.5.16.0";   // icmpOutDestUnreachs
-    private static final String ICMP_OUT_TIME_EXCDS_OID = "1.3.6.1.2.1.5.17.0";      // icmpOutTimeExcds
-    private static final String ICMP_OUT_PARM_PROBS_OID = "1.3.6.1.2.1.5.18.0";      // icmpOutParmProbs
-    private static final String ICMP_OUT_SRC_QUENCHS_OID = "1.3.6.1.2.1.5.19.0";     // icmpOutSrcQuenchs
-    private static final String ICMP_OUT_REDIRECTS_OID = "1.3.6.1.2.1.5.20.0";       // icmpOutRedirects
-    private static final String ICMP_OUT_ECHOS_OID = "1.3.6.1.2.1.5.21.0";           // icmpOutEchos
-    private static final String ICMP_OUT_ECHO_REPS_OID = "1.3.6.1.2.1.5.22.0";       // icmpOutEchoReps
-    private static final String ICMP_OUT_TIMESTAMPS_OID = "1.3.6.1.2.1.5.23.0";      // icmpOutTimestamps
-    private static final String ICMP_OUT_TIMESTAMP_REPS_OID = "1.3.6.1.2.1.5.24.0";  // icmpOutTimestampReps
-    private static final String ICMP_OUT_ADDR_MASKS_OID = "1.3.6.1.2.1.5.25.0";      // icmpOutAddrMasks
-    private static final String ICMP_OUT_ADDR_MASK_REPS_OID = "1.3.6.1.2.1.5.26.0";  // icmpOutAddrMaskReps
+    // ICMP MIB OIDs, see SnmpOids
+
+    private static final SnmpColumns SCALAR_OIDS = SnmpColumns.of(
+                ICMP_IN_MSGS, ICMP_IN_ERRORS, ICMP_IN_DEST_UNREACHS,
+                ICMP_IN_TIME_EXCDS, ICMP_IN_PARM_PROBS, ICMP_IN_SRC_QUENCHS,
+                ICMP_IN_REDIRECTS, ICMP_IN_ECHOS, ICMP_IN_ECHO_REPS,
+                ICMP_IN_TIMESTAMPS, ICMP_IN_TIMESTAMP_REPS, ICMP_IN_ADDR_MASKS,
+                ICMP_IN_ADDR_MASK_REPS, ICMP_OUT_MSGS, ICMP_OUT_ERRORS,
+                ICMP_OUT_DEST_UNREACHS, ICMP_OUT_TIME_EXCDS, ICMP_OUT_PARM_PROBS,
+                ICMP_OUT_SRC_QUENCHS, ICMP_OUT_REDIRECTS, ICMP_OUT_ECHOS,
+                ICMP_OUT_ECHO_REPS, ICMP_OUT_TIMESTAMPS, ICMP_OUT_TIMESTAMP_REPS,
+                ICMP_OUT_ADDR_MASKS, ICMP_OUT_ADDR_MASK_REPS
+    );
 
     /**
-     * Poll and update ICMP profile information for a device
+     * Poll and update ICMP profile information for a device. Not transactional, so no database
+     * connection is held while waiting on the agent.
      */
-    @Transactional
     public void pollDeviceIcmpProfile(Device device, DeviceConfig config) {
         log.debug("Polling ICMP profile for device: {}", device.getName());
         
         try {
-            // Get ICMP statistics
-            List<String> icmpOids = Arrays.asList(
-                ICMP_IN_MSGS_OID, ICMP_IN_ERRORS_OID, ICMP_IN_DEST_UNREACHS_OID,
-                ICMP_IN_TIME_EXCDS_OID, ICMP_IN_PARM_PROBS_OID, ICMP_IN_SRC_QUENCHS_OID,
-                ICMP_IN_REDIRECTS_OID, ICMP_IN_ECHOS_OID, ICMP_IN_ECHO_REPS_OID,
-                ICMP_IN_TIMESTAMPS_OID, ICMP_IN_TIMESTAMP_REPS_OID, ICMP_IN_ADDR_MASKS_OID,
-                ICMP_IN_ADDR_MASK_REPS_OID, ICMP_OUT_MSGS_OID, ICMP_OUT_ERRORS_OID,
-                ICMP_OUT_DEST_UNREACHS_OID, ICMP_OUT_TIME_EXCDS_OID, ICMP_OUT_PARM_PROBS_OID,
-                ICMP_OUT_SRC_QUENCHS_OID, ICMP_OUT_REDIRECTS_OID, ICMP_OUT_ECHOS_OID,
-                ICMP_OUT_ECHO_REPS_OID, ICMP_OUT_TIMESTAMPS_OID, ICMP_OUT_TIMESTAMP_REPS_OID,
-                ICMP_OUT_ADDR_MASKS_OID, ICMP_OUT_ADDR_MASK_REPS_OID
-            );
-            
-            Map<String, Variable> icmpData = snmpClientService.snmpGetMultiple(config, icmpOids);
+            SnmpScalars icmpData = snmpClientService.snmpGetScalars(config, SCALAR_OIDS);
             
             if (icmpData.isEmpty()) {
                 log.warn("No ICMP data retrieved for device: {}", device.getName());
                 return;
             }
             
-            // Find existing ICMP profile or create new one
-            Optional<IcmpProfile> existingIcmpProfile = icmpProfileRepository.findByDeviceId(device.getId());
-            
-            IcmpProfile icmpProfile = existingIcmpProfile.orElse(
-                IcmpProfile.builder()
-                    .device(device)
-                    .build()
-            );
-            
-            // Update ICMP profile properties
-            updateIcmpProfileFromSnmpData(icmpProfile, icmpData);
-            
-            // Save the ICMP profile
-            icmpProfileRepository.save(icmpProfile);
-            log.info("Updated ICMP profile for device: {}", device.getName());
+            applyScalars(device, config, icmpData);
             
         } catch (Exception e) {
             log.error("Failed to poll ICMP profile for device {}: {}", device.getName(), e.getMessage(), e);
@@ -101,138 +62,171 @@ public class IcmpProfilePollService {
         }
     }
 
+    @Override
+    public String getGroupName() {
+        return "ICMP profile";
+    }
+
+    @Override
+    public SnmpColumns getScalarOids() {
+        return SCALAR_OIDS;
+    }
+
+    /**
+     * Store fetched ICMP statistics on the device's ICMP profile
+     */
+    @Override
+    @Transactional
+    public void applyScalars(Device device, DeviceConfig config, SnmpScalars values) {
+        // Find existing ICMP profile or create new one
+        Optional<IcmpProfile> existingIcmpProfile = icmpProfileRepository.findByDeviceId(device.getId());
+        
+        IcmpProfile icmpProfile = existingIcmpProfile.orElse(
+            IcmpProfile.builder()
+                .device(device)
+                .build()
+        );
+        
+        // Update ICMP profile properties
+        updateIcmpProfileFromSnmpData(icmpProfile, values);
+        
+        // Save the ICMP profile
+        icmpProfileRepository.save(icmpProfile);
+        log.info("Updated ICMP profile for device: {}", device.getName());
+    }
+
     /**
      * Update IcmpProfile entity with SNMP data
      */
-    private void updateIcmpProfileFromSnmpData(IcmpProfile icmpProfile, Map<String, Variable> data) {
+    private void updateIcmpProfileFromSnmpData(IcmpProfile icmpProfile, SnmpScalars data) {
         // ICMP Input Statistics
-        Variable icmpInMsgs = data.get(ICMP_IN_MSGS_OID);
+        Variable icmpInMsgs = data.get(ICMP_IN_MSGS);
         if (icmpInMsgs != null) {
             icmpProfile.setIcmpInMsgs(icmpInMsgs.toLong());
         }
         
-        Variable icmpInErrors = data.get(ICMP_IN_ERRORS_OID);
+        Variable icmpInErrors = data.get(ICMP_IN_ERRORS);
         if (icmpInErrors != null) {
             icmpProfile.setIcmpInErrors(icmpInErrors.toLong());
         }
         
-        Variable icmpInDestUnreachs = data.get(ICMP_IN_DEST_UNREACHS_OID);
+        Variable icmpInDestUnreachs = data.get(ICMP_IN_DEST_UNREACHS);
         if (icmpInDestUnreachs != null) {
             icmpProfile.setIcmpInDestUnreachs(icmpInDestUnreachs.toLong());
         }
         
-        Variable icmpInTimeExcds = data.get(ICMP_IN_TIME_EXCDS_OID);
+        Variable icmpInTimeExcds = data.get(ICMP_IN_TIME_EXCDS);
         if (icmpInTimeExcds != null) {
             icmpProfile.setIcmpInTimeExcds(icmpInTimeExcds.toLong());
         }
         
-        Variable icmpInParmProbs = data.get(ICMP_IN_PARM_PROBS_OID);
+        Variable icmpInParmProbs = data.get(ICMP_IN_PARM_PROBS);
         if (icmpInParmProbs != null) {
             icmpProfile.setIcmpInParmProbs(icmpInParmProbs.toLong());
         }
         
-        Variable icmpInSrcQuenchs = data.get(ICMP_IN_SRC_QUENCHS_OID);
+        Variable icmpInSrcQuenchs = data.get(ICMP_IN_SRC_QUENCHS);
         if (icmpInSrcQuenchs != null) {
             icmpProfile.setIcmpInSrcQuenchs(icmpInSrcQuenchs.toLong());
         }
         
-        Variable icmpInRedirects = data.get(ICMP_IN_REDIRECTS_OID);
+        Variable icmpInRedirects = data.get(ICMP_IN_REDIRECTS);
         if (icmpInRedirects != null) {
             icmpProfile.setIcmpInRedirects(icmpInRedirects.toLong());
         }
         
-        Variable icmpInEchos = data.get(ICMP_IN_ECHOS_OID);
+        Variable icmpInEchos = data.get(ICMP_IN_ECHOS);
         if (icmpInEchos != null) {
             icmpProfile.setIcmpInEchos(icmpInEchos.toLong());
         }
         
-        Variable icmpInEchoReps = data.get(ICMP_IN_ECHO_REPS_OID);
+        Variable icmpInEchoReps = data.get(ICMP_IN_ECHO_REPS);
         if (icmpInEchoReps != null) {
             icmpProfile.setIcmpInEchoReps(icmpInEchoReps.toLong());
         }
         
-        Variable icmpInTimestamps = data.get(ICMP_IN_TIMESTAMPS_OID);
+        Variable icmpInTimestamps = data.get(ICMP_IN_TIMESTAMPS);
         if (icmpInTimestamps != null) {
             icmpProfile.setIcmpInTimestamps(icmpInTimestamps.toLong());
         }
         
-        Variable icmpInTimestampReps = data.get(ICMP_IN_TIMESTAMP_REPS_OID);
+        Variable icmpInTimestampReps = data.get(ICMP_IN_TIMESTAMP_REPS);
         if (icmpInTimestampReps != null) {
             icmpProfile.setIcmpInTimestampReps(icmpInTimestampReps.toLong());
         }
         
-        Variable icmpInAddrMasks = data.get(ICMP_IN_ADDR_MASKS_OID);
+        Variable icmpInAddrMasks = data.get(ICMP_IN_ADDR_MASKS);
         if (icmpInAddrMasks != null) {
             icmpProfile.setIcmpInAddrMasks(icmpInAddrMasks.toLong());
         }
         
-        Variable icmpInAddrMaskReps = data.get(ICMP_IN_ADDR_MASK_REPS_OID);
+        Variable icmpInAddrMaskReps = data.get(ICMP_IN_ADDR_MASK_REPS);
         if (icmpInAddrMaskReps != null) {
             icmpProfile.setIcmpInAddrMaskReps(icmpInAddrMaskReps.toLong());
         }
         
         // ICMP Output Statistics
-        Variable icmpOutMsgs = data.get(ICMP_OUT_MSGS_OID);
+        Variable icmpOutMsgs = data.get(ICMP_OUT_MSGS);
         if (icmpOutMsgs != null) {
             icmpProfile.setIcmpOutMsgs(icmpOutMsgs.toLong());
         }
         
-        Variable icmpOutErrors = data.get(ICMP_OUT_ERRORS_OID);
+        Variable icmpOutErrors = data.get(ICMP_OUT_ERRORS);
         if (icmpOutErrors != null) {
             icmpProfile.setIcmpOutErrors(icmpOutErrors.toLong());
         }
         
-        Variable icmpOutDestUnreachs = data.get(ICMP_OUT_DEST_UNREACHS_OID);
+        Variable icmpOutDestUnreachs = data.get(ICMP_OUT_DEST_UNREACHS);
         if (icmpOutDestUnreachs != null) {
             icmpProfile.setIcmpOutDestUnreachs(icmpOutDestUnreachs.toLong());
         }
         
-        Variable icmpOutTimeExcds = data.get(ICMP_OUT_TIME_EXCDS_OID);
+        Variable icmpOutTimeExcds = data.get(ICMP_OUT_TIME_EXCDS);
         if (icmpOutTimeExcds != null) {
             icmpProfile.setIcmpOutTimeExcds(icmpOutTimeExcds.toLong());
         }
         
-        Variable icmpOutParmProbs = data.get(ICMP_OUT_PARM_PROBS_OID);
+        Variable icmpOutParmProbs = data.get(ICMP_OUT_PARM_PROBS);
         if (icmpOutParmProbs != null) {
             icmpProfile.setIcmpOutParmProbs(icmpOutParmProbs.toLong());
         }
         
-        Variable icmpOutSrcQuenchs = data.get(ICMP_OUT_SRC_QUENCHS_OID);
+        Variable icmpOutSrcQuenchs = data.get(ICMP_OUT_SRC_QUENCHS);
         if (icmpOutSrcQuenchs != null) {
             icmpProfile.setIcmpOutSrcQuenchs(icmpOutSrcQuenchs.toLong());
         }
         
-        Variable icmpOutRedirects = data.get(ICMP_OUT_REDIRECTS_OID);
+        Variable icmpOutRedirects = data.get(ICMP_OUT_REDIRECTS);
         if (icmpOutRedirects != null) {
             icmpProfile.setIcmpOutRedirects(icmpOutRedirects.toLong());
         }
         
-        Variable icmpOutEchos = data.get(ICMP_OUT_ECHOS_OID);
+        Variable icmpOutEchos = data.get(ICMP_OUT_ECHOS);
         if (icmpOutEchos != null) {
             icmpProfile.setIcmpOutEchos(icmpOutEchos.toLong());
         }
         
-        Variable icmpOutEchoReps = data.get(ICMP_OUT_ECHO_REPS_OID);
+        Variable icmpOutEchoReps = data.get(ICMP_OUT_ECHO_REPS);
         if (icmpOutEchoReps != null) {
             icmpProfile.setIcmpOutEchoReps(icmpOutEchoReps.toLong());
         }
         
-        Variable icmpOutTimestamps = data.get(ICMP_OUT_TIMESTAMPS_OID);
+        Variable icmpOutTimestamps = data.get(ICMP_OUT_TIMESTAMPS);
         if (icmpOutTimestamps != null) {
             icmpProfile.setIcmpOutTimestamps(icmpOutTimestamps.toLong());
         }
         
-        Variable icmpOutTimestampReps = data.get(ICMP_OUT_TIMESTAMP_REPS_OID);
+        Variable icmpOutTimestampReps = data.get(ICMP_OUT_TIMESTAMP_REPS);
         if (icmpOutTimestampReps != null) {
             icmpProfile.setIcmpOutTimestampReps(icmpOutTimestampReps.toLong());
         }
         
-        Variable icmpOutAddrMasks = data.get(ICMP_OUT_ADDR_MASKS_OID);
+        Variable icmpOutAddrMasks = data.get(ICMP_OUT_ADDR_MASKS);
         if (icmpOutAddrMasks != null) {
             icmpProfile.setIcmpOutAddrMasks(icmpOutAddrMasks.toLong());
         }
         
-        Variable icmpOutAddrMaskReps = data.get(ICMP_OUT_ADDR_MASK_REPS_OID);
+        Variable icmpOutAddrMaskReps = data.get(ICMP_OUT_ADDR_MASK_REPS);
         if (icmpOutAddrMaskReps != null) {
             icmpProfile.setIcmpOutAddrMaskReps(icmpOutAddrMaskReps.toLong());
         }
@@ -3,15 +3,20 @@ package com.farukgenc.boilerplate.springboot.service.snmp;
 import com.farukgenc.boilerplate.springboot.model.Device;
 import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
 import com.farukgenc.boilerplate.springboot.model.DeviceInterface;
+import com.farukgenc.boilerplate.springboot.model.DeviceInterfaceStats;
 import com.farukgenc.boilerplate.springboot.repository.DeviceInterfaceRepository;
 import com.farukgenc.boilerplate.springboot.utils.SnmpDataParser;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.snmp4j.smi.OID;
 import org.snmp4j.smi.Variable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+import static com.farukgenc.boilerplate.springboot.service.snmp.SnmpOids.*;
 
 /**
  * Service for polling and updating device interface information via SNMP
@@ -21,72 +26,40 @@ import java.util.*;
 @RequiredArgsConstructor
 public class InterfacePollService {
 
-    private final SnmpClientService snmpClientService;
+    private final SnmpTableFetcher snmpTableFetcher;
     private final DeviceInterfaceRepository deviceInterfaceRepository;
     private final SnmpDataParser snmpDataParser;
-    private final DuplicatePreventionService duplicatePreventionService;
 
-    // Interface MIB OIDs
-    private static final String IF_INDEX_OID = "1.3.6.1.2.1.2.2.1.1";        // ifIndex
-    private static final String IF_DESCR_OID = "1.3.6.1.2.1.2.2.1.2";        // ifDescr
-    private static final String IF_TYPE_OID = "1.3.6.1.2.1.2.2.1.3";         // ifType
-    private static final String IF_MTU_OID = "1.3.6.1.2.1.2.2.1.4";          // ifMtu
-    private static final String IF_SPEED_OID = "1.3.6.1.2.1.2.2.1.5";        // ifSpeed
-    private static final String IF_PHYS_ADDRESS_OID = "1.3.6.1.2.1.2.2.1.6"; // ifPhysAddress
-    private static final String IF_ADMIN_STATUS_OID = "1.3.6.1.2.1.2.2.1.7"; // ifAdminStatus
-    private static final String IF_OPER_STATUS_OID = "1.3.6.1.2.1.2.2.1.8";  // ifOperStatus
-    private static final String IF_LAST_CHANGE_OID = "1.3.6.1.2.1.2.2.1.9";  // ifLastChange
-    private static final String IF_IN_OCTETS_OID = "1.3.6.1.2.1.2.2.1.10";   // ifInOctets
-    private static final String IF_IN_UCAST_PKTS_OID = "1.3.6.1.2.1.2.2.1.11"; // ifInUcastPkts
-    private static final String IF_IN_DISCARDS_OID = "1.3.6.1.2.1.2.2.1.13"; // ifInDiscards
-    private static final String IF_IN_ERRORS_OID = "1.3.6.1.2.1.2.2.1.14";   // ifInErrors
-    private static final String IF_OUT_OCTETS_OID = "1.3.6.1.2.1.2.2.1.16";  // ifOutOctets
-    private static final String IF_OUT_UCAST_PKTS_OID = "1.3.6.1.2.1.2.2.1.17"; // ifOutUcastPkts
-    private static final String IF_OUT_DISCARDS_OID = "1.3.6.1.2.1.2.2.1.19"; // ifOutDiscards
-    private static final String IF_OUT_ERRORS_OID = "1.3.6.1.2.1.2.2.1.20";  // ifOutErrors
+    // Counter columns, stored in the interface's stats row and fingerprinted apart from the
+    // descriptive columns so traffic alone never rewrites the interface row
+    static final Set<OID> COUNTER_COLUMNS = Set.of(
+        IF_IN_OCTETS, IF_IN_UCAST_PKTS, IF_IN_DISCARDS, IF_IN_ERRORS,
+        IF_OUT_OCTETS, IF_OUT_UCAST_PKTS, IF_OUT_DISCARDS, IF_OUT_ERRORS,
+        IF_HC_IN_OCTETS, IF_HC_IN_UCAST_PKTS, IF_HC_OUT_OCTETS, IF_HC_OUT_UCAST_PKTS,
+        IF_COUNTER_DISCONTINUITY_TIME
+    );
+
+    // Interface MIB columns (see SnmpOids) fetched in one column-parallel table retrieval. The
+    // ifXTable columns share ifTable's index; agents without them simply return no values.
+    private static final SnmpColumns INTERFACE_COLUMNS = SnmpColumns.of(
+        IF_INDEX, IF_DESCR, IF_TYPE, IF_MTU, IF_SPEED, IF_PHYS_ADDRESS,
+        IF_ADMIN_STATUS, IF_OPER_STATUS, IF_LAST_CHANGE,
+        IF_IN_OCTETS, IF_IN_UCAST_PKTS, IF_IN_DISCARDS, IF_IN_ERRORS,
+        IF_OUT_OCTETS, IF_OUT_UCAST_PKTS, IF_OUT_DISCARDS, IF_OUT_ERRORS,
+        IF_HC_IN_OCTETS, IF_HC_IN_UCAST_PKTS, IF_HC_OUT_OCTETS, IF_HC_OUT_UCAST_PKTS,
+        IF_COUNTER_DISCONTINUITY_TIME
+    );
 
     /**
-     * Poll and update all interfaces for a device
+     * Poll and update all interfaces for a device. Not transactional, so no database connection
+     * is held while the table is fetched.
      */
-    @Transactional
     public void pollDeviceInterfaces(Device device, DeviceConfig config) {
         log.debug("Polling interfaces for device: {}", device.getName());
         
         try {
-            // Get interface indices first
-            Map<String, Variable> interfaceIndices = snmpClientService.snmpWalk(config, IF_INDEX_OID, 100);
-            
-            if (interfaceIndices.isEmpty()) {
-                log.warn("No interfaces found for device: {}", device.getName());
-                return;
-            }
-            
-            Set<Integer> activeInterfaceIndices = new HashSet<>();
-            List<DeviceInterface> interfacesToSave = new ArrayList<>();
-            
-            for (Map.Entry<String, Variable> entry : interfaceIndices.entrySet()) {
-                String oid = entry.getKey();
-                Integer ifIndex = entry.getValue().toInt();
-                
-                if (ifIndex != null && ifIndex > 0) {
-                    activeInterfaceIndices.add(ifIndex);
-                    
-                    DeviceInterface deviceInterface = pollSingleInterface(device, config, ifIndex, oid);
-                    if (deviceInterface != null) {
-                        interfacesToSave.add(deviceInterface);
-                    }
-                }
-            }
-            
-            // Save or update interfaces
-            if (!interfacesToSave.isEmpty()) {
-                deviceInterfaceRepository.saveAll(interfacesToSave);
-                log.info("Updated {} interfaces for device: {}", interfacesToSave.size(), device.getName());
-            }
-            
-            // Use duplicate prevention service to clean up stale interfaces
-            duplicatePreventionService.cleanupStaleInterfaces(device, activeInterfaceIndices);
-            
+            // Fetch the whole ifTable at once instead of one request per interface
+            applyInterfaces(device, snmpTableFetcher.fetchTable(config, INTERFACE_COLUMNS));
         } catch (Exception e) {
             log.error("Failed to poll interfaces for device {}: {}", device.getName(), e.getMessage(), e);
             throw new RuntimeException("Interface polling failed for device: " + device.getName(), e);
@@ -94,60 +67,120 @@ public class InterfacePollService {
     }
 
     /**
-     * Poll a single interface and return the DeviceInterface entity
+     * Fetch the device's ifTable without touching the database
      */
-    private DeviceInterface pollSingleInterface(Device device, DeviceConfig config, Integer ifIndex, String indexOid) {
-        try {
-            // Extract interface index from OID
-            String suffix = "." + ifIndex;
-            
-            // Prepare OIDs to query
-            List<String> oidsToQuery = Arrays.asList(
-                IF_DESCR_OID + suffix,
-                IF_TYPE_OID + suffix,
-                IF_MTU_OID + suffix,
-                IF_SPEED_OID + suffix,
-                IF_PHYS_ADDRESS_OID + suffix,
-                IF_ADMIN_STATUS_OID + suffix,
-                IF_OPER_STATUS_OID + suffix,
-                IF_LAST_CHANGE_OID + suffix,
-                IF_IN_OCTETS_OID + suffix,
-                IF_IN_UCAST_PKTS_OID + suffix,
-                IF_IN_DISCARDS_OID + suffix,
-                IF_IN_ERRORS_OID + suffix,
-                IF_OUT_OCTETS_OID + suffix,
-                IF_OUT_UCAST_PKTS_OID + suffix,
-                IF_OUT_DISCARDS_OID + suffix,
-                IF_OUT_ERRORS_OID + suffix
-            );
-            
-            Map<String, Variable> interfaceData = snmpClientService.snmpGetMultiple(config, oidsToQuery);
-            
-            if (interfaceData.isEmpty()) {
-                log.warn("No data retrieved for interface {} on device {}", ifIndex, device.getName());
-                return null;
+    public CompletableFuture<List<SnmpTableRow>> fetchInterfacesAsync(DeviceConfig config) {
+        return snmpTableFetcher.fetchTableAsync(config, INTERFACE_COLUMNS);
+    }
+
+    /**
+     * Store fetched ifTable rows and remove interfaces the device no longer reports, reconciling
+     * them against the device's existing interfaces loaded in a single query
+     */
+    @Transactional
+    public void applyInterfaces(Device device, List<SnmpTableRow> rows) {
+        applyInterfaces(device, rows, PollChanges.NONE);
+    }
+
+    /**
+     * Like {@link #applyInterfaces(Device, List)}, but only what {@code changes} marks as changed is
+     * written: an existing interface whose counters alone moved only gets its stats row updated,
+     * and one with neither changed is left as it is
+     */
+    @Transactional
+    public void applyInterfaces(Device device, List<SnmpTableRow> rows, PollChanges changes) {
+        if (rows.isEmpty()) {
+            log.warn("No interfaces found for device: {}", device.getName());
+            return;
+        }
+        
+        Map<Integer, SnmpTableRow> polled = new LinkedHashMap<>();
+        for (SnmpTableRow row : rows) {
+            if (row.getIndexAsInt() > 0) {
+                polled.put(row.getIndexAsInt(), row);
             }
-              // Find existing interface or create new one using duplicate prevention
-            DeviceInterface deviceInterface = duplicatePreventionService.getOrCreateInterface(device, ifIndex);
-            
-            // Update interface properties
-            updateInterfaceFromSnmpData(deviceInterface, interfaceData, suffix);
-            
-            return deviceInterface;
-            
+        }
+        
+        SnapshotReconciler.Result result = SnapshotReconciler.reconcile(
+            deviceInterfaceRepository.findByDeviceId(device.getId()), DeviceInterface::getIfIndex, polled,
+            ifIndex -> changes.isChanged(PollChanges.INTERFACES, ifIndex)
+                || changes.isChanged(PollChanges.INTERFACE_COUNTERS, ifIndex),
+            ifIndex -> DeviceInterface.builder().device(device).ifIndex(ifIndex).build(),
+            (deviceInterface, row) -> {
+                if (deviceInterface.getId() == null || changes.isChanged(PollChanges.INTERFACES, row.getIndexAsInt())) {
+                    updateInterface(device, deviceInterface, row);
+                } else {
+                    updateCounters(device, deviceInterface, row);
+                }
+            },
+            deviceInterfaceRepository);
+        
+        log.info("Polled {} interfaces for device: {} ({} new, {} changed, {} removed)",
+            polled.size(), device.getName(), result.inserted(), result.updated(), result.deleted());
+    }
+
+    /**
+     * Stage the changed rows of a poll for a native upsert instead of reconciling them through JPA.
+     * Interfaces whose counters alone changed are staged as a stats row only. Stored interfaces
+     * the device no longer reports are deleted with the batch, which is only arranged when
+     * {@code changes} says some may be gone.
+     */
+    public void stageInterfaces(Device device, List<SnmpTableRow> rows, PollChanges changes, PollUpsertBatch batch) {
+        if (rows.isEmpty()) {
+            log.warn("No interfaces found for device: {}", device.getName());
+            return;
+        }
+        
+        Set<Integer> polled = new LinkedHashSet<>();
+        int staged = 0;
+        int counters = 0;
+        for (SnmpTableRow row : rows) {
+            int index = row.getIndexAsInt();
+            if (index <= 0 || !polled.add(index)) {
+                continue;
+            }
+            DeviceInterface deviceInterface = DeviceInterface.builder().device(device).ifIndex(index).build();
+            if (changes.isChanged(PollChanges.INTERFACES, index)) {
+                updateInterface(device, deviceInterface, row);
+                batch.addInterface(deviceInterface);
+                staged++;
+            } else if (changes.isChanged(PollChanges.INTERFACE_COUNTERS, index)) {
+                updateCounters(device, deviceInterface, row);
+                batch.addInterfaceStats(deviceInterface.getStats());
+                counters++;
+            }
+        }
+        if (changes.mayHaveRemovedRows(PollChanges.INTERFACES)) {
+            batch.keepOnlyInterfaces(device.getId(), polled);
+        }
+        
+        log.info("Polled {} interfaces for device: {} ({} staged, {} with counters only)",
+            polled.size(), device.getName(), staged, counters);
+    }
+
+    private void updateInterface(Device device, DeviceInterface deviceInterface, SnmpTableRow row) {
+        try {
+            updateInterfaceFromSnmpData(deviceInterface, row);
         } catch (Exception e) {
-            log.error("Failed to poll interface {} for device {}: {}", ifIndex, device.getName(), e.getMessage());
-            return null;
+            log.error("Failed to poll interface {} for device {}: {}", row.getIndexAsInt(), device.getName(), e.getMessage());
         }
-    }    /**
+    }
+
+    private void updateCounters(Device device, DeviceInterface deviceInterface, SnmpTableRow row) {
+        try {
+            updateInterfaceStatistics(deviceInterface, row);
+        } catch (Exception e) {
+            log.error("Failed to poll counters of interface {} for device {}: {}", row.getIndexAsInt(), device.getName(), e.getMessage());
+        }
+    }
+
+    /**
      * Update DeviceInterface entity with SNMP data
      */
-    private void updateInterfaceFromSnmpData(DeviceInterface deviceInterface, 
-                                           Map<String, Variable> data, 
-                                           String suffix) {
+    private void updateInterfaceFromSnmpData(DeviceInterface deviceInterface, SnmpTableRow row) {
         
         // Interface description
-        Variable ifDescr = data.get(IF_DESCR_OID + suffix);
+        Variable ifDescr = row.getValue(IF_DESCR);
         if (ifDescr != null) {
             String descrRaw = ifDescr.toString();
             String parsedDescr = snmpDataParser.isHexFormat(descrRaw)
@@ -157,25 +190,25 @@ public class InterfacePollService {
         }
         
         // Interface type
-        Variable ifType = data.get(IF_TYPE_OID + suffix);
+        Variable ifType = row.getValue(IF_TYPE);
         if (ifType != null) {
             deviceInterface.setIfType(mapInterfaceType(ifType.toInt()));
         }
         
         // MTU
-        Variable ifMtu = data.get(IF_MTU_OID + suffix);
+        Variable ifMtu = row.getValue(IF_MTU);
         if (ifMtu != null) {
             deviceInterface.setIfMtu(ifMtu.toInt());
         }
         
         // Speed
-        Variable ifSpeed = data.get(IF_SPEED_OID + suffix);
+        Variable ifSpeed = row.getValue(IF_SPEED);
         if (ifSpeed != null) {
             deviceInterface.setIfSpeed(ifSpeed.toLong());
         }
         
         // Physical Address (MAC)
-        Variable ifPhysAddress = data.get(IF_PHYS_ADDRESS_OID + suffix);
+        Variable ifPhysAddress = row.getValue(IF_PHYS_ADDRESS);
         if (ifPhysAddress != null) {
             String rawMac = ifPhysAddress.toString();
             // Use enhanced parser for better hex to MAC conversion
@@ -184,64 +217,67 @@ public class InterfacePollService {
         }
         
         // Administrative Status
-        Variable ifAdminStatus = data.get(IF_ADMIN_STATUS_OID + suffix);
+        Variable ifAdminStatus = row.getValue(IF_ADMIN_STATUS);
         if (ifAdminStatus != null) {
             deviceInterface.setIfAdminStatus(mapInterfaceStatus(ifAdminStatus.toInt()));
         }
         
         // Operational Status
-        Variable ifOperStatus = data.get(IF_OPER_STATUS_OID + suffix);
+        Variable ifOperStatus = row.getValue(IF_OPER_STATUS);
         if (ifOperStatus != null) {
             deviceInterface.setIfOperStatus(mapInterfaceStatus(ifOperStatus.toInt()));
         }
         
         // Statistics
-        updateInterfaceStatistics(deviceInterface, data, suffix);
-    }    /**
-     * Update interface statistics
+        updateInterfaceStatistics(deviceInterface, row);
+    }
+
+    /**
+     * Update interface statistics, which live in their own narrow row so the interface row
+     * itself is only written when one of its descriptive attributes changes. The 64-bit ifXTable
+     * counters are preferred where the agent has them.
      */
-    private void updateInterfaceStatistics(DeviceInterface deviceInterface, 
-                                         Map<String, Variable> data, 
-                                         String suffix) {
+    private void updateInterfaceStatistics(DeviceInterface deviceInterface, SnmpTableRow row) {
+        DeviceInterfaceStats stats = deviceInterface.getOrCreateStats();
         
-        Variable inOctets = data.get(IF_IN_OCTETS_OID + suffix);
+        Variable inOctets = row.getFirstValue(IF_HC_IN_OCTETS, IF_IN_OCTETS);
         if (inOctets != null) {
-            deviceInterface.setIfInOctets(inOctets.toLong());
+            stats.setIfInOctets(inOctets.toLong());
         }
         
-        Variable inUcastPkts = data.get(IF_IN_UCAST_PKTS_OID + suffix);
+        Variable inUcastPkts = row.getFirstValue(IF_HC_IN_UCAST_PKTS, IF_IN_UCAST_PKTS);
         if (inUcastPkts != null) {
-            deviceInterface.setIfInUcastPkts(inUcastPkts.toLong());
+            stats.setIfInUcastPkts(inUcastPkts.toLong());
         }
         
-        Variable inDiscards = data.get(IF_IN_DISCARDS_OID + suffix);
+        Variable inDiscards = row.getValue(IF_IN_DISCARDS);
         if (inDiscards != null) {
-            deviceInterface.setIfInDiscards(inDiscards.toLong());
+            stats.setIfInDiscards(inDiscards.toLong());
         }
         
-        Variable inErrors = data.get(IF_IN_ERRORS_OID + suffix);
+        Variable inErrors = row.getValue(IF_IN_ERRORS);
         if (inErrors != null) {
-            deviceInterface.setIfInErrors(inErrors.toLong());
+            stats.setIfInErrors(inErrors.toLong());
         }
         
-        Variable outOctets = data.get(IF_OUT_OCTETS_OID + suffix);
+        Variable outOctets = row.getFirstValue(IF_HC_OUT_OCTETS, IF_OUT_OCTETS);
         if (outOctets != null) {
-            deviceInterface.setIfOutOctets(outOctets.toLong());
+            stats.setIfOutOctets(outOctets.toLong());
         }
         
-        Variable outUcastPkts = data.get(IF_OUT_UCAST_PKTS_OID + suffix);
+        Variable outUcastPkts = row.getFirstValue(IF_HC_OUT_UCAST_PKTS, IF_OUT_UCAST_PKTS);
         if (outUcastPkts != null) {
-            deviceInterface.setIfOutUcastPkts(outUcastPkts.toLong());
+            stats.setIfOutUcastPkts(outUcastPkts.toLong());
         }
         
-        Variable outDiscards = data.get(IF_OUT_DISCARDS_OID + suffix);
+        Variable outDiscards = row.getValue(IF_OUT_DISCARDS);
         if (outDiscards != null) {
-            deviceInterface.setIfOutDiscards(outDiscards.toLong());
+            stats.setIfOutDiscards(outDiscards.toLong());
         }
         
-        Variable outErrors = data.get(IF_OUT_ERRORS_OID + suffix);
+        Variable outErrors = row.getValue(IF_OUT_ERRORS);
         if (outErrors != null) {
-            deviceInterface.setIfOutErrors(outErrors.toLong());
+            stats.setIfOutErrors(outErrors.toLong());
         }
     }    /**
      * Map SNMP interface type to enum
@@ -0,0 +1,180 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import com.farukgenc.boilerplate.springboot.event.DeviceConfigChangedEvent;
+import com.farukgenc.boilerplate.springboot.model.InterfaceMetric;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.snmp4j.smi.Counter64;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.Variable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.farukgenc.boilerplate.springboot.service.snmp.SnmpOids.*;
+
+/**
+ * Turns the raw ifTable counters of a device's successive polls into per-second rates. The last
+ * counters of every interface are kept in memory, so after a restart the first poll of a device
+ * only sets the baseline.
+ * <p>
+ * Deltas follow the counter's syntax: a Counter32 that went down wrapped once at 2^32, a
+ * Counter64 that went down was reset. The 64-bit ifXTable counters are used where the agent has
+ * them, since a Counter32 wraps every 34 seconds at 1 Gbit/s and more than one wrap per interval
+ * cannot be told apart. No rate is given across a counter discontinuity: when sysUpTime shows the
+ * agent restarted, when an interface's ifCounterDiscontinuityTime moved, or when the polls are
+ * more than {@code app.snmp.samples.max-interval} apart.
+ */
+@Component
+public class InterfaceRateCalculator {
+
+    private static final long TIME_TICKS_RANGE = 1L << 32;
+    private static final long COUNTER32_RANGE = 1L << 32;
+
+    private static final List<Source> SOURCES = List.of(
+        new Source(InterfaceMetric.IN_BPS, 8, IF_HC_IN_OCTETS, IF_IN_OCTETS),
+        new Source(InterfaceMetric.OUT_BPS, 8, IF_HC_OUT_OCTETS, IF_OUT_OCTETS),
+        new Source(InterfaceMetric.IN_PPS, 1, IF_HC_IN_UCAST_PKTS, IF_IN_UCAST_PKTS),
+        new Source(InterfaceMetric.OUT_PPS, 1, IF_HC_OUT_UCAST_PKTS, IF_OUT_UCAST_PKTS),
+        new Source(InterfaceMetric.IN_ERRORS, 1, IF_IN_ERRORS),
+        new Source(InterfaceMetric.OUT_ERRORS, 1, IF_OUT_ERRORS),
+        new Source(InterfaceMetric.IN_DISCARDS, 1, IF_IN_DISCARDS),
+        new Source(InterfaceMetric.OUT_DISCARDS, 1, IF_OUT_DISCARDS));
+
+    private final boolean enabled;
+    private final long maxIntervalMillis;
+    private final Map<Long, Baseline> devices = new ConcurrentHashMap<>();
+
+    private final Counter resets;
+
+    public InterfaceRateCalculator(SnmpProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.getSamples().isEnabled();
+        this.maxIntervalMillis = properties.getSamples().getMaxInterval().toMillis();
+        this.resets = Counter.builder("snmp.poll.counter.resets")
+            .description("Device polls whose counters were discontinuous, so no rates were computed").register(meterRegistry);
+    }
+
+    /**
+     * Rates of every interface polled both now and last time, and a new baseline for the next poll
+     *
+     * @param sysUpTime the agent's sysUpTime in hundredths of a second, {@code null} if not polled
+     */
+    public List<InterfaceRates> sample(Long configId, LocalDateTime polledAt, Long sysUpTime, List<SnmpTableRow> interfaces) {
+        if (!enabled || interfaces.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Integer, Reading> readings = new HashMap<>(interfaces.size() * 2);
+        for (SnmpTableRow row : interfaces) {
+            readings.put(row.getIndexAsInt(), Reading.of(row));
+        }
+        Baseline last = devices.put(configId, new Baseline(polledAt, sysUpTime, readings));
+        if (last == null) {
+            return List.of();
+        }
+
+        long intervalMillis = Duration.between(last.polledAt(), polledAt).toMillis();
+        if (intervalMillis <= 0 || intervalMillis > maxIntervalMillis) {
+            return List.of();
+        }
+        if (agentRestarted(last.sysUpTime(), sysUpTime, intervalMillis)) {
+            resets.increment();
+            return List.of();
+        }
+
+        List<InterfaceRates> rates = new ArrayList<>(readings.size());
+        readings.forEach((ifIndex, reading) -> {
+            Reading previous = last.readings().get(ifIndex);
+            if (previous == null || !Objects.equals(previous.discontinuity(), reading.discontinuity())) {
+                return;
+            }
+            Map<InterfaceMetric, Float> values = new EnumMap<>(InterfaceMetric.class);
+            for (int i = 0; i < SOURCES.size(); i++) {
+                Long delta = delta(previous.values()[i], previous.wide()[i], reading.values()[i], reading.wide()[i]);
+                if (delta != null) {
+                    values.put(SOURCES.get(i).metric(), (float) (delta * SOURCES.get(i).scale() * 1000.0 / intervalMillis));
+                }
+            }
+            if (!values.isEmpty()) {
+                rates.add(new InterfaceRates(ifIndex, (int) intervalMillis, values));
+            }
+        });
+        return rates;
+    }
+
+    /**
+     * Forgets the baselines of a device whose configuration was removed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceConfigChanged(DeviceConfigChangedEvent event) {
+        if (event.getEventType() == DeviceConfigChangedEvent.EventType.DELETED) {
+            devices.remove(event.getConfigId());
+        }
+    }
+
+    /**
+     * Increase of a counter between two readings, or {@code null} when there is none to give:
+     * a value is missing, the counter changed width, or a Counter64 went down
+     */
+    static Long delta(Long previous, boolean previousWide, Long current, boolean wide) {
+        if (previous == null || current == null || previousWide != wide) {
+            return null;
+        }
+        if (wide) {
+            return Long.compareUnsigned(current, previous) >= 0 ? current - previous : null;
+        }
+        return current >= previous ? current - previous : current + COUNTER32_RANGE - previous;
+    }
+
+    /**
+     * Whether the agent restarted between two polls, which resets all its counters. sysUpTime is a
+     * TimeTicks that wraps after 497 days: a lower value is only a wrap when it advanced by about the
+     * time that passed. A higher value may still follow a restart when the agent has been up for
+     * less time than passed since the last poll.
+     */
+    static boolean agentRestarted(Long lastUpTime, Long upTime, long intervalMillis) {
+        if (lastUpTime == null || upTime == null) {
+            return false;
+        }
+        long slackMillis = intervalMillis / 10 + 5_000;
+        if (upTime >= lastUpTime) {
+            return upTime * 10 + slackMillis < intervalMillis;
+        }
+        long advancedMillis = (upTime + TIME_TICKS_RANGE - lastUpTime) * 10;
+        return Math.abs(advancedMillis - intervalMillis) > slackMillis;
+    }
+
+    /**
+     * Where a metric's counter is read from, best column first, and what a unit of it is worth
+     */
+    private record Source(InterfaceMetric metric, int scale, OID... columns) {
+    }
+
+    /**
+     * An interface's counters in {@link #SOURCES} order, with whether each one is a Counter64
+     */
+    private record Reading(Long[] values, boolean[] wide, Long discontinuity) {
+
+        static Reading of(SnmpTableRow row) {
+            Long[] values = new Long[SOURCES.size()];
+            boolean[] wide = new boolean[SOURCES.size()];
+            for (int i = 0; i < SOURCES.size(); i++) {
+                Variable value = row.getFirstValue(SOURCES.get(i).columns());
+                if (value != null) {
+                    values[i] = value.toLong();
+                    wide[i] = value instanceof Counter64;
+                }
+            }
+            Variable discontinuity = row.getValue(IF_COUNTER_DISCONTINUITY_TIME);
+            return new Reading(values, wide, discontinuity == null ? null : discontinuity.toLong());
+        }
+    }
+
+    private record Baseline(LocalDateTime polledAt, Long sysUpTime, Map<Integer, Reading> readings) {
+    }
+}
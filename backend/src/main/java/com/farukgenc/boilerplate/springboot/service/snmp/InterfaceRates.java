@@ -0,0 +1,13 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.model.InterfaceMetric;
+
+import java.util.Map;
+
+/**
+ * Per-second rates of one interface over the interval ending at its poll, computed by
+ * {@link InterfaceRateCalculator}. Metrics without a rate, because their counter is missing or
+ * was reset, are absent.
+ */
+public record InterfaceRates(int ifIndex, int intervalMillis, Map<InterfaceMetric, Float> rates) {
+}
@@ -0,0 +1,197 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import com.farukgenc.boilerplate.springboot.event.DeviceConfigChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.snmp4j.smi.Counter64;
+import org.snmp4j.smi.Integer32;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.UnsignedInteger32;
+import org.snmp4j.smi.Variable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers a 64-bit fingerprint of every row a device's polls last wrote, so unchanged rows are
+ * neither loaded nor rewritten and their {@code updatedAt} only moves when their values do.
+ * Polls are compared in the transform stage; fingerprints are recorded by the writer once its
+ * transaction has committed, so a rolled back write is retried in full by the next poll.
+ * <p>
+ * Fingerprints older than {@code app.snmp.change-detection.max-age} count as changed, which
+ * repairs rows edited or deleted outside the poller. Nothing is persisted: after a restart the
+ * first poll of every device writes everything.
+ */
+@Component
+public class PollChangeTracker {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final boolean enabled;
+    private final long maxAgeMillis;
+    private final Map<Long, Map<String, Part>> devices = new ConcurrentHashMap<>();
+
+    private final Counter polledRows;
+    private final Counter changedRows;
+    private double lastPolled;
+    private double lastChanged;
+    private double lastRatio = Double.NaN;
+
+    public PollChangeTracker(SnmpProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.getChangeDetection().isEnabled();
+        this.maxAgeMillis = properties.getChangeDetection().getMaxAge().toMillis();
+
+        this.polledRows = Counter.builder("snmp.poll.rows").tag("state", "polled")
+            .description("Rows and scalar groups compared against their last written values").register(meterRegistry);
+        this.changedRows = Counter.builder("snmp.poll.rows").tag("state", "changed")
+            .description("Compared rows and scalar groups that were new or had changed, and so were written").register(meterRegistry);
+        Gauge.builder("snmp.poll.rows.changed.ratio", this, PollChangeTracker::changedRatio)
+            .description("Rows changed / rows polled since the previous reading").register(meterRegistry);
+        Gauge.builder("snmp.poll.fingerprints.devices", devices, Map::size)
+            .description("Devices whose last written rows are fingerprinted").register(meterRegistry);
+    }
+
+    /**
+     * Compares a poll's fingerprints, part by part and row by row, with the ones last recorded for the device
+     *
+     * @param fingerprints row fingerprints by part and row key
+     */
+    public PollChanges compare(Long configId, Map<String, Map<Object, Long>> fingerprints) {
+        if (!enabled) {
+            return PollChanges.NONE;
+        }
+
+        Map<String, Part> recorded = devices.getOrDefault(configId, Map.of());
+        long now = System.currentTimeMillis();
+        Map<String, Set<Object>> changedKeys = new HashMap<>();
+        Set<String> unchangedParts = new HashSet<>();
+        Set<String> partsWithRemovedRows = new HashSet<>();
+        long polled = 0;
+        long changed = 0;
+
+        for (Map.Entry<String, Map<Object, Long>> entry : fingerprints.entrySet()) {
+            Map<Object, Long> rows = entry.getValue();
+            Part last = recorded.get(entry.getKey());
+            polled += rows.size();
+            if (last == null || now - last.recordedAt() >= maxAgeMillis) {
+                changed += rows.size();
+                continue;
+            }
+
+            Set<Object> keys = new HashSet<>();
+            int known = 0;
+            for (Map.Entry<Object, Long> row : rows.entrySet()) {
+                Long lastFingerprint = last.rows().get(row.getKey());
+                if (lastFingerprint != null) {
+                    known++;
+                }
+                if (!row.getValue().equals(lastFingerprint)) {
+                    keys.add(row.getKey());
+                }
+            }
+            changed += keys.size();
+            boolean removed = known < last.rows().size();
+            // Every polled row matched and none went missing, so the stored rows are exactly these
+            if (keys.isEmpty() && !removed) {
+                unchangedParts.add(entry.getKey());
+            } else {
+                changedKeys.put(entry.getKey(), keys);
+                if (removed) {
+                    partsWithRemovedRows.add(entry.getKey());
+                }
+            }
+        }
+
+        polledRows.increment(polled);
+        changedRows.increment(changed);
+        return new PollChanges(fingerprints, changedKeys, unchangedParts, partsWithRemovedRows);
+    }
+
+    /**
+     * Records a committed poll's fingerprints. Parts whose write failed are forgotten so the next
+     * poll writes them in full; unchanged parts keep their original age.
+     */
+    public void record(Long configId, PollChanges changes, Set<String> failedParts) {
+        if (!enabled || changes.getFingerprints().isEmpty()) {
+            return;
+        }
+        Map<String, Part> recorded = devices.computeIfAbsent(configId, id -> new ConcurrentHashMap<>());
+        long now = System.currentTimeMillis();
+        changes.getFingerprints().forEach((part, rows) -> {
+            if (failedParts.contains(part)) {
+                recorded.remove(part);
+            } else if (!changes.isUnchanged(part)) {
+                recorded.put(part, new Part(now, rows));
+            }
+        });
+    }
+
+    /**
+     * Drops the fingerprints of a device whose configuration was removed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceConfigChanged(DeviceConfigChangedEvent event) {
+        if (event.getEventType() == DeviceConfigChangedEvent.EventType.DELETED) {
+            devices.remove(event.getConfigId());
+        }
+    }
+
+    synchronized double changedRatio() {
+        double polled = polledRows.count();
+        double changed = changedRows.count();
+        if (polled > lastPolled) {
+            lastRatio = (changed - lastChanged) / (polled - lastPolled);
+            lastPolled = polled;
+            lastChanged = changed;
+        }
+        return lastRatio;
+    }
+
+    /**
+     * FNV-1a hash of a row's values, including their syntax so e.g. a Gauge32 and a Counter32 of
+     * the same value differ. Missing values hash differently from any present value.
+     */
+    static long fingerprint(OID index, Variable[] values) {
+        long hash = FNV_OFFSET;
+        if (index != null) {
+            for (int subId : index.getValue()) {
+                hash = mix(hash, subId);
+            }
+        }
+        for (Variable value : values) {
+            hash = mix(hash, value == null ? -1 : value.getSyntax());
+            if (value instanceof Integer32 || value instanceof UnsignedInteger32 || value instanceof Counter64) {
+                hash = mix(hash, value.toLong());
+            } else if (value instanceof OctetString octets) {
+                for (byte b : octets.getValue()) {
+                    hash = mix(hash, b);
+                }
+            } else if (value != null) {
+                String text = value.toString();
+                for (int i = 0; i < text.length(); i++) {
+                    hash = mix(hash, text.charAt(i));
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Folds a further fingerprint or value into a running hash
+     */
+    static long mix(long hash, long value) {
+        return (hash ^ value) * FNV_PRIME;
+    }
+
+    private record Part(long recordedAt, Map<Object, Long> rows) {
+    }
+}
@@ -0,0 +1,79 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * What changed in one poll of a device compared to what was last written for it, as worked out
+ * by {@link PollChangeTracker}. A poll is made of parts: every scalar group (by group name) plus
+ * the {@link #INTERFACES} and {@link #SYSTEM_UNITS} tables, whose rows are keyed by table index.
+ * Interface counters move on every poll of a busy interface, so they are the separate
+ * {@link #INTERFACE_COUNTERS} part and only an interface's descriptive columns decide whether its
+ * row in {@link #INTERFACES} changed.
+ * A part that could not be compared, because it was never written or its fingerprints expired,
+ * counts as entirely changed.
+ */
+public final class PollChanges {
+
+    public static final String INTERFACES = "interfaces";
+    public static final String INTERFACE_COUNTERS = "interface counters";
+    public static final String SYSTEM_UNITS = "system units";
+
+    /**
+     * Nothing known about the device; every part is written
+     */
+    static final PollChanges NONE = new PollChanges(Map.of(), Map.of(), Set.of(), Set.of());
+
+    private final Map<String, Map<Object, Long>> fingerprints;
+    private final Map<String, Set<Object>> changedKeys;
+    private final Set<String> unchangedParts;
+    private final Set<String> partsWithRemovedRows;
+
+    PollChanges(Map<String, Map<Object, Long>> fingerprints, Map<String, Set<Object>> changedKeys,
+                Set<String> unchangedParts, Set<String> partsWithRemovedRows) {
+        this.fingerprints = fingerprints;
+        this.changedKeys = changedKeys;
+        this.unchangedParts = unchangedParts;
+        this.partsWithRemovedRows = partsWithRemovedRows;
+    }
+
+    /**
+     * True when the part holds exactly the rows and values last written, so it can be skipped
+     */
+    public boolean isUnchanged(String part) {
+        return unchangedParts.contains(part);
+    }
+
+    /**
+     * True when a row of the part is new or its values differ from the ones last written
+     */
+    public boolean isChanged(String part, Object key) {
+        Set<Object> keys = changedKeys.get(part);
+        return keys == null || keys.contains(key);
+    }
+
+    /**
+     * False only when every row last written for the part was polled again, so there is nothing to delete
+     */
+    public boolean mayHaveRemovedRows(String part) {
+        if (unchangedParts.contains(part)) {
+            return false;
+        }
+        return !changedKeys.containsKey(part) || partsWithRemovedRows.contains(part);
+    }
+
+    /**
+     * {@link #isChanged} for one part, for handing to the part's writer
+     */
+    public <K> Predicate<K> changedRows(String part) {
+        return key -> isChanged(part, key);
+    }
+
+    /**
+     * Polled fingerprints by part and row key, recorded once the poll is committed
+     */
+    Map<String, Map<Object, Long>> getFingerprints() {
+        return fingerprints;
+    }
+}
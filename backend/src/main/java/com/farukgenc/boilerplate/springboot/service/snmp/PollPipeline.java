@@ -0,0 +1,157 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
+import com.farukgenc.boilerplate.springboot.repository.DeviceConfigRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Runs scheduled polls through three stages connected by bounded queues:
+ * <ol>
+ *     <li>fetch: loads the device and collects its data from the agent (network-bound, many virtual threads)</li>
+ *     <li>transform: reduces the snapshot to what has to be stored (CPU-bound, few platform threads)</li>
+ *     <li>persist: writes snapshots behind in batches, one short transaction per batch (DB-bound, fewer
+ *     workers than connections). A worker writes once it has {@code persist-batch-size} snapshots or
+ *     {@code persist-flush-interval} after the first one arrived.</li>
+ * </ol>
+ * Each stage is sized under {@code app.snmp.pipeline.*} and publishes its own queue and latency
+ * metrics, so the limiting stage is visible and can be scaled on its own. A full queue blocks the
+ * stage before it; a full fetch queue rejects new polls at the door.
+ */
+@Slf4j
+@Component
+public class PollPipeline {
+
+    private final DeviceConfigRepository deviceConfigRepository;
+    private final DevicePollCollector devicePollCollector;
+    private final DevicePollTransformer devicePollTransformer;
+    private final PollResultWriter pollResultWriter;
+
+    private final PollStage<PollJob> fetch;
+    private final PollStage<PollJob> transform;
+    private final PollStage<PollJob> persist;
+    private final Counter batchFallbacks;
+
+    public PollPipeline(SnmpProperties properties, DeviceConfigRepository deviceConfigRepository,
+                        DevicePollCollector devicePollCollector, DevicePollTransformer devicePollTransformer,
+                        PollResultWriter pollResultWriter, MeterRegistry meterRegistry) {
+        this.deviceConfigRepository = deviceConfigRepository;
+        this.devicePollCollector = devicePollCollector;
+        this.devicePollTransformer = devicePollTransformer;
+        this.pollResultWriter = pollResultWriter;
+
+        SnmpProperties.Pipeline settings = properties.getPipeline();
+        this.fetch = new PollStage<>("fetch", settings.getFetch(),
+            Thread.ofVirtual().name("snmp-fetch-", 0).factory(), this::collect, this::failed, meterRegistry);
+        this.transform = new PollStage<>("transform", settings.getTransform(),
+            Thread.ofPlatform().daemon().name("snmp-transform-", 0).factory(), this::reduce, this::failed, meterRegistry);
+        this.persist = new PollStage<>("persist", settings.getPersist(),
+            Thread.ofPlatform().daemon().name("snmp-persist-", 0).factory(), this::write,
+            settings.getPersistBatchSize(), settings.getPersistFlushInterval(), this::failed, meterRegistry);
+        this.batchFallbacks = Counter.builder("snmp.pipeline.batch.fallbacks")
+            .description("Persist batches that failed and were retried one device at a time").register(meterRegistry);
+        fetch.then(transform);
+        transform.then(persist);
+    }
+
+    @PostConstruct
+    public void start() {
+        List.of(persist, transform, fetch).forEach(PollStage::start);
+    }
+
+    @PreDestroy
+    public void stop() {
+        List.of(fetch, transform, persist).forEach(PollStage::stop);
+    }
+
+    /**
+     * Queues a poll of a device config without waiting. {@code onComplete} is called exactly once
+     * when the poll leaves the pipeline, with whether the device is still pollable.
+     *
+     * @return {@code false} if the fetch queue is full and the poll was not accepted
+     */
+    public boolean submit(Long configId, Consumer<Boolean> onComplete) {
+        return fetch.offer(new PollJob(configId, onComplete));
+    }
+
+    private PollJob collect(PollJob job) {
+        Optional<DeviceConfig> found = deviceConfigRepository.findByIdWithDevice(job.configId);
+        if (found.isEmpty() || !SnmpPollingService.isPollable(found.get())) {
+            job.complete(false);
+            return null;
+        }
+
+        DeviceConfig config = found.get();
+        try {
+            job.snapshot = devicePollCollector.collect(config).join();
+        } catch (Exception e) {
+            // Recorded by the persist stage like any other failed poll
+            log.error("SNMP polling failed for device {}: {}", config.getDevice().getName(), e.getMessage(), e);
+            job.snapshot = DevicePollSnapshot.failed(job.configId, LocalDateTime.now(), "Polling failed: " + e.getMessage());
+        }
+        return job;
+    }
+
+    private PollJob reduce(PollJob job) {
+        job.snapshot = devicePollTransformer.transform(job.snapshot);
+        return job;
+    }
+
+    private void write(List<PollJob> jobs) {
+        Map<Long, Boolean> pollable;
+        try {
+            pollable = pollResultWriter.applyAll(jobs.stream().map(job -> job.snapshot).toList());
+        } catch (Exception e) {
+            // One bad device rolls back the whole batch; retry one by one so only that device is lost
+            batchFallbacks.increment();
+            log.warn("Writing a batch of {} poll results failed, retrying one device at a time: {}",
+                jobs.size(), e.getMessage());
+            for (PollJob job : jobs) {
+                try {
+                    job.complete(pollResultWriter.apply(job.snapshot));
+                } catch (Exception single) {
+                    log.error("Writing poll result of device config {} failed: {}", job.configId, single.getMessage(), single);
+                    job.complete(true);
+                }
+            }
+            return;
+        }
+        jobs.forEach(job -> job.complete(pollable.getOrDefault(job.configId, false)));
+    }
+
+    private void failed(PollJob job, Exception e) {
+        // Keep the device scheduled; the next period retries it
+        job.complete(true);
+    }
+
+    private static final class PollJob {
+
+        private final Long configId;
+        private final Consumer<Boolean> onComplete;
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private DevicePollSnapshot snapshot;
+
+        private PollJob(Long configId, Consumer<Boolean> onComplete) {
+            this.configId = configId;
+            this.onComplete = onComplete;
+        }
+
+        private void complete(boolean pollable) {
+            if (completed.compareAndSet(false, true)) {
+                onComplete.accept(pollable);
+            }
+        }
+    }
+}
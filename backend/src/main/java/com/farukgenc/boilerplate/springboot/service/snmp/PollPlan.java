@@ -0,0 +1,26 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import lombok.Getter;
+import org.snmp4j.smi.OID;
+
+import java.util.List;
+
+/**
+ * Compiled scalar poll plan for one device: every scalar OID of every {@link ScalarPollGroup},
+ * de-duplicated, sorted and packed into GET requests that fit the agent's message size.
+ */
+@Getter
+public final class PollPlan {
+
+    private final List<ScalarPollGroup> groups;
+    private final List<List<OID>> requests;
+
+    PollPlan(List<ScalarPollGroup> groups, List<List<OID>> requests) {
+        this.groups = List.copyOf(groups);
+        this.requests = requests.stream().map(List::copyOf).toList();
+    }
+
+    public int getRequestCount() {
+        return requests.size();
+    }
+}
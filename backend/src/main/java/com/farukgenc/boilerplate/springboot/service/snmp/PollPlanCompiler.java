@@ -0,0 +1,84 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.snmp4j.smi.OID;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiles and caches the per-device {@link PollPlan}. Plans are rebuilt only when the agent
+ * proves the packing too optimistic by answering {@code tooBig}.
+ */
+@Slf4j
+@Component
+public class PollPlanCompiler {
+
+    // Message header, community/USM parameters and PDU header
+    private static final int MESSAGE_OVERHEAD_BYTES = 100;
+    // SEQUENCE tag and length around each variable binding
+    private static final int BINDING_OVERHEAD_BYTES = 4;
+
+    private final List<ScalarPollGroup> groups;
+    private final SnmpProperties.Plan settings;
+    private final Map<String, PollPlan> plans = new ConcurrentHashMap<>();
+    private final Map<String, Integer> maxBindings = new ConcurrentHashMap<>();
+
+    public PollPlanCompiler(List<ScalarPollGroup> groups, SnmpProperties properties) {
+        this.groups = List.copyOf(groups);
+        this.settings = properties.getPlan();
+    }
+
+    /**
+     * Returns the cached plan for a device, compiling it on first use
+     */
+    public PollPlan compile(DeviceConfig config) {
+        return plans.computeIfAbsent(deviceKey(config), this::build);
+    }
+
+    /**
+     * Records that a request of {@code bindings} OIDs was too big for the device and drops its plan
+     */
+    public void onTooBig(DeviceConfig config, int bindings) {
+        String key = deviceKey(config);
+        maxBindings.merge(key, Math.max(1, bindings / 2), Math::min);
+        plans.remove(key);
+    }
+
+    private PollPlan build(String key) {
+        SortedSet<OID> oids = new TreeSet<>();
+        for (ScalarPollGroup group : groups) {
+            oids.addAll(group.getScalarOids().asList());
+        }
+
+        int bindingLimit = maxBindings.getOrDefault(key, Integer.MAX_VALUE);
+        List<List<OID>> requests = new ArrayList<>();
+        List<OID> current = new ArrayList<>();
+        int currentBytes = MESSAGE_OVERHEAD_BYTES;
+        for (OID oid : oids) {
+            int bindingBytes = oid.getBERLength() + settings.getEstimatedValueBytes() + BINDING_OVERHEAD_BYTES;
+            if (!current.isEmpty()
+                    && (currentBytes + bindingBytes > settings.getMaxMessageSize() || current.size() >= bindingLimit)) {
+                requests.add(current);
+                current = new ArrayList<>();
+                currentBytes = MESSAGE_OVERHEAD_BYTES;
+            }
+            current.add(oid);
+            currentBytes += bindingBytes;
+        }
+        if (!current.isEmpty()) {
+            requests.add(current);
+        }
+
+        log.debug("Compiled poll plan for {}: {} scalar OIDs from {} groups in {} requests",
+            key, oids.size(), groups.size(), requests.size());
+        return new PollPlan(groups, requests);
+    }
+
+    private static String deviceKey(DeviceConfig config) {
+        return config.getTargetIp() + ":" + config.getSnmpPort();
+    }
+}
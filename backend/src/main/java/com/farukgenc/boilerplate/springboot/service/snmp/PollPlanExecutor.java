@@ -0,0 +1,124 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.snmp4j.PDU;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.Variable;
+import org.snmp4j.smi.VariableBinding;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Executes a {@link PollPlan}. The first request doubles as the liveness probe; once it is
+ * answered the remaining requests are sent concurrently.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PollPlanExecutor {
+
+    private final SnmpClientService snmpClientService;
+    private final PollPlanCompiler pollPlanCompiler;
+
+    /**
+     * Runs the plan without blocking. The returned future never completes exceptionally.
+     */
+    public CompletableFuture<PlanResult> execute(DeviceConfig config, PollPlan plan) {
+        Map<OID, Variable> values = new ConcurrentHashMap<>();
+        if (plan.getRequests().isEmpty()) {
+            return CompletableFuture.completedFuture(new PlanResult(true, values));
+        }
+
+        return fetch(config, plan.getRequests().get(0), values).thenCompose(reachable -> {
+            if (!reachable) {
+                return CompletableFuture.completedFuture(new PlanResult(false, values));
+            }
+            CompletableFuture<?>[] rest = plan.getRequests().stream()
+                .skip(1)
+                .map(request -> fetch(config, request, values))
+                .toArray(CompletableFuture[]::new);
+            return CompletableFuture.allOf(rest).thenApply(ignored -> new PlanResult(true, values));
+        });
+    }
+
+    /**
+     * Sends one GET and stores its values, splitting the request when the agent answers {@code tooBig}.
+     *
+     * @return whether the agent answered at all
+     */
+    private CompletableFuture<Boolean> fetch(DeviceConfig config, List<OID> oids, Map<OID, Variable> values) {
+        PDU pdu = new PDU();
+        pdu.setType(PDU.GET);
+        for (OID oid : oids) {
+            pdu.add(new VariableBinding(oid));
+        }
+
+        return snmpClientService.sendAsync(config, pdu)
+            .handle((response, e) -> {
+                if (e != null) {
+                    log.debug("Poll plan request to {} failed: {}", config.getTargetIp(),
+                        SnmpClientService.rootCause(e).getMessage());
+                    return CompletableFuture.completedFuture(false);
+                }
+                return store(config, oids, response, values).thenApply(ignored -> true);
+            })
+            .thenCompose(answered -> answered);
+    }
+
+    private CompletableFuture<?> store(DeviceConfig config, List<OID> oids, PDU response, Map<OID, Variable> values) {
+        int status = response.getErrorStatus();
+        if (status == PDU.tooBig && oids.size() > 1) {
+            pollPlanCompiler.onTooBig(config, oids.size());
+            int half = oids.size() / 2;
+            return CompletableFuture.allOf(
+                fetch(config, oids.subList(0, half), values),
+                fetch(config, oids.subList(half, oids.size()), values));
+        }
+        if (status == PDU.noSuchName && response.getErrorIndex() > 0 && oids.size() > 1) {
+            // SNMPv1 fails the whole request for one missing OID; retry without it
+            List<OID> remaining = new ArrayList<>(oids);
+            remaining.remove(response.getErrorIndex() - 1);
+            return fetch(config, remaining, values);
+        }
+        if (status != PDU.noError) {
+            log.debug("Poll plan request to {} returned {}", config.getTargetIp(), response.getErrorStatusText());
+            return CompletableFuture.completedFuture(null);
+        }
+
+        for (VariableBinding vb : response.getVariableBindings()) {
+            // noSuchObject / noSuchInstance: the agent does not implement this scalar
+            if (!vb.isException()) {
+                values.put(vb.getOid(), vb.getVariable());
+            }
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Outcome of a plan execution
+     */
+    @Getter
+    public static final class PlanResult {
+
+        private final boolean reachable;
+        private final Map<OID, Variable> values;
+
+        PlanResult(boolean reachable, Map<OID, Variable> values) {
+            this.reachable = reachable;
+            this.values = values;
+        }
+
+        /**
+         * Values belonging to one group, indexed like the group's scalar OIDs
+         */
+        public SnmpScalars valuesFor(ScalarPollGroup group) {
+            return SnmpScalars.from(group.getScalarOids(), values);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.model.Device;
+import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
+import com.farukgenc.boilerplate.springboot.model.InterfaceMetric;
+import com.farukgenc.boilerplate.springboot.model.InterfaceSample;
+import com.farukgenc.boilerplate.springboot.repository.DeviceConfigRepository;
+import com.farukgenc.boilerplate.springboot.repository.PollUpsertRepository;
+import com.farukgenc.boilerplate.springboot.service.metrics.MetricSeries;
+import com.farukgenc.boilerplate.springboot.service.metrics.RecentMetricsStore;
+import com.farukgenc.boilerplate.springboot.service.metrics.SampleStorage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Write phase of a device poll. Applies {@link DevicePollSnapshot}s in short transactions that do
+ * no network I/O, so a connection is only held while rows are written. Scheduled polls are written
+ * behind in batches by the {@link PollPipeline}'s persist stage.
+ * <p>
+ * Parts of a snapshot that {@link PollChanges} marks unchanged are skipped without loading their
+ * rows, and only changed rows of the others are saved. The fingerprints of what was written are
+ * handed to the {@link PollChangeTracker} once the transaction commits.
+ * <p>
+ * When the {@link PollUpsertRepository} supports the database, interfaces, system units and the
+ * IP and UDP profiles are not loaded at all: their changed rows are staged for the whole batch
+ * and written with one upsert statement per table.
+ * <p>
+ * Interface rates are appended to the {@link SampleStorage} for every snapshot, including ones coalesced
+ * into a newer snapshot of the same device, once the poll results have committed, so a failed
+ * sample insert never rolls back the poll. Once committed, the interface rates and the rates of
+ * every scalar counter are also appended to the {@link RecentMetricsStore}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PollResultWriter {
+
+    private static final int MAX_CONSECUTIVE_FAILURES = 5;
+
+    private final DeviceConfigRepository deviceConfigRepository;
+    private final InterfacePollService interfacePollService;
+    private final SystemUnitPollService systemUnitPollService;
+    private final PollChangeTracker pollChangeTracker;
+    private final PollUpsertRepository pollUpsertRepository;
+    private final SampleStorage sampleStorage;
+    private final RecentMetricsStore recentMetricsStore;
+
+    /**
+     * Stores a snapshot and records the poll outcome on the device's config
+     *
+     * @return whether the device is still pollable afterwards
+     */
+    @Transactional
+    public boolean apply(DevicePollSnapshot snapshot) {
+        return applyAll(List.of(snapshot)).getOrDefault(snapshot.getConfigId(), false);
+    }
+
+    /**
+     * Stores the snapshots of many devices in one transaction. Configs are loaded with one query
+     * and all rows are written at commit, where Hibernate groups them into JDBC batches. Several
+     * snapshots of the same config are coalesced into the newest one.
+     *
+     * @return whether each config is still pollable afterwards, by config id; deleted configs map to {@code false}
+     */
+    @Transactional
+    public Map<Long, Boolean> applyAll(Collection<DevicePollSnapshot> snapshots) {
+        Map<Long, DevicePollSnapshot> latest = new LinkedHashMap<>();
+        for (DevicePollSnapshot snapshot : snapshots) {
+            latest.merge(snapshot.getConfigId(), snapshot,
+                (current, next) -> next.getPolledAt().isBefore(current.getPolledAt()) ? current : next);
+        }
+
+        Map<Long, DeviceConfig> configs = new HashMap<>();
+        for (DeviceConfig config : deviceConfigRepository.findAllByIdWithDevice(latest.keySet())) {
+            configs.put(config.getId(), config);
+        }
+
+        PollUpsertBatch batch = pollUpsertRepository.isEnabled() ? new PollUpsertBatch(pollUpsertRepository) : null;
+        Map<Long, Boolean> pollable = new HashMap<>();
+        Map<DevicePollSnapshot, Set<String>> written = new HashMap<>();
+        List<DeviceConfig> updated = new ArrayList<>(configs.size());
+        for (DevicePollSnapshot snapshot : latest.values()) {
+            DeviceConfig config = configs.get(snapshot.getConfigId());
+            if (config == null) {
+                log.debug("Device config {} was deleted while being polled, dropping result", snapshot.getConfigId());
+                pollable.put(snapshot.getConfigId(), false);
+                continue;
+            }
+            if (snapshot.isReachable()) {
+                written.put(snapshot, applyTo(config, snapshot, batch));
+            } else {
+                markFailure(config, snapshot.getPolledAt(), snapshot.getFailureMessage());
+            }
+            updated.add(config);
+            pollable.put(config.getId(), SnmpPollingService.isPollable(config));
+        }
+
+        deviceConfigRepository.saveAll(updated);
+        if (batch != null) {
+            batch.execute();
+        }
+        Collection<InterfaceSample> samples = samples(snapshots, configs);
+        afterCommit(() -> {
+            written.forEach((snapshot, failedParts) ->
+                pollChangeTracker.record(snapshot.getConfigId(), snapshot.getChanges(), failedParts));
+            writeSamples(samples);
+            if (recentMetricsStore.isEnabled()) {
+                bufferRecent(snapshots, configs, samples);
+            }
+        });
+        return pollable;
+    }
+
+    /**
+     * Stores a reachable device's snapshot, staging what it can in {@code batch} when there is one
+     *
+     * @return the parts that could not be written
+     */
+    private Set<String> applyTo(DeviceConfig config, DevicePollSnapshot snapshot, PollUpsertBatch batch) {
+        Device device = config.getDevice();
+        PollChanges changes = snapshot.getChanges();
+        Set<String> failedParts = new HashSet<>();
+
+        // Update last poll time and reset error count
+        config.setLastPollTime(snapshot.getPolledAt());
+        config.setConsecutiveFailures(0);
+        config.setLastPollStatus(DeviceConfig.PollStatus.SUCCESS);
+        config.setErrorMessage(null);
+
+        // Dispatch scalar values to each group's updater
+        for (Map.Entry<ScalarPollGroup, SnmpScalars> entry : snapshot.getScalars().entrySet()) {
+            ScalarPollGroup group = entry.getKey();
+            if (entry.getValue().isEmpty()) {
+                log.debug("No {} data returned by device {}", group.getGroupName(), device.getName());
+                continue;
+            }
+            if (changes.isUnchanged(group.getGroupName())) {
+                log.debug("{} unchanged for device: {}", group.getGroupName(), device.getName());
+                continue;
+            }
+            try {
+                if (batch == null || !group.stageSnapshot(device, entry.getValue(), snapshot.tableFor(group), batch)) {
+                    group.applySnapshot(device, config, entry.getValue(), snapshot.tableFor(group));
+                }
+                log.debug("{} polling completed for device: {}", group.getGroupName(), device.getName());
+            } catch (Exception e) {
+                failedParts.add(group.getGroupName());
+                log.warn("{} polling failed for device {}: {}", group.getGroupName(), device.getName(), e.getMessage());
+            }
+        }
+
+        if (changes.isUnchanged(PollChanges.INTERFACES) && changes.isUnchanged(PollChanges.INTERFACE_COUNTERS)) {
+            log.debug("Interfaces unchanged for device: {}", device.getName());
+        } else {
+            try {
+                if (batch != null) {
+                    interfacePollService.stageInterfaces(device, snapshot.getInterfaces(), changes, batch);
+                } else {
+                    interfacePollService.applyInterfaces(device, snapshot.getInterfaces(), changes);
+                }
+            } catch (Exception e) {
+                failedParts.add(PollChanges.INTERFACES);
+                failedParts.add(PollChanges.INTERFACE_COUNTERS);
+                log.warn("Interface polling failed for device {}: {}", device.getName(), e.getMessage());
+            }
+        }
+
+        if (changes.isUnchanged(PollChanges.SYSTEM_UNITS)) {
+            log.debug("System units unchanged for device: {}", device.getName());
+        } else {
+            try {
+                if (batch != null) {
+                    systemUnitPollService.stageSystemUnits(device, snapshot.getSystemUnits(), changes, batch);
+                } else {
+                    systemUnitPollService.applySystemUnits(device, snapshot.getSystemUnits(),
+                        changes.changedRows(PollChanges.SYSTEM_UNITS));
+                }
+            } catch (Exception e) {
+                failedParts.add(PollChanges.SYSTEM_UNITS);
+                log.warn("System unit polling failed for device {}: {}", device.getName(), e.getMessage());
+            }
+        }
+
+        log.info("SNMP polling completed successfully for device: {} ({})", device.getName(), config.getTargetIp());
+        return failedParts;
+    }
+
+    /**
+     * Stores the samples of a committed batch. A failure only loses these samples: the poll
+     * results are already committed, and the recent metrics are still buffered.
+     */
+    private void writeSamples(Collection<InterfaceSample> samples) {
+        if (samples.isEmpty()) {
+            return;
+        }
+        try {
+            sampleStorage.write(samples);
+        } catch (RuntimeException e) {
+            log.warn("Failed to store {} interface samples: {}", samples.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Samples of every snapshot's interface rates, at most one per interface and time
+     */
+    private static Collection<InterfaceSample> samples(Collection<DevicePollSnapshot> snapshots,
+                                                       Map<Long, DeviceConfig> configs) {
+        Map<InterfaceSample.Key, InterfaceSample> samples = new LinkedHashMap<>();
+        for (DevicePollSnapshot snapshot : snapshots) {
+            DeviceConfig config = configs.get(snapshot.getConfigId());
+            if (config == null) {
+                continue;
+            }
+            for (InterfaceRates rates : snapshot.getInterfaceRates()) {
+                InterfaceSample sample = InterfaceSample.builder()
+                    .deviceId(config.getDevice().getId())
+                    .ifIndex(rates.ifIndex())
+                    .sampledAt(snapshot.getPolledAt())
+                    .intervalMs(rates.intervalMillis())
+                    .build();
+                rates.rates().forEach(sample::set);
+                samples.put(sample.getId(), sample);
+            }
+        }
+        return samples.values();
+    }
+
+    /**
+     * Appends the interface rates and the rates of every Counter32/Counter64 scalar of the
+     * snapshots to the recent metrics buffers, oldest poll first. Scalar series are named by their
+     * OID and hold per-second rates, never the raw cumulative counter.
+     */
+    private void bufferRecent(Collection<DevicePollSnapshot> snapshots, Map<Long, DeviceConfig> configs,
+                              Collection<InterfaceSample> samples) {
+        for (InterfaceSample sample : samples) {
+            long timestamp = epochSecond(sample.getSampledAt());
+            for (InterfaceMetric metric : InterfaceMetric.values()) {
+                Float rate = sample.get(metric);
+                if (rate != null) {
+                    recentMetricsStore.append(new MetricSeries(sample.getDeviceId(), metric.key(), sample.getIfIndex()),
+                        timestamp, rate);
+                }
+            }
+        }
+
+        List<DevicePollSnapshot> ordered = new ArrayList<>(snapshots);
+        ordered.sort(Comparator.comparing(DevicePollSnapshot::getPolledAt));
+        for (DevicePollSnapshot snapshot : ordered) {
+            DeviceConfig config = configs.get(snapshot.getConfigId());
+            if (config == null || !snapshot.isReachable()) {
+                continue;
+            }
+            long deviceId = config.getDevice().getId();
+            long timestamp = epochSecond(snapshot.getPolledAt());
+            snapshot.getScalarRates().forEach((oid, rate) ->
+                recentMetricsStore.append(new MetricSeries(deviceId, oid.toDottedString(), 0), timestamp, rate));
+        }
+    }
+
+    private static long epochSecond(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    /**
+     * Records a poll that failed before a snapshot could be collected
+     *
+     * @return whether the device is still pollable afterwards
+     */
+    @Transactional
+    public boolean recordFailure(Long configId, String errorMessage) {
+        return deviceConfigRepository.findById(configId)
+            .map(config -> {
+                markFailure(config, LocalDateTime.now(), errorMessage);
+                deviceConfigRepository.save(config);
+                return SnmpPollingService.isPollable(config);
+            })
+            .orElse(false);
+    }
+
+    /**
+     * Runs once the surrounding transaction has committed, or right away outside of one
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void markFailure(DeviceConfig config, LocalDateTime polledAt, String errorMessage) {
+        config.setLastPollTime(polledAt);
+        config.setLastPollStatus(DeviceConfig.PollStatus.FAILURE);
+        config.setErrorMessage(errorMessage);
+        config.setConsecutiveFailures(config.getConsecutiveFailures() + 1);
+
+        // Disable device after 5 consecutive failures
+        if (config.getConsecutiveFailures() >= MAX_CONSECUTIVE_FAILURES) {
+            config.setEnabled(false);
+            log.warn("Disabled device {} after {} consecutive failures",
+                config.getDevice().getName(), config.getConsecutiveFailures());
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * One stage of the {@link PollPipeline}: a bounded queue drained by a fixed number of workers.
+ * Whatever the handler returns is put on the next stage's queue, blocking while that queue is
+ * full, so a slow stage throttles the ones feeding it instead of letting work pile up in memory.
+ * <p>
+ * A batching stage instead hands its workers whatever has queued up, up to a batch size or
+ * until a maximum delay has passed since the first item arrived, whichever comes first.
+ * <p>
+ * Per stage it publishes queue depth, queue wait, handler time, time blocked on the next stage
+ * and busy workers, tagged with the stage name.
+ */
+@Slf4j
+final class PollStage<T> {
+
+    /**
+     * Work done by a stage; returns what to hand to the next stage, or {@code null} when done
+     */
+    @FunctionalInterface
+    interface Handler<T> {
+        T handle(T item) throws Exception;
+    }
+
+    /**
+     * Work done by a batching stage, which is always the last one
+     */
+    @FunctionalInterface
+    interface BatchHandler<T> {
+        void handle(List<T> items) throws Exception;
+    }
+
+    @Getter
+    private final String name;
+    private final int concurrency;
+    private final BlockingQueue<Queued<T>> queue;
+    private final ThreadFactory threadFactory;
+    private final Handler<T> handler;
+    private final BatchHandler<T> batchHandler;
+    private final int batchSize;
+    private final long batchDelayNanos;
+    private final BiConsumer<T, Exception> onError;
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicInteger busy = new AtomicInteger();
+    private volatile PollStage<T> next;
+
+    private final Timer queueWait;
+    private final Timer processing;
+    private final Timer blocked;
+    private final DistributionSummary batchSizes;
+
+    PollStage(String name, SnmpProperties.Pipeline.Stage settings, ThreadFactory threadFactory,
+              Handler<T> handler, BiConsumer<T, Exception> onError, MeterRegistry meterRegistry) {
+        this(name, settings, threadFactory, handler, null, 1, Duration.ZERO, onError, meterRegistry);
+    }
+
+    PollStage(String name, SnmpProperties.Pipeline.Stage settings, ThreadFactory threadFactory,
+              BatchHandler<T> batchHandler, int batchSize, Duration batchDelay,
+              BiConsumer<T, Exception> onError, MeterRegistry meterRegistry) {
+        this(name, settings, threadFactory, null, batchHandler, batchSize, batchDelay, onError, meterRegistry);
+    }
+
+    private PollStage(String name, SnmpProperties.Pipeline.Stage settings, ThreadFactory threadFactory,
+                      Handler<T> handler, BatchHandler<T> batchHandler, int batchSize, Duration batchDelay,
+                      BiConsumer<T, Exception> onError, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.concurrency = Math.max(1, settings.getConcurrency());
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, settings.getQueueCapacity()));
+        this.threadFactory = threadFactory;
+        this.handler = handler;
+        this.batchHandler = batchHandler;
+        this.batchSize = Math.max(1, batchSize);
+        this.batchDelayNanos = batchDelay.toNanos();
+        this.onError = onError;
+
+        this.queueWait = Timer.builder("snmp.pipeline.queue.wait").tag("stage", name)
+            .description("Time polls waited in a pipeline stage's queue").register(meterRegistry);
+        this.processing = Timer.builder("snmp.pipeline.stage.duration").tag("stage", name)
+            .description("Time a pipeline stage spent working on one poll or batch").register(meterRegistry);
+        this.blocked = Timer.builder("snmp.pipeline.stage.blocked").tag("stage", name)
+            .description("Time a pipeline stage waited for room in the next stage's queue").register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("snmp.pipeline.batch.size").tag("stage", name)
+            .description("Polls handled together by a pipeline stage worker").register(meterRegistry);
+        Gauge.builder("snmp.pipeline.queue.depth", queue, BlockingQueue::size).tag("stage", name)
+            .description("Polls waiting in a pipeline stage's queue").register(meterRegistry);
+        Gauge.builder("snmp.pipeline.stage.busy", busy, AtomicInteger::get).tag("stage", name)
+            .description("Pipeline stage workers currently handling a poll").register(meterRegistry);
+    }
+
+    /**
+     * Sets the stage this one hands its results to
+     */
+    void then(PollStage<T> next) {
+        this.next = next;
+    }
+
+    synchronized void start() {
+        if (!workers.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < concurrency; i++) {
+            Thread worker = threadFactory.newThread(batchHandler != null ? this::runBatches : this::run);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    synchronized void stop() {
+        workers.forEach(Thread::interrupt);
+        workers.clear();
+    }
+
+    /**
+     * Enqueues without waiting
+     *
+     * @return {@code false} if the queue is full
+     */
+    boolean offer(T item) {
+        return queue.offer(new Queued<>(item, System.nanoTime()));
+    }
+
+    /**
+     * Enqueues, waiting while the queue is full
+     */
+    void put(T item) throws InterruptedException {
+        queue.put(new Queued<>(item, System.nanoTime()));
+    }
+
+    int depth() {
+        return queue.size();
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Queued<T> queued;
+            try {
+                queued = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            queueWait.record(System.nanoTime() - queued.enqueuedAt(), TimeUnit.NANOSECONDS);
+
+            busy.incrementAndGet();
+            try {
+                T result = processing.recordCallable(() -> handler.handle(queued.item()));
+                if (result != null && next != null) {
+                    long start = System.nanoTime();
+                    next.put(result);
+                    blocked.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            } catch (InterruptedException e) {
+                onError.accept(queued.item(), e);
+                return;
+            } catch (Exception e) {
+                log.error("Poll pipeline stage {} failed: {}", name, e.getMessage(), e);
+                onError.accept(queued.item(), e);
+            } finally {
+                busy.decrementAndGet();
+            }
+        }
+    }
+
+    private void runBatches() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Queued<T>> batch;
+            try {
+                batch = nextBatch();
+            } catch (InterruptedException e) {
+                return;
+            }
+            long now = System.nanoTime();
+            List<T> items = new ArrayList<>(batch.size());
+            for (Queued<T> queued : batch) {
+                queueWait.record(now - queued.enqueuedAt(), TimeUnit.NANOSECONDS);
+                items.add(queued.item());
+            }
+            batchSizes.record(items.size());
+
+            busy.incrementAndGet();
+            try {
+                processing.recordCallable(() -> {
+                    batchHandler.handle(items);
+                    return null;
+                });
+            } catch (Exception e) {
+                log.error("Poll pipeline stage {} failed on a batch of {}: {}", name, items.size(), e.getMessage(), e);
+                items.forEach(item -> onError.accept(item, e));
+            } finally {
+                busy.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Waits for one item, then collects more until the batch is full or the batch delay has passed
+     */
+    private List<Queued<T>> nextBatch() throws InterruptedException {
+        List<Queued<T>> batch = new ArrayList<>(batchSize);
+        batch.add(queue.take());
+        long deadline = System.nanoTime() + batchDelayNanos;
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                break;
+            }
+            Queued<T> more;
+            try {
+                more = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                // Shutting down: still hand over what was already taken off the queue
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (more == null) {
+                break;
+            }
+            batch.add(more);
+        }
+        return batch;
+    }
+
+    private record Queued<T>(T item, long enqueuedAt) {
+    }
+}
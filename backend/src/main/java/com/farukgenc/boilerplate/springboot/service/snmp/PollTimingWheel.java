@@ -0,0 +1,135 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timing wheel holding one periodic deadline per key. Scheduling and firing cost
+ * O(1) per entry; {@link #advance(long)} only visits the buckets of the ticks
+ * that elapsed. Periodic entries are re-armed from their previous deadline rather than
+ * from the time they fired, so they do not drift.
+ */
+public class PollTimingWheel {
+
+    private final long tickMillis;
+    private final int mask;
+    private final List<List<Entry>> buckets;
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    private long currentTick;
+    private long missedPeriods;
+
+    public PollTimingWheel(long tickMillis, int wheelSize, long nowMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.mask = size - 1;
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Schedules {@code key} to fire at {@code deadlineMillis} and every {@code periodMillis}
+     * after that, replacing any previous schedule of the same key
+     */
+    public synchronized void schedule(long key, long deadlineMillis, long periodMillis) {
+        if (periodMillis <= 0) {
+            throw new IllegalArgumentException("periodMillis must be positive");
+        }
+        cancel(key);
+        Entry entry = new Entry(key, deadlineMillis, periodMillis);
+        entries.put(key, entry);
+        insert(entry);
+    }
+
+    public synchronized boolean cancel(long key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        buckets.get((int) (entry.tick & mask)).remove(entry);
+        return true;
+    }
+
+    public synchronized boolean contains(long key) {
+        return entries.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Periods skipped so far because the wheel was advanced more than a full period late
+     */
+    public synchronized long getMissedPeriods() {
+        return missedPeriods;
+    }
+
+    /**
+     * Moves the wheel up to {@code nowMillis} and returns the keys whose deadline has passed,
+     * in the order their buckets were reached. Each returned key is re-armed for its next period.
+     */
+    public synchronized List<Long> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        if (targetTick < currentTick) {
+            return List.of();
+        }
+
+        List<Entry> due = new ArrayList<>();
+        long steps = Math.min(targetTick - currentTick + 1, buckets.size());
+        for (long i = 0; i < steps; i++) {
+            Iterator<Entry> it = buckets.get((int) ((currentTick + i) & mask)).iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (entry.tick <= targetTick) {
+                    it.remove();
+                    due.add(entry);
+                }
+            }
+        }
+        currentTick = targetTick + 1;
+
+        List<Long> keys = new ArrayList<>(due.size());
+        for (Entry entry : due) {
+            keys.add(entry.key);
+            long next = entry.deadline + entry.period;
+            if (next <= nowMillis) {
+                long behind = (nowMillis - next) / entry.period + 1;
+                missedPeriods += behind;
+                next += behind * entry.period;
+            }
+            entry.deadline = next;
+            insert(entry);
+        }
+        return keys;
+    }
+
+    private void insert(Entry entry) {
+        // Round up so an entry never fires before its deadline; past deadlines land on the next tick
+        entry.tick = Math.max(Math.ceilDiv(entry.deadline, tickMillis), currentTick);
+        buckets.get((int) (entry.tick & mask)).add(entry);
+    }
+
+    private static final class Entry {
+
+        private final long key;
+        private final long period;
+        private long deadline;
+        private long tick;
+
+        private Entry(long key, long deadline, long period) {
+            this.key = key;
+            this.deadline = deadline;
+            this.period = period;
+        }
+    }
+}
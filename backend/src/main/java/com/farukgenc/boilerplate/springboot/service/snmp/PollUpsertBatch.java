@@ -0,0 +1,86 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.model.DeviceInterface;
+import com.farukgenc.boilerplate.springboot.model.DeviceInterfaceStats;
+import com.farukgenc.boilerplate.springboot.model.IpProfile;
+import com.farukgenc.boilerplate.springboot.model.SystemUnit;
+import com.farukgenc.boilerplate.springboot.model.UdpProfile;
+import com.farukgenc.boilerplate.springboot.repository.PollUpsertRepository;
+
+import java.util.*;
+
+/**
+ * Rows of a batch of polls staged for {@link PollUpsertRepository}, so every table is written
+ * with one statement for all devices instead of being loaded and saved device by device. Staged
+ * entities are transient and only carry the device reference, natural key and polled values.
+ */
+public final class PollUpsertBatch {
+
+    private final PollUpsertRepository repository;
+    private final List<DeviceInterface> interfaces = new ArrayList<>();
+    private final List<DeviceInterfaceStats> interfaceStats = new ArrayList<>();
+    private final List<SystemUnit> systemUnits = new ArrayList<>();
+    private final List<IpProfile> ipProfiles = new ArrayList<>();
+    private final List<UdpProfile> udpProfiles = new ArrayList<>();
+    private final Map<Long, Set<Integer>> keptInterfaces = new LinkedHashMap<>();
+    private final Map<Long, Set<Integer>> keptSystemUnits = new LinkedHashMap<>();
+
+    public PollUpsertBatch(PollUpsertRepository repository) {
+        this.repository = repository;
+    }
+
+    public void addInterface(DeviceInterface deviceInterface) {
+        interfaces.add(deviceInterface);
+    }
+
+    /**
+     * Stages the counters of an interface whose descriptive attributes did not change
+     */
+    public void addInterfaceStats(DeviceInterfaceStats stats) {
+        interfaceStats.add(stats);
+    }
+
+    public void addSystemUnit(SystemUnit systemUnit) {
+        systemUnits.add(systemUnit);
+    }
+
+    public void addIpProfile(IpProfile ipProfile) {
+        ipProfiles.add(ipProfile);
+    }
+
+    public void addUdpProfile(UdpProfile udpProfile) {
+        udpProfiles.add(udpProfile);
+    }
+
+    /**
+     * Deletes the device's other interfaces once the batch is written
+     */
+    public void keepOnlyInterfaces(Long deviceId, Set<Integer> ifIndexes) {
+        keptInterfaces.put(deviceId, ifIndexes);
+    }
+
+    /**
+     * Deletes the device's other system units once the batch is written
+     */
+    public void keepOnlySystemUnits(Long deviceId, Set<Integer> unitIndexes) {
+        keptSystemUnits.put(deviceId, unitIndexes);
+    }
+
+    public boolean isEmpty() {
+        return interfaces.isEmpty() && interfaceStats.isEmpty() && systemUnits.isEmpty() && ipProfiles.isEmpty() && udpProfiles.isEmpty()
+            && keptInterfaces.isEmpty() && keptSystemUnits.isEmpty();
+    }
+
+    /**
+     * Writes everything staged, in the caller's transaction
+     */
+    public void execute() {
+        repository.upsertInterfaces(interfaces);
+        repository.upsertInterfaceStats(interfaceStats);
+        repository.upsertSystemUnits(systemUnits);
+        repository.upsertIpProfiles(ipProfiles);
+        repository.upsertUdpProfiles(udpProfiles);
+        keptInterfaces.forEach(repository::deleteInterfacesExcept);
+        keptSystemUnits.forEach(repository::deleteSystemUnitsExcept);
+    }
+}
@@ -0,0 +1,213 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
+import lombok.Builder;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks a smoothed round-trip time and its variance per device, the way TCP does
+ * (RFC 6298), and derives the timeout and retry count of the next request from them.
+ * The device's configured timeout and retries are upper bounds, never exceeded.
+ */
+@Component
+public class RttEstimator {
+
+    private static final double ALPHA = 0.125;
+    private static final double BETA = 0.25;
+    private static final int K = 4;
+    private static final int MAX_BACKOFF_SHIFT = 16;
+
+    private static final int DEFAULT_TIMEOUT_MILLIS = 5000;
+    private static final int DEFAULT_RETRIES = 3;
+
+    private final SnmpProperties.Rtt settings;
+    private final Map<String, State> states = new ConcurrentHashMap<>();
+
+    public RttEstimator(SnmpProperties properties) {
+        this.settings = properties.getRtt();
+    }
+
+    /**
+     * Timeout and retries to use for the next request to a device
+     */
+    public Budget budget(DeviceConfig config) {
+        int configuredTimeout = config.getSnmpTimeout() != null ? config.getSnmpTimeout() : DEFAULT_TIMEOUT_MILLIS;
+        int configuredRetries = config.getSnmpRetries() != null ? config.getSnmpRetries() : DEFAULT_RETRIES;
+
+        State state = states.get(key(config));
+        if (state == null) {
+            return new Budget(configuredTimeout, configuredRetries);
+        }
+        synchronized (state) {
+            return budget(state, configuredTimeout, configuredRetries);
+        }
+    }
+
+    /**
+     * Records a response that arrived {@code rttMillis} after the request was sent. Following
+     * Karn's rule, a response slower than the per-attempt timeout may answer a retransmission
+     * and is not used as a sample; it still proves the device alive.
+     */
+    public void onResponse(DeviceConfig config, Budget budget, long rttMillis) {
+        State state = states.computeIfAbsent(key(config), k -> new State());
+        synchronized (state) {
+            state.consecutiveTimeouts = 0;
+            state.lastUpdated = Instant.now();
+            if (rttMillis >= budget.getTimeoutMillis()) {
+                state.discardedSamples++;
+                return;
+            }
+
+            double sample = Math.max(0, rttMillis);
+            if (state.samples == 0) {
+                state.srtt = sample;
+                state.rttvar = sample / 2;
+            } else {
+                state.rttvar = (1 - BETA) * state.rttvar + BETA * Math.abs(state.srtt - sample);
+                state.srtt = (1 - ALPHA) * state.srtt + ALPHA * sample;
+            }
+            state.samples++;
+            state.lastRttMillis = rttMillis;
+            state.backoffShift = 0;
+        }
+    }
+
+    /**
+     * Records a request that went unanswered after all its retries; doubles the timeout
+     * of the following requests until a valid sample arrives
+     *
+     * @return whether the device had been answering until this timeout
+     */
+    public boolean onTimeout(DeviceConfig config) {
+        State state = states.computeIfAbsent(key(config), k -> new State());
+        synchronized (state) {
+            boolean wasResponsive = state.samples > 0 && state.consecutiveTimeouts == 0;
+            state.consecutiveTimeouts++;
+            state.totalTimeouts++;
+            state.backoffShift = Math.min(state.backoffShift + 1, MAX_BACKOFF_SHIFT);
+            state.lastUpdated = Instant.now();
+            return wasResponsive;
+        }
+    }
+
+    /**
+     * Smoothed RTT of a device in milliseconds, empty until its first valid sample
+     */
+    public OptionalDouble smoothedRtt(DeviceConfig config) {
+        State state = states.get(key(config));
+        if (state == null) {
+            return OptionalDouble.empty();
+        }
+        synchronized (state) {
+            return state.samples > 0 ? OptionalDouble.of(state.srtt) : OptionalDouble.empty();
+        }
+    }
+
+    /**
+     * Current estimator state of a device, empty if it has not been contacted yet
+     */
+    public Optional<Snapshot> snapshot(DeviceConfig config) {
+        State state = states.get(key(config));
+        if (state == null) {
+            return Optional.empty();
+        }
+        int configuredTimeout = config.getSnmpTimeout() != null ? config.getSnmpTimeout() : DEFAULT_TIMEOUT_MILLIS;
+        int configuredRetries = config.getSnmpRetries() != null ? config.getSnmpRetries() : DEFAULT_RETRIES;
+        synchronized (state) {
+            Budget next = budget(state, configuredTimeout, configuredRetries);
+            return Optional.of(Snapshot.builder()
+                .smoothedRttMillis(state.samples > 0 ? state.srtt : null)
+                .rttVarianceMillis(state.samples > 0 ? state.rttvar : null)
+                .lastRttMillis(state.samples > 0 ? state.lastRttMillis : null)
+                .samples(state.samples)
+                .discardedSamples(state.discardedSamples)
+                .consecutiveTimeouts(state.consecutiveTimeouts)
+                .totalTimeouts(state.totalTimeouts)
+                .dead(isDead(state))
+                .timeoutMillis(next.getTimeoutMillis())
+                .retries(next.getRetries())
+                .configuredTimeoutMillis(configuredTimeout)
+                .configuredRetries(configuredRetries)
+                .lastUpdated(state.lastUpdated)
+                .build());
+        }
+    }
+
+    private Budget budget(State state, int configuredTimeout, int configuredRetries) {
+        long timeout = configuredTimeout;
+        if (state.samples > 0) {
+            long minTimeout = settings.getMinTimeout().toMillis();
+            long rto = Math.round(state.srtt + Math.max(minTimeout, K * state.rttvar));
+            timeout = Math.max(minTimeout, rto);
+        }
+        timeout = Math.min(configuredTimeout, timeout << state.backoffShift);
+
+        // Each unanswered request costs a retry; a dead device gets a single probe
+        int retries = isDead(state) ? 0 : Math.max(0, configuredRetries - state.consecutiveTimeouts);
+        return new Budget((int) timeout, retries);
+    }
+
+    private boolean isDead(State state) {
+        return state.consecutiveTimeouts >= settings.getDeadAfterTimeouts();
+    }
+
+    private static String key(DeviceConfig config) {
+        return config.getTargetIp() + ":" + config.getSnmpPort();
+    }
+
+    /**
+     * Per-attempt timeout and retry count for one request
+     */
+    @Getter
+    public static final class Budget {
+
+        private final int timeoutMillis;
+        private final int retries;
+
+        Budget(int timeoutMillis, int retries) {
+            this.timeoutMillis = timeoutMillis;
+            this.retries = retries;
+        }
+    }
+
+    /**
+     * Estimator state of one device, as exposed through the polling API
+     */
+    @Getter
+    @Builder
+    public static class Snapshot {
+        private Double smoothedRttMillis;
+        private Double rttVarianceMillis;
+        private Long lastRttMillis;
+        private long samples;
+        private long discardedSamples;
+        private int consecutiveTimeouts;
+        private long totalTimeouts;
+        private boolean dead;
+        private int timeoutMillis;
+        private int retries;
+        private int configuredTimeoutMillis;
+        private int configuredRetries;
+        private Instant lastUpdated;
+    }
+
+    private static final class State {
+        private double srtt;
+        private double rttvar;
+        private long samples;
+        private long lastRttMillis;
+        private long discardedSamples;
+        private int consecutiveTimeouts;
+        private long totalTimeouts;
+        private int backoffShift;
+        private Instant lastUpdated;
+    }
+}
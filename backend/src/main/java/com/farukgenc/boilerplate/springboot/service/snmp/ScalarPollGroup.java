@@ -0,0 +1,55 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.model.Device;
+import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
+
+import java.util.List;
+
+/**
+ * A group of scalar OIDs polled for every device, together with the updater that stores them.
+ * All groups are merged by {@link PollPlanCompiler} so a device's scalars travel in as few PDUs as possible.
+ */
+public interface ScalarPollGroup {
+
+    /**
+     * Short name used in logs
+     */
+    String getGroupName();
+
+    /**
+     * Scalar OIDs (with the {@code .0} instance suffix) this group needs
+     */
+    SnmpColumns getScalarOids();
+
+    /**
+     * Table fetched alongside the scalars during the network phase, or {@code null} if the group needs none
+     */
+    default SnmpColumns getTableColumns() {
+        return null;
+    }
+
+    /**
+     * Stores the values fetched for this group, indexed like {@link #getScalarOids()}.
+     * At least one value is present.
+     */
+    void applyScalars(Device device, DeviceConfig config, SnmpScalars values);
+
+    /**
+     * Stores a poll's scalars together with the rows of {@link #getTableColumns()}. Called in the
+     * write transaction, so it must not do any network I/O.
+     */
+    default void applySnapshot(Device device, DeviceConfig config, SnmpScalars values, List<SnmpTableRow> tableRows) {
+        applyScalars(device, config, values);
+    }
+
+    /**
+     * Stages a poll's scalars and table rows in a native upsert batch instead of storing them
+     * through JPA. Groups that cannot be upserted keep the default and are stored with
+     * {@link #applySnapshot}.
+     *
+     * @return whether the values were staged
+     */
+    default boolean stageSnapshot(Device device, SnmpScalars values, List<SnmpTableRow> tableRows, PollUpsertBatch batch) {
+        return false;
+    }
+}
@@ -0,0 +1,92 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import com.farukgenc.boilerplate.springboot.event.DeviceConfigChangedEvent;
+import org.snmp4j.smi.Counter32;
+import org.snmp4j.smi.Counter64;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.Variable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Turns the Counter32/Counter64 scalars of a device's successive polls (UDP, IP, ICMP, ... group
+ * counters) into per-second rates, the way {@link InterfaceRateCalculator} does for ifTable
+ * counters: a Counter32 that went down wrapped once, a Counter64 that went down was reset, and no
+ * rate is given when sysUpTime shows the agent restarted or the polls are more than
+ * {@code app.snmp.samples.max-interval} apart. The last counters are kept in memory, so after a
+ * restart the first poll of a device only sets the baseline.
+ */
+@Component
+public class ScalarRateCalculator {
+
+    private final long maxIntervalMillis;
+    private final Map<Long, Baseline> devices = new ConcurrentHashMap<>();
+
+    public ScalarRateCalculator(SnmpProperties properties) {
+        this.maxIntervalMillis = properties.getSamples().getMaxInterval().toMillis();
+    }
+
+    /**
+     * Rates of every counter scalar polled both now and last time, by OID, and a new baseline for the next poll
+     *
+     * @param sysUpTime the agent's sysUpTime in hundredths of a second, {@code null} if not polled
+     */
+    public Map<OID, Float> sample(Long configId, LocalDateTime polledAt, Long sysUpTime, Collection<SnmpScalars> scalars) {
+        Map<OID, Variable> counters = new HashMap<>();
+        for (SnmpScalars values : scalars) {
+            SnmpColumns columns = values.getColumns();
+            for (int column = 0; column < columns.size(); column++) {
+                Variable value = values.get(column);
+                if (value instanceof Counter32 || value instanceof Counter64) {
+                    counters.put(columns.get(column), value);
+                }
+            }
+        }
+        if (counters.isEmpty()) {
+            return Map.of();
+        }
+
+        Baseline last = devices.put(configId, new Baseline(polledAt, sysUpTime, counters));
+        if (last == null) {
+            return Map.of();
+        }
+        long intervalMillis = Duration.between(last.polledAt(), polledAt).toMillis();
+        if (intervalMillis <= 0 || intervalMillis > maxIntervalMillis
+                || InterfaceRateCalculator.agentRestarted(last.sysUpTime(), sysUpTime, intervalMillis)) {
+            return Map.of();
+        }
+
+        Map<OID, Float> rates = new HashMap<>(counters.size() * 2);
+        counters.forEach((oid, value) -> {
+            Variable previous = last.counters().get(oid);
+            if (previous == null) {
+                return;
+            }
+            Long delta = InterfaceRateCalculator.delta(previous.toLong(), previous instanceof Counter64,
+                value.toLong(), value instanceof Counter64);
+            if (delta != null) {
+                rates.put(oid, (float) (delta * 1000.0 / intervalMillis));
+            }
+        });
+        return rates;
+    }
+
+    /**
+     * Forgets the baselines of a device whose configuration was removed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceConfigChanged(DeviceConfigChangedEvent event) {
+        if (event.getEventType() == DeviceConfigChangedEvent.EventType.DELETED) {
+            devices.remove(event.getConfigId());
+        }
+    }
+
+    private record Baseline(LocalDateTime polledAt, Long sysUpTime, Map<OID, Variable> counters) {
+    }
+}
@@ -0,0 +1,85 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Reconciles the rows a device has in a sub-table with a freshly polled snapshot of that table,
+ * both keyed by the row's natural key (ifIndex, entPhysicalIndex, ...). The caller loads the
+ * existing rows with one query; matching, creating and deleting happen in memory, and the changes
+ * go out through one {@code saveAll} and one {@code deleteAll}, which Hibernate flushes as JDBC
+ * batches. A poll costs the same number of queries whether the device has one row or a thousand.
+ * <p>
+ * Existing rows that share a key (left behind by older versions) are collapsed: the first one
+ * is kept and the others are deleted along with the rows the device no longer reports.
+ * Existing rows whose polled values did not change are neither updated nor saved.
+ */
+final class SnapshotReconciler {
+
+    private SnapshotReconciler() {
+    }
+
+    /**
+     * Reconciles treating every polled row as changed
+     */
+    static <K, E, R> Result reconcile(Collection<E> existing, Function<E, K> keyOf, Map<K, R> polled,
+                                      Function<K, E> create, BiConsumer<E, R> update,
+                                      JpaRepository<E, ?> repository) {
+        return reconcile(existing, keyOf, polled, key -> true, create, update, repository);
+    }
+
+    /**
+     * @param existing   the device's current rows
+     * @param keyOf      natural key of an existing row
+     * @param polled     freshly polled values by natural key, in the order rows should be saved
+     * @param changed    whether the polled values of a key differ from the ones last written
+     * @param create     builds a new row for a key the device did not have yet
+     * @param update     copies polled values onto a new or existing row
+     * @param repository repository of the row type
+     */
+    static <K, E, R> Result reconcile(Collection<E> existing, Function<E, K> keyOf, Map<K, R> polled,
+                                      Predicate<K> changed, Function<K, E> create, BiConsumer<E, R> update,
+                                      JpaRepository<E, ?> repository) {
+        Map<K, E> byKey = new HashMap<>(existing.size() * 2);
+        List<E> stale = new ArrayList<>();
+        for (E row : existing) {
+            K key = keyOf.apply(row);
+            if (!polled.containsKey(key) || byKey.putIfAbsent(key, row) != null) {
+                stale.add(row);
+            }
+        }
+
+        List<E> rows = new ArrayList<>(polled.size());
+        int inserted = 0;
+        for (Map.Entry<K, R> entry : polled.entrySet()) {
+            E row = byKey.get(entry.getKey());
+            if (row == null) {
+                row = create.apply(entry.getKey());
+                inserted++;
+            } else if (!changed.test(entry.getKey())) {
+                continue;
+            }
+            update.accept(row, entry.getValue());
+            rows.add(row);
+        }
+
+        if (!rows.isEmpty()) {
+            repository.saveAll(rows);
+        }
+        if (!stale.isEmpty()) {
+            repository.deleteAll(stale);
+        }
+        return new Result(inserted, rows.size() - inserted, stale.size());
+    }
+
+    record Result(int inserted, int updated, int deleted) {
+    }
+}
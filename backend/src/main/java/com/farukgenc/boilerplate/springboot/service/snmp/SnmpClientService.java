@@ -1,128 +1,406 @@
 package com.farukgenc.boilerplate.springboot.service.snmp;
 
 import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.snmp4j.*;
 import org.snmp4j.event.ResponseEvent;
-import org.snmp4j.mp.MPv3;
+import org.snmp4j.event.ResponseListener;
 import org.snmp4j.mp.SnmpConstants;
 import org.snmp4j.security.*;
 import org.snmp4j.smi.*;
-import org.snmp4j.transport.DefaultUdpTransportMapping;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 /**
  * Core SNMP client service for executing SNMP operations
  */
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class SnmpClientService {
 
-    private static final Map<String, Snmp> snmpSessions = new HashMap<>();    /**
+    private final SnmpSessionPool sessionPool;
+    private final BulkRepetitionTuner bulkTuner;
+    private final RttEstimator rttEstimator;
+    private final SnmpRequestLimiter requestLimiter;
+    private final UsmSecurityCache usmSecurity;
+
+    /**
      * Performs SNMP GET operation for a single OID
      */
     public Optional<Variable> snmpGet(DeviceConfig config, String oid) {
-        try {
-            Snmp snmp = getSnmpSession(config);
-            Target<Address> target = createTarget(config);
-            
-            PDU pdu = new PDU();
-            pdu.add(new VariableBinding(new OID(oid)));
-            pdu.setType(PDU.GET);
-            
-            ResponseEvent<Address> response = snmp.send(pdu, target);
-            if (response != null && response.getResponse() != null) {
-                PDU responsePDU = response.getResponse();
+        return snmpGetAsync(config, oid).join();
+    }
+
+    /**
+     * Walks the whole subtree below {@code baseOid} using GETBULK (GETNEXT for v1);
+     * {@code maxRepetitions} caps the rows requested per PDU, not the rows returned
+     */
+    public Map<String, Variable> snmpWalk(DeviceConfig config, String baseOid, int maxRepetitions) {
+        return snmpWalkAsync(config, baseOid, maxRepetitions).join();
+    }
+
+    /**
+     * Performs SNMP GET for multiple OIDs
+     */
+    public Map<String, Variable> snmpGetMultiple(DeviceConfig config, List<String> oids) {
+        return snmpGetMultipleAsync(config, oids).join();
+    }
+
+    /**
+     * Performs SNMP GET for a precompiled set of scalar OIDs
+     */
+    public SnmpScalars snmpGetScalars(DeviceConfig config, SnmpColumns oids) {
+        return snmpGetScalarsAsync(config, oids).join();
+    }
+
+    /**
+     * Non-blocking SNMP GET for a precompiled set of scalar OIDs in a single PDU. Values are
+     * stored by position, so no OID strings are built or parsed. The returned future never
+     * completes exceptionally; failures yield empty scalars.
+     */
+    public CompletableFuture<SnmpScalars> snmpGetScalarsAsync(DeviceConfig config, SnmpColumns oids) {
+        PDU pdu = new PDU();
+        for (OID oid : oids.asList()) {
+            pdu.add(new VariableBinding(oid));
+        }
+        pdu.setType(PDU.GET);
+
+        return sendAsync(config, pdu)
+            .thenApply(responsePDU -> {
+                SnmpScalars scalars = new SnmpScalars(oids);
                 if (responsePDU.getErrorStatus() == PDU.noError) {
-                    VariableBinding vb = responsePDU.get(0);
-                    return Optional.of(vb.getVariable());
+                    int count = Math.min(responsePDU.size(), oids.size());
+                    for (int i = 0; i < count; i++) {
+                        VariableBinding vb = responsePDU.get(i);
+                        // noSuchObject / noSuchInstance: the agent does not implement this scalar
+                        if (!vb.isException()) {
+                            scalars.set(i, vb.getVariable());
+                        }
+                    }
                 }
-            }
-        } catch (Exception e) {
-            log.error("SNMP GET failed for OID {} on device {}: {}", oid, config.getTargetIp(), e.getMessage());
+                return scalars;
+            })
+            .exceptionally(e -> {
+                log.error("SNMP GET scalars failed for device {}: {}", config.getTargetIp(), rootMessage(e));
+                return new SnmpScalars(oids);
+            });
+    }
+
+    /**
+     * Non-blocking SNMP GET for a single OID.
+     * The returned future never completes exceptionally; failures yield an empty value.
+     */
+    public CompletableFuture<Optional<Variable>> snmpGetAsync(DeviceConfig config, String oid) {
+        PDU pdu = new PDU();
+        pdu.add(new VariableBinding(new OID(oid)));
+        pdu.setType(PDU.GET);
+
+        return sendAsync(config, pdu)
+            .thenApply(responsePDU -> {
+                if (responsePDU.getErrorStatus() == PDU.noError && responsePDU.size() > 0) {
+                    return Optional.of(responsePDU.get(0).getVariable());
+                }
+                return Optional.<Variable>empty();
+            })
+            .exceptionally(e -> {
+                log.error("SNMP GET failed for OID {} on device {}: {}", oid, config.getTargetIp(), rootMessage(e));
+                return Optional.empty();
+            });
+    }
+
+    /**
+     * Non-blocking SNMP GET for multiple OIDs in a single PDU.
+     * The returned future never completes exceptionally; failures yield an empty map.
+     */
+    public CompletableFuture<Map<String, Variable>> snmpGetMultipleAsync(DeviceConfig config, List<String> oids) {
+        PDU pdu = new PDU();
+        for (String oid : oids) {
+            pdu.add(new VariableBinding(new OID(oid)));
         }
-        return Optional.empty();
-    }    /**
-     * Performs SNMP GET-BULK operation for table walking
+        pdu.setType(PDU.GET);
+
+        return sendAsync(config, pdu)
+            .thenApply(responsePDU -> {
+                Map<String, Variable> results = new HashMap<>();
+                if (responsePDU.getErrorStatus() == PDU.noError) {
+                    for (int i = 0; i < responsePDU.size(); i++) {
+                        VariableBinding vb = responsePDU.get(i);
+                        results.put(vb.getOid().toString(), vb.getVariable());
+                    }
+                }
+                return results;
+            })
+            .exceptionally(e -> {
+                log.error("SNMP GET multiple failed for device {}: {}", config.getTargetIp(), rootMessage(e));
+                return new HashMap<>();
+            });
+    }
+
+    /**
+     * Non-blocking walk of the whole subtree below {@code baseOid}.
+     * {@code maxRepetitions} only caps the rows requested per GETBULK PDU; it no longer limits
+     * the size of the result. A failure mid-walk completes the future with the rows collected so far.
      */
-    public Map<String, Variable> snmpWalk(DeviceConfig config, String baseOid, int maxRepetitions) {
-        Map<String, Variable> results = new HashMap<>();
-        
-        try {
-            Snmp snmp = getSnmpSession(config);
-            Target<Address> target = createTarget(config);
-            
-            OID rootOID = new OID(baseOid);
-            OID currentOID = rootOID;
-            
-            while (currentOID.startsWith(rootOID)) {
-                PDU pdu = new PDU();
-                pdu.add(new VariableBinding(currentOID));
+    public CompletableFuture<Map<String, Variable>> snmpWalkAsync(DeviceConfig config, String baseOid, int maxRepetitions) {
+        Map<String, Variable> results = new LinkedHashMap<>();
+
+        return snmpStreamWalkAsync(config, baseOid, maxRepetitions,
+                vb -> results.put(vb.getOid().toString(), vb.getVariable()))
+            .handle((rows, e) -> {
+                if (e != null) {
+                    log.error("SNMP WALK failed for OID {} on device {}: {}", baseOid, config.getTargetIp(), rootMessage(e));
+                }
+                return results;
+            });
+    }
+
+    /**
+     * Streams every binding below {@code baseOid} to {@code consumer} in lexicographic order,
+     * without collecting the table in memory. Uses GETBULK with a per-device learned
+     * max-repetitions (at most {@code maxRepetitions}) for v2c/v3 and GETNEXT for v1.
+     * The consumer is invoked on the transport's dispatcher thread, one binding at a time.
+     *
+     * @return future with the number of bindings streamed; completes exceptionally if the walk
+     * was cut short, after the rows received until then have been delivered
+     */
+    public CompletableFuture<Long> snmpStreamWalkAsync(DeviceConfig config, String baseOid, int maxRepetitions,
+                                                       Consumer<VariableBinding> consumer) {
+        TableWalk walk = new TableWalk(config, new OID(baseOid), maxRepetitions, consumer);
+        walk.step(walk.root);
+        return walk.result;
+    }
+
+    /**
+     * State of one in-flight streaming walk; each step is issued from the response callback
+     * of the previous one, so no thread waits on the network.
+     */
+    private final class TableWalk {
+
+        private final DeviceConfig config;
+        private final OID root;
+        private final int maxRepetitions;
+        private final Consumer<VariableBinding> consumer;
+        private final String deviceKey;
+        private final boolean bulk;
+        private final CompletableFuture<Long> result = new CompletableFuture<>();
+        private long rows;
+
+        private TableWalk(DeviceConfig config, OID root, int maxRepetitions, Consumer<VariableBinding> consumer) {
+            this.config = config;
+            this.root = root;
+            this.maxRepetitions = Math.max(1, maxRepetitions);
+            this.consumer = consumer;
+            this.deviceKey = config.getTargetIp() + ":" + config.getSnmpPort();
+            this.bulk = config.getSnmpVersion() != DeviceConfig.SnmpVersion.V1;
+        }
+
+        private void step(OID from) {
+            step(from, bulk ? bulkTuner.current(deviceKey, maxRepetitions) : 1);
+        }
+
+        private void step(OID from, int repetitions) {
+            PDU pdu = new PDU();
+            pdu.add(new VariableBinding(from));
+            if (bulk) {
+                pdu.setType(PDU.GETBULK);
+                pdu.setNonRepeaters(0);
+                pdu.setMaxRepetitions(repetitions);
+            } else {
                 pdu.setType(PDU.GETNEXT);
-                
-                ResponseEvent<Address> response = snmp.send(pdu, target);
-                if (response == null || response.getResponse() == null) {
-                    break;
+            }
+
+            sendAsync(config, pdu).whenComplete((responsePDU, e) -> {
+                try {
+                    if (e != null) {
+                        if (bulk && rootCause(e) instanceof TimeoutException) {
+                            bulkTuner.onTimeout(deviceKey, repetitions);
+                        }
+                        result.completeExceptionally(e);
+                    } else {
+                        handle(from, repetitions, responsePDU);
+                    }
+                } catch (RuntimeException consumerFailure) {
+                    result.completeExceptionally(consumerFailure);
                 }
-                
-                PDU responsePDU = response.getResponse();
-                if (responsePDU.getErrorStatus() != PDU.noError) {
-                    break;
+            });
+        }
+
+        private void handle(OID from, int repetitions, PDU responsePDU) {
+            if (responsePDU.getErrorStatus() == PDU.tooBig && bulk && repetitions > 1) {
+                step(from, bulkTuner.onTooBig(deviceKey, repetitions));
+                return;
+            }
+            if (responsePDU.getErrorStatus() != PDU.noError) {
+                // v1 agents answer noSuchName at the end of the MIB view
+                if (!bulk && responsePDU.getErrorStatus() == PDU.noSuchName) {
+                    result.complete(rows);
+                } else {
+                    result.completeExceptionally(new IOException("SNMP walk of " + root + " on " + config.getTargetIp()
+                        + " failed: " + responsePDU.getErrorStatusText()));
                 }
-                
-                VariableBinding vb = responsePDU.get(0);
-                OID nextOID = vb.getOid();
-                
-                if (!nextOID.startsWith(rootOID)) {
-                    break;
+                return;
+            }
+            if (bulk) {
+                bulkTuner.onResponse(deviceKey, repetitions, responsePDU.size(), responsePDU.getBERLength());
+            }
+
+            OID last = from;
+            for (VariableBinding vb : responsePDU.getVariableBindings()) {
+                OID oid = vb.getOid();
+                if (vb.isException() || !oid.startsWith(root)) {
+                    result.complete(rows);
+                    return;
                 }
-                
-                results.put(nextOID.toString(), vb.getVariable());
-                currentOID = nextOID;
-                
-                if (results.size() >= maxRepetitions) {
-                    break;
+                if (oid.compareTo(last) <= 0) {
+                    result.completeExceptionally(new IOException("Agent " + config.getTargetIp()
+                        + " returned OID " + oid + " out of order while walking " + root));
+                    return;
                 }
+                consumer.accept(vb);
+                rows++;
+                last = oid;
+            }
+
+            if (responsePDU.size() == 0) {
+                result.complete(rows);
+            } else {
+                step(last);
             }
-        } catch (Exception e) {
-            log.error("SNMP WALK failed for OID {} on device {}: {}", baseOid, config.getTargetIp(), e.getMessage());
         }
-        
-        return results;
-    }    /**
-     * Performs SNMP GET for multiple OIDs
+    }
+
+    /**
+     * Sends a PDU without blocking. The future completes with the response PDU on the
+     * transport's dispatcher thread, or exceptionally with a {@link TimeoutException}
+     * once snmp4j has exhausted the target's retries. Timeout and retries come from the
+     * device's round-trip estimate, bounded by its configured values. Requests wait in the
+     * {@link SnmpRequestLimiter} while the target or the global in-flight limit is reached.
      */
-    public Map<String, Variable> snmpGetMultiple(DeviceConfig config, List<String> oids) {
-        Map<String, Variable> results = new HashMap<>();
-        
+    CompletableFuture<PDU> sendAsync(DeviceConfig config, PDU pdu) {
+        return requestLimiter.submit(config.getTargetIp() + ":" + config.getSnmpPort(), () -> send(config, pdu));
+    }
+
+    private CompletableFuture<PDU> send(DeviceConfig config, PDU pdu) {
+        SnmpSessionPool.PooledTarget pooled;
         try {
-            Snmp snmp = getSnmpSession(config);
-            Target<Address> target = createTarget(config);
-            
-            PDU pdu = new PDU();
-            for (String oid : oids) {
-                pdu.add(new VariableBinding(new OID(oid)));
-            }
-            pdu.setType(PDU.GET);
-            
-            ResponseEvent<Address> response = snmp.send(pdu, target);
-            if (response != null && response.getResponse() != null) {
-                PDU responsePDU = response.getResponse();
-                if (responsePDU.getErrorStatus() == PDU.noError) {
-                    for (int i = 0; i < responsePDU.size(); i++) {
-                        VariableBinding vb = responsePDU.get(i);
-                        results.put(vb.getOid().toString(), vb.getVariable());
-                    }
-                }
+            pooled = sessionPool.acquire(config);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        RttEstimator.Budget budget = rttEstimator.budget(config);
+
+        if (config.getSnmpVersion() != DeviceConfig.SnmpVersion.V3) {
+            return transmit(pooled, config, budget, pdu, createTarget(config, pooled.getAddress(), budget));
+        }
+        // The engine ID and localized user are cached, so only the first request to an agent waits for discovery
+        return usmSecurity.engineId(pooled.getSnmp(), pooled.getAddress(), budget.getTimeoutMillis())
+            .thenCompose(engineId -> {
+                OID authProtocol = getAuthProtocol(config.getAuthProtocol());
+                OID privProtocol = getPrivProtocol(config.getPrivProtocol());
+                usmSecurity.ensureUser(engineId, config, authProtocol, privProtocol);
+                UserTarget<Address> target = createUserTarget(config, pooled.getAddress(), budget,
+                    engineId, authProtocol, privProtocol);
+                return transmit(pooled, config, budget, toScopedPdu(pdu), target);
+            });
+    }
+
+    private CompletableFuture<PDU> transmit(SnmpSessionPool.PooledTarget pooled, DeviceConfig config,
+                                            RttEstimator.Budget budget, PDU pdu, Target<Address> target) {
+        CompletableFuture<PDU> future = new CompletableFuture<>();
+        try {
+            pooled.getSnmp().send(pdu, target, null, new AsyncResponseListener(future, config, budget, pooled));
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * SNMPv3 messages carry a scoped PDU; the operations above build plain ones
+     */
+    private static PDU toScopedPdu(PDU pdu) {
+        if (pdu instanceof ScopedPDU) {
+            return pdu;
+        }
+        ScopedPDU scoped = new ScopedPDU();
+        scoped.setType(pdu.getType());
+        scoped.setVariableBindings(pdu.getVariableBindings());
+        if (pdu.getType() == PDU.GETBULK) {
+            scoped.setMaxRepetitions(pdu.getMaxRepetitions());
+            scoped.setNonRepeaters(pdu.getNonRepeaters());
+        }
+        return scoped;
+    }
+
+    /**
+     * Current round-trip estimate and derived timeout for a device, empty before its first request
+     */
+    public Optional<RttEstimator.Snapshot> getRttEstimate(DeviceConfig config) {
+        return rttEstimator.snapshot(config);
+    }
+
+    /**
+     * Bridges snmp4j response callbacks to a {@link CompletableFuture} and feeds the
+     * observed round trip to the estimator
+     */
+    private final class AsyncResponseListener implements ResponseListener {
+
+        private final CompletableFuture<PDU> future;
+        private final DeviceConfig config;
+        private final RttEstimator.Budget budget;
+        private final SnmpSessionPool.PooledTarget pooled;
+        private final long sentAt = System.nanoTime();
+
+        private AsyncResponseListener(CompletableFuture<PDU> future, DeviceConfig config, RttEstimator.Budget budget,
+                                      SnmpSessionPool.PooledTarget pooled) {
+            this.future = future;
+            this.config = config;
+            this.budget = budget;
+            this.pooled = pooled;
+        }
+
+        @Override
+        public <A extends Address> void onResponse(ResponseEvent<A> event) {
+            // Always cancel, otherwise snmp4j keeps the request in its pending table
+            ((Snmp) event.getSource()).cancel(event.getRequest(), this);
+
+            if (event.getError() != null) {
+                future.completeExceptionally(event.getError());
+            } else if (event.getResponse() == null) {
+                requestLimiter.onTimeout(rttEstimator.onTimeout(config));
+                future.completeExceptionally(new TimeoutException("SNMP request to " + config.getTargetIp() + " timed out"));
+            } else if (event.getResponse().getType() == PDU.REPORT) {
+                // e.g. usmStatsUnknownEngineIDs: the agent's engine changed, rediscover it next time
+                usmSecurity.invalidate(pooled.getSnmp(), pooled.getAddress());
+                future.completeExceptionally(new IOException("SNMPv3 request to " + config.getTargetIp()
+                    + " was rejected with report " + event.getResponse().getVariableBindings()));
+            } else {
+                long rttMillis = (System.nanoTime() - sentAt) / 1_000_000;
+                requestLimiter.onResponse(rttMillis, rttEstimator.smoothedRtt(config));
+                rttEstimator.onResponse(config, budget, rttMillis);
+                future.complete(event.getResponse());
             }
-        } catch (Exception e) {
-            log.error("SNMP GET multiple failed for device {}: {}", config.getTargetIp(), e.getMessage());
         }
-        
-        return results;
+    }
+
+    private static String rootMessage(Throwable e) {
+        return rootCause(e).getMessage();
+    }
+
+    static Throwable rootCause(Throwable e) {
+        Throwable cause = e;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
     }
 
     /**
@@ -134,69 +412,40 @@ public class SnmpClientService {
     }
 
     /**
-     * Gets or creates SNMP session for a device configuration
-     */
-    private Snmp getSnmpSession(DeviceConfig config) throws IOException {
-        String sessionKey = generateSessionKey(config);
-        
-        if (!snmpSessions.containsKey(sessionKey)) {
-            TransportMapping<?> transport = new DefaultUdpTransportMapping();
-            Snmp snmp = new Snmp(transport);
-            
-            if (config.getSnmpVersion() == DeviceConfig.SnmpVersion.V3) {
-                setupSnmpV3(snmp, config);
-            }
-            
-            transport.listen();
-            snmpSessions.put(sessionKey, snmp);
-        }
-        
-        return snmpSessions.get(sessionKey);
-    }    /**
      * Creates target for SNMP operations
      */
-    private Target<Address> createTarget(DeviceConfig config) {
-        Address targetAddress = GenericAddress.parse("udp:" + config.getTargetIp() + "/" + config.getSnmpPort());
-        
-        if (config.getSnmpVersion() == DeviceConfig.SnmpVersion.V3) {
-            UserTarget<Address> target = new UserTarget<>();
-            target.setAddress(targetAddress);
-            target.setRetries(config.getSnmpRetries());
-            target.setTimeout(config.getSnmpTimeout());
-            target.setVersion(SnmpConstants.version3);
-            target.setSecurityLevel(SecurityLevel.AUTH_PRIV);
-            target.setSecurityName(new OctetString(config.getSecurityName()));
-            return target;
-        } else {
-            CommunityTarget<Address> target = new CommunityTarget<>();
-            target.setCommunity(new OctetString(config.getCommunityString()));
-            target.setAddress(targetAddress);
-            target.setRetries(config.getSnmpRetries());
-            target.setTimeout(config.getSnmpTimeout());
-            target.setVersion(config.getSnmpVersion() == DeviceConfig.SnmpVersion.V1 ? 
-                SnmpConstants.version1 : SnmpConstants.version2c);
-            return target;
-        }
+    private Target<Address> createTarget(DeviceConfig config, Address targetAddress, RttEstimator.Budget budget) {
+        CommunityTarget<Address> target = new CommunityTarget<>();
+        target.setCommunity(new OctetString(config.getCommunityString()));
+        target.setAddress(targetAddress);
+        target.setRetries(budget.getRetries());
+        target.setTimeout(budget.getTimeoutMillis());
+        target.setVersion(config.getSnmpVersion() == DeviceConfig.SnmpVersion.V1 ? 
+            SnmpConstants.version1 : SnmpConstants.version2c);
+        return target;
     }
 
     /**
-     * Sets up SNMPv3 security parameters
+     * Creates an SNMPv3 target bound to the agent's known engine ID, so snmp4j skips discovery
      */
-    private void setupSnmpV3(Snmp snmp, DeviceConfig config) {
-        USM usm = new USM(SecurityProtocols.getInstance(), new OctetString(MPv3.createLocalEngineID()), 0);
-        SecurityModels.getInstance().addSecurityModel(usm);
+    private UserTarget<Address> createUserTarget(DeviceConfig config, Address targetAddress, RttEstimator.Budget budget,
+                                                 OctetString engineId, OID authProtocol, OID privProtocol) {
+        UserTarget<Address> target = new UserTarget<>();
+        target.setAddress(targetAddress);
+        target.setRetries(budget.getRetries());
+        target.setTimeout(budget.getTimeoutMillis());
+        target.setVersion(SnmpConstants.version3);
+        target.setAuthoritativeEngineID(engineId.getValue());
+        if (authProtocol == null) {
+            target.setSecurityLevel(SecurityLevel.NOAUTH_NOPRIV);
+        } else {
+            target.setSecurityLevel(privProtocol == null ? SecurityLevel.AUTH_NOPRIV : SecurityLevel.AUTH_PRIV);
+        }
+        target.setSecurityName(new OctetString(config.getSecurityName()));
+        return target;
+    }
 
-        // Add user for SNMPv3
-        UsmUser user = new UsmUser(
-            new OctetString(config.getSecurityName()),
-            getAuthProtocol(config.getAuthProtocol()),
-            new OctetString(config.getAuthPassphrase() != null ? config.getAuthPassphrase() : ""),
-            getPrivProtocol(config.getPrivProtocol()),
-            new OctetString(config.getPrivPassphrase() != null ? config.getPrivPassphrase() : "")
-        );
-        
-        snmp.getUSM().addUser(user);
-    }    /**
+    /**
      * Maps auth protocol enum to SNMP4J auth protocol
      */
     private OID getAuthProtocol(DeviceConfig.AuthProtocol authProtocol) {
@@ -224,29 +473,10 @@ public class SnmpClientService {
         };
     }
 
-    /**
-     * Generates session key for caching SNMP sessions
-     */
-    private String generateSessionKey(DeviceConfig config) {
-        return String.format("%s:%d:%s:%s", 
-            config.getTargetIp(), 
-            config.getSnmpPort(),
-            config.getSnmpVersion(),
-            config.getCommunityString() != null ? config.getCommunityString() : config.getSecurityName()
-        );
-    }
-
     /**
      * Closes all SNMP sessions (for cleanup)
      */
     public void closeAllSessions() {
-        for (Snmp snmp : snmpSessions.values()) {
-            try {
-                snmp.close();
-            } catch (IOException e) {
-                log.warn("Failed to close SNMP session: {}", e.getMessage());
-            }
-        }
-        snmpSessions.clear();
+        sessionPool.close();
     }
 }
@@ -0,0 +1,53 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import org.snmp4j.smi.OID;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An ordered, immutable set of OIDs (scalars or table columns). The position of an OID in the
+ * set is its column id, which indexes the values of {@link SnmpScalars} and {@link SnmpTableRow}.
+ */
+public final class SnmpColumns {
+
+    private final List<OID> oids;
+    private final Map<OID, Integer> positions;
+
+    private SnmpColumns(List<OID> oids) {
+        this.oids = List.copyOf(oids);
+        this.positions = new HashMap<>(oids.size() * 2);
+        for (int i = 0; i < this.oids.size(); i++) {
+            positions.putIfAbsent(this.oids.get(i), i);
+        }
+    }
+
+    public static SnmpColumns of(OID... oids) {
+        return new SnmpColumns(List.of(oids));
+    }
+
+    public static SnmpColumns of(List<OID> oids) {
+        return new SnmpColumns(oids);
+    }
+
+    public int size() {
+        return oids.size();
+    }
+
+    public OID get(int column) {
+        return oids.get(column);
+    }
+
+    public List<OID> asList() {
+        return oids;
+    }
+
+    /**
+     * Column id of an OID, or -1 if it is not part of this set
+     */
+    public int indexOf(OID oid) {
+        Integer position = positions.get(oid);
+        return position == null ? -1 : position;
+    }
+}
@@ -0,0 +1,138 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import org.snmp4j.smi.OID;
+
+/**
+ * Registry of the OIDs polled by the SNMP pollers, parsed once at class load.
+ * Scalars carry their {@code .0} instance suffix; table columns are bare column OIDs
+ * that {@link #instance(OID, int)} extends with a row index.
+ * snmp4j OIDs are mutable, so these constants must never be modified in place.
+ */
+public final class SnmpOids {
+
+    // System MIB (RFC 1213) and Host-Resources MIB (RFC 2790) scalars
+    public static final OID SYS_DESCR = new OID("1.3.6.1.2.1.1.1.0");            // sysDescr
+    public static final OID SYS_OBJECT_ID = new OID("1.3.6.1.2.1.1.2.0");        // sysObjectID
+    public static final OID SYS_UP_TIME = new OID("1.3.6.1.2.1.1.3.0");          // sysUpTime
+    public static final OID SYS_CONTACT = new OID("1.3.6.1.2.1.1.4.0");          // sysContact
+    public static final OID SYS_NAME = new OID("1.3.6.1.2.1.1.5.0");             // sysName
+    public static final OID SYS_LOCATION = new OID("1.3.6.1.2.1.1.6.0");         // sysLocation
+    public static final OID SYS_SERVICES = new OID("1.3.6.1.2.1.1.7.0");         // sysServices
+    public static final OID HR_SYSTEM_UPTIME = new OID("1.3.6.1.2.1.25.1.1.0");  // hrSystemUptime
+    public static final OID HR_SYSTEM_DATE = new OID("1.3.6.1.2.1.25.1.2.0");    // hrSystemDate
+    public static final OID HR_SYSTEM_INITIAL_LOAD_DEVICE = new OID("1.3.6.1.2.1.25.1.3.0"); // hrSystemInitialLoadDevice
+    public static final OID HR_SYSTEM_INITIAL_LOAD_PARAMS = new OID("1.3.6.1.2.1.25.1.4.0"); // hrSystemInitialLoadParameters
+    public static final OID HR_SYSTEM_NUM_USERS = new OID("1.3.6.1.2.1.25.1.5.0"); // hrSystemNumUsers
+    public static final OID HR_SYSTEM_PROCESSES = new OID("1.3.6.1.2.1.25.1.6.0"); // hrSystemProcesses
+    public static final OID HR_SYSTEM_MAX_PROCESSES = new OID("1.3.6.1.2.1.25.1.7.0"); // hrSystemMaxProcesses
+
+    // IP-MIB scalars
+    public static final OID IP_FORWARDING = new OID("1.3.6.1.2.1.4.1.0");        // ipForwarding
+    public static final OID IP_DEFAULT_TTL = new OID("1.3.6.1.2.1.4.2.0");       // ipDefaultTTL
+    public static final OID IP_IN_RECEIVES = new OID("1.3.6.1.2.1.4.3.0");       // ipInReceives
+    public static final OID IP_IN_HDR_ERRORS = new OID("1.3.6.1.2.1.4.4.0");     // ipInHdrErrors
+    public static final OID IP_IN_ADDR_ERRORS = new OID("1.3.6.1.2.1.4.5.0");    // ipInAddrErrors
+    public static final OID IP_FORW_DATAGRAMS = new OID("1.3.6.1.2.1.4.6.0");    // ipForwDatagrams
+    public static final OID IP_IN_UNKNOWN_PROTOS = new OID("1.3.6.1.2.1.4.7.0"); // ipInUnknownProtos
+    public static final OID IP_IN_DISCARDS = new OID("1.3.6.1.2.1.4.8.0");       // ipInDiscards
+    public static final OID IP_IN_DELIVERS = new OID("1.3.6.1.2.1.4.9.0");       // ipInDelivers
+    public static final OID IP_OUT_REQUESTS = new OID("1.3.6.1.2.1.4.10.0");     // ipOutRequests
+    public static final OID IP_OUT_DISCARDS = new OID("1.3.6.1.2.1.4.11.0");     // ipOutDiscards
+    public static final OID IP_OUT_NO_ROUTES = new OID("1.3.6.1.2.1.4.12.0");    // ipOutNoRoutes
+    public static final OID IP_REASM_TIMEOUT = new OID("1.3.6.1.2.1.4.13.0");    // ipReasmTimeout
+    public static final OID IP_REASM_REQDS = new OID("1.3.6.1.2.1.4.14.0");      // ipReasmReqds
+    public static final OID IP_REASM_OKS = new OID("1.3.6.1.2.1.4.15.0");        // ipReasmOKs
+    public static final OID IP_REASM_FAILS = new OID("1.3.6.1.2.1.4.16.0");      // ipReasmFails
+    public static final OID IP_FRAG_OKS = new OID("1.3.6.1.2.1.4.17.0");         // ipFragOKs
+    public static final OID IP_FRAG_FAILS = new OID("1.3.6.1.2.1.4.18.0");       // ipFragFails
+    public static final OID IP_FRAG_CREATES = new OID("1.3.6.1.2.1.4.19.0");     // ipFragCreates
+    public static final OID IP_ROUTING_DISCARDS = new OID("1.3.6.1.2.1.4.23.0"); // ipRoutingDiscards
+
+    // ICMP scalars
+    public static final OID ICMP_IN_MSGS = new OID("1.3.6.1.2.1.5.1.0");         // icmpInMsgs
+    public static final OID ICMP_IN_ERRORS = new OID("1.3.6.1.2.1.5.2.0");       // icmpInErrors
+    public static final OID ICMP_IN_DEST_UNREACHS = new OID("1.3.6.1.2.1.5.3.0"); // icmpInDestUnreachs
+    public static final OID ICMP_IN_TIME_EXCDS = new OID("1.3.6.1.2.1.5.4.0");   // icmpInTimeExcds
+    public static final OID ICMP_IN_PARM_PROBS = new OID("1.3.6.1.2.1.5.5.0");   // icmpInParmProbs
+    public static final OID ICMP_IN_SRC_QUENCHS = new OID("1.3.6.1.2.1.5.6.0");  // icmpInSrcQuenchs
+    public static final OID ICMP_IN_REDIRECTS = new OID("1.3.6.1.2.1.5.7.0");    // icmpInRedirects
+    public static final OID ICMP_IN_ECHOS = new OID("1.3.6.1.2.1.5.8.0");        // icmpInEchos
+    public static final OID ICMP_IN_ECHO_REPS = new OID("1.3.6.1.2.1.5.9.0");    // icmpInEchoReps
+    public static final OID ICMP_IN_TIMESTAMPS = new OID("1.3.6.1.2.1.5.10.0");  // icmpInTimestamps
+    public static final OID ICMP_IN_TIMESTAMP_REPS = new OID("1.3.6.1.2.1.5.11.0"); // icmpInTimestampReps
+    public static final OID ICMP_IN_ADDR_MASKS = new OID("1.3.6.1.2.1.5.12.0");  // icmpInAddrMasks
+    public static final OID ICMP_IN_ADDR_MASK_REPS = new OID("1.3.6.1.2.1.5.13.0"); // icmpInAddrMaskReps
+    public static final OID ICMP_OUT_MSGS = new OID("1.3.6.1.2.1.5.14.0");       // icmpOutMsgs
+    public static final OID ICMP_OUT_ERRORS = new OID("1.3.6.1.2.1.5.15.0");     // icmpOutErrors
+    public static final OID ICMP_OUT_DEST_UNREACHS = new OID("1.3.6.1.2.1.5.16.0"); // icmpOutDestUnreachs
+    public static final OID ICMP_OUT_TIME_EXCDS = new OID("1.3.6.1.2.1.5.17.0"); // icmpOutTimeExcds
+    public static final OID ICMP_OUT_PARM_PROBS = new OID("1.3.6.1.2.1.5.18.0"); // icmpOutParmProbs
+    public static final OID ICMP_OUT_SRC_QUENCHS = new OID("1.3.6.1.2.1.5.19.0"); // icmpOutSrcQuenchs
+    public static final OID ICMP_OUT_REDIRECTS = new OID("1.3.6.1.2.1.5.20.0");  // icmpOutRedirects
+    public static final OID ICMP_OUT_ECHOS = new OID("1.3.6.1.2.1.5.21.0");      // icmpOutEchos
+    public static final OID ICMP_OUT_ECHO_REPS = new OID("1.3.6.1.2.1.5.22.0");  // icmpOutEchoReps
+    public static final OID ICMP_OUT_TIMESTAMPS = new OID("1.3.6.1.2.1.5.23.0"); // icmpOutTimestamps
+    public static final OID ICMP_OUT_TIMESTAMP_REPS = new OID("1.3.6.1.2.1.5.24.0"); // icmpOutTimestampReps
+    public static final OID ICMP_OUT_ADDR_MASKS = new OID("1.3.6.1.2.1.5.25.0"); // icmpOutAddrMasks
+    public static final OID ICMP_OUT_ADDR_MASK_REPS = new OID("1.3.6.1.2.1.5.26.0"); // icmpOutAddrMaskReps
+
+    // UDP-MIB scalars and udpTable columns
+    public static final OID UDP_IN_DATAGRAMS = new OID("1.3.6.1.2.1.7.1.0");     // udpInDatagrams
+    public static final OID UDP_NO_PORTS = new OID("1.3.6.1.2.1.7.2.0");         // udpNoPorts
+    public static final OID UDP_IN_ERRORS = new OID("1.3.6.1.2.1.7.3.0");        // udpInErrors
+    public static final OID UDP_OUT_DATAGRAMS = new OID("1.3.6.1.2.1.7.4.0");    // udpOutDatagrams
+    public static final OID UDP_LOCAL_ADDRESS = new OID("1.3.6.1.2.1.7.5.1.1");  // udpLocalAddress
+    public static final OID UDP_LOCAL_PORT = new OID("1.3.6.1.2.1.7.5.1.2");     // udpLocalPort
+
+    // IF-MIB ifTable columns
+    public static final OID IF_INDEX = new OID("1.3.6.1.2.1.2.2.1.1");           // ifIndex
+    public static final OID IF_DESCR = new OID("1.3.6.1.2.1.2.2.1.2");           // ifDescr
+    public static final OID IF_TYPE = new OID("1.3.6.1.2.1.2.2.1.3");            // ifType
+    public static final OID IF_MTU = new OID("1.3.6.1.2.1.2.2.1.4");             // ifMtu
+    public static final OID IF_SPEED = new OID("1.3.6.1.2.1.2.2.1.5");           // ifSpeed
+    public static final OID IF_PHYS_ADDRESS = new OID("1.3.6.1.2.1.2.2.1.6");    // ifPhysAddress
+    public static final OID IF_ADMIN_STATUS = new OID("1.3.6.1.2.1.2.2.1.7");    // ifAdminStatus
+    public static final OID IF_OPER_STATUS = new OID("1.3.6.1.2.1.2.2.1.8");     // ifOperStatus
+    public static final OID IF_LAST_CHANGE = new OID("1.3.6.1.2.1.2.2.1.9");     // ifLastChange
+    public static final OID IF_IN_OCTETS = new OID("1.3.6.1.2.1.2.2.1.10");      // ifInOctets
+    public static final OID IF_IN_UCAST_PKTS = new OID("1.3.6.1.2.1.2.2.1.11");  // ifInUcastPkts
+    public static final OID IF_IN_DISCARDS = new OID("1.3.6.1.2.1.2.2.1.13");    // ifInDiscards
+    public static final OID IF_IN_ERRORS = new OID("1.3.6.1.2.1.2.2.1.14");      // ifInErrors
+    public static final OID IF_OUT_OCTETS = new OID("1.3.6.1.2.1.2.2.1.16");     // ifOutOctets
+    public static final OID IF_OUT_UCAST_PKTS = new OID("1.3.6.1.2.1.2.2.1.17"); // ifOutUcastPkts
+    public static final OID IF_OUT_DISCARDS = new OID("1.3.6.1.2.1.2.2.1.19");   // ifOutDiscards
+    public static final OID IF_OUT_ERRORS = new OID("1.3.6.1.2.1.2.2.1.20");     // ifOutErrors
+
+    // IF-MIB ifXTable columns, indexed like ifTable
+    public static final OID IF_HC_IN_OCTETS = new OID("1.3.6.1.2.1.31.1.1.1.6");        // ifHCInOctets
+    public static final OID IF_HC_IN_UCAST_PKTS = new OID("1.3.6.1.2.1.31.1.1.1.7");    // ifHCInUcastPkts
+    public static final OID IF_HC_OUT_OCTETS = new OID("1.3.6.1.2.1.31.1.1.1.10");      // ifHCOutOctets
+    public static final OID IF_HC_OUT_UCAST_PKTS = new OID("1.3.6.1.2.1.31.1.1.1.11");  // ifHCOutUcastPkts
+    public static final OID IF_COUNTER_DISCONTINUITY_TIME = new OID("1.3.6.1.2.1.31.1.1.1.19"); // ifCounterDiscontinuityTime
+
+    // ENTITY-MIB entPhysicalTable columns
+    public static final OID ENT_PHYSICAL_DESCR = new OID("1.3.6.1.2.1.47.1.1.1.1.2"); // entPhysicalDescr
+    public static final OID ENT_PHYSICAL_VENDOR_TYPE = new OID("1.3.6.1.2.1.47.1.1.1.1.3"); // entPhysicalVendorType
+    public static final OID ENT_PHYSICAL_CLASS = new OID("1.3.6.1.2.1.47.1.1.1.1.5"); // entPhysicalClass
+    public static final OID ENT_PHYSICAL_NAME = new OID("1.3.6.1.2.1.47.1.1.1.1.7"); // entPhysicalName
+    public static final OID ENT_PHYSICAL_HW_REV = new OID("1.3.6.1.2.1.47.1.1.1.1.8"); // entPhysicalHardwareRev
+    public static final OID ENT_PHYSICAL_FW_REV = new OID("1.3.6.1.2.1.47.1.1.1.1.9"); // entPhysicalFirmwareRev
+    public static final OID ENT_PHYSICAL_SW_REV = new OID("1.3.6.1.2.1.47.1.1.1.1.10"); // entPhysicalSoftwareRev
+    public static final OID ENT_PHYSICAL_SERIAL_NUM = new OID("1.3.6.1.2.1.47.1.1.1.1.11"); // entPhysicalSerialNum
+    public static final OID ENT_PHYSICAL_MFG_NAME = new OID("1.3.6.1.2.1.47.1.1.1.1.12"); // entPhysicalMfgName
+    public static final OID ENT_PHYSICAL_MODEL_NAME = new OID("1.3.6.1.2.1.47.1.1.1.1.13"); // entPhysicalModelName
+    public static final OID ENT_PHYSICAL_ALIAS = new OID("1.3.6.1.2.1.47.1.1.1.1.14"); // entPhysicalAlias
+    public static final OID ENT_PHYSICAL_ASSET_ID = new OID("1.3.6.1.2.1.47.1.1.1.1.15"); // entPhysicalAssetID
+    public static final OID ENT_PHYSICAL_IS_FRU = new OID("1.3.6.1.2.1.47.1.1.1.1.16"); // entPhysicalIsFRU
+
+    private SnmpOids() {
+    }
+
+    /**
+     * Instance OID of a table column for an integer row index, built from the column's
+     * sub-identifiers without going through a string
+     */
+    public static OID instance(OID column, int index) {
+        return new OID(column.getValue(), index);
+    }
+}
@@ -2,20 +2,18 @@ package com.farukgenc.boilerplate.springboot.service.snmp;
 
 import com.farukgenc.boilerplate.springboot.model.Device;
 import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
-import com.farukgenc.boilerplate.springboot.model.SystemInfo;
 import com.farukgenc.boilerplate.springboot.repository.DeviceConfigRepository;
 import com.farukgenc.boilerplate.springboot.repository.DeviceRepository;
 import com.farukgenc.boilerplate.springboot.repository.SystemInfoRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Async;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -29,71 +27,23 @@ public class SnmpPollingService {
     private final DeviceRepository deviceRepository;
     private final DeviceConfigRepository deviceConfigRepository;
     private final SnmpClientService snmpClientService;
-    private final SystemInfoPollService systemInfoPollService;
     private final SystemInfoRepository  systemInfoRepository;
-    private final SystemUnitPollService systemUnitPollService;
-    private final InterfacePollService interfacePollService;
-    private final IpProfilePollService ipProfilePollService;
-    private final IcmpProfilePollService icmpProfilePollService;
-    private final UdpProfilePollService udpProfilePollService;
-
-    /**
-     * Scheduled method to poll all enabled devices
-     * Runs every 30 seconds for real-time monitoring
-     */
-    @Scheduled(fixedRate = 30000) // 30 seconds
-    @Transactional
-    public void scheduledPollAllDevices() {
-        log.info("Starting scheduled SNMP polling for all devices");
-        try {
-            // Use join fetch to eagerly load device relationships
-            List<DeviceConfig> enabledConfigs = deviceConfigRepository.findByEnabledTrueWithDevice();
-
-            if (enabledConfigs.isEmpty()) {
-                log.info("No enabled device configurations found for polling");
-                return;
-            }
-            
-            // Filter configs for devices that have monitoring enabled
-            List<DeviceConfig> monitoringEnabledConfigs = enabledConfigs.stream()
-                .filter(config -> config.getDevice().getMonitoringEnabled() != null && config.getDevice().getMonitoringEnabled())
-                .toList();
-
-            if (monitoringEnabledConfigs.isEmpty()) {
-                log.info("No devices with monitoring enabled found for polling");
-                return;
-            }
-
-            log.info("Found {} enabled device configurations with monitoring enabled to poll", monitoringEnabledConfigs.size());
-
-            // Poll each device synchronously to avoid transaction conflicts
-            for (DeviceConfig config : monitoringEnabledConfigs) {
-                try {
-                    pollDevice(config);
-                } catch (Exception e) {
-                    log.error("Error polling device {}: {}", config.getDevice().getName(), e.getMessage(), e);
-                }
-            }
-
-            log.info("Completed polling of {} devices", monitoringEnabledConfigs.size());
-
-        } catch (Exception e) {
-            log.error("Error during scheduled polling: {}", e.getMessage(), e);
-        }
-    }
+    private final DevicePollCollector devicePollCollector;
+    private final DevicePollTransformer devicePollTransformer;
+    private final PollResultWriter pollResultWriter;
 
     /**
      * Poll a single device asynchronously - for manual triggering
      */
     @Async("snmpTaskExecutor")
     public CompletableFuture<Void> pollDeviceAsync(DeviceConfig config) {
-        return CompletableFuture.runAsync(() -> pollDevice(config));
+        pollDevice(config);
+        return CompletableFuture.completedFuture(null);
     }
 
     /**
-     * Poll all data for a single device
+     * Poll all data for a single device. The config's device must already be loaded.
      */
-    @Transactional
     public void pollDevice(DeviceConfig config) {
         Device device = config.getDevice();
 
@@ -105,102 +55,47 @@ public class SnmpPollingService {
 
         log.debug("Starting SNMP polling for device: {} ({})", device.getName(), config.getTargetIp());
         
+        // Check if we should poll based on interval
+        if (!shouldPollDevice(config)) {
+            log.debug("Skipping device {} - not time to poll yet", device.getName());
+            return;
+        }
+
+        executePoll(config);
+    }
+
+    /**
+     * Runs the collect, transform and write phases of a poll inline on the calling thread. Scheduled
+     * polls go through the {@link PollPipeline} instead, which runs each phase on its own workers.
+     */
+    private void executePoll(DeviceConfig config) {
+        DevicePollSnapshot snapshot;
         try {
-            // Check if we should poll based on interval
-            if (!shouldPollDevice(config)) {
-                log.debug("Skipping device {} - not time to poll yet", device.getName());
-                return;
-            }
-            
-            // Test connectivity first
-            if (!snmpClientService.testConnection(config)) {
-                handlePollingFailure(config, "SNMP connectivity test failed");
-                return;
-            }
-            
-            // Update last poll time and reset error count
-            config.setLastPollTime(LocalDateTime.now());
-            config.setConsecutiveFailures(0);
-            config.setLastPollStatus(DeviceConfig.PollStatus.SUCCESS);
-            config.setErrorMessage(null);
-            
-            // Poll system information
-            try {
-                SystemInfo sysinfo = systemInfoPollService.pollDeviceSystemInfo(device, config);
-                log.debug("System info polling completed for device: {}", device.getName());
-            } catch (Exception e) {
-                log.warn("System info polling failed for device {}: {}", device.getName(), e.getMessage());
-            }
-            
-            // Poll interfaces
-            try {
-                interfacePollService.pollDeviceInterfaces(device, config);
-                log.debug("Interface polling completed for device: {}", device.getName());
-            } catch (Exception e) {
-                log.warn("Interface polling failed for device {}: {}", device.getName(), e.getMessage());
-            }
-            
-            // Poll system units
-            try {
-                systemUnitPollService.pollDeviceSystemUnits(device, config);
-                log.debug("System unit polling completed for device: {}", device.getName());
-            } catch (Exception e) {
-                log.warn("System unit polling failed for device {}: {}", device.getName(), e.getMessage());
-            }
-            
-            // Poll IP profile
-            try {
-                ipProfilePollService.pollDeviceIpProfile(device, config);
-                log.debug("IP profile polling completed for device: {}", device.getName());
-            } catch (Exception e) {
-                log.warn("IP profile polling failed for device {}: {}", device.getName(), e.getMessage());
-            }
-            
-            // Poll ICMP profile
-            try {
-                icmpProfilePollService.pollDeviceIcmpProfile(device, config);
-                log.debug("ICMP profile polling completed for device: {}", device.getName());
-            } catch (Exception e) {
-                log.warn("ICMP profile polling failed for device {}: {}", device.getName(), e.getMessage());
-            }
-            
-            // Poll UDP profile
-            try {
-                udpProfilePollService.pollDeviceUdpProfile(device, config);
-                log.debug("UDP profile polling completed for device: {}", device.getName());
-            } catch (Exception e) {
-                log.warn("UDP profile polling failed for device {}: {}", device.getName(), e.getMessage());
-            }
-            
-            // Save updated config
-            deviceConfigRepository.save(config);
-            
-            log.info("SNMP polling completed successfully for device: {} ({})", 
-                device.getName(), config.getTargetIp());
-            
+            snapshot = devicePollCollector.collect(config).join();
         } catch (Exception e) {
-            handlePollingFailure(config, "Polling failed: " + e.getMessage());
-            log.error("SNMP polling failed for device {}: {}", device.getName(), e.getMessage(), e);
+            log.error("SNMP polling failed for device {}: {}", config.getDevice().getName(), e.getMessage(), e);
+            pollResultWriter.recordFailure(config.getId(), "Polling failed: " + e.getMessage());
+            return;
         }
+        pollResultWriter.apply(devicePollTransformer.transform(snapshot));
     }
 
     /**
      * Poll a specific device by ID
      */
-    @Transactional
     public void pollDeviceById(Long deviceId) {
         log.info("Starting on-demand polling for device ID: {}", deviceId);
         
-        DeviceConfig config = deviceConfigRepository.findByDeviceId(deviceId)
+        DeviceConfig config = deviceConfigRepository.findByDeviceIdWithDevice(deviceId)
             .orElseThrow(() -> new RuntimeException("Device configuration not found for device ID: " + deviceId));
         
         pollDevice(config);
     }
 
     /**
-     * Poll multiple devices by their IDs
+     * Poll multiple devices by their IDs. Every device writes in its own transaction, so one
+     * failing device does not roll back the others
      */
-    @Transactional
     public void pollDevicesByIds(List<Long> deviceIds) {
         log.info("Starting on-demand polling for {} devices", deviceIds.size());
         
@@ -216,14 +111,30 @@ public class SnmpPollingService {
     /**
      * Test SNMP connectivity for a device
      */
-    @Transactional(readOnly = true)
     public boolean testDeviceConnectivity(Long deviceId) {
-        DeviceConfig config = deviceConfigRepository.findByDeviceId(deviceId)
+        DeviceConfig config = deviceConfigRepository.findByDeviceIdWithDevice(deviceId)
             .orElseThrow(() -> new RuntimeException("Device configuration not found for device ID: " + deviceId));
         
         return snmpClientService.testConnection(config);
     }
 
+    /**
+     * Round-trip estimate and derived timeout/retries of a device, empty if it has not been contacted yet
+     */
+    public Optional<RttEstimator.Snapshot> getRttEstimate(Long deviceId) {
+        DeviceConfig config = deviceConfigRepository.findByDeviceId(deviceId)
+            .orElseThrow(() -> new RuntimeException("Device configuration not found for device ID: " + deviceId));
+
+        return snmpClientService.getRttEstimate(config);
+    }
+
+    /**
+     * Whether a device is still meant to be polled: its config is enabled and monitoring is on
+     */
+    static boolean isPollable(DeviceConfig config) {
+        return Boolean.TRUE.equals(config.getEnabled()) && Boolean.TRUE.equals(config.getDevice().getMonitoringEnabled());
+    }
+
     /**
      * Check if a device should be polled based on its poll interval
      */
@@ -236,25 +147,6 @@ public class SnmpPollingService {
         return LocalDateTime.now().isAfter(nextPollTime);
     }
 
-    /**
-     * Handle polling failure and update device config
-     */
-    private void handlePollingFailure(DeviceConfig config, String errorMessage) {
-        config.setLastPollTime(LocalDateTime.now());
-        config.setLastPollStatus(DeviceConfig.PollStatus.FAILURE);
-        config.setErrorMessage(errorMessage);
-        config.setConsecutiveFailures(config.getConsecutiveFailures() + 1);
-        
-        // Disable device after 5 consecutive failures
-        if (config.getConsecutiveFailures() >= 5) {
-            config.setEnabled(false);
-            log.warn("Disabled device {} after {} consecutive failures", 
-                config.getDevice().getName(), config.getConsecutiveFailures());
-        }
-        
-        deviceConfigRepository.save(config);
-    }
-
     /**
      * Get polling statistics for all devices
      */
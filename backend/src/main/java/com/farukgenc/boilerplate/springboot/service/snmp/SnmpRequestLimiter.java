@@ -0,0 +1,233 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Admission control for outgoing SNMP requests. Each target has a small fixed cap on
+ * in-flight PDUs so a weak agent CPU is never flooded; all targets together share an
+ * adaptive cap that grows additively while responses come back in time and shrinks
+ * multiplicatively on timeouts or latency spikes (AIMD). Requests over either cap wait
+ * in a per-target FIFO; waiting targets are served round-robin. No thread ever blocks.
+ */
+@Component
+public class SnmpRequestLimiter {
+
+    private final SnmpProperties.Limiter settings;
+    private final Object lock = new Object();
+    private final Map<String, TargetQueue> targets = new HashMap<>();
+    private final ArrayDeque<TargetQueue> ready = new ArrayDeque<>();
+    private final ThreadLocal<DispatchState> dispatching = ThreadLocal.withInitial(DispatchState::new);
+
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private long completed;
+    private long decreaseFence;
+
+    private final Counter decreases;
+
+    public SnmpRequestLimiter(SnmpProperties properties, MeterRegistry meterRegistry) {
+        this.settings = properties.getLimiter();
+        this.limit = clamp(settings.getInitialLimit());
+
+        this.decreases = Counter.builder("snmp.limiter.decreases")
+            .description("Times the global SNMP concurrency limit was cut after timeouts or latency spikes")
+            .register(meterRegistry);
+        Gauge.builder("snmp.limiter.limit", this, SnmpRequestLimiter::getLimit)
+            .description("Current global limit on in-flight SNMP requests").register(meterRegistry);
+        Gauge.builder("snmp.limiter.inflight", this, SnmpRequestLimiter::getInFlight)
+            .description("SNMP requests currently awaiting a response").register(meterRegistry);
+        Gauge.builder("snmp.limiter.queued", this, SnmpRequestLimiter::getQueued)
+            .description("SNMP requests waiting for a per-target or global slot").register(meterRegistry);
+        Gauge.builder("snmp.limiter.targets.waiting", this, SnmpRequestLimiter::getWaitingTargets)
+            .description("Targets with at least one queued SNMP request").register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code task} once the target and the global limit both have room. The slot is
+     * released when the task's future completes, however it completes.
+     */
+    public <T> CompletableFuture<T> submit(String targetKey, Supplier<CompletableFuture<T>> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable start = () -> {
+            CompletableFuture<T> running;
+            try {
+                running = task.get();
+            } catch (RuntimeException e) {
+                running = CompletableFuture.failedFuture(e);
+            }
+            running.whenComplete((value, e) -> {
+                release(targetKey);
+                if (e != null) {
+                    result.completeExceptionally(e);
+                } else {
+                    result.complete(value);
+                }
+            });
+        };
+
+        synchronized (lock) {
+            TargetQueue target = targets.computeIfAbsent(targetKey, key -> new TargetQueue());
+            target.waiting.add(start);
+            queued++;
+            markReady(target);
+        }
+        dispatch();
+        return result;
+    }
+
+    /**
+     * A response arrived {@code rttMillis} after sending; {@code expectedMillis} is the
+     * target's smoothed RTT before this sample, if known
+     */
+    public void onResponse(long rttMillis, OptionalDouble expectedMillis) {
+        if (expectedMillis.isPresent() && expectedMillis.getAsDouble() > 0
+                && rttMillis > settings.getLatencyTolerance() * expectedMillis.getAsDouble()) {
+            decrease();
+            return;
+        }
+        synchronized (lock) {
+            // Only grow while the limit is actually in use, otherwise an idle period inflates it
+            if (inFlight >= limit / 2) {
+                limit = clamp(limit + 1 / limit);
+            }
+        }
+    }
+
+    /**
+     * A request timed out. Only targets that were answering count as congestion; a device
+     * that is simply down says nothing about the network.
+     */
+    public void onTimeout(boolean targetWasResponsive) {
+        if (targetWasResponsive) {
+            decrease();
+        }
+    }
+
+    public double getLimit() {
+        synchronized (lock) {
+            return limit;
+        }
+    }
+
+    public int getInFlight() {
+        synchronized (lock) {
+            return inFlight;
+        }
+    }
+
+    public int getQueued() {
+        synchronized (lock) {
+            return queued;
+        }
+    }
+
+    public int getWaitingTargets() {
+        synchronized (lock) {
+            return (int) targets.values().stream().filter(target -> !target.waiting.isEmpty()).count();
+        }
+    }
+
+    /**
+     * Cuts the limit at most once per window: the requests already in flight when it was
+     * cut may still time out and must not cut it again
+     */
+    private void decrease() {
+        synchronized (lock) {
+            if (completed < decreaseFence) {
+                return;
+            }
+            limit = clamp(limit * settings.getBackoffRatio());
+            decreaseFence = completed + inFlight;
+        }
+        decreases.increment();
+    }
+
+    private void release(String targetKey) {
+        synchronized (lock) {
+            inFlight--;
+            completed++;
+            TargetQueue target = targets.get(targetKey);
+            if (target != null) {
+                target.inFlight--;
+                if (target.inFlight == 0 && target.waiting.isEmpty()) {
+                    targets.remove(targetKey);
+                } else {
+                    markReady(target);
+                }
+            }
+        }
+        dispatch();
+    }
+
+    private void dispatch() {
+        // A request that fails synchronously releases its slot from inside run(); loop
+        // here instead of recursing so a long queue of failures cannot overflow the stack
+        DispatchState state = dispatching.get();
+        if (state.active) {
+            state.again = true;
+            return;
+        }
+        state.active = true;
+        try {
+            do {
+                state.again = false;
+                List<Runnable> starts = new ArrayList<>();
+                synchronized (lock) {
+                    while (inFlight < (int) limit && !ready.isEmpty()) {
+                        TargetQueue target = ready.poll();
+                        target.ready = false;
+                        Runnable start = target.waiting.poll();
+                        if (start == null) {
+                            continue;
+                        }
+                        queued--;
+                        target.inFlight++;
+                        inFlight++;
+                        starts.add(start);
+                        markReady(target);
+                    }
+                }
+                // Sending happens outside the lock
+                starts.forEach(Runnable::run);
+            } while (state.again);
+        } finally {
+            state.active = false;
+        }
+    }
+
+    private void markReady(TargetQueue target) {
+        if (!target.ready && !target.waiting.isEmpty() && target.inFlight < settings.getPerTarget()) {
+            target.ready = true;
+            ready.add(target);
+        }
+    }
+
+    private double clamp(double value) {
+        return Math.max(settings.getMinLimit(), Math.min(value, settings.getMaxLimit()));
+    }
+
+    private static final class TargetQueue {
+        private final ArrayDeque<Runnable> waiting = new ArrayDeque<>();
+        private int inFlight;
+        private boolean ready;
+    }
+
+    private static final class DispatchState {
+        private boolean active;
+        private boolean again;
+    }
+}
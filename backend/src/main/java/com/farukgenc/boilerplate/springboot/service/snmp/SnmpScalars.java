@@ -0,0 +1,71 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import lombok.Getter;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.Variable;
+
+import java.util.Map;
+
+/**
+ * Scalar values fetched for a {@link SnmpColumns} set, indexed by column id
+ */
+public final class SnmpScalars {
+
+    @Getter
+    private final SnmpColumns columns;
+    private final Variable[] values;
+
+    SnmpScalars(SnmpColumns columns) {
+        this.columns = columns;
+        this.values = new Variable[columns.size()];
+    }
+
+    /**
+     * Picks this set's values out of a response map keyed by the OIDs the agent returned
+     */
+    static SnmpScalars from(SnmpColumns columns, Map<OID, Variable> response) {
+        SnmpScalars scalars = new SnmpScalars(columns);
+        for (int i = 0; i < columns.size(); i++) {
+            scalars.values[i] = response.get(columns.get(i));
+        }
+        return scalars;
+    }
+
+    /**
+     * Value at the given column id, or null if the agent returned none
+     */
+    public Variable get(int column) {
+        return values[column];
+    }
+
+    /**
+     * Value of the given OID, or null if it is not part of the set or the agent returned none
+     */
+    public Variable get(OID oid) {
+        int column = columns.indexOf(oid);
+        return column < 0 ? null : values[column];
+    }
+
+    /**
+     * True when the agent returned none of the requested values
+     */
+    public boolean isEmpty() {
+        for (Variable value : values) {
+            if (value != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fingerprint of every value, used to tell whether the scalars changed between polls
+     */
+    public long fingerprint() {
+        return PollChangeTracker.fingerprint(null, values);
+    }
+
+    void set(int column, Variable value) {
+        values[column] = value;
+    }
+}
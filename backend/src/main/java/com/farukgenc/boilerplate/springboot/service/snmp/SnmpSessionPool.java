@@ -0,0 +1,215 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.snmp4j.Snmp;
+import org.snmp4j.TransportMapping;
+import org.snmp4j.smi.Address;
+import org.snmp4j.smi.GenericAddress;
+import org.snmp4j.transport.DefaultUdpTransportMapping;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency-safe pool that multiplexes every SNMP target over a small fixed set of
+ * UDP transports. Targets are cached per ip/port/version/credential key and evicted
+ * once idle (TTL) or when the pool grows beyond its size limit (LRU).
+ */
+@Slf4j
+@Component
+public class SnmpSessionPool {
+
+    private final SnmpProperties.Pool settings;
+    private final UsmSecurityCache usmSecurity;
+    private final Snmp[] transports;
+    private final Map<String, PooledTarget> targets = new ConcurrentHashMap<>();
+    private final AtomicInteger openSockets = new AtomicInteger();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public SnmpSessionPool(SnmpProperties properties, MeterRegistry meterRegistry, UsmSecurityCache usmSecurity) {
+        this.settings = properties.getPool();
+        this.usmSecurity = usmSecurity;
+        this.transports = new Snmp[Math.max(1, settings.getTransports())];
+
+        this.hits = Counter.builder("snmp.pool.lookups").tag("result", "hit")
+            .description("SNMP target lookups served from the pool").register(meterRegistry);
+        this.misses = Counter.builder("snmp.pool.lookups").tag("result", "miss")
+            .description("SNMP target lookups that created a pool entry").register(meterRegistry);
+        this.evictions = Counter.builder("snmp.pool.evictions")
+            .description("Idle or least recently used SNMP targets evicted").register(meterRegistry);
+        Gauge.builder("snmp.pool.sockets.open", openSockets, AtomicInteger::get)
+            .description("UDP sockets opened by the SNMP pool").register(meterRegistry);
+        Gauge.builder("snmp.pool.targets", targets, Map::size)
+            .description("SNMP targets currently cached").register(meterRegistry);
+        Gauge.builder("snmp.pool.hit.ratio", this, SnmpSessionPool::getHitRatio)
+            .description("Share of SNMP target lookups served from the pool").register(meterRegistry);
+    }
+
+    /**
+     * Returns the pooled session and resolved address for a device, creating them on first use
+     */
+    public PooledTarget acquire(DeviceConfig config) throws IOException {
+        String key = sessionKey(config);
+
+        PooledTarget pooled = targets.get(key);
+        if (pooled != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            try {
+                pooled = targets.computeIfAbsent(key, k -> createTarget(k, config));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+
+        pooled.touch();
+        return pooled;
+    }
+
+    /**
+     * Drops targets idle beyond the TTL, then trims the least recently used down to the size limit
+     */
+    @Scheduled(fixedDelayString = "${app.snmp.pool.eviction-interval:60000}")
+    public void evictIdleTargets() {
+        long cutoff = System.nanoTime() - settings.getIdleTimeout().toNanos();
+        targets.values().removeIf(pooled -> {
+            boolean idle = pooled.lastUsed - cutoff < 0;
+            if (idle) {
+                evictions.increment();
+            }
+            return idle;
+        });
+
+        int excess = targets.size() - settings.getMaxTargets();
+        if (excess > 0) {
+            List<PooledTarget> oldest = targets.values().stream()
+                .sorted(Comparator.comparingLong(pooled -> pooled.lastUsed))
+                .limit(excess)
+                .toList();
+            for (PooledTarget pooled : oldest) {
+                if (targets.remove(pooled.key, pooled)) {
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    public int getOpenSockets() {
+        return openSockets.get();
+    }
+
+    public int getTargetCount() {
+        return targets.size();
+    }
+
+    public double getHitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0.0 : hits.count() / total;
+    }
+
+    /**
+     * Closes every transport (for cleanup)
+     */
+    @PreDestroy
+    public void close() {
+        synchronized (transports) {
+            for (int i = 0; i < transports.length; i++) {
+                if (transports[i] != null) {
+                    try {
+                        transports[i].close();
+                    } catch (IOException e) {
+                        log.warn("Failed to close SNMP transport: {}", e.getMessage());
+                    }
+                    transports[i] = null;
+                    openSockets.decrementAndGet();
+                }
+            }
+            targets.clear();
+        }
+    }
+
+    private PooledTarget createTarget(String key, DeviceConfig config) {
+        try {
+            Snmp snmp = transport(Math.floorMod(key.hashCode(), transports.length));
+            Address address = GenericAddress.parse("udp:" + config.getTargetIp() + "/" + config.getSnmpPort());
+            return new PooledTarget(key, snmp, address);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Lazily opens the transport for a stripe
+     */
+    private Snmp transport(int stripe) throws IOException {
+        synchronized (transports) {
+            if (transports[stripe] == null) {
+                TransportMapping<?> transport = new DefaultUdpTransportMapping();
+                Snmp snmp = new Snmp(transport);
+                usmSecurity.install(snmp);
+                transport.listen();
+                transports[stripe] = snmp;
+                openSockets.incrementAndGet();
+                log.debug("Opened SNMP transport {} of {}", stripe + 1, transports.length);
+            }
+            return transports[stripe];
+        }
+    }
+
+    /**
+     * Generates the pool key for a device configuration
+     */
+    static String sessionKey(DeviceConfig config) {
+        return String.format("%s:%d:%s:%s",
+            config.getTargetIp(),
+            config.getSnmpPort(),
+            config.getSnmpVersion(),
+            config.getCommunityString() != null ? config.getCommunityString() : config.getSecurityName()
+        );
+    }
+
+    /**
+     * A cached target: the shared session it is multiplexed on and its resolved address
+     */
+    @Getter
+    public static final class PooledTarget {
+
+        private final String key;
+        private final Snmp snmp;
+        private final Address address;
+        private volatile long lastUsed = System.nanoTime();
+
+        private PooledTarget(String key, Snmp snmp, Address address) {
+            this.key = key;
+            this.snmp = snmp;
+            this.address = address;
+        }
+
+        void touch() {
+            lastUsed = System.nanoTime();
+        }
+
+        public long getIdleMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastUsed);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.snmp4j.PDU;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.VariableBinding;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Retrieves whole SNMP tables column-parallel: every requested column is advanced in the same
+ * GETBULK PDU, so a table comes back in a handful of round trips instead of one per row.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SnmpTableFetcher {
+
+    private final SnmpClientService snmpClientService;
+    private final BulkRepetitionTuner bulkTuner;
+
+    /**
+     * Fetches the given columns and returns one row per index, in index order.
+     *
+     * @throws java.util.concurrent.CompletionException if the walk fails or times out part way;
+     *         the rows retrieved so far are not returned, as callers treat the table as complete
+     *         and would delete every row past the point of failure
+     */
+    public List<SnmpTableRow> fetchTable(DeviceConfig config, SnmpColumns columns) {
+        return fetchTableAsync(config, columns).join();
+    }
+
+    /**
+     * Non-blocking variant of {@link #fetchTable}; the returned future completes exceptionally
+     * when the walk does not reach the end of every column
+     */
+    public CompletableFuture<List<SnmpTableRow>> fetchTableAsync(DeviceConfig config, SnmpColumns columns) {
+        TableRequest request = new TableRequest(config, columns);
+        request.step(request.activeColumns());
+
+        return request.result
+            .whenComplete((ignored, e) -> {
+                if (e != null) {
+                    log.error("SNMP table fetch failed for columns {} on device {} after {} rows: {}",
+                        columns.asList(), config.getTargetIp(), request.rows.size(), SnmpClientService.rootCause(e).getMessage());
+                }
+            })
+            .thenApply(ignored -> new ArrayList<>(request.rows.values()));
+    }
+
+    /**
+     * State of one in-flight table retrieval. Columns that run past their subtree are dropped
+     * from subsequent requests while the others keep advancing.
+     */
+    private final class TableRequest {
+
+        private final DeviceConfig config;
+        private final SnmpColumns columns;
+        private final OID[] roots;
+        private final OID[] cursors;
+        private final boolean[] finished;
+        private final String deviceKey;
+        private final boolean bulk;
+        private final SortedMap<OID, SnmpTableRow> rows = new TreeMap<>();
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+        private SnmpTableRow lastRow;
+
+        private TableRequest(DeviceConfig config, SnmpColumns columns) {
+            this.config = config;
+            this.columns = columns;
+            this.roots = new OID[columns.size()];
+            this.cursors = new OID[columns.size()];
+            this.finished = new boolean[columns.size()];
+            for (int i = 0; i < roots.length; i++) {
+                roots[i] = columns.get(i);
+                cursors[i] = roots[i];
+            }
+            this.deviceKey = config.getTargetIp() + ":" + config.getSnmpPort();
+            this.bulk = config.getSnmpVersion() != DeviceConfig.SnmpVersion.V1;
+        }
+
+        private int[] activeColumns() {
+            int[] active = new int[columns.size()];
+            int count = 0;
+            for (int i = 0; i < finished.length; i++) {
+                if (!finished[i]) {
+                    active[count++] = i;
+                }
+            }
+            return Arrays.copyOf(active, count);
+        }
+
+        /**
+         * Row for the index suffix of {@code oid}. Bindings of one repetition usually share the
+         * same index, so the previous row is reused without building an index OID.
+         */
+        private SnmpTableRow rowFor(OID oid, int prefixLength) {
+            if (lastRow != null && hasSuffix(oid, prefixLength, lastRow.getIndex())) {
+                return lastRow;
+            }
+            OID index = new OID(oid.getValue(), prefixLength, oid.size() - prefixLength);
+            lastRow = rows.computeIfAbsent(index, key -> new SnmpTableRow(key, columns));
+            return lastRow;
+        }
+
+        private void step(int[] active) {
+            if (active.length == 0) {
+                result.complete(null);
+                return;
+            }
+            // The tuner budgets bindings per response; share it between the active columns
+            int repetitions = bulk ? Math.max(1, bulkTuner.current(deviceKey, Integer.MAX_VALUE) / active.length) : 1;
+            step(active, repetitions);
+        }
+
+        private void step(int[] active, int repetitions) {
+            PDU pdu = new PDU();
+            for (int column : active) {
+                pdu.add(new VariableBinding(cursors[column]));
+            }
+            if (bulk) {
+                pdu.setType(PDU.GETBULK);
+                pdu.setNonRepeaters(0);
+                pdu.setMaxRepetitions(repetitions);
+            } else {
+                pdu.setType(PDU.GETNEXT);
+            }
+
+            snmpClientService.sendAsync(config, pdu).whenComplete((responsePDU, e) -> {
+                try {
+                    if (e != null) {
+                        if (bulk && SnmpClientService.rootCause(e) instanceof TimeoutException) {
+                            bulkTuner.onTimeout(deviceKey, repetitions * active.length);
+                        }
+                        result.completeExceptionally(e);
+                    } else {
+                        handle(active, repetitions, responsePDU);
+                    }
+                } catch (RuntimeException failure) {
+                    result.completeExceptionally(failure);
+                }
+            });
+        }
+
+        private void handle(int[] active, int repetitions, PDU responsePDU) {
+            int requested = repetitions * active.length;
+            if (responsePDU.getErrorStatus() == PDU.tooBig && bulk && repetitions > 1) {
+                int budget = bulkTuner.onTooBig(deviceKey, requested);
+                step(active, Math.max(1, Math.min(repetitions - 1, budget / active.length)));
+                return;
+            }
+            if (!bulk && responsePDU.getErrorStatus() == PDU.noSuchName && responsePDU.getErrorIndex() > 0) {
+                // v1 agents report the first column that ran off the end of the MIB view
+                finished[active[responsePDU.getErrorIndex() - 1]] = true;
+                step(activeColumns());
+                return;
+            }
+            if (responsePDU.getErrorStatus() != PDU.noError) {
+                result.completeExceptionally(new IOException("SNMP table fetch on " + config.getTargetIp()
+                    + " failed: " + responsePDU.getErrorStatusText()));
+                return;
+            }
+            if (bulk) {
+                bulkTuner.onResponse(deviceKey, requested, responsePDU.size(), responsePDU.getBERLength());
+            }
+
+            // Bindings come back repetition by repetition, one per requested column
+            List<? extends VariableBinding> bindings = responsePDU.getVariableBindings();
+            for (int i = 0; i < bindings.size(); i++) {
+                int column = active[i % active.length];
+                if (finished[column]) {
+                    continue;
+                }
+                VariableBinding vb = bindings.get(i);
+                OID oid = vb.getOid();
+                if (vb.isException() || !oid.startsWith(roots[column])) {
+                    finished[column] = true;
+                    continue;
+                }
+                if (oid.compareTo(cursors[column]) <= 0) {
+                    // A looping agent would otherwise end the column early and pass a truncated table as complete
+                    result.completeExceptionally(new IOException("Agent " + config.getTargetIp()
+                        + " returned OID " + oid + " out of order while fetching " + roots[column]));
+                    return;
+                }
+                rowFor(oid, roots[column].size()).setValue(column, vb.getVariable());
+                cursors[column] = oid;
+            }
+            if (bindings.isEmpty()) {
+                result.complete(null);
+                return;
+            }
+            step(activeColumns());
+        }
+    }
+
+    private static boolean hasSuffix(OID oid, int prefixLength, OID index) {
+        if (oid.size() - prefixLength != index.size()) {
+            return false;
+        }
+        for (int i = 0; i < index.size(); i++) {
+            if (oid.get(prefixLength + i) != index.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,85 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import lombok.Getter;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.Variable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * One conceptual row of an SNMP table, holding the values of the requested columns for a single index
+ */
+@Getter
+public final class SnmpTableRow {
+
+    private final OID index;
+    private final SnmpColumns columns;
+    private final Variable[] values;
+
+    SnmpTableRow(OID index, SnmpColumns columns) {
+        this.index = index;
+        this.columns = columns;
+        this.values = new Variable[columns.size()];
+    }
+
+    /**
+     * Value at the given column id, or null if the agent has no value
+     */
+    public Variable getValue(int column) {
+        return values[column];
+    }
+
+    /**
+     * Value of the given column OID, or null if the column was not requested or has no value in this row
+     */
+    public Variable getValue(OID column) {
+        int position = columns.indexOf(column);
+        return position < 0 ? null : values[position];
+    }
+
+    /**
+     * Value of the first of the given columns that has one, such as a 64-bit counter before its 32-bit fallback
+     */
+    public Variable getFirstValue(OID... columns) {
+        for (OID column : columns) {
+            Variable value = getValue(column);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Last sub-identifier of the index, which is the whole index for integer-indexed tables like ifTable
+     */
+    public int getIndexAsInt() {
+        return index.last();
+    }
+
+    /**
+     * Fingerprint of the index and every value, used to tell whether the row changed between polls
+     */
+    public long fingerprint() {
+        return PollChangeTracker.fingerprint(index, values);
+    }
+
+    /**
+     * Fingerprint of the index and the values of the {@code included} columns only
+     */
+    public long fingerprint(Predicate<OID> included) {
+        List<Variable> selected = new ArrayList<>(values.length);
+        for (int i = 0; i < values.length; i++) {
+            if (included.test(columns.get(i))) {
+                selected.add(values[i]);
+            }
+        }
+        return PollChangeTracker.fingerprint(index, selected.toArray(new Variable[0]));
+    }
+
+    void setValue(int column, Variable value) {
+        values[column] = value;
+    }
+}
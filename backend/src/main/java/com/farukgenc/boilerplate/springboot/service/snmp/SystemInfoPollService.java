@@ -15,6 +15,8 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.*;
 
+import static com.farukgenc.boilerplate.springboot.service.snmp.SnmpOids.*;
+
 /**
  * Service for polling and updating system information via SNMP.
  *
@@ -30,7 +32,7 @@ import java.util.*;
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class SystemInfoPollService {
+public class SystemInfoPollService implements ScalarPollGroup {
 
     private final SnmpClientService snmpClientService;
     private final DeviceRepository deviceRepository;
@@ -38,66 +40,36 @@ public class SystemInfoPollService {
     private final SnmpDataParser snmpDataParser;
 
     // ---------------------------------------------------------------------
-    // System MIB OIDs (RFC 1213)
-    // ---------------------------------------------------------------------
-    private static final String SYS_DESCR_OID     = "1.3.6.1.2.1.1.1.0"; // sysDescr
-    private static final String SYS_OBJECT_ID_OID = "1.3.6.1.2.1.1.2.0"; // sysObjectID
-    private static final String SYS_UP_TIME_OID   = "1.3.6.1.2.1.1.3.0"; // sysUpTime
-    private static final String SYS_CONTACT_OID   = "1.3.6.1.2.1.1.4.0"; // sysContact
-    private static final String SYS_NAME_OID      = "1.3.6.1.2.1.1.5.0"; // sysName
-    private static final String SYS_LOCATION_OID  = "1.3.6.1.2.1.1.6.0"; // sysLocation
-    private static final String SYS_SERVICES_OID  = "1.3.6.1.2.1.1.7.0"; // sysServices
-
-    // ---------------------------------------------------------------------
-    // Host‑Resources MIB OIDs (RFC 2790)
+    // System MIB (RFC 1213) and Host‑Resources MIB (RFC 2790) OIDs, see SnmpOids
     // ---------------------------------------------------------------------
-    private static final String HR_SYSTEM_UPTIME_OID              = "1.3.6.1.2.1.25.1.1.0";
-    private static final String HR_SYSTEM_DATE_OID                = "1.3.6.1.2.1.25.1.2.0";
-    private static final String HR_SYSTEM_INITIAL_LOAD_DEVICE_OID = "1.3.6.1.2.1.25.1.3.0";
-    private static final String HR_SYSTEM_INITIAL_LOAD_PARAMS_OID = "1.3.6.1.2.1.25.1.4.0";
-    private static final String HR_SYSTEM_NUM_USERS_OID           = "1.3.6.1.2.1.25.1.5.0";
-    private static final String HR_SYSTEM_PROCESSES_OID           = "1.3.6.1.2.1.25.1.6.0";
-    private static final String HR_SYSTEM_MAX_PROCESSES_OID       = "1.3.6.1.2.1.25.1.7.0";
-
-    private static final List<String> ALL_OIDS = List.of(
+    private static final SnmpColumns ALL_OIDS = SnmpColumns.of(
             // System MIB
-            SYS_DESCR_OID, SYS_OBJECT_ID_OID, SYS_UP_TIME_OID, SYS_CONTACT_OID,
-            SYS_NAME_OID, SYS_LOCATION_OID, SYS_SERVICES_OID,
+            SYS_DESCR, SYS_OBJECT_ID, SYS_UP_TIME, SYS_CONTACT,
+            SYS_NAME, SYS_LOCATION, SYS_SERVICES,
             // Host‑Resources MIB
-            HR_SYSTEM_UPTIME_OID, HR_SYSTEM_DATE_OID, HR_SYSTEM_INITIAL_LOAD_DEVICE_OID,
-            HR_SYSTEM_INITIAL_LOAD_PARAMS_OID, HR_SYSTEM_NUM_USERS_OID,
-            HR_SYSTEM_PROCESSES_OID, HR_SYSTEM_MAX_PROCESSES_OID
+            HR_SYSTEM_UPTIME, HR_SYSTEM_DATE, HR_SYSTEM_INITIAL_LOAD_DEVICE,
+            HR_SYSTEM_INITIAL_LOAD_PARAMS, HR_SYSTEM_NUM_USERS,
+            HR_SYSTEM_PROCESSES, HR_SYSTEM_MAX_PROCESSES
     );
 
     /**
      * Poll a device and update both {@code system_info} and the backing {@code device}
-     * table atomically.
+     * table. Not transactional, so no database connection is held while waiting on the agent;
+     * the regular poll cycle stores these values atomically through {@link #applyScalars}.
      *
      * @return the freshly persisted snapshot or {@code null} when nothing could be collected.
      */
-    @Transactional
     public SystemInfo pollDeviceSystemInfo(Device device, DeviceConfig config) {
         log.debug("Polling system information for device '{}' (id={})", device.getName(), device.getId());
 
         try {
-            Map<String, Variable> snmpData = snmpClientService.snmpGetMultiple(config, ALL_OIDS);
+            SnmpScalars snmpData = snmpClientService.snmpGetScalars(config, ALL_OIDS);
             if (snmpData.isEmpty()) {
                 log.warn("No SNMP data returned for device '{}'", device.getName());
                 return null;
             }
 
-            // 1) Load or create a SystemInfo aggregate ----------------------
-            SystemInfo systemInfo = systemInfoRepository.findByDeviceId(device.getId())
-                    .orElseGet(() -> SystemInfo.builder().device(device).build());
-
-            // 2) Populate & persist SystemInfo -----------------------------
-            populateSystemInfo(systemInfo, snmpData);
-            systemInfo.setLastPolled(LocalDateTime.now());
-            systemInfoRepository.save(systemInfo); // always save – INSERT or UPDATE
-
-            // 3) Project the snapshot onto Device & persist ----------------
-            projectToDevice(device, systemInfo);
-            deviceRepository.save(device); // keeps detached entities safe; noop on managed ones
+            SystemInfo systemInfo = storeSystemInfo(device, snmpData);
 
             log.info("System information updated for '{}' (id={})", device.getName(), device.getId());
             return systemInfo;
@@ -107,34 +79,74 @@ public class SystemInfoPollService {
         }
     }
 
+    @Override
+    public String getGroupName() {
+        return "system info";
+    }
+
+    @Override
+    public SnmpColumns getScalarOids() {
+        return ALL_OIDS;
+    }
+
+    /**
+     * Store system information fetched as part of the device's poll plan
+     */
+    @Override
+    @Transactional
+    public void applyScalars(Device device, DeviceConfig config, SnmpScalars values) {
+        storeSystemInfo(device, values);
+        log.info("System information updated for '{}' (id={})", device.getName(), device.getId());
+    }
+
     // ---------------------------------------------------------------------
     // Internal helpers
     // ---------------------------------------------------------------------
 
+    /**
+     * Persist the snapshot and project it onto the owning device.
+     */
+    private SystemInfo storeSystemInfo(Device device, SnmpScalars snmpData) {
+        // 1) Load or create a SystemInfo aggregate ----------------------
+        SystemInfo systemInfo = systemInfoRepository.findByDeviceId(device.getId())
+                .orElseGet(() -> SystemInfo.builder().device(device).build());
+
+        // 2) Populate & persist SystemInfo -----------------------------
+        populateSystemInfo(systemInfo, snmpData);
+        systemInfo.setLastPolled(LocalDateTime.now());
+        systemInfoRepository.save(systemInfo); // always save – INSERT or UPDATE
+
+        // 3) Project the snapshot onto Device & persist ----------------
+        projectToDevice(device, systemInfo);
+        deviceRepository.save(device); // keeps detached entities safe; noop on managed ones
+
+        return systemInfo;
+    }
+
     /**
      * Copy raw SNMP values into the SystemInfo JPA entity.
      */
-    private void populateSystemInfo(SystemInfo si, Map<String, Variable> d) {
+    private void populateSystemInfo(SystemInfo si, SnmpScalars d) {
         // sysDescr ---------------------------------------------------------
-        setIfPresent(d.get(SYS_DESCR_OID), v -> si.setSysDescr(decoded(v)));
+        setIfPresent(d.get(SYS_DESCR), v -> si.setSysDescr(decoded(v)));
         // sysObjectID ------------------------------------------------------
-        setIfPresent(d.get(SYS_OBJECT_ID_OID), v -> si.setSysObjectId(v.toString()));
+        setIfPresent(d.get(SYS_OBJECT_ID), v -> si.setSysObjectId(v.toString()));
         // sysUpTime --------------------------------------------------------
-        setIfPresent(d.get(SYS_UP_TIME_OID), v -> si.setSysUpTime(v.toLong()));
+        setIfPresent(d.get(SYS_UP_TIME), v -> si.setSysUpTime(v.toLong()));
         // sysContact / sysName / sysLocation ------------------------------
-        setIfPresent(d.get(SYS_CONTACT_OID),  v -> si.setSysContact(decoded(v)));
-        setIfPresent(d.get(SYS_NAME_OID),     v -> si.setSysName(decoded(v)));
-        setIfPresent(d.get(SYS_LOCATION_OID), v -> si.setSysLocation(decoded(v)));
+        setIfPresent(d.get(SYS_CONTACT),  v -> si.setSysContact(decoded(v)));
+        setIfPresent(d.get(SYS_NAME),     v -> si.setSysName(decoded(v)));
+        setIfPresent(d.get(SYS_LOCATION), v -> si.setSysLocation(decoded(v)));
         // sysServices ------------------------------------------------------
-        setIfPresent(d.get(SYS_SERVICES_OID), v -> si.setSysServices(v.toInt()));
+        setIfPresent(d.get(SYS_SERVICES), v -> si.setSysServices(v.toInt()));
         // Host‑Resources ---------------------------------------------------
-        setIfPresent(d.get(HR_SYSTEM_UPTIME_OID),              v -> si.setHrSystemUptime(v.toLong()));
-        setIfPresent(d.get(HR_SYSTEM_DATE_OID),                v -> si.setHrSystemDate(parseSnmpDateAndTime(v.toString())));
-        setIfPresent(d.get(HR_SYSTEM_INITIAL_LOAD_DEVICE_OID), v -> si.setHrSystemInitialLoadDevice(v.toInt()));
-        setIfPresent(d.get(HR_SYSTEM_INITIAL_LOAD_PARAMS_OID), v -> si.setHrSystemInitialLoadParameters(v.toString()));
-        setIfPresent(d.get(HR_SYSTEM_NUM_USERS_OID),           v -> si.setHrSystemNumUsers(v.toInt()));
-        setIfPresent(d.get(HR_SYSTEM_PROCESSES_OID),           v -> si.setHrSystemProcesses(v.toInt()));
-        setIfPresent(d.get(HR_SYSTEM_MAX_PROCESSES_OID),       v -> si.setHrSystemMaxProcesses(v.toInt()));
+        setIfPresent(d.get(HR_SYSTEM_UPTIME),              v -> si.setHrSystemUptime(v.toLong()));
+        setIfPresent(d.get(HR_SYSTEM_DATE),                v -> si.setHrSystemDate(parseSnmpDateAndTime(v.toString())));
+        setIfPresent(d.get(HR_SYSTEM_INITIAL_LOAD_DEVICE), v -> si.setHrSystemInitialLoadDevice(v.toInt()));
+        setIfPresent(d.get(HR_SYSTEM_INITIAL_LOAD_PARAMS), v -> si.setHrSystemInitialLoadParameters(v.toString()));
+        setIfPresent(d.get(HR_SYSTEM_NUM_USERS),           v -> si.setHrSystemNumUsers(v.toInt()));
+        setIfPresent(d.get(HR_SYSTEM_PROCESSES),           v -> si.setHrSystemProcesses(v.toInt()));
+        setIfPresent(d.get(HR_SYSTEM_MAX_PROCESSES),       v -> si.setHrSystemMaxProcesses(v.toInt()));
     }
 
     /**
@@ -11,6 +11,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+
+import static com.farukgenc.boilerplate.springboot.service.snmp.SnmpOids.*;
 
 /**
  * Service for polling and updating hardware system units via SNMP
@@ -20,73 +24,28 @@ import java.util.*;
 @RequiredArgsConstructor
 public class SystemUnitPollService {
 
-    private final SnmpClientService snmpClientService;
-    private final SystemUnitRepository systemUnitRepository;    // Entity MIB OIDs for physical hardware units
-    private static final String ENT_PHYSICAL_INDEX_OID = "1.3.6.1.2.1.47.1.1.1.1.1";     // entPhysicalIndex
-    private static final String ENT_PHYSICAL_DESCR_OID = "1.3.6.1.2.1.47.1.1.1.1.2";     // entPhysicalDescr
-    private static final String ENT_PHYSICAL_VENDOR_TYPE_OID = "1.3.6.1.2.1.47.1.1.1.1.3"; // entPhysicalVendorType
-    private static final String ENT_PHYSICAL_CLASS_OID = "1.3.6.1.2.1.47.1.1.1.1.5";     // entPhysicalClass
-    private static final String ENT_PHYSICAL_NAME_OID = "1.3.6.1.2.1.47.1.1.1.1.7";      // entPhysicalName
-    private static final String ENT_PHYSICAL_HW_REV_OID = "1.3.6.1.2.1.47.1.1.1.1.8";    // entPhysicalHardwareRev
-    private static final String ENT_PHYSICAL_FW_REV_OID = "1.3.6.1.2.1.47.1.1.1.1.9";    // entPhysicalFirmwareRev
-    private static final String ENT_PHYSICAL_SW_REV_OID = "1.3.6.1.2.1.47.1.1.1.1.10";   // entPhysicalSoftwareRev
-    private static final String ENT_PHYSICAL_SERIAL_NUM_OID = "1.3.6.1.2.1.47.1.1.1.1.11"; // entPhysicalSerialNum
-    private static final String ENT_PHYSICAL_MFG_NAME_OID = "1.3.6.1.2.1.47.1.1.1.1.12"; // entPhysicalMfgName
-    private static final String ENT_PHYSICAL_MODEL_NAME_OID = "1.3.6.1.2.1.47.1.1.1.1.13"; // entPhysicalModelName
-    private static final String ENT_PHYSICAL_ALIAS_OID = "1.3.6.1.2.1.47.1.1.1.1.14";    // entPhysicalAlias
-    private static final String ENT_PHYSICAL_ASSET_ID_OID = "1.3.6.1.2.1.47.1.1.1.1.15"; // entPhysicalAssetID
-    private static final String ENT_PHYSICAL_IS_FRU_OID = "1.3.6.1.2.1.47.1.1.1.1.16";   // entPhysicalIsFRU
+    private final SnmpTableFetcher snmpTableFetcher;
+    private final SystemUnitRepository systemUnitRepository;
+
+    // Entity MIB columns for physical hardware units (see SnmpOids),
+    // fetched in one column-parallel retrieval of entPhysicalTable
+    private static final SnmpColumns ENT_PHYSICAL_COLUMNS = SnmpColumns.of(
+        ENT_PHYSICAL_DESCR, ENT_PHYSICAL_VENDOR_TYPE, ENT_PHYSICAL_CLASS, ENT_PHYSICAL_NAME,
+        ENT_PHYSICAL_HW_REV, ENT_PHYSICAL_FW_REV, ENT_PHYSICAL_SW_REV, ENT_PHYSICAL_SERIAL_NUM,
+        ENT_PHYSICAL_MFG_NAME, ENT_PHYSICAL_MODEL_NAME, ENT_PHYSICAL_ALIAS, ENT_PHYSICAL_ASSET_ID,
+        ENT_PHYSICAL_IS_FRU
+    );
 
     /**
-     * Poll and update hardware system units for a device
+     * Poll and update hardware system units for a device. Not transactional, so no database
+     * connection is held while the table is fetched.
      */
-    @Transactional
     public void pollDeviceSystemUnits(Device device, DeviceConfig config) {
         log.debug("Polling system units for device: {}", device.getName());
         
         try {
-            // Get physical entity indices first
-            Map<String, Variable> entityIndices = snmpClientService.snmpWalk(config, ENT_PHYSICAL_INDEX_OID, 100);
-            
-            if (entityIndices.isEmpty()) {
-                log.warn("No physical entities found for device: {}", device.getName());
-                return;
-            }
-            
-            Set<Integer> activeUnitIndices = new HashSet<>();
-            List<SystemUnit> unitsToSave = new ArrayList<>();
-            
-            for (Map.Entry<String, Variable> entry : entityIndices.entrySet()) {
-                String oid = entry.getKey();
-                Integer unitIndex = entry.getValue().toInt();
-                
-                if (unitIndex != null && unitIndex > 0) {
-                    activeUnitIndices.add(unitIndex);
-                    
-                    SystemUnit systemUnit = pollSingleSystemUnit(device, config, unitIndex, oid);
-                    if (systemUnit != null) {
-                        unitsToSave.add(systemUnit);
-                    }
-                }
-            }
-            
-            // Save or update system units
-            if (!unitsToSave.isEmpty()) {
-                systemUnitRepository.saveAll(unitsToSave);
-                log.info("Updated {} system units for device: {}", unitsToSave.size(), device.getName());
-            }
-            
-            // Remove units that are no longer present
-            List<SystemUnit> existingUnits = systemUnitRepository.findByDevice(device);
-            List<SystemUnit> unitsToRemove = existingUnits.stream()
-                .filter(unit -> !activeUnitIndices.contains(unit.getUnitIndex()))
-                .toList();
-            
-            if (!unitsToRemove.isEmpty()) {
-                systemUnitRepository.deleteAll(unitsToRemove);
-                log.info("Removed {} stale system units for device: {}", unitsToRemove.size(), device.getName());
-            }
-            
+            // entPhysicalIndex is not-accessible, so rows are identified by their index suffix
+            applySystemUnits(device, snmpTableFetcher.fetchTable(config, ENT_PHYSICAL_COLUMNS));
         } catch (Exception e) {
             log.error("Failed to poll system units for device {}: {}", device.getName(), e.getMessage(), e);
             // Don't throw RuntimeException to prevent transaction rollback issues
@@ -94,134 +53,160 @@ public class SystemUnitPollService {
     }
 
     /**
-     * Poll a single system unit and return the SystemUnit entity
+     * Fetch the device's entPhysicalTable without touching the database
      */
-    private SystemUnit pollSingleSystemUnit(Device device, DeviceConfig config, Integer unitIndex, String indexOid) {
-        try {
-            // Extract unit index from OID
-            String suffix = "." + unitIndex;
-            
-            // Prepare OIDs to query
-            List<String> oidsToQuery = Arrays.asList(
-                ENT_PHYSICAL_DESCR_OID + suffix,
-                ENT_PHYSICAL_VENDOR_TYPE_OID + suffix,
-                ENT_PHYSICAL_CLASS_OID + suffix,
-                ENT_PHYSICAL_NAME_OID + suffix,
-                ENT_PHYSICAL_HW_REV_OID + suffix,
-                ENT_PHYSICAL_FW_REV_OID + suffix,
-                ENT_PHYSICAL_SW_REV_OID + suffix,
-                ENT_PHYSICAL_SERIAL_NUM_OID + suffix,
-                ENT_PHYSICAL_MFG_NAME_OID + suffix,
-                ENT_PHYSICAL_MODEL_NAME_OID + suffix,
-                ENT_PHYSICAL_ALIAS_OID + suffix,
-                ENT_PHYSICAL_ASSET_ID_OID + suffix,
-                ENT_PHYSICAL_IS_FRU_OID + suffix
-            );
-            
-            Map<String, Variable> unitData = snmpClientService.snmpGetMultiple(config, oidsToQuery);
-            
-            if (unitData.isEmpty()) {
-                log.warn("No data retrieved for system unit {} on device {}", unitIndex, device.getName());
-                return null;
+    public CompletableFuture<List<SnmpTableRow>> fetchSystemUnitsAsync(DeviceConfig config) {
+        return snmpTableFetcher.fetchTableAsync(config, ENT_PHYSICAL_COLUMNS);
+    }
+
+    /**
+     * Store fetched entPhysicalTable rows and remove units the device no longer reports, reconciling
+     * them against the device's existing units loaded in a single query
+     */
+    @Transactional
+    public void applySystemUnits(Device device, List<SnmpTableRow> rows) {
+        applySystemUnits(device, rows, index -> true);
+    }
+
+    /**
+     * Like {@link #applySystemUnits(Device, List)}, but existing rows whose index is not {@code changed}
+     * are left as they are
+     */
+    @Transactional
+    public void applySystemUnits(Device device, List<SnmpTableRow> rows, Predicate<Integer> changed) {
+        if (rows.isEmpty()) {
+            log.warn("No physical entities found for device: {}", device.getName());
+            return;
+        }
+        
+        Map<Integer, SnmpTableRow> polled = new LinkedHashMap<>();
+        for (SnmpTableRow row : rows) {
+            if (row.getIndexAsInt() > 0) {
+                polled.put(row.getIndexAsInt(), row);
+            }
+        }
+        
+        SnapshotReconciler.Result result = SnapshotReconciler.reconcile(
+            systemUnitRepository.findByDevice(device), SystemUnit::getUnitIndex, polled, changed,
+            unitIndex -> SystemUnit.builder().device(device).unitIndex(unitIndex).build(),
+            (systemUnit, row) -> updateSystemUnit(device, systemUnit, row),
+            systemUnitRepository);
+        
+        log.info("Polled {} system units for device: {} ({} new, {} changed, {} removed)",
+            polled.size(), device.getName(), result.inserted(), result.updated(), result.deleted());
+    }
+
+    /**
+     * Stage the changed rows of a poll for a native upsert instead of reconciling them through JPA.
+     * Stored system units the device no longer reports are deleted with the batch, which is only
+     * arranged when {@code changes} says some may be gone.
+     */
+    public void stageSystemUnits(Device device, List<SnmpTableRow> rows, PollChanges changes, PollUpsertBatch batch) {
+        if (rows.isEmpty()) {
+            log.warn("No physical entities found for device: {}", device.getName());
+            return;
+        }
+        
+        Set<Integer> polled = new LinkedHashSet<>();
+        int staged = 0;
+        for (SnmpTableRow row : rows) {
+            int index = row.getIndexAsInt();
+            if (index <= 0 || !polled.add(index) || !changes.isChanged(PollChanges.SYSTEM_UNITS, index)) {
+                continue;
             }
-            
-            // Find existing unit or create new one
-            Optional<SystemUnit> existingUnit = systemUnitRepository
-                .findByDeviceAndUnitIndex(device, unitIndex);
-            
-            SystemUnit systemUnit = existingUnit.orElse(
-                SystemUnit.builder()
-                    .device(device)
-                    .unitIndex(unitIndex)
-                    .build()
-            );
-            
-            // Update unit properties
-            updateSystemUnitFromSnmpData(systemUnit, unitData, suffix);
-            
-            return systemUnit;
-            
+            SystemUnit systemUnit = SystemUnit.builder().device(device).unitIndex(index).build();
+            updateSystemUnit(device, systemUnit, row);
+            batch.addSystemUnit(systemUnit);
+            staged++;
+        }
+        if (changes.mayHaveRemovedRows(PollChanges.SYSTEM_UNITS)) {
+            batch.keepOnlySystemUnits(device.getId(), polled);
+        }
+        
+        log.info("Polled {} system units for device: {} ({} staged)", polled.size(), device.getName(), staged);
+    }
+
+    private void updateSystemUnit(Device device, SystemUnit systemUnit, SnmpTableRow row) {
+        try {
+            updateSystemUnitFromSnmpData(systemUnit, row);
         } catch (Exception e) {
-            log.error("Failed to poll system unit {} for device {}: {}", unitIndex, device.getName(), e.getMessage());
-            return null;
+            log.error("Failed to poll system unit {} for device {}: {}", row.getIndexAsInt(), device.getName(), e.getMessage());
         }
     }
 
     /**
      * Update SystemUnit entity with SNMP data
      */
-    private void updateSystemUnitFromSnmpData(SystemUnit systemUnit, 
-                                            Map<String, Variable> data, 
-                                            String suffix) {
+    private void updateSystemUnitFromSnmpData(SystemUnit systemUnit, SnmpTableRow row) {
         
         // Physical Description
-        Variable entPhysicalDescr = data.get(ENT_PHYSICAL_DESCR_OID + suffix);
+        Variable entPhysicalDescr = row.getValue(ENT_PHYSICAL_DESCR);
         if (entPhysicalDescr != null) {
             systemUnit.setUnitDescription(entPhysicalDescr.toString());
         }
         
         // Physical Class (type)
-        Variable entPhysicalClass = data.get(ENT_PHYSICAL_CLASS_OID + suffix);
+        Variable entPhysicalClass = row.getValue(ENT_PHYSICAL_CLASS);
         if (entPhysicalClass != null) {
             systemUnit.setUnitType(mapPhysicalClass(entPhysicalClass.toInt()));
         }
         
         // Physical Name
-        Variable entPhysicalName = data.get(ENT_PHYSICAL_NAME_OID + suffix);
+        Variable entPhysicalName = row.getValue(ENT_PHYSICAL_NAME);
         if (entPhysicalName != null) {
             systemUnit.setUnitName(entPhysicalName.toString());
         }
         
         // Hardware Revision
-        Variable entPhysicalHwRev = data.get(ENT_PHYSICAL_HW_REV_OID + suffix);
+        Variable entPhysicalHwRev = row.getValue(ENT_PHYSICAL_HW_REV);
         if (entPhysicalHwRev != null) {
             systemUnit.setUnitHwVersion(entPhysicalHwRev.toString());
         }
         
         // Firmware Revision
-        Variable entPhysicalFwRev = data.get(ENT_PHYSICAL_FW_REV_OID + suffix);
+        Variable entPhysicalFwRev = row.getValue(ENT_PHYSICAL_FW_REV);
         if (entPhysicalFwRev != null) {
             systemUnit.setUnitFwVersion(entPhysicalFwRev.toString());
         }
         
         // Software Revision
-        Variable entPhysicalSwRev = data.get(ENT_PHYSICAL_SW_REV_OID + suffix);
+        Variable entPhysicalSwRev = row.getValue(ENT_PHYSICAL_SW_REV);
         if (entPhysicalSwRev != null) {
             systemUnit.setUnitSwVersion(entPhysicalSwRev.toString());
         }
         
         // Serial Number
-        Variable entPhysicalSerialNum = data.get(ENT_PHYSICAL_SERIAL_NUM_OID + suffix);
+        Variable entPhysicalSerialNum = row.getValue(ENT_PHYSICAL_SERIAL_NUM);
         if (entPhysicalSerialNum != null) {
             systemUnit.setUnitSerialNumber(entPhysicalSerialNum.toString());
         }
         
         // Manufacturer Name
-        Variable entPhysicalMfgName = data.get(ENT_PHYSICAL_MFG_NAME_OID + suffix);
+        Variable entPhysicalMfgName = row.getValue(ENT_PHYSICAL_MFG_NAME);
         if (entPhysicalMfgName != null) {
             systemUnit.setUnitMfgName(entPhysicalMfgName.toString());
         }
         
         // Model Name
-        Variable entPhysicalModelName = data.get(ENT_PHYSICAL_MODEL_NAME_OID + suffix);
+        Variable entPhysicalModelName = row.getValue(ENT_PHYSICAL_MODEL_NAME);
         if (entPhysicalModelName != null) {
             systemUnit.setUnitModelName(entPhysicalModelName.toString());
         }
         
         // Physical Alias
-        Variable entPhysicalAlias = data.get(ENT_PHYSICAL_ALIAS_OID + suffix);
+        Variable entPhysicalAlias = row.getValue(ENT_PHYSICAL_ALIAS);
         if (entPhysicalAlias != null) {
             systemUnit.setUnitAlias(entPhysicalAlias.toString());
         }
         
         // Asset ID
-        Variable entPhysicalAssetId = data.get(ENT_PHYSICAL_ASSET_ID_OID + suffix);
+        Variable entPhysicalAssetId = row.getValue(ENT_PHYSICAL_ASSET_ID);
         if (entPhysicalAssetId != null) {
             systemUnit.setUnitAssetId(entPhysicalAssetId.toString());
         }
         
         // Is FRU (Field Replaceable Unit)
-        Variable entPhysicalIsFru = data.get(ENT_PHYSICAL_IS_FRU_OID + suffix);
+        Variable entPhysicalIsFru = row.getValue(ENT_PHYSICAL_IS_FRU);
         if (entPhysicalIsFru != null) {
             systemUnit.setUnitIsFru(entPhysicalIsFru.toInt() == 1);
         }
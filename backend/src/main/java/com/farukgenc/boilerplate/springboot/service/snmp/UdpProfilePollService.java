@@ -12,70 +12,44 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
 
+import static com.farukgenc.boilerplate.springboot.service.snmp.SnmpOids.*;
+
 /**
  * Service for polling and updating UDP profile information via SNMP
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class UdpProfilePollService {
+public class UdpProfilePollService implements ScalarPollGroup {
 
     private final SnmpClientService snmpClientService;
+    private final SnmpTableFetcher snmpTableFetcher;
     private final UdpProfileRepository udpProfileRepository;
 
-    // UDP MIB OIDs
-    private static final String UDP_IN_DATAGRAMS_OID = "1.3.6.1.2.1.7.1.0";          // udpInDatagrams
-    private static final String UDP_NO_PORTS_OID = "1.3.6.1.2.1.7.2.0";              // udpNoPorts
-    private static final String UDP_IN_ERRORS_OID = "1.3.6.1.2.1.7.3.0";             // udpInErrors
-    private static final String UDP_OUT_DATAGRAMS_OID = "1.3.6.1.2.1.7.4.0";         // udpOutDatagrams
-      // UDP Table OIDs (for connection information)
-    private static final String UDP_LOCAL_ADDRESS_OID = "1.3.6.1.2.1.7.5.1.1";       // udpLocalAddress
-    private static final String UDP_LOCAL_PORT_OID = "1.3.6.1.2.1.7.5.1.2";          // udpLocalPort
+    // UDP MIB OIDs, see SnmpOids
+    private static final SnmpColumns SCALAR_OIDS = SnmpColumns.of(
+        UDP_IN_DATAGRAMS, UDP_NO_PORTS,
+        UDP_IN_ERRORS, UDP_OUT_DATAGRAMS
+    );
+    // UDP Table OIDs (for connection information)
+    private static final SnmpColumns UDP_TABLE_COLUMNS = SnmpColumns.of(UDP_LOCAL_ADDRESS, UDP_LOCAL_PORT);
 
     /**
-     * Poll and update UDP profile information for a device
+     * Poll and update UDP profile information for a device. Only the final save is transactional,
+     * so no database connection is held while waiting on the agent.
      */
-    @Transactional
     public void pollDeviceUdpProfile(Device device, DeviceConfig config) {
         log.debug("Polling UDP profile for device: {}", device.getName());
         
         try {
-            // Get UDP statistics
-            List<String> udpOids = Arrays.asList(
-                UDP_IN_DATAGRAMS_OID, UDP_NO_PORTS_OID, 
-                UDP_IN_ERRORS_OID, UDP_OUT_DATAGRAMS_OID
-            );
-            
-            Map<String, Variable> udpData = snmpClientService.snmpGetMultiple(config, udpOids);
+            SnmpScalars udpData = snmpClientService.snmpGetScalars(config, SCALAR_OIDS);
             
             if (udpData.isEmpty()) {
                 log.warn("No UDP data retrieved for device: {}", device.getName());
                 return;
             }
             
-            // Find existing UDP profile or create new one
-            Optional<UdpProfile> existingUdpProfile = udpProfileRepository.findByDeviceId(device.getId());
-            
-            UdpProfile udpProfile = existingUdpProfile.orElse(
-                UdpProfile.builder()
-                    .device(device)
-                    .udpEntryStatus(UdpProfile.UdpEntryStatus.VALID)
-                    .build()
-            );
-            
-            // Update UDP profile properties
-            updateUdpProfileFromSnmpData(udpProfile, udpData);
-            
-            // Try to get UDP connection info (this may not be available on all devices)
-            try {
-                pollUdpConnectionInfo(udpProfile, config);
-            } catch (Exception e) {
-                log.debug("UDP connection info not available for device {}: {}", device.getName(), e.getMessage());
-            }
-            
-            // Save the UDP profile
-            udpProfileRepository.save(udpProfile);
-            log.info("Updated UDP profile for device: {}", device.getName());
+            applyScalars(device, config, udpData);
             
         } catch (Exception e) {
             log.error("Failed to poll UDP profile for device {}: {}", device.getName(), e.getMessage(), e);
@@ -83,80 +57,143 @@ public class UdpProfilePollService {
         }
     }
 
+    @Override
+    public String getGroupName() {
+        return "UDP profile";
+    }
+
+    @Override
+    public SnmpColumns getScalarOids() {
+        return SCALAR_OIDS;
+    }
+
+    @Override
+    public SnmpColumns getTableColumns() {
+        return UDP_TABLE_COLUMNS;
+    }
+
+    /**
+     * Fetches the udpTable for listener info, then stores it with the UDP statistics
+     */
+    @Override
+    public void applyScalars(Device device, DeviceConfig config, SnmpScalars values) {
+        List<SnmpTableRow> rows;
+        try {
+            // This may not be available on all devices
+            rows = snmpTableFetcher.fetchTable(config, UDP_TABLE_COLUMNS);
+        } catch (Exception e) {
+            log.debug("UDP connection info not available for device {}: {}", device.getName(), e.getMessage());
+            rows = List.of();
+        }
+        applySnapshot(device, config, values, rows);
+    }
+
+    /**
+     * Store fetched UDP statistics on the device's UDP profile, adding listener info from udpTable
+     */
+    @Override
+    @Transactional
+    public void applySnapshot(Device device, DeviceConfig config, SnmpScalars values, List<SnmpTableRow> tableRows) {
+        // Find existing UDP profile or create new one
+        Optional<UdpProfile> existingUdpProfile = udpProfileRepository.findByDeviceId(device.getId());
+        
+        UdpProfile udpProfile = existingUdpProfile.orElse(
+            UdpProfile.builder()
+                .device(device)
+                .udpEntryStatus(UdpProfile.UdpEntryStatus.VALID)
+                .build()
+        );
+        
+        // Update UDP profile properties
+        updateUdpProfileFromSnmpData(udpProfile, values);
+        updateUdpConnectionInfo(udpProfile, tableRows);
+        
+        // Save the UDP profile
+        udpProfileRepository.save(udpProfile);
+        log.info("Updated UDP profile for device: {}", device.getName());
+    }
+
+    /**
+     * Stage the device's UDP statistics for a native upsert instead of loading its profile. Listener
+     * info the agent did not return keeps its stored value; the wildcard defaults are left out so
+     * they never overwrite it.
+     */
+    @Override
+    public boolean stageSnapshot(Device device, SnmpScalars values, List<SnmpTableRow> tableRows, PollUpsertBatch batch) {
+        UdpProfile udpProfile = UdpProfile.builder()
+            .device(device)
+            .udpEntryStatus(UdpProfile.UdpEntryStatus.VALID)
+            .build();
+        updateUdpProfileFromSnmpData(udpProfile, values);
+        copyUdpConnectionInfo(udpProfile, tableRows);
+        batch.addUdpProfile(udpProfile);
+        return true;
+    }
+
     /**
      * Update UdpProfile entity with SNMP data
      */
-    private void updateUdpProfileFromSnmpData(UdpProfile udpProfile, Map<String, Variable> data) {
+    private void updateUdpProfileFromSnmpData(UdpProfile udpProfile, SnmpScalars data) {
         // UDP Input statistics
-        Variable udpInDatagrams = data.get(UDP_IN_DATAGRAMS_OID);
+        Variable udpInDatagrams = data.get(UDP_IN_DATAGRAMS);
         if (udpInDatagrams != null) {
             udpProfile.setUdpInDatagrams(udpInDatagrams.toLong());
         }
         
-        Variable udpNoPorts = data.get(UDP_NO_PORTS_OID);
+        Variable udpNoPorts = data.get(UDP_NO_PORTS);
         if (udpNoPorts != null) {
             udpProfile.setUdpNoPorts(udpNoPorts.toLong());
         }
         
-        Variable udpInErrors = data.get(UDP_IN_ERRORS_OID);
+        Variable udpInErrors = data.get(UDP_IN_ERRORS);
         if (udpInErrors != null) {
             udpProfile.setUdpInErrors(udpInErrors.toLong());
         }
         
         // UDP Output statistics
-        Variable udpOutDatagrams = data.get(UDP_OUT_DATAGRAMS_OID);
+        Variable udpOutDatagrams = data.get(UDP_OUT_DATAGRAMS);
         if (udpOutDatagrams != null) {
             udpProfile.setUdpOutDatagrams(udpOutDatagrams.toLong());
         }
     }
     
     /**
-     * Poll UDP connection information from UDP table
+     * Take listener info from the first udpTable entry, defaulting to the wildcard address when there is none
      */
-    private void pollUdpConnectionInfo(UdpProfile udpProfile, DeviceConfig config) {
-        try {
-            // Try to get the first UDP connection entry for basic info
-            // In a real implementation, you might want to get multiple entries or specific ones
-            List<String> connectionOids = Arrays.asList(
-                UDP_LOCAL_ADDRESS_OID + ".1",  // First entry
-                UDP_LOCAL_PORT_OID + ".1"      // First entry
-            );
-            
-            Map<String, Variable> connectionData = snmpClientService.snmpGetMultiple(config, connectionOids);
+    private void updateUdpConnectionInfo(UdpProfile udpProfile, List<SnmpTableRow> rows) {
+        copyUdpConnectionInfo(udpProfile, rows);
+        
+        // Set default values if connection info is not available
+        if (udpProfile.getUdpLocalAddress() == null) {
+            udpProfile.setUdpLocalAddress("0.0.0.0");
+        }
+        if (udpProfile.getUdpLocalPort() == null) {
+            udpProfile.setUdpLocalPort(0);
+        }
+        if (udpProfile.getUdpRemoteAddress() == null) {
+            udpProfile.setUdpRemoteAddress("0.0.0.0");
+        }
+        if (udpProfile.getUdpRemotePort() == null) {
+            udpProfile.setUdpRemotePort(0);
+        }
+    }
+
+    /**
+     * Take listener info from the first udpTable entry, if there is one
+     */
+    private void copyUdpConnectionInfo(UdpProfile udpProfile, List<SnmpTableRow> rows) {
+        if (!rows.isEmpty()) {
+            SnmpTableRow firstEntry = rows.get(0);
             
-            Variable localAddress = connectionData.get(UDP_LOCAL_ADDRESS_OID + ".1");
+            Variable localAddress = firstEntry.getValue(UDP_LOCAL_ADDRESS);
             if (localAddress != null) {
                 udpProfile.setUdpLocalAddress(localAddress.toString());
             }
             
-            Variable localPort = connectionData.get(UDP_LOCAL_PORT_OID + ".1");
+            Variable localPort = firstEntry.getValue(UDP_LOCAL_PORT);
             if (localPort != null) {
                 udpProfile.setUdpLocalPort(localPort.toInt());
             }
-            
-            // Set default values for remote address and port if not available
-            if (udpProfile.getUdpRemoteAddress() == null) {
-                udpProfile.setUdpRemoteAddress("0.0.0.0");
-            }
-            if (udpProfile.getUdpRemotePort() == null) {
-                udpProfile.setUdpRemotePort(0);
-            }
-            
-        } catch (Exception e) {
-            log.debug("Could not retrieve UDP connection info: {}", e.getMessage());
-            // Set default values if connection info is not available
-            if (udpProfile.getUdpLocalAddress() == null) {
-                udpProfile.setUdpLocalAddress("0.0.0.0");
-            }
-            if (udpProfile.getUdpLocalPort() == null) {
-                udpProfile.setUdpLocalPort(0);
-            }
-            if (udpProfile.getUdpRemoteAddress() == null) {
-                udpProfile.setUdpRemoteAddress("0.0.0.0");
-            }
-            if (udpProfile.getUdpRemotePort() == null) {
-                udpProfile.setUdpRemotePort(0);
-            }
         }
     }
 }
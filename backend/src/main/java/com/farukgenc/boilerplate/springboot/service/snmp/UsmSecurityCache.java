@@ -0,0 +1,180 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.snmp4j.Snmp;
+import org.snmp4j.mp.MPv3;
+import org.snmp4j.security.SecurityModel;
+import org.snmp4j.security.SecurityModels;
+import org.snmp4j.security.SecurityProtocols;
+import org.snmp4j.security.USM;
+import org.snmp4j.smi.Address;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.OctetString;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * One USM shared by every SNMP transport, with a cache of discovered authoritative engine IDs
+ * per agent address and of users localized per (engine, user, credentials). Engine discovery
+ * and the RFC 3414 password-to-key hashing therefore happen once per agent instead of once
+ * per session, and never touch the JVM-global {@link SecurityModels}.
+ */
+@Slf4j
+@Component
+public class UsmSecurityCache {
+
+    // Includes MD5 and DES, which devices may still be configured with
+    private final SecurityProtocols securityProtocols =
+        new SecurityProtocols(SecurityProtocols.SecurityProtocolSet.maxCompatibility);
+    private final OctetString localEngineId = new OctetString(MPv3.createLocalEngineID());
+    private final USM usm = new USM(securityProtocols, localEngineId, 0);
+    private final SecurityModels securityModels = SecurityModels.getCollection(new SecurityModel[]{usm});
+
+    private final Map<String, CompletableFuture<OctetString>> engineIds = new ConcurrentHashMap<>();
+    private final Set<String> localizedUsers = ConcurrentHashMap.newKeySet();
+
+    // Discovery is a blocking snmp4j call; it must never run on a transport's listener thread
+    private final ExecutorService discoveryExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Counter discoveries;
+    private final Counter localizations;
+
+    public UsmSecurityCache(MeterRegistry meterRegistry) {
+        this.discoveries = Counter.builder("snmp.usm.discoveries")
+            .description("Authoritative engine ID discoveries sent to SNMPv3 agents").register(meterRegistry);
+        this.localizations = Counter.builder("snmp.usm.localizations")
+            .description("SNMPv3 users whose keys were localized to an agent's engine").register(meterRegistry);
+        Gauge.builder("snmp.usm.engines", engineIds, Map::size)
+            .description("SNMPv3 agents with a cached or pending engine ID").register(meterRegistry);
+    }
+
+    /**
+     * Makes a transport use the shared USM and local engine ID
+     */
+    public void install(Snmp snmp) {
+        MPv3 mpv3 = (MPv3) snmp.getMessageProcessingModel(MPv3.ID);
+        mpv3.setLocalEngineID(localEngineId.getValue());
+        mpv3.setSecurityProtocols(securityProtocols);
+        mpv3.setSecurityModels(securityModels);
+    }
+
+    /**
+     * Authoritative engine ID of the agent at {@code address}, discovered on first use and
+     * cached afterwards. Concurrent callers share one discovery. A failed discovery is not
+     * cached, so the next poll tries again.
+     */
+    public CompletableFuture<OctetString> engineId(Snmp snmp, Address address, long timeoutMillis) {
+        String key = address.toString();
+        CompletableFuture<OctetString> engineId = engineIds.get(key);
+        if (engineId != null) {
+            return engineId;
+        }
+
+        CompletableFuture<OctetString> discovery = new CompletableFuture<>();
+        engineId = engineIds.putIfAbsent(key, discovery);
+        if (engineId != null) {
+            return engineId;
+        }
+
+        discoveries.increment();
+        discoveryExecutor.execute(() -> {
+            byte[] discovered = snmp.discoverAuthoritativeEngineID(address, timeoutMillis);
+            if (discovered == null) {
+                engineIds.remove(key, discovery);
+                discovery.completeExceptionally(new TimeoutException("SNMPv3 engine discovery for " + address + " timed out"));
+            } else {
+                ((MPv3) snmp.getMessageProcessingModel(MPv3.ID)).addEngineID(address, new OctetString(discovered));
+                discovery.complete(new OctetString(discovered));
+            }
+        });
+        return discovery;
+    }
+
+    /**
+     * Registers the device's user with keys localized to {@code engineId}. Keys are derived
+     * only the first time an (engine, user, credentials) combination is seen.
+     */
+    public void ensureUser(OctetString engineId, DeviceConfig config, OID authProtocol, OID privProtocol) {
+        OctetString securityName = new OctetString(config.getSecurityName());
+        OctetString authPassphrase = new OctetString(config.getAuthPassphrase() != null ? config.getAuthPassphrase() : "");
+        OctetString privPassphrase = new OctetString(config.getPrivPassphrase() != null ? config.getPrivPassphrase() : "");
+
+        String userKey = engineId.toHexString() + "/" + securityName + "/"
+            + fingerprint(authProtocol, authPassphrase, privProtocol, privPassphrase);
+        if (localizedUsers.contains(userKey)) {
+            return;
+        }
+        synchronized (this) {
+            if (localizedUsers.contains(userKey)) {
+                return;
+            }
+            byte[] engine = engineId.getValue();
+            byte[] authKey = authProtocol != null
+                ? securityProtocols.passwordToKey(authProtocol, authPassphrase, engine) : null;
+            byte[] privKey = authProtocol != null && privProtocol != null
+                ? securityProtocols.passwordToKey(privProtocol, authProtocol, privPassphrase, engine) : null;
+
+            usm.addLocalizedUser(engine, securityName, authProtocol, authKey, privProtocol, privKey);
+            localizedUsers.add(userKey);
+            localizations.increment();
+        }
+    }
+
+    /**
+     * Forgets the engine ID of an agent that rejected it (e.g. the device was replaced),
+     * so the next request discovers it again
+     */
+    public void invalidate(Snmp snmp, Address address) {
+        CompletableFuture<OctetString> removed = engineIds.remove(address.toString());
+        ((MPv3) snmp.getMessageProcessingModel(MPv3.ID)).removeEngineID(address);
+        if (removed != null) {
+            log.debug("Dropped cached SNMPv3 engine ID of {}", address);
+        }
+    }
+
+    public int getEngineCount() {
+        return engineIds.size();
+    }
+
+    @PreDestroy
+    public void close() {
+        discoveryExecutor.shutdownNow();
+    }
+
+    /**
+     * Digest of the credentials, so a changed passphrase is localized again without the
+     * passphrases themselves being kept as cache keys
+     */
+    private static String fingerprint(OID authProtocol, OctetString authPassphrase,
+                                      OID privProtocol, OctetString privPassphrase) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.valueOf(authProtocol).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(authPassphrase.getValue());
+            digest.update((byte) 0);
+            digest.update(String.valueOf(privProtocol).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(privPassphrase.getValue());
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
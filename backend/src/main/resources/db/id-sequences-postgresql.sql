@@ -0,0 +1,34 @@
+-- Moves the high-volume tables from IDENTITY ids to pooled sequences (allocation size 50), so
+-- Hibernate can batch their inserts. Runs on every startup after Hibernate has updated the schema
+-- and is idempotent:
+--   * drops the identity/serial default of the id column, which Hibernate no longer relies on
+--   * moves each sequence past the largest existing id; a pooled block handed out after
+--     setval(seq, n) covers n + 1 .. n + 50, so it never collides with existing rows
+
+ALTER TABLE device_interfaces ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE device_interfaces ALTER COLUMN id DROP DEFAULT;
+SELECT setval('device_interfaces_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM device_interfaces), (SELECT last_value FROM device_interfaces_seq)));
+ALTER TABLE system_units ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE system_units ALTER COLUMN id DROP DEFAULT;
+SELECT setval('system_units_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM system_units), (SELECT last_value FROM system_units_seq)));
+ALTER TABLE ip_profiles ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE ip_profiles ALTER COLUMN id DROP DEFAULT;
+SELECT setval('ip_profiles_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM ip_profiles), (SELECT last_value FROM ip_profiles_seq)));
+ALTER TABLE icmp_profiles ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE icmp_profiles ALTER COLUMN id DROP DEFAULT;
+SELECT setval('icmp_profiles_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM icmp_profiles), (SELECT last_value FROM icmp_profiles_seq)));
+ALTER TABLE udp_profiles ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE udp_profiles ALTER COLUMN id DROP DEFAULT;
+SELECT setval('udp_profiles_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM udp_profiles), (SELECT last_value FROM udp_profiles_seq)));
+ALTER TABLE system_info ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE system_info ALTER COLUMN id DROP DEFAULT;
+SELECT setval('system_info_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM system_info), (SELECT last_value FROM system_info_seq)));
+ALTER TABLE alerts ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE alerts ALTER COLUMN id DROP DEFAULT;
+SELECT setval('alerts_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM alerts), (SELECT last_value FROM alerts_seq)));
+ALTER TABLE trap_events ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE trap_events ALTER COLUMN id DROP DEFAULT;
+SELECT setval('trap_events_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM trap_events), (SELECT last_value FROM trap_events_seq)));
+ALTER TABLE mib_objects ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE mib_objects ALTER COLUMN id DROP DEFAULT;
+SELECT setval('mib_objects_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM mib_objects), (SELECT last_value FROM mib_objects_seq)));
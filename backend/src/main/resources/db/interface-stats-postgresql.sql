@@ -0,0 +1,52 @@
+-- Interface counters moved from device_interfaces to the narrow device_interface_stats table.
+-- Runs on every startup after Hibernate has updated the schema and is idempotent:
+--   * leaves free space in every page of device_interface_stats, so counter updates can be HOT
+--     updates that stay on the row's page and touch no index. A fillfactor only applies to pages
+--     written after it is set, so the table is rewritten once with CLUSTER when it is first set
+--   * copies the counters Hibernate left behind on device_interfaces into device_interface_stats,
+--     while those columns still exist, keeping stats rows already written by a poll
+--   * drops those counter columns
+-- The blocks are single-quoted rather than dollar-quoted, as the script runner splits on every
+-- semicolon outside quotes.
+
+DO '
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_class
+                   WHERE oid = ''device_interface_stats''::regclass AND ''fillfactor=70'' = ANY (reloptions)) THEN
+        ALTER TABLE device_interface_stats SET (fillfactor = 70);
+        CLUSTER device_interface_stats USING device_interface_stats_pkey;
+    END IF;
+END';
+
+DO '
+BEGIN
+    IF (SELECT count(*) FROM information_schema.columns
+        WHERE table_schema = current_schema() AND table_name = ''device_interfaces''
+          AND column_name IN (''if_in_octets'', ''if_in_ucast_pkts'', ''if_in_nucast_pkts'', ''if_in_discards'',
+                              ''if_in_errors'', ''if_in_unknown_protos'', ''if_out_octets'', ''if_out_ucast_pkts'',
+                              ''if_out_nucast_pkts'', ''if_out_discards'', ''if_out_errors'', ''if_out_qlen'')) = 12 THEN
+        INSERT INTO device_interface_stats (interface_id, if_in_octets, if_in_ucast_pkts, if_in_nucast_pkts,
+                                            if_in_discards, if_in_errors, if_in_unknown_protos, if_out_octets,
+                                            if_out_ucast_pkts, if_out_nucast_pkts, if_out_discards, if_out_errors,
+                                            if_out_qlen, updated_at)
+        SELECT id, if_in_octets, if_in_ucast_pkts, if_in_nucast_pkts, if_in_discards, if_in_errors,
+               if_in_unknown_protos, if_out_octets, if_out_ucast_pkts, if_out_nucast_pkts, if_out_discards,
+               if_out_errors, if_out_qlen, updated_at
+        FROM device_interfaces
+        ON CONFLICT (interface_id) DO NOTHING;
+    END IF;
+END';
+
+ALTER TABLE device_interfaces
+    DROP COLUMN IF EXISTS if_in_octets,
+    DROP COLUMN IF EXISTS if_in_ucast_pkts,
+    DROP COLUMN IF EXISTS if_in_nucast_pkts,
+    DROP COLUMN IF EXISTS if_in_discards,
+    DROP COLUMN IF EXISTS if_in_errors,
+    DROP COLUMN IF EXISTS if_in_unknown_protos,
+    DROP COLUMN IF EXISTS if_out_octets,
+    DROP COLUMN IF EXISTS if_out_ucast_pkts,
+    DROP COLUMN IF EXISTS if_out_nucast_pkts,
+    DROP COLUMN IF EXISTS if_out_discards,
+    DROP COLUMN IF EXISTS if_out_errors,
+    DROP COLUMN IF EXISTS if_out_qlen;
@@ -0,0 +1,24 @@
+-- Unique natural keys of the tables written by PollUpsertRepository, which its
+-- INSERT ... ON CONFLICT statements need. Runs on every startup after Hibernate has updated the
+-- schema and is idempotent:
+--   * removes duplicate rows left by concurrent JPA inserts, keeping the oldest one; the next
+--     poll rewrites its values
+--   * creates the unique indexes, which also serve the per-device lookups
+
+DELETE FROM device_interface_stats WHERE interface_id IN (
+    SELECT id FROM device_interfaces d
+    WHERE EXISTS (SELECT 1 FROM device_interfaces o
+                  WHERE o.device_id = d.device_id AND o.if_index = d.if_index AND o.id < d.id));
+DELETE FROM device_interfaces d USING device_interfaces o
+    WHERE o.device_id = d.device_id AND o.if_index = d.if_index AND o.id < d.id;
+DELETE FROM system_units d USING system_units o
+    WHERE o.device_id = d.device_id AND o.unit_index = d.unit_index AND o.id < d.id;
+DELETE FROM ip_profiles d USING ip_profiles o
+    WHERE o.device_id = d.device_id AND o.id < d.id;
+DELETE FROM udp_profiles d USING udp_profiles o
+    WHERE o.device_id = d.device_id AND o.id < d.id;
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_device_interfaces_device_if_index ON device_interfaces (device_id, if_index);
+CREATE UNIQUE INDEX IF NOT EXISTS ux_system_units_device_unit_index ON system_units (device_id, unit_index);
+CREATE UNIQUE INDEX IF NOT EXISTS ux_ip_profiles_device ON ip_profiles (device_id);
+CREATE UNIQUE INDEX IF NOT EXISTS ux_udp_profiles_device ON udp_profiles (device_id);
@@ -0,0 +1,134 @@
+package com.farukgenc.boilerplate.springboot.integration;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import com.farukgenc.boilerplate.springboot.model.InterfaceSample;
+import com.farukgenc.boilerplate.springboot.model.MetricRollup;
+import com.farukgenc.boilerplate.springboot.model.RollupTier;
+import com.farukgenc.boilerplate.springboot.repository.InterfaceSamplePartitions;
+import com.farukgenc.boilerplate.springboot.repository.InterfaceSampleRepository;
+import com.farukgenc.boilerplate.springboot.repository.MetricRollupRepository;
+import com.farukgenc.boilerplate.springboot.repository.RollupProgressRepository;
+import com.farukgenc.boilerplate.springboot.service.metrics.DatabaseSampleStorage;
+import com.farukgenc.boilerplate.springboot.service.metrics.MetricRollupService;
+import com.farukgenc.boilerplate.springboot.service.metrics.RecentMetricsStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Rolls samples up through the tiers on H2, where raw samples expire with a ranged delete
+ * instead of by partition
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+class MetricRollupServiceTest {
+
+    private static final int MINUTES = 20;
+
+    @Autowired
+    private InterfaceSampleRepository interfaceSampleRepository;
+
+    @Autowired
+    private MetricRollupRepository metricRollupRepository;
+
+    @Autowired
+    private RollupProgressRepository rollupProgressRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private SnmpProperties properties;
+    private MetricRollupService service;
+    private LocalDateTime firstMinute;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SnmpProperties();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DatabaseSampleStorage sampleStorage = new DatabaseSampleStorage(interfaceSampleRepository,
+            new InterfaceSamplePartitions(jdbcTemplate), properties);
+        service = new MetricRollupService(sampleStorage, metricRollupRepository, rollupProgressRepository,
+            new RecentMetricsStore(properties, meterRegistry), transactionManager, properties, meterRegistry);
+
+        // One sample a minute from 39.5 to 20.5 minutes ago
+        LocalDateTime first = LocalDateTime.now().minusMinutes(40).plusSeconds(30);
+        firstMinute = RollupTier.MINUTE.bucketStart(first);
+        List<InterfaceSample> samples = new ArrayList<>();
+        for (int i = 0; i < MINUTES; i++) {
+            samples.add(InterfaceSample.builder()
+                .deviceId(1L).ifIndex(3).sampledAt(first.plusMinutes(i)).intervalMs(60_000)
+                .inBps((float) i)
+                .build());
+        }
+        interfaceSampleRepository.saveAll(samples);
+    }
+
+    @Test
+    void samplesAreRolledUpThroughTheTiers() {
+        service.rollUp();
+
+        List<MetricRollup> minutes = series(RollupTier.MINUTE);
+        assertEquals(MINUTES, minutes.size());
+        assertEquals(firstMinute, minutes.get(0).getBucketStart());
+        assertEquals(19.0, minutes.get(MINUTES - 1).getLast());
+
+        List<MetricRollup> fiveMinutes = series(RollupTier.FIVE_MINUTES);
+        assertEquals(MINUTES, fiveMinutes.stream().mapToInt(MetricRollup::getCount).sum());
+        assertEquals(19.0, fiveMinutes.stream().mapToDouble(MetricRollup::getMax).max().orElseThrow());
+        double sum = fiveMinutes.stream().mapToDouble(rollup -> rollup.getAvg() * rollup.getCount()).sum();
+        assertEquals(9.5, sum / MINUTES, 1e-9);
+    }
+
+    @Test
+    void bucketsAreRolledUpOnce() {
+        service.rollUp();
+        long rollups = metricRollupRepository.count();
+
+        service.rollUp();
+
+        assertEquals(rollups, metricRollupRepository.count());
+    }
+
+    @Test
+    void rawSamplesAreKeptUntilRolledUp() {
+        properties.getRollups().setRawRetention(Duration.ofMinutes(30));
+
+        service.applyRetention();
+        assertEquals(MINUTES, interfaceSampleRepository.count()); // Nothing rolled up yet
+
+        service.rollUp();
+        service.applyRetention();
+        assertEquals(10, interfaceSampleRepository.count());
+    }
+
+    @Test
+    void queriesUseCoarserTiersOnceFinerOnesExpired() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertNull(service.tierFor(Duration.ofSeconds(10), now.minusHours(1), now));
+        assertEquals(RollupTier.MINUTE, service.tierFor(Duration.ofSeconds(10), now.minusDays(4), now));
+        assertEquals(RollupTier.FIVE_MINUTES, service.tierFor(Duration.ofMinutes(1), now.minusDays(8), now));
+        assertEquals(RollupTier.HOUR, service.tierFor(Duration.ofHours(2), now.minusDays(30), now));
+        assertEquals(RollupTier.DAY, service.tierFor(Duration.ofMinutes(1), now.minusDays(500), now));
+    }
+
+    private List<MetricRollup> series(RollupTier tier) {
+        return metricRollupRepository.findByDeviceIdAndMetricAndInstanceAndTierAndBucketStartBetweenOrderByBucketStart(
+            1L, "in_bps", 3, tier, firstMinute.minusDays(1), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,210 @@
+package com.farukgenc.boilerplate.springboot.integration;
+
+import com.farukgenc.boilerplate.springboot.model.Device;
+import com.farukgenc.boilerplate.springboot.model.DeviceInterface;
+import com.farukgenc.boilerplate.springboot.model.DeviceInterfaceStats;
+import com.farukgenc.boilerplate.springboot.model.InterfaceSample;
+import com.farukgenc.boilerplate.springboot.model.User;
+import com.farukgenc.boilerplate.springboot.repository.DeviceInterfaceRepository;
+import com.farukgenc.boilerplate.springboot.repository.InterfaceSampleRepository;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the JDBC statements needed to store one poll's interfaces. With IDENTITY ids every new
+ * row was its own INSERT round trip (Hibernate must read each generated key back, so it cannot
+ * batch them); {@link IdentityInterface} keeps that mapping so the first poll is measured both
+ * ways. With pooled sequences the inserts go out in JDBC batches, plus one sequence call per 50
+ * ids. Counters live in their own narrow table, so a poll that only moves counters does not
+ * rewrite the interface rows. Rate
+ * samples are append-only, so saving them never selects first.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+    "spring.jpa.properties.hibernate.order_inserts=true",
+    "spring.jpa.properties.hibernate.order_updates=true"
+})
+class PollPersistenceBenchmarkTest {
+
+    private static final int PORTS = 48;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DeviceInterfaceRepository deviceInterfaceRepository;
+
+    @Autowired
+    private InterfaceSampleRepository interfaceSampleRepository;
+
+    private Statistics statistics;
+    private Device device;
+
+    @BeforeEach
+    void setUp() {
+        User user = User.builder().username("bench").name("Bench").email("bench@example.com").build();
+        entityManager.persist(user);
+        device = Device.builder().name("switch-48").monitoringEnabled(true).user(user).build();
+        entityManager.persist(device);
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void firstPollOfASwitchInsertsInBatches() {
+        long identityStatements = insertIdentityInterfaces();
+
+        insertInterfaces();
+
+        long statements = statistics.getPrepareStatementCount();
+        assertEquals(PORTS, statistics.getEntityInsertCount());
+        // Before: one INSERT per row, each reading its generated key back
+        assertEquals(PORTS, identityStatements, "IDENTITY ids: " + identityStatements + " statements for " + PORTS + " interfaces");
+        // After: one batched INSERT plus at most two sequence calls
+        assertTrue(statements <= 3, "pooled sequence ids: " + statements + " statements for " + PORTS
+            + " interfaces, IDENTITY ids: " + identityStatements);
+    }
+
+    @Test
+    void laterPollOfASwitchUpdatesInBatches() {
+        insertInterfaces();
+        entityManager.clear();
+        statistics.clear();
+
+        List<DeviceInterface> interfaces = deviceInterfaceRepository.findByDeviceId(device.getId());
+        interfaces.forEach(deviceInterface -> deviceInterface.setIfDescr(deviceInterface.getIfDescr() + " (up)"));
+        entityManager.flush();
+
+        long statements = statistics.getPrepareStatementCount();
+        assertEquals(PORTS, statistics.getEntityUpdateCount());
+        // The select plus one batched UPDATE
+        assertTrue(statements <= 2, "update of " + PORTS + " interfaces: " + statements + " statements");
+    }
+
+    @Test
+    void counterOnlyPollLeavesTheInterfaceRowsAlone() {
+        Device managed = entityManager.getReference(Device.class, device.getId());
+        List<DeviceInterface> interfaces = new ArrayList<>();
+        for (int ifIndex = 1; ifIndex <= PORTS; ifIndex++) {
+            DeviceInterface deviceInterface = DeviceInterface.builder().device(managed).ifIndex(ifIndex).ifDescr("port " + ifIndex).build();
+            deviceInterface.getOrCreateStats().setIfInOctets(0L);
+            interfaces.add(deviceInterface);
+        }
+        deviceInterfaceRepository.saveAll(interfaces);
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<DeviceInterface> polled = deviceInterfaceRepository.findByDeviceId(device.getId());
+        polled.forEach(deviceInterface -> deviceInterface.getOrCreateStats().setIfInOctets(1_000_000L));
+        entityManager.flush();
+
+        long statements = statistics.getPrepareStatementCount();
+        assertEquals(0, statistics.getEntityStatistics(DeviceInterface.class.getName()).getUpdateCount());
+        assertEquals(PORTS, statistics.getEntityStatistics(DeviceInterfaceStats.class.getName()).getUpdateCount());
+        // The select, fetching interfaces and counters together, plus one batched UPDATE of the stats rows
+        assertTrue(statements <= 2, "counter update of " + PORTS + " interfaces: " + statements + " statements");
+    }
+
+    @Test
+    void samplesOfAPollAreInsertedInBatchesWithoutSelects() {
+        LocalDateTime sampledAt = LocalDateTime.of(2024, 1, 1, 12, 0);
+        List<InterfaceSample> samples = new ArrayList<>();
+        for (int ifIndex = 1; ifIndex <= PORTS; ifIndex++) {
+            samples.add(InterfaceSample.builder().deviceId(device.getId()).ifIndex(ifIndex).sampledAt(sampledAt)
+                .intervalMs(60_000).inBps(1_000f * ifIndex).build());
+        }
+
+        interfaceSampleRepository.saveAll(samples);
+        entityManager.flush();
+
+        long statements = statistics.getPrepareStatementCount();
+        assertEquals(PORTS, statistics.getEntityInsertCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertTrue(statements <= 1, "insert of " + PORTS + " samples: " + statements + " statements");
+        assertEquals(PORTS, interfaceSampleRepository.findByDeviceIdAndSampledAtBetweenOrderByIfIndexAscSampledAtAsc(
+            device.getId(), sampledAt, sampledAt).size());
+    }
+
+    /**
+     * Stores the interfaces of a first poll and flushes them
+     */
+    private void insertInterfaces() {
+        Device managed = entityManager.getReference(Device.class, device.getId());
+        List<DeviceInterface> interfaces = new ArrayList<>();
+        for (int ifIndex = 1; ifIndex <= PORTS; ifIndex++) {
+            interfaces.add(DeviceInterface.builder().device(managed).ifIndex(ifIndex).ifDescr("port " + ifIndex).build());
+        }
+
+        deviceInterfaceRepository.saveAll(interfaces);
+        entityManager.flush();
+    }
+
+    /**
+     * Stores the same interfaces the way they were mapped before, with IDENTITY ids, and returns
+     * the statements that took. They go to a table of their own, so only the statistics are reset.
+     */
+    private long insertIdentityInterfaces() {
+        Device managed = entityManager.getReference(Device.class, device.getId());
+        for (int ifIndex = 1; ifIndex <= PORTS; ifIndex++) {
+            entityManager.persist(new IdentityInterface(null, managed, ifIndex, "port " + ifIndex));
+        }
+        entityManager.flush();
+        long statements = statistics.getPrepareStatementCount();
+        entityManager.clear();
+        statistics.clear();
+        return statements;
+    }
+
+    /**
+     * The interface mapping before pooled sequence ids, kept here as the baseline
+     */
+    @Getter
+    @Setter
+    @Entity
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Table(name = "benchmark_identity_interfaces")
+    static class IdentityInterface {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+
+        @ManyToOne(fetch = FetchType.LAZY)
+        @JoinColumn(name = "device_id", nullable = false)
+        private Device device;
+
+        @Column(name = "if_index", nullable = false)
+        private Integer ifIndex;
+
+        @Column(name = "if_descr", length = 1000)
+        private String ifDescr;
+    }
+}
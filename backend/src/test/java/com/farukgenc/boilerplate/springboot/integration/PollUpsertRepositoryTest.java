@@ -0,0 +1,126 @@
+package com.farukgenc.boilerplate.springboot.integration;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import com.farukgenc.boilerplate.springboot.model.Device;
+import com.farukgenc.boilerplate.springboot.model.DeviceInterface;
+import com.farukgenc.boilerplate.springboot.model.IpProfile;
+import com.farukgenc.boilerplate.springboot.model.User;
+import com.farukgenc.boilerplate.springboot.repository.PollUpsertRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the upserts against H2, which takes the {@code MERGE} path; PostgreSQL's
+ * {@code INSERT ... ON CONFLICT} follows the same rules.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+class PollUpsertRepositoryTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private PollUpsertRepository repository;
+    private Device device;
+
+    @BeforeEach
+    void setUp() {
+        User user = User.builder().username("upsert").name("Upsert").email("upsert@example.com").build();
+        entityManager.persist(user);
+        device = Device.builder().name("switch").monitoringEnabled(true).user(user).build();
+        entityManager.persist(device);
+        entityManager.flush();
+
+        repository = new PollUpsertRepository(jdbcTemplate, new SnmpProperties());
+    }
+
+    @Test
+    void isEnabledOnH2() {
+        assertTrue(repository.isEnabled());
+    }
+
+    @Test
+    void insertsNewRowsWithTheirCounters() {
+        DeviceInterface port = polledInterface(1, "port 1", 1500);
+        port.getOrCreateStats().setIfInOctets(100L);
+
+        repository.upsertInterfaces(List.of(port, polledInterface(2, "port 2", 1500)));
+
+        assertEquals(2, count("device_interfaces"));
+        assertEquals(100L, jdbcTemplate.queryForObject("SELECT s.if_in_octets FROM device_interface_stats s "
+            + "JOIN device_interfaces i ON i.id = s.interface_id WHERE i.if_index = 1", Long.class));
+    }
+
+    @Test
+    void updatesChangedValuesAndKeepsMissingOnes() {
+        repository.upsertInterfaces(List.of(polledInterface(1, "port 1", 1500)));
+        Long id = jdbcTemplate.queryForObject("SELECT id FROM device_interfaces WHERE if_index = 1", Long.class);
+
+        repository.upsertInterfaces(List.of(polledInterface(1, "uplink", null)));
+
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT id, if_descr, if_mtu FROM device_interfaces WHERE if_index = 1");
+        assertEquals(id, ((Number) row.get("id")).longValue());
+        assertEquals("uplink", row.get("if_descr"));
+        assertEquals(1500, ((Number) row.get("if_mtu")).intValue());
+        assertEquals(1, count("device_interfaces"));
+    }
+
+    @Test
+    void unchangedRowIsNotRewritten() {
+        repository.upsertInterfaces(List.of(polledInterface(1, "port 1", 1500)));
+
+        assertEquals(0, repository.upsertInterfaces(List.of(polledInterface(1, "port 1", 1500))));
+    }
+
+    @Test
+    void deletesRowsTheDeviceNoLongerReports() {
+        DeviceInterface gone = polledInterface(2, "port 2", 1500);
+        gone.getOrCreateStats().setIfInOctets(5L);
+        repository.upsertInterfaces(List.of(polledInterface(1, "port 1", 1500), gone));
+
+        assertEquals(1, repository.deleteInterfacesExcept(device.getId(), Set.of(1)));
+        assertEquals(0, repository.deleteInterfacesExcept(device.getId(), Set.of()));
+
+        assertEquals(1, count("device_interfaces"));
+        assertEquals(0, count("device_interface_stats"));
+    }
+
+    @Test
+    void profilesAreKeyedByDevice() {
+        repository.upsertIpProfiles(List.of(IpProfile.builder().device(device).ipInReceives(1L).ipDefaultTTL(64).build()));
+        repository.upsertIpProfiles(List.of(IpProfile.builder().device(device).ipInReceives(2L).build()));
+
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT ip_in_receives, ip_default_ttl FROM ip_profiles");
+        assertEquals(2L, ((Number) row.get("ip_in_receives")).longValue());
+        assertEquals(64, ((Number) row.get("ip_default_ttl")).intValue());
+        assertEquals(1, count("ip_profiles"));
+    }
+
+    private DeviceInterface polledInterface(int ifIndex, String descr, Integer mtu) {
+        return DeviceInterface.builder()
+            .device(device)
+            .ifIndex(ifIndex)
+            .ifDescr(descr)
+            .ifMtu(mtu)
+            .ifOperStatus(DeviceInterface.InterfaceStatus.UP)
+            .build();
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+}
@@ -0,0 +1,60 @@
+package com.farukgenc.boilerplate.springboot.service.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DownsamplerTest {
+
+    private static final long START = 1_700_000_000L / 3600 * 3600;
+
+    @Test
+    void lttbKeepsEndpointsAndSpikes() {
+        MetricPoints.Builder raw = MetricPoints.builder();
+        for (int i = 0; i < 1000; i++) {
+            raw.add(START + i * 60L, i == 437 ? 1000 : i % 2);
+        }
+
+        Downsampler.Points points = Downsampler.lttb(Downsampler.Points.of(raw.build()), 50);
+
+        assertEquals(50, points.size());
+        assertEquals(START, points.timestamps[0]);
+        assertEquals(START + 999 * 60L, points.timestamps[49]);
+        boolean spike = false;
+        for (int i = 0; i < points.size(); i++) {
+            assertTrue(i == 0 || points.timestamps[i] > points.timestamps[i - 1]);
+            spike |= points.values[i] == 1000;
+        }
+        assertTrue(spike);
+    }
+
+    @Test
+    void lttbLeavesShortSeriesAlone() {
+        MetricPoints.Builder raw = MetricPoints.builder();
+        for (int i = 0; i < 10; i++) {
+            raw.add(START + i * 60L, i);
+        }
+        Downsampler.Points input = Downsampler.Points.of(raw.build());
+
+        assertSame(input, Downsampler.lttb(input, 50));
+    }
+
+    @Test
+    void minMaxAggregatesEqualTimeBuckets() {
+        MetricPoints.Builder raw = MetricPoints.builder();
+        for (int i = 0; i < 120; i++) {
+            raw.add(START + i * 60L, i == 70 ? -5 : i);
+        }
+
+        Downsampler.Points points = Downsampler.minMax(Downsampler.Points.of(raw.build()), START, START + 7200, 4);
+
+        assertEquals(4, points.size());
+        assertArrayEquals(new long[]{START, START + 1800, START + 3600, START + 5400}, points.timestamps);
+        assertEquals(0, points.min[0]);
+        assertEquals(29, points.max[0]);
+        assertEquals(14.5, points.values[0]);
+        assertEquals(-5, points.min[2]);
+        assertEquals(89, points.max[2]);
+        assertEquals(30, points.weights[3]);
+    }
+}
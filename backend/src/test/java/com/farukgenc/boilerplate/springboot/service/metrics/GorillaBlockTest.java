@@ -0,0 +1,71 @@
+package com.farukgenc.boilerplate.springboot.service.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GorillaBlockTest {
+
+    private static final long START = 1_700_000_000L;
+
+    @Test
+    void pointsRoundTripExactly() {
+        GorillaBlock block = new GorillaBlock(START);
+        Random random = new Random(42);
+        long[] timestamps = new long[500];
+        double[] values = new double[500];
+        long timestamp = START;
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamp += i % 50 == 0 ? 1 + random.nextInt(100_000) : 60 + random.nextInt(3) - 1;
+            timestamps[i] = timestamp;
+            values[i] = switch (i % 4) {
+                case 0 -> random.nextDouble() * 1e9;
+                case 1 -> values[i - 1];
+                case 2 -> -random.nextLong();
+                default -> Double.NaN;
+            };
+            block.append(timestamps[i], values[i]);
+        }
+
+        MetricPoints points = read(block, Long.MIN_VALUE, Long.MAX_VALUE);
+
+        assertArrayEquals(timestamps, points.timestamps());
+        assertArrayEquals(values, points.values());
+    }
+
+    @Test
+    void readKeepsOnlyTheRange() {
+        GorillaBlock block = new GorillaBlock(START);
+        for (int i = 0; i < 10; i++) {
+            block.append(START + 60L * i, i);
+        }
+
+        MetricPoints points = read(block, START + 120, START + 300);
+
+        assertArrayEquals(new long[]{START + 120, START + 180, START + 240, START + 300}, points.timestamps());
+        assertArrayEquals(new double[]{2, 3, 4, 5}, points.values());
+        assertEquals(0, read(block, START + 601, START + 900).size());
+    }
+
+    @Test
+    void steadyPollsOfASlowCounterCompress() {
+        GorillaBlock block = new GorillaBlock(START);
+        double counter = 1_000_000;
+        for (int i = 0; i < 360; i++) {
+            counter += 1000 + i % 7;
+            block.append(START + 60L * i, counter);
+        }
+        block.seal();
+
+        assertTrue(block.sizeInBytes() < 360 * 4, "took " + block.sizeInBytes() + " bytes");
+        assertEquals(360, read(block, START, START + 360 * 60).size());
+    }
+
+    private static MetricPoints read(GorillaBlock block, long from, long to) {
+        MetricPoints.Builder points = MetricPoints.builder();
+        block.read(from, to, points);
+        return points.build();
+    }
+}
@@ -0,0 +1,97 @@
+package com.farukgenc.boilerplate.springboot.service.metrics;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecentMetricsStoreTest {
+
+    private static final long HOUR = 3600;
+    private static final long START = 1_700_000_000L / HOUR * HOUR;
+    private static final MetricSeries SERIES = new MetricSeries(1L, "in_bps", 3);
+
+    private SnmpProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SnmpProperties();
+        properties.getSamples().getRecent().setWindow(Duration.ofHours(2));
+        properties.getSamples().getRecent().setBlock(Duration.ofHours(1));
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void readsBackPointsAcrossBlocks() {
+        RecentMetricsStore store = new RecentMetricsStore(properties, meterRegistry);
+        for (long t = START; t < START + 90 * 60; t += 60) {
+            store.append(SERIES, t, t - START);
+        }
+
+        MetricPoints points = store.read(SERIES, START + 55 * 60, START + 65 * 60);
+
+        assertEquals(11, points.size());
+        assertEquals(START + 55 * 60, points.timestamp(0));
+        assertEquals(65 * 60, points.value(10));
+        assertEquals(Set.of(SERIES), store.seriesOf(1L));
+        assertEquals(Set.of(), store.seriesOf(2L));
+    }
+
+    @Test
+    void outOfOrderPointsAreIgnored() {
+        RecentMetricsStore store = new RecentMetricsStore(properties, meterRegistry);
+        store.append(SERIES, START + 60, 1);
+        store.append(SERIES, START, 2);
+        store.append(SERIES, START + 60, 3);
+
+        MetricPoints points = store.read(SERIES, START, START + 60);
+
+        assertArrayEquals(new long[]{START + 60}, points.timestamps());
+        assertArrayEquals(new double[]{1}, points.values());
+    }
+
+    @Test
+    void blocksOlderThanTheWindowAreDropped() {
+        SeriesRingBuffer buffer = new SeriesRingBuffer(3);
+        for (long t = START; t < START + 4 * HOUR; t += 60) {
+            buffer.append(t, 1, HOUR, 2 * HOUR);
+        }
+
+        MetricPoints.Builder points = MetricPoints.builder();
+        buffer.read(START, START + 4 * HOUR, points);
+
+        assertEquals(START + HOUR, points.build().timestamp(0)); // The first hour left the window
+        assertFalse(buffer.expire(START + 4 * HOUR - 60));
+        assertTrue(buffer.expire(START + 4 * HOUR));
+    }
+
+    @Test
+    void newSeriesBeyondTheLimitAreDropped() {
+        properties.getSamples().getRecent().setMaxSeries(1);
+        RecentMetricsStore store = new RecentMetricsStore(properties, meterRegistry);
+
+        store.append(SERIES, START, 1);
+        store.append(new MetricSeries(1L, "out_bps", 3), START, 1);
+        store.append(SERIES, START + 60, 2);
+
+        assertEquals(2, store.read(SERIES, START, START + 60).size());
+        assertEquals(1.0, meterRegistry.get("snmp.samples.recent.dropped").counter().count());
+        assertEquals(1.0, meterRegistry.get("snmp.samples.recent.series").gauge().value());
+    }
+
+    @Test
+    void disabledStoreKeepsNothing() {
+        properties.getSamples().getRecent().setEnabled(false);
+        RecentMetricsStore store = new RecentMetricsStore(properties, meterRegistry);
+
+        store.append(SERIES, START, 1);
+
+        assertEquals(0, store.read(SERIES, START, START).size());
+    }
+}
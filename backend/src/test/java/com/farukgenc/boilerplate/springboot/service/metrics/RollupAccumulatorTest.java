@@ -0,0 +1,79 @@
+package com.farukgenc.boilerplate.springboot.service.metrics;
+
+import com.farukgenc.boilerplate.springboot.model.MetricRollup;
+import com.farukgenc.boilerplate.springboot.model.RollupTier;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollupAccumulatorTest {
+
+    private static final LocalDateTime BUCKET = LocalDateTime.of(2024, 1, 1, 12, 5);
+    private static final MetricSeries SERIES = new MetricSeries(1L, "in_bps", 3);
+
+    @Test
+    void pointsAreAggregatedPerSeries() {
+        RollupAccumulator accumulator = new RollupAccumulator(RollupTier.MINUTE, BUCKET);
+        accumulator.add(SERIES, 20, 4);
+        accumulator.add(SERIES, 10, 1);
+        accumulator.add(SERIES, 30, Double.NaN);
+        accumulator.add(new MetricSeries(1L, "in_bps", 4), 10, 7);
+
+        List<MetricRollup> rollups = accumulator.build();
+
+        assertEquals(2, rollups.size());
+        MetricRollup rollup = rollups.stream().filter(r -> r.getInstance() == 3).findFirst().orElseThrow();
+        assertEquals(1.0, rollup.getMin());
+        assertEquals(4.0, rollup.getMax());
+        assertEquals(2.5, rollup.getAvg());
+        assertEquals(4.0, rollup.getLast()); // Latest point, not the last added
+        assertEquals(2, rollup.getCount());
+        assertEquals(RollupTier.MINUTE, rollup.getTier());
+        assertEquals(BUCKET, rollup.getBucketStart());
+    }
+
+    @Test
+    void finerRollupsAreWeightedByTheirCounts() {
+        RollupAccumulator accumulator = new RollupAccumulator(RollupTier.FIVE_MINUTES, BUCKET);
+        accumulator.add(rollup(BUCKET.plusMinutes(1), 2, 8, 5, 6, 3));
+        accumulator.add(rollup(BUCKET, 1, 3, 2, 3, 1));
+
+        MetricRollup rollup = accumulator.build().get(0);
+
+        assertEquals(1.0, rollup.getMin());
+        assertEquals(8.0, rollup.getMax());
+        assertEquals(4.25, rollup.getAvg());
+        assertEquals(6.0, rollup.getLast());
+        assertEquals(4, rollup.getCount());
+    }
+
+    @Test
+    void bucketsAreAlignedToTheirWidth() {
+        LocalDateTime time = LocalDateTime.of(2024, 3, 10, 17, 43, 12);
+
+        assertEquals(LocalDateTime.of(2024, 3, 10, 17, 43), RollupTier.MINUTE.bucketStart(time));
+        assertEquals(LocalDateTime.of(2024, 3, 10, 17, 40), RollupTier.FIVE_MINUTES.bucketStart(time));
+        assertEquals(LocalDateTime.of(2024, 3, 10, 17, 0), RollupTier.HOUR.bucketStart(time));
+        assertEquals(LocalDateTime.of(2024, 3, 10, 0, 0), RollupTier.DAY.bucketStart(time));
+    }
+
+    @Test
+    void stepPicksTheCoarsestTierNoWiderThanIt() {
+        assertNull(RollupTier.forStep(Duration.ofSeconds(30)));
+        assertEquals(RollupTier.MINUTE, RollupTier.forStep(Duration.ofMinutes(4)));
+        assertEquals(RollupTier.FIVE_MINUTES, RollupTier.forStep(Duration.ofMinutes(5)));
+        assertEquals(RollupTier.HOUR, RollupTier.forStep(Duration.ofHours(6)));
+        assertEquals(RollupTier.DAY, RollupTier.forStep(Duration.ofDays(7)));
+    }
+
+    private static MetricRollup rollup(LocalDateTime bucketStart, double min, double max, double avg, double last, int count) {
+        return MetricRollup.builder()
+            .deviceId(1L).metric("in_bps").instance(3).tier(RollupTier.MINUTE).bucketStart(bucketStart)
+            .min(min).max(max).avg(avg).last(last).count(count)
+            .build();
+    }
+}
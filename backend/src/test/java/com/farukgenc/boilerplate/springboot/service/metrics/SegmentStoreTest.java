@@ -0,0 +1,164 @@
+package com.farukgenc.boilerplate.springboot.service.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentStoreTest {
+
+    private static final long HOUR = 3600;
+    private static final long START = 1_700_000_000L / HOUR * HOUR;
+    private static final MetricSeries SERIES = new MetricSeries(1L, "in_bps", 3);
+    private static final MetricSeries OTHER = new MetricSeries(2L, "out_pps", 1);
+
+    @TempDir
+    Path directory;
+
+    private SegmentStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = new SegmentStore(directory, HOUR);
+        store.open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Test
+    void codecRoundTripsIntegerAndFractionalValues() {
+        MetricPoints.Builder counters = MetricPoints.builder();
+        MetricPoints.Builder rates = MetricPoints.builder();
+        for (int i = 0; i < 100; i++) {
+            long t = START + i * 60L + (i % 7 == 0 ? 1 : 0);
+            counters.add(t, 1_000_000L * i);
+            rates.add(t, i % 5 == 0 ? 0.0 : 1234.5 / (i + 1));
+        }
+        rates.add(START + 100 * 60L, Double.NaN);
+
+        for (MetricPoints points : List.of(counters.build(), rates.build())) {
+            SegmentCodec.ByteSink sink = new SegmentCodec.ByteSink(16);
+            SegmentCodec.encode(points, sink);
+            MetricPoints.Builder decoded = MetricPoints.builder();
+            SegmentCodec.decode(ByteBuffer.wrap(sink.array(), 0, sink.size()), Long.MIN_VALUE, Long.MAX_VALUE, decoded);
+
+            MetricPoints result = decoded.build();
+            assertArrayEquals(points.timestamps(), result.timestamps());
+            assertArrayEquals(points.values(), result.values());
+        }
+    }
+
+    @Test
+    void readsAcrossSealedSegmentsAndOpenPartition() throws IOException {
+        appendMinutes(SERIES, START, 150);
+
+        assertEquals(2, store.seal(START + 2 * HOUR + 300, 300));
+        assertTrue(Files.exists(directory.resolve("segments").resolve(START + SegmentFile.SUFFIX)));
+        assertFalse(Files.exists(directory.resolve("wal").resolve(START + WriteAheadLog.SUFFIX)));
+
+        MetricPoints points = store.read(SERIES, START + 50 * 60, START + 130 * 60);
+        assertEquals(81, points.size());
+        for (int i = 0; i < points.size(); i++) {
+            assertEquals(START + (50 + i) * 60, points.timestamp(i));
+            assertEquals(50 + i, points.value(i));
+        }
+        assertEquals(0, store.read(OTHER, START, START + 3 * HOUR).size());
+    }
+
+    @Test
+    void rejectsOutOfOrderPointsAndPointsForSealedPartitions() throws IOException {
+        appendMinutes(SERIES, START, 10);
+        assertEquals(1, store.append(List.of(new SeriesPoint(SERIES, START + 5 * 60, 1))));
+
+        store.seal(START + HOUR, 0);
+        assertEquals(1, store.append(List.of(new SeriesPoint(SERIES, START + 20 * 60, 1))));
+        assertEquals(10, store.read(SERIES, START, START + HOUR).size());
+    }
+
+    @Test
+    void replaysOpenPartitionsAfterReopening() throws IOException {
+        appendMinutes(SERIES, START, 90);
+        appendMinutes(OTHER, START, 30);
+        store.seal(START + HOUR, 0);
+        store.close();
+
+        store = new SegmentStore(directory, HOUR);
+        store.open();
+
+        assertEquals(90, store.read(SERIES, START, START + 2 * HOUR).size());
+        assertEquals(30, store.read(OTHER, START, START + 2 * HOUR).size());
+        // New points continue the replayed series
+        assertEquals(0, store.append(List.of(new SeriesPoint(SERIES, START + 90 * 60, 90))));
+        assertEquals(91, store.read(SERIES, START, START + 2 * HOUR).size());
+    }
+
+    @Test
+    void truncatesTornLogTail() throws IOException {
+        appendMinutes(SERIES, START, 10);
+        store.close();
+
+        Path log = directory.resolve("wal").resolve(START + WriteAheadLog.SUFFIX);
+        long size = Files.size(log);
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            // Header of a frame whose payload never made it to disk
+            channel.write(ByteBuffer.allocate(10).putInt(500).putInt(42).flip());
+        }
+
+        store = new SegmentStore(directory, HOUR);
+        store.open();
+
+        assertEquals(size, Files.size(log));
+        assertEquals(10, store.read(SERIES, START, START + HOUR).size());
+    }
+
+    @Test
+    void scansEverySeriesOfARange() throws IOException {
+        appendMinutes(SERIES, START + HOUR - 5 * 60, 10);
+        appendMinutes(OTHER, START + HOUR, 3);
+        store.seal(START + HOUR, 0);
+
+        Map<MetricSeries, MetricPoints> scanned = new HashMap<>();
+        store.scan(START + HOUR - 2 * 60, START + HOUR + 2 * 60, scanned::put);
+
+        assertEquals(2, scanned.size());
+        assertEquals(5, scanned.get(SERIES).size());
+        assertEquals(START + HOUR - 2 * 60, scanned.get(SERIES).timestamp(0));
+        assertEquals(3, scanned.get(OTHER).size());
+    }
+
+    @Test
+    void dropsSegmentsThatEndedBeforeTheCutoff() throws IOException {
+        appendMinutes(SERIES, START, 180);
+        store.seal(START + 3 * HOUR, 0);
+
+        assertEquals(1, store.dropBefore(START + HOUR + 30 * 60));
+
+        assertFalse(Files.exists(directory.resolve("segments").resolve(START + SegmentFile.SUFFIX)));
+        assertEquals(START + HOUR, store.read(SERIES, START, START + 3 * HOUR).timestamp(0));
+        assertEquals(START + HOUR, store.oldest(START).getAsLong());
+    }
+
+    private void appendMinutes(MetricSeries series, long from, int minutes) throws IOException {
+        List<SeriesPoint> points = new ArrayList<>();
+        for (int i = 0; i < minutes; i++) {
+            points.add(new SeriesPoint(series, from + i * 60L, i));
+        }
+        assertEquals(0, store.append(points));
+    }
+}
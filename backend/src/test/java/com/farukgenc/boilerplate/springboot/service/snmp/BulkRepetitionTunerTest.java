@@ -0,0 +1,59 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BulkRepetitionTunerTest {
+
+    private static final String DEVICE = "192.168.1.1:161";
+
+    private BulkRepetitionTuner tuner;
+
+    @BeforeEach
+    void setUp() {
+        SnmpProperties properties = new SnmpProperties();
+        properties.getWalk().setInitialMaxRepetitions(10);
+        properties.getWalk().setMaxRepetitions(50);
+        properties.getWalk().setTargetResponseBytes(1400);
+        tuner = new BulkRepetitionTuner(properties);
+    }
+
+    @Test
+    void startsAtInitialValueAndRespectsCallerCap() {
+        assertEquals(10, tuner.current(DEVICE, 100));
+        assertEquals(4, tuner.current(DEVICE, 4));
+    }
+
+    @Test
+    void growsOnFullSmallResponsesUpToSizeTarget() {
+        tuner.onResponse(DEVICE, 10, 10, 300);
+        assertEquals(20, tuner.current(DEVICE, 100));
+
+        // 30 bytes per binding: only ~46 bindings fit into 1400 bytes
+        tuner.onResponse(DEVICE, 40, 40, 1200);
+        assertEquals(46, tuner.current(DEVICE, 100));
+    }
+
+    @Test
+    void doesNotGrowOnPartialResponses() {
+        tuner.onResponse(DEVICE, 10, 3, 100);
+        assertEquals(10, tuner.current(DEVICE, 100));
+    }
+
+    @Test
+    void tooBigHalvesAndCapsFutureGrowth() {
+        assertEquals(5, tuner.onTooBig(DEVICE, 10));
+
+        tuner.onResponse(DEVICE, 5, 5, 150);
+        assertEquals(9, tuner.current(DEVICE, 100));
+    }
+
+    @Test
+    void timeoutBacksOff() {
+        tuner.onTimeout(DEVICE, 10);
+        assertEquals(5, tuner.current(DEVICE, 100));
+    }
+}
@@ -0,0 +1,109 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.model.Device;
+import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.Variable;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DevicePollCollectorTest {
+
+    private static final SnmpColumns UDP_TABLE = SnmpColumns.of(SnmpOids.UDP_LOCAL_ADDRESS);
+
+    @Mock
+    private PollPlanCompiler pollPlanCompiler;
+
+    @Mock
+    private PollPlanExecutor pollPlanExecutor;
+
+    @Mock
+    private InterfacePollService interfacePollService;
+
+    @Mock
+    private SystemUnitPollService systemUnitPollService;
+
+    @Mock
+    private SnmpTableFetcher snmpTableFetcher;
+
+    @Mock
+    private ScalarPollGroup systemGroup;
+
+    @Mock
+    private ScalarPollGroup udpGroup;
+
+    @InjectMocks
+    private DevicePollCollector devicePollCollector;
+
+    private DeviceConfig config;
+    private PollPlan plan;
+
+    @BeforeEach
+    void setUp() {
+        config = DeviceConfig.builder()
+                .id(7L)
+                .device(Device.builder().id(1L).name("Test Device").build())
+                .targetIp("192.168.1.1")
+                .build();
+        plan = new PollPlan(List.of(systemGroup, udpGroup), List.of(List.of(SnmpOids.SYS_NAME)));
+        when(pollPlanCompiler.compile(config)).thenReturn(plan);
+    }
+
+    @Test
+    void testCollect_UnreachableSkipsTables() {
+        // Arrange
+        stubExecute(false, Map.of());
+
+        // Act
+        DevicePollSnapshot snapshot = devicePollCollector.collect(config).join();
+
+        // Assert
+        assertFalse(snapshot.isReachable());
+        assertEquals(7L, snapshot.getConfigId());
+        verify(interfacePollService, never()).fetchInterfacesAsync(any());
+        verify(snmpTableFetcher, never()).fetchTableAsync(any(), any());
+    }
+
+    @Test
+    void testCollect_ReachableGathersScalarsAndTables() {
+        // Arrange
+        stubExecute(true, Map.of(SnmpOids.SYS_NAME, new OctetString("router")));
+        when(systemGroup.getScalarOids()).thenReturn(SnmpColumns.of(SnmpOids.SYS_NAME));
+        when(udpGroup.getScalarOids()).thenReturn(SnmpColumns.of(SnmpOids.UDP_IN_DATAGRAMS));
+        when(udpGroup.getTableColumns()).thenReturn(UDP_TABLE);
+        SnmpTableRow udpRow = new SnmpTableRow(new OID("0.0.0.0.161"), UDP_TABLE);
+        when(snmpTableFetcher.fetchTableAsync(config, UDP_TABLE)).thenReturn(CompletableFuture.completedFuture(List.of(udpRow)));
+        when(interfacePollService.fetchInterfacesAsync(config))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("walk failed")));
+        when(systemUnitPollService.fetchSystemUnitsAsync(config)).thenReturn(CompletableFuture.completedFuture(List.of()));
+
+        // Act
+        DevicePollSnapshot snapshot = devicePollCollector.collect(config).join();
+
+        // Assert
+        assertTrue(snapshot.isReachable());
+        assertEquals(new OctetString("router"), snapshot.getScalars().get(systemGroup).get(SnmpOids.SYS_NAME));
+        assertTrue(snapshot.getScalars().get(udpGroup).isEmpty());
+        assertEquals(List.of(udpRow), snapshot.tableFor(udpGroup));
+        assertEquals(List.of(), snapshot.tableFor(systemGroup));
+        assertEquals(List.of(), snapshot.getInterfaces()); // A failed table walk does not fail the poll
+    }
+
+    private void stubExecute(boolean reachable, Map<OID, Variable> values) {
+        when(pollPlanExecutor.execute(config, plan))
+                .thenReturn(CompletableFuture.completedFuture(new PollPlanExecutor.PlanResult(reachable, new HashMap<>(values))));
+    }
+}
@@ -0,0 +1,144 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import com.farukgenc.boilerplate.springboot.event.DeviceConfigChangedEvent;
+import com.farukgenc.boilerplate.springboot.model.Device;
+import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
+import com.farukgenc.boilerplate.springboot.repository.DeviceConfigRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class DevicePollSchedulerTest {
+
+    private DeviceConfigRepository deviceConfigRepository;
+    private PollPipeline pollPipeline;
+    private DevicePollScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        SnmpProperties properties = new SnmpProperties();
+        properties.getScheduler().setTick(Duration.ofMillis(10));
+        deviceConfigRepository = mock(DeviceConfigRepository.class);
+        pollPipeline = mock(PollPipeline.class);
+        scheduler = new DevicePollScheduler(properties, deviceConfigRepository, pollPipeline, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.stop();
+    }
+
+    @Test
+    void startSchedulesOnlyMonitoredDevices() {
+        when(deviceConfigRepository.findByEnabledTrueWithDevice()).thenReturn(List.of(config(1L, true), config(2L, false)));
+
+        scheduler.start();
+
+        assertTrue(scheduler.isScheduled(1L));
+        assertFalse(scheduler.isScheduled(2L));
+    }
+
+    @Test
+    void newDeviceIsPolledOnNextTick() throws Exception {
+        completeWith(true);
+
+        scheduler.onDeviceConfigChanged(event(7L, true, DeviceConfigChangedEvent.EventType.SAVED));
+        Thread.sleep(20);
+        scheduler.tick();
+
+        verify(pollPipeline).submit(eq(7L), any());
+        assertTrue(scheduler.isScheduled(7L));
+    }
+
+    @Test
+    void disabledOrDeletedDeviceIsUnscheduled() {
+        scheduler.onDeviceConfigChanged(event(7L, true, DeviceConfigChangedEvent.EventType.SAVED));
+        scheduler.onDeviceConfigChanged(event(7L, false, DeviceConfigChangedEvent.EventType.SAVED));
+        assertFalse(scheduler.isScheduled(7L));
+
+        scheduler.onDeviceConfigChanged(event(8L, true, DeviceConfigChangedEvent.EventType.SAVED));
+        scheduler.onDeviceConfigChanged(event(8L, true, DeviceConfigChangedEvent.EventType.DELETED));
+        assertFalse(scheduler.isScheduled(8L));
+    }
+
+    @Test
+    void deviceFoundUnpollableWhenFiredIsDropped() throws Exception {
+        completeWith(false);
+
+        scheduler.onDeviceConfigChanged(event(7L, true, DeviceConfigChangedEvent.EventType.SAVED));
+        Thread.sleep(20);
+        scheduler.tick();
+
+        verify(pollPipeline).submit(eq(7L), any());
+        assertFalse(scheduler.isScheduled(7L));
+    }
+
+    @Test
+    void deviceStillInPipelineIsNotSubmittedAgain() throws Exception {
+        when(pollPipeline.submit(anyLong(), any())).thenReturn(true); // Never completes
+
+        scheduler.onDeviceConfigChanged(new DeviceConfigChangedEvent(this, 7L, 1, true, true,
+            DeviceConfigChangedEvent.EventType.SAVED));
+        Thread.sleep(20);
+        scheduler.tick();
+        Thread.sleep(1100);
+        scheduler.tick();
+
+        verify(pollPipeline, times(1)).submit(eq(7L), any());
+        assertTrue(scheduler.isScheduled(7L));
+    }
+
+    @Test
+    void rejectedPollKeepsDeviceScheduled() throws Exception {
+        when(pollPipeline.submit(anyLong(), any())).thenReturn(false);
+
+        scheduler.onDeviceConfigChanged(event(7L, true, DeviceConfigChangedEvent.EventType.SAVED));
+        Thread.sleep(20);
+        scheduler.tick();
+
+        verify(pollPipeline).submit(eq(7L), any());
+        assertTrue(scheduler.isScheduled(7L));
+    }
+
+    @Test
+    void phaseIsStableAndWithinInterval() {
+        long period = 300_000;
+        for (long id = 1; id <= 100; id++) {
+            long phase = DevicePollScheduler.phase(id, period);
+            assertTrue(phase >= 0 && phase < period);
+            assertEquals(phase, DevicePollScheduler.phase(id, period));
+        }
+        assertNotEquals(DevicePollScheduler.phase(1, period), DevicePollScheduler.phase(2, period));
+    }
+
+    private void completeWith(boolean pollable) {
+        when(pollPipeline.submit(anyLong(), any())).thenAnswer(invocation -> {
+            invocation.<Consumer<Boolean>>getArgument(1).accept(pollable);
+            return true;
+        });
+    }
+
+    private DeviceConfig config(Long id, boolean monitoringEnabled) {
+        Device device = Device.builder().id(id).name("device-" + id).monitoringEnabled(monitoringEnabled).build();
+        return DeviceConfig.builder().id(id).device(device).targetIp("10.0.0." + id).pollInterval(60)
+            .lastPollTime(LocalDateTime.now())
+            .build();
+    }
+
+    private DeviceConfigChangedEvent event(Long configId, boolean pollable, DeviceConfigChangedEvent.EventType type) {
+        return new DeviceConfigChangedEvent(this, configId, 60, pollable, true, type);
+    }
+}
@@ -0,0 +1,162 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import com.farukgenc.boilerplate.springboot.model.InterfaceMetric;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.snmp4j.smi.Counter32;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.TimeTicks;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DevicePollTransformerTest {
+
+    private final PollChangeTracker tracker = new PollChangeTracker(new SnmpProperties(), new SimpleMeterRegistry());
+    private final InterfaceRateCalculator rateCalculator = new InterfaceRateCalculator(new SnmpProperties(), new SimpleMeterRegistry());
+    private final DevicePollTransformer transformer = new DevicePollTransformer(tracker, rateCalculator,
+        new ScalarRateCalculator(new SnmpProperties()));
+
+    @Test
+    void dropsEmptyGroupsAndUnindexedRows() {
+        ScalarPollGroup systemGroup = mock(ScalarPollGroup.class);
+        when(systemGroup.getGroupName()).thenReturn("system info");
+        ScalarPollGroup udpGroup = mock(ScalarPollGroup.class);
+        SnmpColumns sysName = SnmpColumns.of(SnmpOids.SYS_NAME);
+        SnmpColumns ifDescr = SnmpColumns.of(SnmpOids.IF_DESCR);
+        SnmpTableRow eth0 = new SnmpTableRow(new OID(new int[]{1}), ifDescr);
+        SnmpTableRow unindexed = new SnmpTableRow(new OID(new int[]{0}), ifDescr);
+        LocalDateTime polledAt = LocalDateTime.now();
+
+        DevicePollSnapshot snapshot = DevicePollSnapshot.reachable(7L, polledAt,
+            Map.of(systemGroup, SnmpScalars.from(sysName, Map.of(SnmpOids.SYS_NAME, new OctetString("router"))),
+                udpGroup, SnmpScalars.from(SnmpColumns.of(SnmpOids.UDP_IN_DATAGRAMS), Map.of())),
+            Map.of(), List.of(eth0, unindexed), List.of(unindexed));
+
+        DevicePollSnapshot transformed = transformer.transform(snapshot);
+
+        assertTrue(transformed.isReachable());
+        assertEquals(polledAt, transformed.getPolledAt());
+        assertEquals(List.of(systemGroup), List.copyOf(transformed.getScalars().keySet()));
+        assertEquals(List.of(eth0), transformed.getInterfaces());
+        assertEquals(List.of(), transformed.getSystemUnits());
+    }
+
+    @Test
+    void marksWhatChangedSinceTheLastWrite() {
+        ScalarPollGroup systemGroup = mock(ScalarPollGroup.class);
+        when(systemGroup.getGroupName()).thenReturn("system info");
+        SnmpColumns ifDescr = SnmpColumns.of(SnmpOids.IF_DESCR);
+        Map<ScalarPollGroup, SnmpScalars> scalars = Map.of(systemGroup,
+            SnmpScalars.from(SnmpColumns.of(SnmpOids.SYS_NAME), Map.of(SnmpOids.SYS_NAME, new OctetString("router"))));
+
+        DevicePollSnapshot first = transformer.transform(DevicePollSnapshot.reachable(7L, LocalDateTime.now(),
+            scalars, Map.of(), List.of(row(ifDescr, 1, "eth0"), row(ifDescr, 2, "eth1")), List.of()));
+        assertFalse(first.getChanges().isUnchanged(PollChanges.INTERFACES));
+        assertTrue(first.getChanges().isChanged(PollChanges.INTERFACES, 1));
+        tracker.record(7L, first.getChanges(), Set.of());
+
+        DevicePollSnapshot second = transformer.transform(DevicePollSnapshot.reachable(7L, LocalDateTime.now(),
+            scalars, Map.of(), List.of(row(ifDescr, 1, "eth0"), row(ifDescr, 2, "wan0")), List.of()));
+
+        assertTrue(second.getChanges().isUnchanged("system info"));
+        assertFalse(second.getChanges().isUnchanged(PollChanges.INTERFACES));
+        assertFalse(second.getChanges().isChanged(PollChanges.INTERFACES, 1));
+        assertTrue(second.getChanges().isChanged(PollChanges.INTERFACES, 2));
+    }
+
+    @Test
+    void movingCountersDoNotChangeTheInterfaceRow() {
+        SnmpColumns columns = SnmpColumns.of(SnmpOids.IF_DESCR, SnmpOids.IF_IN_OCTETS);
+
+        DevicePollSnapshot first = transformer.transform(DevicePollSnapshot.reachable(7L, LocalDateTime.now(),
+            Map.of(), Map.of(), List.of(interfaceRow(columns, 1, "eth0", 1_000)), List.of()));
+        tracker.record(7L, first.getChanges(), Set.of());
+
+        DevicePollSnapshot second = transformer.transform(DevicePollSnapshot.reachable(7L, LocalDateTime.now(),
+            Map.of(), Map.of(), List.of(interfaceRow(columns, 1, "eth0", 2_000)), List.of()));
+
+        assertTrue(second.getChanges().isUnchanged(PollChanges.INTERFACES));
+        assertFalse(second.getChanges().isChanged(PollChanges.INTERFACES, 1));
+        assertTrue(second.getChanges().isChanged(PollChanges.INTERFACE_COUNTERS, 1));
+        tracker.record(7L, second.getChanges(), Set.of());
+
+        DevicePollSnapshot third = transformer.transform(DevicePollSnapshot.reachable(7L, LocalDateTime.now(),
+            Map.of(), Map.of(), List.of(interfaceRow(columns, 1, "wan0", 2_000)), List.of()));
+
+        assertTrue(third.getChanges().isChanged(PollChanges.INTERFACES, 1));
+        assertTrue(third.getChanges().isUnchanged(PollChanges.INTERFACE_COUNTERS));
+    }
+
+    @Test
+    void turnsInterfaceCountersIntoRates() {
+        ScalarPollGroup systemGroup = mock(ScalarPollGroup.class);
+        when(systemGroup.getGroupName()).thenReturn("system info");
+        SnmpColumns upTime = SnmpColumns.of(SnmpOids.SYS_UP_TIME);
+        SnmpColumns inOctets = SnmpColumns.of(SnmpOids.IF_IN_OCTETS);
+        LocalDateTime polledAt = LocalDateTime.now();
+
+        DevicePollSnapshot first = transformer.transform(DevicePollSnapshot.reachable(7L, polledAt,
+            Map.of(systemGroup, SnmpScalars.from(upTime, Map.of(SnmpOids.SYS_UP_TIME, new TimeTicks(100_000)))),
+            Map.of(), List.of(counterRow(inOctets, 1, 1_000)), List.of()));
+        DevicePollSnapshot second = transformer.transform(DevicePollSnapshot.reachable(7L, polledAt.plusSeconds(10),
+            Map.of(systemGroup, SnmpScalars.from(upTime, Map.of(SnmpOids.SYS_UP_TIME, new TimeTicks(101_000)))),
+            Map.of(), List.of(counterRow(inOctets, 1, 2_000)), List.of()));
+
+        assertEquals(List.of(), first.getInterfaceRates());
+        assertEquals(1, second.getInterfaceRates().size());
+        assertEquals(800f, second.getInterfaceRates().get(0).rates().get(InterfaceMetric.IN_BPS));
+    }
+
+    @Test
+    void turnsScalarCountersIntoRates() {
+        ScalarPollGroup udpGroup = mock(ScalarPollGroup.class);
+        when(udpGroup.getGroupName()).thenReturn("UDP profile");
+        SnmpColumns columns = SnmpColumns.of(SnmpOids.SYS_UP_TIME, SnmpOids.UDP_IN_DATAGRAMS);
+        LocalDateTime polledAt = LocalDateTime.now();
+
+        DevicePollSnapshot first = transformer.transform(DevicePollSnapshot.reachable(7L, polledAt,
+            Map.of(udpGroup, SnmpScalars.from(columns, Map.of(SnmpOids.SYS_UP_TIME, new TimeTicks(100_000),
+                SnmpOids.UDP_IN_DATAGRAMS, new Counter32(4_294_967_000L)))), Map.of(), List.of(), List.of()));
+        DevicePollSnapshot second = transformer.transform(DevicePollSnapshot.reachable(7L, polledAt.plusSeconds(10),
+            Map.of(udpGroup, SnmpScalars.from(columns, Map.of(SnmpOids.SYS_UP_TIME, new TimeTicks(101_000),
+                SnmpOids.UDP_IN_DATAGRAMS, new Counter32(704)))), Map.of(), List.of(), List.of()));
+
+        assertEquals(Map.of(), first.getScalarRates());
+        assertEquals(Map.of(SnmpOids.UDP_IN_DATAGRAMS, 100f), second.getScalarRates()); // 1000 datagrams across the wrap
+    }
+
+    @Test
+    void failedSnapshotPassesThrough() {
+        DevicePollSnapshot failed = DevicePollSnapshot.failed(7L, LocalDateTime.now(), "SNMP agent did not respond");
+
+        assertSame(failed, transformer.transform(failed));
+    }
+
+    private static SnmpTableRow counterRow(SnmpColumns columns, int index, long value) {
+        SnmpTableRow row = new SnmpTableRow(new OID(new int[]{index}), columns);
+        row.setValue(0, new Counter32(value));
+        return row;
+    }
+
+    private static SnmpTableRow interfaceRow(SnmpColumns columns, int index, String descr, long inOctets) {
+        SnmpTableRow row = new SnmpTableRow(new OID(new int[]{index}), columns);
+        row.setValue(0, new OctetString(descr));
+        row.setValue(1, new Counter32(inOctets));
+        return row;
+    }
+
+    private static SnmpTableRow row(SnmpColumns columns, int index, String descr) {
+        SnmpTableRow row = new SnmpTableRow(new OID(new int[]{index}), columns);
+        row.setValue(0, new OctetString(descr));
+        return row;
+    }
+}
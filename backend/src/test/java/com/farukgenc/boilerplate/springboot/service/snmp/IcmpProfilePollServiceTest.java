@@ -16,6 +16,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
+import static com.farukgenc.boilerplate.springboot.service.snmp.SnmpTestData.scalars;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -62,7 +63,7 @@ class IcmpProfilePollServiceTest {
     void testPollDeviceIcmpProfile_Success() {
         // Arrange
         Map<String, Variable> icmpData = createMockIcmpData();
-        when(snmpClientService.snmpGetMultiple(eq(config), any())).thenReturn(icmpData);
+        when(snmpClientService.snmpGetScalars(eq(config), any())).thenAnswer(invocation -> scalars(invocation.getArgument(1), icmpData));
         when(icmpProfileRepository.findByDeviceId(device.getId())).thenReturn(Optional.of(existingProfile));
         when(icmpProfileRepository.save(any(IcmpProfile.class))).thenReturn(existingProfile);
 
@@ -70,7 +71,7 @@ class IcmpProfilePollServiceTest {
         icmpProfilePollService.pollDeviceIcmpProfile(device, config);
 
         // Assert
-        verify(snmpClientService).snmpGetMultiple(eq(config), any());
+        verify(snmpClientService).snmpGetScalars(eq(config), any());
         verify(icmpProfileRepository).findByDeviceId(device.getId());
         verify(icmpProfileRepository).save(any(IcmpProfile.class));
     }
@@ -79,7 +80,7 @@ class IcmpProfilePollServiceTest {
     void testPollDeviceIcmpProfile_NewProfile() {
         // Arrange
         Map<String, Variable> icmpData = createMockIcmpData();
-        when(snmpClientService.snmpGetMultiple(eq(config), any())).thenReturn(icmpData);
+        when(snmpClientService.snmpGetScalars(eq(config), any())).thenAnswer(invocation -> scalars(invocation.getArgument(1), icmpData));
         when(icmpProfileRepository.findByDeviceId(device.getId())).thenReturn(Optional.empty());
         when(icmpProfileRepository.save(any(IcmpProfile.class))).thenReturn(existingProfile);
 
@@ -87,7 +88,7 @@ class IcmpProfilePollServiceTest {
         icmpProfilePollService.pollDeviceIcmpProfile(device, config);
 
         // Assert
-        verify(snmpClientService).snmpGetMultiple(eq(config), any());
+        verify(snmpClientService).snmpGetScalars(eq(config), any());
         verify(icmpProfileRepository).findByDeviceId(device.getId());
         verify(icmpProfileRepository).save(any(IcmpProfile.class));
     }
@@ -95,20 +96,20 @@ class IcmpProfilePollServiceTest {
     @Test
     void testPollDeviceIcmpProfile_EmptyData() {
         // Arrange
-        when(snmpClientService.snmpGetMultiple(eq(config), any())).thenReturn(new HashMap<>());
+        when(snmpClientService.snmpGetScalars(eq(config), any())).thenAnswer(invocation -> scalars(invocation.getArgument(1), new HashMap<>()));
 
         // Act
         icmpProfilePollService.pollDeviceIcmpProfile(device, config);
 
         // Assert
-        verify(snmpClientService).snmpGetMultiple(eq(config), any());
+        verify(snmpClientService).snmpGetScalars(eq(config), any());
         verify(icmpProfileRepository, never()).save(any());
     }
 
     @Test
     void testPollDeviceIcmpProfile_SnmpException() {
         // Arrange
-        when(snmpClientService.snmpGetMultiple(eq(config), any())).thenThrow(new RuntimeException("SNMP error"));
+        when(snmpClientService.snmpGetScalars(eq(config), any())).thenThrow(new RuntimeException("SNMP error"));
 
         // Act & Assert
         try {
@@ -117,7 +118,7 @@ class IcmpProfilePollServiceTest {
             // Expected
         }
 
-        verify(snmpClientService).snmpGetMultiple(eq(config), any());
+        verify(snmpClientService).snmpGetScalars(eq(config), any());
         verify(icmpProfileRepository, never()).save(any());
     }
 
@@ -129,7 +130,7 @@ class IcmpProfilePollServiceTest {
         when(mockVariable.toLong()).thenReturn(150L);
         partialData.put("1.3.6.1.2.1.5.1.0", mockVariable); // icmpInMsgs only
 
-        when(snmpClientService.snmpGetMultiple(eq(config), any())).thenReturn(partialData);
+        when(snmpClientService.snmpGetScalars(eq(config), any())).thenAnswer(invocation -> scalars(invocation.getArgument(1), partialData));
         when(icmpProfileRepository.findByDeviceId(device.getId())).thenReturn(Optional.of(existingProfile));
         when(icmpProfileRepository.save(any(IcmpProfile.class))).thenReturn(existingProfile);
 
@@ -137,7 +138,7 @@ class IcmpProfilePollServiceTest {
         icmpProfilePollService.pollDeviceIcmpProfile(device, config);
 
         // Assert
-        verify(snmpClientService).snmpGetMultiple(eq(config), any());
+        verify(snmpClientService).snmpGetScalars(eq(config), any());
         verify(icmpProfileRepository).findByDeviceId(device.getId());
         verify(icmpProfileRepository).save(any(IcmpProfile.class));
     }
@@ -3,16 +3,20 @@ package com.farukgenc.boilerplate.springboot.service.snmp;
 import com.farukgenc.boilerplate.springboot.model.Device;
 import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
 import com.farukgenc.boilerplate.springboot.model.DeviceInterface;
+import com.farukgenc.boilerplate.springboot.model.DeviceInterfaceStats;
 import com.farukgenc.boilerplate.springboot.repository.DeviceInterfaceRepository;
+import com.farukgenc.boilerplate.springboot.utils.SnmpDataParser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.snmp4j.smi.Variable;
-import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.Counter32;
 import org.snmp4j.smi.Integer32;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.OctetString;
 
 import java.util.*;
 
@@ -24,11 +28,14 @@ import static org.junit.jupiter.api.Assertions.*;
 class InterfacePollServiceTest {
 
     @Mock
-    private SnmpClientService snmpClientService;
+    private SnmpTableFetcher snmpTableFetcher;
 
     @Mock
     private DeviceInterfaceRepository deviceInterfaceRepository;
 
+    @Mock
+    private SnmpDataParser snmpDataParser;
+
     @InjectMocks
     private InterfacePollService interfacePollService;
 
@@ -54,49 +61,46 @@ class InterfacePollServiceTest {
     @Test
     void testPollDeviceInterfaces_Success() {
         // Arrange
-        Map<String, Variable> interfaceIndices = new HashMap<>();
-        interfaceIndices.put("1.3.6.1.2.1.2.2.1.1.1", new Integer32(1));
-        interfaceIndices.put("1.3.6.1.2.1.2.2.1.1.2", new Integer32(2));
-
-        Map<String, Variable> interfaceData = new HashMap<>();
-        interfaceData.put("1.3.6.1.2.1.2.2.1.2.1", new OctetString("eth0"));
-        interfaceData.put("1.3.6.1.2.1.2.2.1.3.1", new Integer32(6));
-        interfaceData.put("1.3.6.1.2.1.2.2.1.4.1", new Integer32(1500));
-
-        when(snmpClientService.snmpWalk(eq(testConfig), anyString(), anyInt()))
-            .thenReturn(interfaceIndices);
-        when(snmpClientService.snmpGetMultiple(eq(testConfig), anyList()))
-            .thenReturn(interfaceData);
-        when(deviceInterfaceRepository.findByDeviceId(testDevice.getId()))
-            .thenReturn(new ArrayList<>());
+        List<SnmpTableRow> rows = List.of(
+            interfaceRow(1, "eth0", 6, 1500),
+            interfaceRow(2, "eth1", 6, 1500)
+        );
+
+        when(snmpTableFetcher.fetchTable(eq(testConfig), any(SnmpColumns.class))).thenReturn(rows);
+        when(deviceInterfaceRepository.findByDeviceId(1L)).thenReturn(List.of());
 
         // Act
         interfacePollService.pollDeviceInterfaces(testDevice, testConfig);
 
         // Assert
-        verify(snmpClientService).snmpWalk(eq(testConfig), eq("1.3.6.1.2.1.2.2.1.1"), eq(100));
-        verify(snmpClientService, times(2)).snmpGetMultiple(eq(testConfig), anyList());
-        verify(deviceInterfaceRepository).saveAll(anyList());
+        verify(snmpTableFetcher, times(1)).fetchTable(eq(testConfig), any(SnmpColumns.class));
+        ArgumentCaptor<List<DeviceInterface>> saved = ArgumentCaptor.forClass(List.class);
+        verify(deviceInterfaceRepository).saveAll(saved.capture());
+        assertEquals(2, saved.getValue().size());
+        assertEquals("eth0", saved.getValue().get(0).getIfDescr());
+        assertEquals(1500, saved.getValue().get(0).getIfMtu());
+        verify(deviceInterfaceRepository).findByDeviceId(1L);
+        verify(deviceInterfaceRepository, never()).deleteAll(anyList());
     }
 
     @Test
     void testPollDeviceInterfaces_NoInterfaces() {
         // Arrange
-        when(snmpClientService.snmpWalk(eq(testConfig), anyString(), anyInt()))
-            .thenReturn(new HashMap<>());
+        when(snmpTableFetcher.fetchTable(eq(testConfig), any(SnmpColumns.class)))
+            .thenReturn(new ArrayList<>());
 
         // Act
         interfacePollService.pollDeviceInterfaces(testDevice, testConfig);
 
         // Assert
-        verify(snmpClientService).snmpWalk(eq(testConfig), eq("1.3.6.1.2.1.2.2.1.1"), eq(100));
+        verify(snmpTableFetcher).fetchTable(eq(testConfig), any(SnmpColumns.class));
         verify(deviceInterfaceRepository, never()).saveAll(anyList());
     }
 
     @Test
     void testPollDeviceInterfaces_Exception() {
         // Arrange
-        when(snmpClientService.snmpWalk(eq(testConfig), anyString(), anyInt()))
+        when(snmpTableFetcher.fetchTable(eq(testConfig), any(SnmpColumns.class)))
             .thenThrow(new RuntimeException("SNMP error"));
 
         // Act & Assert
@@ -108,42 +112,24 @@ class InterfacePollServiceTest {
     @Test
     void testPollDeviceInterfaces_RemoveStaleInterfaces() {
         // Arrange
-        Map<String, Variable> interfaceIndices = new HashMap<>();
-        interfaceIndices.put("1.3.6.1.2.1.2.2.1.1.1", new Integer32(1));
-
-        DeviceInterface staleInterface = DeviceInterface.builder()
-            .id(2L)
-            .device(testDevice)
-            .ifIndex(2)
-            .ifDescr("eth1")
-            .build();
-
-        List<DeviceInterface> existingInterfaces = Arrays.asList(staleInterface);
-
-        when(snmpClientService.snmpWalk(eq(testConfig), anyString(), anyInt()))
-            .thenReturn(interfaceIndices);
-        when(snmpClientService.snmpGetMultiple(eq(testConfig), anyList()))
-            .thenReturn(new HashMap<>());
-        when(deviceInterfaceRepository.findByDeviceId(testDevice.getId()))
-            .thenReturn(existingInterfaces);
+        DeviceInterface kept = DeviceInterface.builder().id(1L).device(testDevice).ifIndex(1).build();
+        DeviceInterface stale = DeviceInterface.builder().id(2L).device(testDevice).ifIndex(2).build();
+        DeviceInterface duplicate = DeviceInterface.builder().id(3L).device(testDevice).ifIndex(1).build();
+        when(snmpTableFetcher.fetchTable(eq(testConfig), any(SnmpColumns.class)))
+            .thenReturn(List.of(interfaceRow(1, "eth0", 6, 1500)));
+        when(deviceInterfaceRepository.findByDeviceId(1L)).thenReturn(List.of(kept, stale, duplicate));
 
         // Act
         interfacePollService.pollDeviceInterfaces(testDevice, testConfig);
 
         // Assert
-        verify(deviceInterfaceRepository).deleteAll(eq(Arrays.asList(staleInterface)));
+        verify(deviceInterfaceRepository).saveAll(List.of(kept));
+        verify(deviceInterfaceRepository).deleteAll(List.of(stale, duplicate));
     }
 
     @Test
     void testPollDeviceInterfaces_UpdateExistingInterface() {
         // Arrange
-        Map<String, Variable> interfaceIndices = new HashMap<>();
-        interfaceIndices.put("1.3.6.1.2.1.2.2.1.1.1", new Integer32(1));
-
-        Map<String, Variable> interfaceData = new HashMap<>();
-        interfaceData.put("1.3.6.1.2.1.2.2.1.2.1", new OctetString("eth0-updated"));
-        interfaceData.put("1.3.6.1.2.1.2.2.1.3.1", new Integer32(6));
-
         DeviceInterface existingInterface = DeviceInterface.builder()
             .id(1L)
             .device(testDevice)
@@ -151,14 +137,9 @@ class InterfacePollServiceTest {
             .ifDescr("eth0")
             .build();
 
-        when(snmpClientService.snmpWalk(eq(testConfig), anyString(), anyInt()))
-            .thenReturn(interfaceIndices);
-        when(snmpClientService.snmpGetMultiple(eq(testConfig), anyList()))
-            .thenReturn(interfaceData);
-        when(deviceInterfaceRepository.findByDeviceIdAndIfIndex(testDevice.getId(), 1))
-            .thenReturn(Optional.of(existingInterface));
-        when(deviceInterfaceRepository.findByDeviceId(testDevice.getId()))
-            .thenReturn(Arrays.asList(existingInterface));
+        when(snmpTableFetcher.fetchTable(eq(testConfig), any(SnmpColumns.class)))
+            .thenReturn(List.of(interfaceRow(1, "eth0-updated", 6, 1500)));
+        when(deviceInterfaceRepository.findByDeviceId(1L)).thenReturn(List.of(existingInterface));
 
         // Act
         interfacePollService.pollDeviceInterfaces(testDevice, testConfig);
@@ -167,4 +148,83 @@ class InterfacePollServiceTest {
         verify(deviceInterfaceRepository).saveAll(anyList());
         assertEquals("eth0-updated", existingInterface.getIfDescr());
     }
+
+    @Test
+    void testPollDeviceInterfaces_CountersGoToStatsRow() {
+        // Arrange
+        DeviceInterface existingInterface = DeviceInterface.builder().id(1L).device(testDevice).ifIndex(1).build();
+        SnmpColumns columns = SnmpColumns.of(SnmpOids.IF_DESCR, SnmpOids.IF_IN_OCTETS, SnmpOids.IF_OUT_ERRORS);
+        SnmpTableRow row = new SnmpTableRow(new OID(new int[]{1}), columns);
+        row.setValue(0, new OctetString("eth0"));
+        row.setValue(1, new Counter32(1234));
+        row.setValue(2, new Counter32(5));
+        when(deviceInterfaceRepository.findByDeviceId(1L)).thenReturn(List.of(existingInterface));
+
+        // Act
+        interfacePollService.applyInterfaces(testDevice, List.of(row));
+
+        // Assert
+        assertNotNull(existingInterface.getStats());
+        assertSame(existingInterface, existingInterface.getStats().getDeviceInterface());
+        assertEquals(1234L, existingInterface.getStats().getIfInOctets());
+        assertEquals(5L, existingInterface.getStats().getIfOutErrors());
+    }
+
+    @Test
+    void testApplyInterfaces_CountersOnlyChangeLeavesDescriptiveColumns() {
+        // Arrange
+        DeviceInterface existingInterface = DeviceInterface.builder().id(1L).device(testDevice).ifIndex(1).ifDescr("eth0").build();
+        when(deviceInterfaceRepository.findByDeviceId(1L)).thenReturn(List.of(existingInterface));
+        PollChanges changes = new PollChanges(Map.of(), Map.of(PollChanges.INTERFACES, Set.of()),
+            Set.of(), Set.of());
+
+        // Act
+        interfacePollService.applyInterfaces(testDevice, List.of(counterRow(1, "renamed", 1234)), changes);
+
+        // Assert
+        verify(deviceInterfaceRepository).saveAll(List.of(existingInterface));
+        assertEquals("eth0", existingInterface.getIfDescr());
+        assertEquals(1234L, existingInterface.getStats().getIfInOctets());
+    }
+
+    @Test
+    void testStageInterfaces_StagesStatsOnlyWhenCountersAloneChanged() {
+        // Arrange
+        PollUpsertBatch batch = mock(PollUpsertBatch.class);
+        PollChanges changes = new PollChanges(Map.of(),
+            Map.of(PollChanges.INTERFACES, Set.of(2), PollChanges.INTERFACE_COUNTERS, Set.of(1, 2)),
+            Set.of(), Set.of());
+
+        // Act
+        interfacePollService.stageInterfaces(testDevice,
+            List.of(counterRow(1, "eth0", 1234), counterRow(2, "eth1", 99), counterRow(3, "eth2", 7)), changes, batch);
+
+        // Assert
+        ArgumentCaptor<DeviceInterfaceStats> stats = ArgumentCaptor.forClass(DeviceInterfaceStats.class);
+        verify(batch).addInterfaceStats(stats.capture());
+        assertEquals(1, stats.getValue().getDeviceInterface().getIfIndex());
+        assertNull(stats.getValue().getDeviceInterface().getIfDescr());
+        assertEquals(1234L, stats.getValue().getIfInOctets());
+        ArgumentCaptor<DeviceInterface> interfaces = ArgumentCaptor.forClass(DeviceInterface.class);
+        verify(batch).addInterface(interfaces.capture());
+        assertEquals("eth1", interfaces.getValue().getIfDescr());
+        verify(batch, never()).keepOnlyInterfaces(any(), any());
+    }
+
+    private SnmpTableRow counterRow(int ifIndex, String descr, long inOctets) {
+        SnmpTableRow row = new SnmpTableRow(new OID(new int[]{ifIndex}), SnmpColumns.of(SnmpOids.IF_DESCR, SnmpOids.IF_IN_OCTETS));
+        row.setValue(0, new OctetString(descr));
+        row.setValue(1, new Counter32(inOctets));
+        return row;
+    }
+
+    private SnmpTableRow interfaceRow(int ifIndex, String descr, int type, int mtu) {
+        SnmpColumns columns = SnmpColumns.of(SnmpOids.IF_INDEX, SnmpOids.IF_DESCR, SnmpOids.IF_TYPE, SnmpOids.IF_MTU);
+        SnmpTableRow row = new SnmpTableRow(new OID(new int[]{ifIndex}), columns);
+        row.setValue(0, new Integer32(ifIndex));
+        row.setValue(1, new OctetString(descr));
+        row.setValue(2, new Integer32(type));
+        row.setValue(3, new Integer32(mtu));
+        return row;
+    }
 }
@@ -0,0 +1,135 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import com.farukgenc.boilerplate.springboot.event.DeviceConfigChangedEvent;
+import com.farukgenc.boilerplate.springboot.model.InterfaceMetric;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.snmp4j.smi.Counter32;
+import org.snmp4j.smi.Counter64;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.TimeTicks;
+import org.snmp4j.smi.Variable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InterfaceRateCalculatorTest {
+
+    private static final SnmpColumns COLUMNS = SnmpColumns.of(
+        SnmpOids.IF_IN_OCTETS, SnmpOids.IF_HC_IN_OCTETS, SnmpOids.IF_IN_ERRORS, SnmpOids.IF_COUNTER_DISCONTINUITY_TIME);
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private SimpleMeterRegistry meterRegistry;
+    private InterfaceRateCalculator calculator;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        calculator = new InterfaceRateCalculator(new SnmpProperties(), meterRegistry);
+    }
+
+    @Test
+    void firstPollOnlySetsTheBaseline() {
+        assertEquals(List.of(), calculator.sample(7L, T0, 100_000L, List.of(row(1, new Counter32(0), null, null))));
+    }
+
+    @Test
+    void ratesArePerSecondOverTheInterval() {
+        calculator.sample(7L, T0, 100_000L, List.of(row(1, new Counter32(1_000), new Counter32(5), null)));
+
+        List<InterfaceRates> rates = calculator.sample(7L, T0.plusSeconds(10), 101_000L,
+            List.of(row(1, new Counter32(11_000), new Counter32(25), null)));
+
+        assertEquals(1, rates.size());
+        assertEquals(10_000, rates.get(0).intervalMillis());
+        assertEquals(8_000f, rates.get(0).rates().get(InterfaceMetric.IN_BPS));
+        assertEquals(2f, rates.get(0).rates().get(InterfaceMetric.IN_ERRORS));
+        assertFalse(rates.get(0).rates().containsKey(InterfaceMetric.OUT_BPS));
+    }
+
+    @Test
+    void counter32WrapIsCountedOnce() {
+        calculator.sample(7L, T0, 100_000L, List.of(row(1, new Counter32(4_294_967_000L), null, null)));
+
+        List<InterfaceRates> rates = calculator.sample(7L, T0.plusSeconds(1), 100_100L,
+            List.of(row(1, new Counter32(704), null, null)));
+
+        assertEquals(8_000f, rates.get(0).rates().get(InterfaceMetric.IN_BPS)); // 296 + 704 octets
+    }
+
+    @Test
+    void counter64IsPreferredAndNotWrapped() {
+        calculator.sample(7L, T0, 100_000L, List.of(row(1, new Counter32(9), null, new Counter64(5_000_000_000L))));
+
+        List<InterfaceRates> grown = calculator.sample(7L, T0.plusSeconds(1), 100_100L,
+            List.of(row(1, new Counter32(1), null, new Counter64(5_000_000_100L))));
+        List<InterfaceRates> reset = calculator.sample(7L, T0.plusSeconds(2), 100_200L,
+            List.of(row(1, new Counter32(2), null, new Counter64(10))));
+
+        assertEquals(800f, grown.get(0).rates().get(InterfaceMetric.IN_BPS));
+        assertEquals(List.of(), reset);
+    }
+
+    @Test
+    void agentRestartGivesNoRates() {
+        calculator.sample(7L, T0, 100_000L, List.of(row(1, new Counter32(1_000), null, null)));
+
+        assertEquals(List.of(), calculator.sample(7L, T0.plusSeconds(60), 500L, List.of(row(1, new Counter32(10), null, null))));
+        assertEquals(1.0, meterRegistry.get("snmp.poll.counter.resets").counter().count());
+        assertEquals(1, calculator.sample(7L, T0.plusSeconds(70), 1_500L, List.of(row(1, new Counter32(20), null, null))).size());
+    }
+
+    @Test
+    void sysUpTimeWrapIsNotARestart() {
+        assertFalse(InterfaceRateCalculator.agentRestarted(4_294_966_296L, 5_000L, 60_000));
+        assertTrue(InterfaceRateCalculator.agentRestarted(4_294_966_296L, 500_000L, 60_000));
+        assertTrue(InterfaceRateCalculator.agentRestarted(100L, 2_000L, 600_000));
+        assertFalse(InterfaceRateCalculator.agentRestarted(null, 2_000L, 600_000));
+    }
+
+    @Test
+    void discontinuityOfAnInterfaceSkipsOnlyThatInterface() {
+        calculator.sample(7L, T0, 100_000L, List.of(row(1, new Counter32(0), null, null, new TimeTicks(0)),
+            row(2, new Counter32(0), null, null, new TimeTicks(0))));
+
+        List<InterfaceRates> rates = calculator.sample(7L, T0.plusSeconds(10), 101_000L,
+            List.of(row(1, new Counter32(10), null, null, new TimeTicks(100_500)),
+                row(2, new Counter32(10), null, null, new TimeTicks(0))));
+
+        assertEquals(List.of(2), rates.stream().map(InterfaceRates::ifIndex).toList());
+    }
+
+    @Test
+    void pollsTooFarApartRestartTheSeries() {
+        calculator.sample(7L, T0, 100_000L, List.of(row(1, new Counter32(0), null, null)));
+
+        assertEquals(List.of(), calculator.sample(7L, T0.plusHours(1), 460_000L, List.of(row(1, new Counter32(10), null, null))));
+    }
+
+    @Test
+    void deletedConfigIsForgotten() {
+        calculator.sample(7L, T0, 100_000L, List.of(row(1, new Counter32(0), null, null)));
+
+        calculator.onDeviceConfigChanged(new DeviceConfigChangedEvent(this, 7L, 300, false, false,
+            DeviceConfigChangedEvent.EventType.DELETED));
+
+        assertEquals(List.of(), calculator.sample(7L, T0.plusSeconds(10), 101_000L, List.of(row(1, new Counter32(10), null, null))));
+    }
+
+    private static SnmpTableRow row(int ifIndex, Variable inOctets, Variable inErrors, Variable hcInOctets) {
+        return row(ifIndex, inOctets, inErrors, hcInOctets, null);
+    }
+
+    private static SnmpTableRow row(int ifIndex, Variable inOctets, Variable inErrors, Variable hcInOctets, Variable discontinuity) {
+        SnmpTableRow row = new SnmpTableRow(new OID(new int[]{ifIndex}), COLUMNS);
+        row.setValue(0, inOctets);
+        row.setValue(1, hcInOctets);
+        row.setValue(2, inErrors);
+        row.setValue(3, discontinuity);
+        return row;
+    }
+}
@@ -0,0 +1,160 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import com.farukgenc.boilerplate.springboot.event.DeviceConfigChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.snmp4j.smi.Counter32;
+import org.snmp4j.smi.Gauge32;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.Variable;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PollChangeTrackerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PollChangeTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tracker = new PollChangeTracker(new SnmpProperties(), meterRegistry);
+    }
+
+    @Test
+    void firstPollChangesEverythingAndRepeatChangesNothing() {
+        Map<String, Map<Object, Long>> poll = Map.of(PollChanges.INTERFACES, Map.of(1, 10L, 2, 20L));
+
+        PollChanges first = tracker.compare(7L, poll);
+        tracker.record(7L, first, Set.of());
+        PollChanges second = tracker.compare(7L, poll);
+
+        assertFalse(first.isUnchanged(PollChanges.INTERFACES));
+        assertTrue(first.isChanged(PollChanges.INTERFACES, 1));
+        assertTrue(second.isUnchanged(PollChanges.INTERFACES));
+        assertFalse(second.isChanged(PollChanges.INTERFACES, 1));
+        assertEquals(4.0, meterRegistry.get("snmp.poll.rows").tag("state", "polled").counter().count());
+        assertEquals(2.0, meterRegistry.get("snmp.poll.rows").tag("state", "changed").counter().count());
+    }
+
+    @Test
+    void onlyChangedAndNewRowsAreMarked() {
+        tracker.record(7L, tracker.compare(7L, Map.of(PollChanges.INTERFACES, Map.of(1, 10L, 2, 20L))), Set.of());
+
+        PollChanges changes = tracker.compare(7L, Map.of(PollChanges.INTERFACES, Map.of(1, 10L, 2, 21L, 3, 30L)));
+
+        assertFalse(changes.isUnchanged(PollChanges.INTERFACES));
+        assertFalse(changes.isChanged(PollChanges.INTERFACES, 1));
+        assertTrue(changes.isChanged(PollChanges.INTERFACES, 2));
+        assertTrue(changes.isChanged(PollChanges.INTERFACES, 3));
+    }
+
+    @Test
+    void missingRowMakesThePartChangedSoItIsReconciled() {
+        tracker.record(7L, tracker.compare(7L, Map.of(PollChanges.INTERFACES, Map.of(1, 10L, 2, 20L))), Set.of());
+
+        PollChanges changes = tracker.compare(7L, Map.of(PollChanges.INTERFACES, Map.of(1, 10L)));
+
+        assertFalse(changes.isUnchanged(PollChanges.INTERFACES));
+        assertFalse(changes.isChanged(PollChanges.INTERFACES, 1));
+        assertTrue(changes.mayHaveRemovedRows(PollChanges.INTERFACES));
+    }
+
+    @Test
+    void onlyPartsMissingRowsOrNeverComparedMayHaveRemovedRows() {
+        tracker.record(7L, tracker.compare(7L, Map.of(PollChanges.INTERFACES, Map.of(1, 10L, 2, 20L))), Set.of());
+
+        PollChanges changes = tracker.compare(7L, Map.of(PollChanges.INTERFACES, Map.of(1, 11L, 2, 20L, 3, 30L),
+            PollChanges.SYSTEM_UNITS, Map.of(1, 10L)));
+
+        assertFalse(changes.mayHaveRemovedRows(PollChanges.INTERFACES));
+        assertTrue(changes.mayHaveRemovedRows(PollChanges.SYSTEM_UNITS));
+    }
+
+    @Test
+    void failedPartIsForgottenAndWrittenAgain() {
+        Map<String, Map<Object, Long>> poll = Map.of("system info", Map.of("system info", 5L),
+            PollChanges.SYSTEM_UNITS, Map.of(1, 10L));
+        tracker.record(7L, tracker.compare(7L, poll), Set.of());
+        tracker.record(7L, tracker.compare(7L, Map.of("system info", Map.of("system info", 6L),
+            PollChanges.SYSTEM_UNITS, Map.of(1, 10L))), Set.of("system info"));
+
+        PollChanges changes = tracker.compare(7L, Map.of("system info", Map.of("system info", 6L),
+            PollChanges.SYSTEM_UNITS, Map.of(1, 10L)));
+
+        assertFalse(changes.isUnchanged("system info"));
+        assertTrue(changes.isUnchanged(PollChanges.SYSTEM_UNITS));
+    }
+
+    @Test
+    void expiredFingerprintsCountAsChanged() {
+        SnmpProperties properties = new SnmpProperties();
+        properties.getChangeDetection().setMaxAge(Duration.ZERO);
+        tracker = new PollChangeTracker(properties, meterRegistry);
+        Map<String, Map<Object, Long>> poll = Map.of(PollChanges.INTERFACES, Map.of(1, 10L));
+        tracker.record(7L, tracker.compare(7L, poll), Set.of());
+
+        assertFalse(tracker.compare(7L, poll).isUnchanged(PollChanges.INTERFACES));
+    }
+
+    @Test
+    void disabledTrackerChangesEverything() {
+        SnmpProperties properties = new SnmpProperties();
+        properties.getChangeDetection().setEnabled(false);
+        tracker = new PollChangeTracker(properties, new SimpleMeterRegistry());
+        Map<String, Map<Object, Long>> poll = Map.of(PollChanges.INTERFACES, Map.of(1, 10L));
+        tracker.record(7L, tracker.compare(7L, poll), Set.of());
+
+        assertFalse(tracker.compare(7L, poll).isUnchanged(PollChanges.INTERFACES));
+    }
+
+    @Test
+    void deletedConfigIsForgotten() {
+        Map<String, Map<Object, Long>> poll = Map.of(PollChanges.INTERFACES, Map.of(1, 10L));
+        tracker.record(7L, tracker.compare(7L, poll), Set.of());
+
+        tracker.onDeviceConfigChanged(new DeviceConfigChangedEvent(this, 7L, 300, false, false,
+            DeviceConfigChangedEvent.EventType.DELETED));
+
+        assertFalse(tracker.compare(7L, poll).isUnchanged(PollChanges.INTERFACES));
+    }
+
+    @Test
+    void ratioCoversRowsPolledSinceThePreviousReading() {
+        Map<String, Map<Object, Long>> poll = Map.of(PollChanges.INTERFACES, Map.of(1, 10L, 2, 20L));
+        tracker.record(7L, tracker.compare(7L, poll), Set.of());
+        assertEquals(1.0, tracker.changedRatio());
+
+        tracker.compare(7L, Map.of(PollChanges.INTERFACES, Map.of(1, 10L, 2, 21L)));
+        tracker.compare(7L, poll);
+
+        assertEquals(0.25, meterRegistry.get("snmp.poll.rows.changed.ratio").gauge().value());
+    }
+
+    @Test
+    void fingerprintTracksValuesSyntaxAndIndex() {
+        OID index = new OID(new int[]{1});
+
+        assertEquals(PollChangeTracker.fingerprint(index, values(new OctetString("eth0"), new Counter32(5))),
+            PollChangeTracker.fingerprint(index, values(new OctetString("eth0"), new Counter32(5))));
+        assertNotEquals(PollChangeTracker.fingerprint(index, values(new OctetString("eth0"), new Counter32(5))),
+            PollChangeTracker.fingerprint(index, values(new OctetString("eth0"), new Counter32(6))));
+        assertNotEquals(PollChangeTracker.fingerprint(index, values(new Counter32(5))),
+            PollChangeTracker.fingerprint(index, values(new Gauge32(5))));
+        assertNotEquals(PollChangeTracker.fingerprint(index, values(new OctetString(""))),
+            PollChangeTracker.fingerprint(index, values((Variable) null)));
+        assertNotEquals(PollChangeTracker.fingerprint(index, values(new Counter32(5))),
+            PollChangeTracker.fingerprint(new OID(new int[]{2}), values(new Counter32(5))));
+    }
+
+    private static Variable[] values(Variable... values) {
+        return values;
+    }
+}
@@ -0,0 +1,206 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import com.farukgenc.boilerplate.springboot.model.Device;
+import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
+import com.farukgenc.boilerplate.springboot.repository.DeviceConfigRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class PollPipelineTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private DeviceConfigRepository deviceConfigRepository;
+    private DevicePollCollector devicePollCollector;
+    private PollResultWriter pollResultWriter;
+    private PollPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        deviceConfigRepository = mock(DeviceConfigRepository.class);
+        devicePollCollector = mock(DevicePollCollector.class);
+        pollResultWriter = mock(PollResultWriter.class);
+
+        when(deviceConfigRepository.findByIdWithDevice(anyLong()))
+            .thenAnswer(invocation -> Optional.of(config(invocation.getArgument(0), true)));
+        when(devicePollCollector.collect(any())).thenAnswer(invocation -> CompletableFuture.completedFuture(
+            DevicePollSnapshot.reachable(invocation.<DeviceConfig>getArgument(0).getId(), LocalDateTime.now(),
+                Map.of(), Map.of(), List.of(), List.of())));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.stop();
+    }
+
+    @Test
+    void pollFlowsThroughEveryStage() throws Exception {
+        start(new SnmpProperties());
+        when(pollResultWriter.applyAll(any())).thenReturn(Map.of(7L, true));
+        CompletableFuture<Boolean> done = new CompletableFuture<>();
+
+        assertTrue(pipeline.submit(7L, done::complete));
+
+        assertTrue(done.get(5, TimeUnit.SECONDS));
+        verify(devicePollCollector).collect(argThat(config -> config.getId() == 7L));
+        verify(pollResultWriter).applyAll(argThat(snapshots -> snapshots.size() == 1
+            && snapshots.iterator().next().getConfigId() == 7L));
+        assertNotNull(meterRegistry.find("snmp.pipeline.queue.depth").tag("stage", "persist").gauge());
+    }
+
+    @Test
+    void unpollableDeviceLeavesWithoutBeingFetched() throws Exception {
+        start(new SnmpProperties());
+        when(deviceConfigRepository.findByIdWithDevice(7L)).thenReturn(Optional.of(config(7L, false)));
+        CompletableFuture<Boolean> done = new CompletableFuture<>();
+
+        pipeline.submit(7L, done::complete);
+
+        assertFalse(done.get(5, TimeUnit.SECONDS));
+        verify(devicePollCollector, never()).collect(any());
+        verify(pollResultWriter, never()).applyAll(any());
+    }
+
+    @Test
+    void collectorErrorIsPersistedAsFailure() throws Exception {
+        start(new SnmpProperties());
+        doThrow(new IllegalStateException("plan failed")).when(devicePollCollector).collect(any());
+        when(pollResultWriter.applyAll(any())).thenReturn(Map.of(7L, true));
+        CompletableFuture<Boolean> done = new CompletableFuture<>();
+
+        pipeline.submit(7L, done::complete);
+
+        assertTrue(done.get(5, TimeUnit.SECONDS));
+        verify(pollResultWriter).applyAll(argThat(snapshots -> snapshots.stream().allMatch(snapshot ->
+            !snapshot.isReachable() && "Polling failed: plan failed".equals(snapshot.getFailureMessage()))));
+    }
+
+    @Test
+    void writerErrorKeepsDeviceScheduled() throws Exception {
+        start(new SnmpProperties());
+        when(pollResultWriter.applyAll(any())).thenThrow(new RuntimeException("DB error"));
+        when(pollResultWriter.apply(any())).thenThrow(new RuntimeException("DB error"));
+        CompletableFuture<Boolean> done = new CompletableFuture<>();
+
+        pipeline.submit(7L, done::complete);
+
+        assertTrue(done.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void resultsAreWrittenBehindInBatches() throws Exception {
+        SnmpProperties properties = new SnmpProperties();
+        properties.getPipeline().getPersist().setConcurrency(1);
+        properties.getPipeline().setPersistBatchSize(3);
+        properties.getPipeline().setPersistFlushInterval(Duration.ofSeconds(30));
+        start(properties);
+        when(pollResultWriter.applyAll(any())).thenAnswer(invocation -> {
+            Map<Long, Boolean> pollable = new HashMap<>();
+            invocation.<Collection<DevicePollSnapshot>>getArgument(0).forEach(snapshot -> pollable.put(snapshot.getConfigId(), true));
+            return pollable;
+        });
+        CountDownLatch done = new CountDownLatch(3);
+
+        for (long id = 1; id <= 3; id++) {
+            pipeline.submit(id, pollable -> done.countDown());
+        }
+
+        // A full batch is written at once, long before the flush interval
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        verify(pollResultWriter).applyAll(argThat(snapshots -> snapshots.size() == 3));
+    }
+
+    @Test
+    void failedBatchIsRetriedOneDeviceAtATime() throws Exception {
+        SnmpProperties properties = new SnmpProperties();
+        properties.getPipeline().getPersist().setConcurrency(1);
+        properties.getPipeline().setPersistBatchSize(2);
+        properties.getPipeline().setPersistFlushInterval(Duration.ofSeconds(30));
+        start(properties);
+        when(pollResultWriter.applyAll(any())).thenThrow(new RuntimeException("constraint violation"));
+        when(pollResultWriter.apply(argThat(snapshot -> snapshot != null && snapshot.getConfigId() == 1L)))
+            .thenThrow(new RuntimeException("constraint violation"));
+        when(pollResultWriter.apply(argThat(snapshot -> snapshot != null && snapshot.getConfigId() == 2L))).thenReturn(false);
+        CompletableFuture<Boolean> first = new CompletableFuture<>();
+        CompletableFuture<Boolean> second = new CompletableFuture<>();
+
+        pipeline.submit(1L, first::complete);
+        pipeline.submit(2L, second::complete);
+
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+        assertFalse(second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, meterRegistry.get("snmp.pipeline.batch.fallbacks").counter().count());
+    }
+
+    @Test
+    void persistStageRunsAtMostItsConcurrency() throws Exception {
+        SnmpProperties properties = new SnmpProperties();
+        properties.getPipeline().getPersist().setConcurrency(2);
+        properties.getPipeline().setPersistBatchSize(1);
+        start(properties);
+
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        when(pollResultWriter.applyAll(any())).thenAnswer(invocation -> {
+            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            active.decrementAndGet();
+            return Map.of();
+        });
+        CountDownLatch done = new CountDownLatch(6);
+
+        for (long id = 1; id <= 6; id++) {
+            assertTrue(pipeline.submit(id, pollable -> done.countDown()));
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(2, peak.get());
+    }
+
+    @Test
+    void fullFetchQueueRejectsNewPolls() throws Exception {
+        SnmpProperties properties = new SnmpProperties();
+        properties.getPipeline().getFetch().setConcurrency(1);
+        properties.getPipeline().getFetch().setQueueCapacity(1);
+        start(properties);
+
+        CompletableFuture<DevicePollSnapshot> stuck = new CompletableFuture<>();
+        doReturn(stuck).when(devicePollCollector).collect(any());
+
+        pipeline.submit(1L, pollable -> { });
+        pipeline.submit(2L, pollable -> { });
+
+        // One poll held by the only fetch worker, at most one queued behind it
+        assertFalse(pipeline.submit(3L, pollable -> { }));
+        stuck.complete(DevicePollSnapshot.failed(1L, LocalDateTime.now(), "timeout"));
+    }
+
+    private void start(SnmpProperties properties) {
+        pipeline = new PollPipeline(properties, deviceConfigRepository, devicePollCollector,
+            new DevicePollTransformer(new PollChangeTracker(properties, meterRegistry),
+                new InterfaceRateCalculator(properties, meterRegistry), new ScalarRateCalculator(properties)),
+            pollResultWriter, meterRegistry);
+        pipeline.start();
+    }
+
+    private DeviceConfig config(Long id, boolean monitoringEnabled) {
+        Device device = Device.builder().id(id).name("device-" + id).monitoringEnabled(monitoringEnabled).build();
+        return DeviceConfig.builder().id(id).device(device).targetIp("10.0.0." + id).enabled(true).build();
+    }
+}
@@ -0,0 +1,94 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import com.farukgenc.boilerplate.springboot.model.Device;
+import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.snmp4j.smi.OID;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PollPlanCompilerTest {
+
+    private DeviceConfig config;
+
+    @BeforeEach
+    void setUp() {
+        config = DeviceConfig.builder()
+            .targetIp("192.168.1.1")
+            .snmpPort(161)
+            .communityString("public")
+            .build();
+    }
+
+    @Test
+    void mergesAllGroupsIntoFewestRequestsInOidOrder() {
+        PollPlanCompiler compiler = new PollPlanCompiler(List.of(
+            group("ip", "1.3.6.1.2.1.4", 20),
+            group("system", "1.3.6.1.2.1.1", 14),
+            group("icmp", "1.3.6.1.2.1.5", 26),
+            group("udp", "1.3.6.1.2.1.7", 4)
+        ), new SnmpProperties());
+
+        PollPlan plan = compiler.compile(config);
+
+        assertEquals(64, plan.getRequests().stream().mapToInt(List::size).sum());
+        assertEquals(2, plan.getRequestCount());
+        // System group sorts first, so the liveness request carries it
+        assertEquals(new OID("1.3.6.1.2.1.1.1.0"), plan.getRequests().get(0).get(0));
+        assertSame(plan, compiler.compile(config));
+    }
+
+    @Test
+    void removesDuplicateOids() {
+        PollPlanCompiler compiler = new PollPlanCompiler(List.of(
+            group("a", "1.3.6.1.2.1.1", 3),
+            group("b", "1.3.6.1.2.1.1", 3)
+        ), new SnmpProperties());
+
+        assertEquals(3, compiler.compile(config).getRequests().get(0).size());
+    }
+
+    @Test
+    void respectsMessageSizeAndTooBigFeedback() {
+        SnmpProperties properties = new SnmpProperties();
+        properties.getPlan().setMaxMessageSize(484);
+        PollPlanCompiler compiler = new PollPlanCompiler(List.of(group("icmp", "1.3.6.1.2.1.5", 26)), properties);
+
+        PollPlan plan = compiler.compile(config);
+        assertTrue(plan.getRequestCount() > 1);
+        int largest = plan.getRequests().stream().mapToInt(List::size).max().orElseThrow();
+
+        compiler.onTooBig(config, largest);
+
+        PollPlan recompiled = compiler.compile(config);
+        assertNotSame(plan, recompiled);
+        assertTrue(recompiled.getRequests().stream().allMatch(request -> request.size() <= largest / 2));
+    }
+
+    private static ScalarPollGroup group(String name, String prefix, int count) {
+        List<OID> oids = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            oids.add(new OID(prefix + "." + i + ".0"));
+        }
+        return new ScalarPollGroup() {
+            @Override
+            public String getGroupName() {
+                return name;
+            }
+
+            @Override
+            public SnmpColumns getScalarOids() {
+                return SnmpColumns.of(oids);
+            }
+
+            @Override
+            public void applyScalars(Device device, DeviceConfig config, SnmpScalars values) {
+            }
+        };
+    }
+}
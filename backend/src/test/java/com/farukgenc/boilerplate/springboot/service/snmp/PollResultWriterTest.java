@@ -0,0 +1,359 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.model.Device;
+import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
+import com.farukgenc.boilerplate.springboot.model.InterfaceMetric;
+import com.farukgenc.boilerplate.springboot.model.InterfaceSample;
+import com.farukgenc.boilerplate.springboot.repository.DeviceConfigRepository;
+import com.farukgenc.boilerplate.springboot.repository.PollUpsertRepository;
+import com.farukgenc.boilerplate.springboot.service.metrics.MetricSeries;
+import com.farukgenc.boilerplate.springboot.service.metrics.RecentMetricsStore;
+import com.farukgenc.boilerplate.springboot.service.metrics.SampleStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.snmp4j.smi.Counter32;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.Variable;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PollResultWriterTest {
+
+    private static final OID SYS_NAME_OID = SnmpOids.SYS_NAME;
+    private static final OID UDP_IN_DATAGRAMS_OID = SnmpOids.UDP_IN_DATAGRAMS;
+
+    @Mock
+    private DeviceConfigRepository deviceConfigRepository;
+
+    @Mock
+    private InterfacePollService interfacePollService;
+
+    @Mock
+    private SystemUnitPollService systemUnitPollService;
+
+    @Mock
+    private PollChangeTracker pollChangeTracker;
+
+    @Mock
+    private PollUpsertRepository pollUpsertRepository;
+
+    @Mock
+    private SampleStorage sampleStorage;
+
+    @Mock
+    private RecentMetricsStore recentMetricsStore;
+
+    @Mock
+    private ScalarPollGroup systemGroup;
+
+    @Mock
+    private ScalarPollGroup udpGroup;
+
+    @InjectMocks
+    private PollResultWriter pollResultWriter;
+
+    private Device device;
+    private DeviceConfig config;
+
+    @BeforeEach
+    void setUp() {
+        device = Device.builder()
+                .id(1L)
+                .name("Test Device")
+                .monitoringEnabled(true)
+                .build();
+
+        config = DeviceConfig.builder()
+                .id(1L)
+                .device(device)
+                .targetIp("192.168.1.1")
+                .enabled(true)
+                .pollInterval(300)
+                .consecutiveFailures(2)
+                .lastPollStatus(DeviceConfig.PollStatus.FAILURE)
+                .build();
+
+        lenient().when(systemGroup.getGroupName()).thenReturn("system info");
+        lenient().when(udpGroup.getGroupName()).thenReturn("UDP profile");
+        lenient().when(deviceConfigRepository.findAllByIdWithDevice(Set.of(1L))).thenReturn(List.of(config));
+        lenient().when(deviceConfigRepository.findById(1L)).thenReturn(Optional.of(config));
+    }
+
+    @Test
+    void testApply_ReachableDispatchesEveryPart() {
+        // Arrange
+        LocalDateTime polledAt = LocalDateTime.now().minusSeconds(5);
+        List<SnmpTableRow> udpRows = List.of(new SnmpTableRow(new OID("0.0.0.0.161"), SnmpColumns.of(SnmpOids.UDP_LOCAL_ADDRESS)));
+        List<SnmpTableRow> interfaces = List.of(new SnmpTableRow(new OID("1"), SnmpColumns.of(SnmpOids.IF_DESCR)));
+        Map<ScalarPollGroup, SnmpScalars> scalars = new LinkedHashMap<>();
+        scalars.put(systemGroup, scalars(SYS_NAME_OID, new OctetString("router")));
+        scalars.put(udpGroup, scalars(UDP_IN_DATAGRAMS_OID, new Counter32(42)));
+        DevicePollSnapshot snapshot = DevicePollSnapshot.reachable(1L, polledAt, scalars,
+                Map.of(udpGroup, udpRows), interfaces, List.of());
+
+        // Act
+        boolean pollable = pollResultWriter.apply(snapshot);
+
+        // Assert
+        assertTrue(pollable);
+        verify(systemGroup).applySnapshot(eq(device), eq(config), any(SnmpScalars.class), eq(List.of()));
+        verify(udpGroup).applySnapshot(eq(device), eq(config), any(SnmpScalars.class), eq(udpRows));
+        verify(interfacePollService).applyInterfaces(eq(device), eq(interfaces), any());
+        verify(systemUnitPollService).applySystemUnits(eq(device), eq(List.of()), any());
+        verify(pollChangeTracker).record(1L, snapshot.getChanges(), Set.of());
+        verify(deviceConfigRepository).saveAll(List.of(config));
+        assertEquals(DeviceConfig.PollStatus.SUCCESS, config.getLastPollStatus());
+        assertEquals(polledAt, config.getLastPollTime());
+        assertEquals(0, config.getConsecutiveFailures());
+    }
+
+    @Test
+    void testApply_GroupWithoutValuesIsSkipped() {
+        // Arrange
+        Map<ScalarPollGroup, SnmpScalars> scalars = new LinkedHashMap<>();
+        scalars.put(systemGroup, scalars(SYS_NAME_OID, new OctetString("router")));
+        scalars.put(udpGroup, scalars(UDP_IN_DATAGRAMS_OID, null));
+        DevicePollSnapshot snapshot = DevicePollSnapshot.reachable(1L, LocalDateTime.now(), scalars,
+                Map.of(), List.of(), List.of());
+
+        // Act
+        pollResultWriter.apply(snapshot);
+
+        // Assert
+        verify(systemGroup).applySnapshot(eq(device), eq(config), any(SnmpScalars.class), anyList());
+        verify(udpGroup, never()).applySnapshot(any(), any(), any(), anyList());
+    }
+
+    @Test
+    void testApply_GroupExceptionDoesNotStopOthers() {
+        // Arrange
+        Map<ScalarPollGroup, SnmpScalars> scalars = new LinkedHashMap<>();
+        scalars.put(systemGroup, scalars(SYS_NAME_OID, new OctetString("router")));
+        scalars.put(udpGroup, scalars(UDP_IN_DATAGRAMS_OID, new Counter32(42)));
+        DevicePollSnapshot snapshot = DevicePollSnapshot.reachable(1L, LocalDateTime.now(), scalars,
+                Map.of(), List.of(), List.of());
+        doThrow(new RuntimeException("System info error"))
+                .when(systemGroup).applySnapshot(any(), any(), any(), anyList());
+
+        // Act
+        pollResultWriter.apply(snapshot);
+
+        // Assert
+        verify(udpGroup).applySnapshot(eq(device), eq(config), any(SnmpScalars.class), anyList());
+        verify(interfacePollService).applyInterfaces(eq(device), anyList(), any());
+        verify(pollChangeTracker).record(1L, snapshot.getChanges(), Set.of("system info"));
+        verify(deviceConfigRepository).saveAll(List.of(config));
+    }
+
+    @Test
+    void testApply_UnreachableRecordsFailure() {
+        // Arrange
+        DevicePollSnapshot snapshot = DevicePollSnapshot.failed(1L, LocalDateTime.now(), "SNMP agent did not respond");
+
+        // Act
+        boolean pollable = pollResultWriter.apply(snapshot);
+
+        // Assert
+        assertTrue(pollable);
+        assertEquals(DeviceConfig.PollStatus.FAILURE, config.getLastPollStatus());
+        assertEquals(3, config.getConsecutiveFailures());
+        assertEquals("SNMP agent did not respond", config.getErrorMessage());
+        verify(systemGroup, never()).applySnapshot(any(), any(), any(), anyList());
+        verify(interfacePollService, never()).applyInterfaces(any(), anyList(), any());
+        verify(pollChangeTracker, never()).record(any(), any(), any());
+        verify(deviceConfigRepository).saveAll(List.of(config));
+    }
+
+    @Test
+    void testRecordFailure_DisablesAfterRepeatedFailures() {
+        // Arrange
+        config.setConsecutiveFailures(4);
+
+        // Act
+        boolean pollable = pollResultWriter.recordFailure(1L, "Polling failed: boom");
+
+        // Assert
+        assertFalse(pollable);
+        assertFalse(config.getEnabled());
+        verify(deviceConfigRepository).save(config);
+    }
+
+    @Test
+    void testApply_DeletedConfigIsDropped() {
+        // Arrange
+        when(deviceConfigRepository.findAllByIdWithDevice(Set.of(1L))).thenReturn(List.of());
+
+        // Act
+        boolean pollable = pollResultWriter.apply(DevicePollSnapshot.failed(1L, LocalDateTime.now(), "gone"));
+
+        // Assert
+        assertFalse(pollable);
+        verify(deviceConfigRepository).saveAll(List.of());
+    }
+
+    @Test
+    void testApplyAll_LoadsConfigsOnceAndCoalescesPerConfig() {
+        // Arrange
+        Device other = Device.builder().id(2L).name("Other Device").monitoringEnabled(true).build();
+        DeviceConfig otherConfig = DeviceConfig.builder().id(2L).device(other).enabled(true).consecutiveFailures(0).build();
+        when(deviceConfigRepository.findAllByIdWithDevice(Set.of(1L, 2L))).thenReturn(List.of(config, otherConfig));
+        LocalDateTime earlier = LocalDateTime.now().minusSeconds(10);
+        LocalDateTime later = earlier.plusSeconds(5);
+
+        // Act
+        Map<Long, Boolean> pollable = pollResultWriter.applyAll(List.of(
+                DevicePollSnapshot.reachable(1L, later, Map.of(), Map.of(), List.of(), List.of()),
+                DevicePollSnapshot.failed(1L, earlier, "SNMP agent did not respond"),
+                DevicePollSnapshot.failed(2L, later, "SNMP agent did not respond")));
+
+        // Assert
+        assertEquals(Map.of(1L, true, 2L, true), pollable);
+        assertEquals(DeviceConfig.PollStatus.SUCCESS, config.getLastPollStatus()); // Newest snapshot wins
+        assertEquals(later, config.getLastPollTime());
+        assertEquals(1, otherConfig.getConsecutiveFailures());
+        verify(deviceConfigRepository, times(1)).findAllByIdWithDevice(any());
+        verify(deviceConfigRepository).saveAll(List.of(config, otherConfig));
+        verify(interfacePollService, times(1)).applyInterfaces(eq(device), anyList(), any());
+    }
+
+    @Test
+    void testApply_UnchangedPartsAreSkipped() {
+        // Arrange
+        Map<ScalarPollGroup, SnmpScalars> scalars = new LinkedHashMap<>();
+        scalars.put(systemGroup, scalars(SYS_NAME_OID, new OctetString("router")));
+        scalars.put(udpGroup, scalars(UDP_IN_DATAGRAMS_OID, new Counter32(42)));
+        List<SnmpTableRow> interfaces = List.of(new SnmpTableRow(new OID("1"), SnmpColumns.of(SnmpOids.IF_DESCR)));
+        PollChanges changes = new PollChanges(
+                Map.of("system info", Map.of("system info", 1L), "UDP profile", Map.of("UDP profile", 2L),
+                        PollChanges.INTERFACES, Map.of(1, 3L), PollChanges.INTERFACE_COUNTERS, Map.of(1, 4L)),
+                Map.of(), Set.of("system info", PollChanges.INTERFACES, PollChanges.INTERFACE_COUNTERS), Set.of());
+        DevicePollSnapshot snapshot = DevicePollSnapshot.reachable(1L, LocalDateTime.now(), scalars,
+                Map.of(), interfaces, List.of()).withChanges(changes);
+
+        // Act
+        pollResultWriter.apply(snapshot);
+
+        // Assert
+        verify(systemGroup, never()).applySnapshot(any(), any(), any(), anyList());
+        verify(udpGroup).applySnapshot(eq(device), eq(config), any(SnmpScalars.class), anyList());
+        verify(interfacePollService, never()).applyInterfaces(any(), anyList(), any());
+        verify(pollChangeTracker).record(1L, changes, Set.of());
+        assertEquals(DeviceConfig.PollStatus.SUCCESS, config.getLastPollStatus());
+    }
+
+    @Test
+    void testApply_NativeUpsertStagesPartsAndWritesTheBatchOnce() {
+        // Arrange
+        when(pollUpsertRepository.isEnabled()).thenReturn(true);
+        when(udpGroup.stageSnapshot(eq(device), any(SnmpScalars.class), anyList(), any(PollUpsertBatch.class)))
+                .thenReturn(true);
+        Map<ScalarPollGroup, SnmpScalars> scalars = new LinkedHashMap<>();
+        scalars.put(systemGroup, scalars(SYS_NAME_OID, new OctetString("router")));
+        scalars.put(udpGroup, scalars(UDP_IN_DATAGRAMS_OID, new Counter32(42)));
+        List<SnmpTableRow> interfaces = List.of(new SnmpTableRow(new OID("1"), SnmpColumns.of(SnmpOids.IF_DESCR)));
+        DevicePollSnapshot snapshot = DevicePollSnapshot.reachable(1L, LocalDateTime.now(), scalars,
+                Map.of(), interfaces, List.of());
+
+        // Act
+        pollResultWriter.apply(snapshot);
+
+        // Assert
+        verify(systemGroup).applySnapshot(eq(device), eq(config), any(SnmpScalars.class), anyList()); // Not upsertable
+        verify(udpGroup, never()).applySnapshot(any(), any(), any(), anyList());
+        verify(interfacePollService).stageInterfaces(eq(device), eq(interfaces), any(PollChanges.class), any(PollUpsertBatch.class));
+        verify(interfacePollService, never()).applyInterfaces(any(), anyList(), any());
+        verify(systemUnitPollService).stageSystemUnits(eq(device), anyList(), any(PollChanges.class), any(PollUpsertBatch.class));
+        verify(pollUpsertRepository, times(1)).upsertInterfaces(anyCollection());
+        verify(pollUpsertRepository, times(1)).upsertUdpProfiles(anyCollection());
+        assertEquals(DeviceConfig.PollStatus.SUCCESS, config.getLastPollStatus());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testApplyAll_InterfaceRatesOfEverySnapshotAreSampled() {
+        // Arrange
+        LocalDateTime earlier = LocalDateTime.now().minusSeconds(60);
+        LocalDateTime later = earlier.plusSeconds(30);
+        DevicePollSnapshot first = DevicePollSnapshot.reachable(1L, earlier, Map.of(), Map.of(), List.of(), List.of())
+                .withInterfaceRates(List.of(new InterfaceRates(3, 30_000, Map.of(InterfaceMetric.IN_BPS, 800f))));
+        DevicePollSnapshot second = DevicePollSnapshot.reachable(1L, later, Map.of(), Map.of(), List.of(), List.of())
+                .withInterfaceRates(List.of(new InterfaceRates(3, 30_000, Map.of(InterfaceMetric.IN_BPS, 1600f))));
+
+        // Act
+        pollResultWriter.applyAll(List.of(first, second));
+
+        // Assert
+        ArgumentCaptor<Collection<InterfaceSample>> saved = ArgumentCaptor.forClass(Collection.class);
+        verify(sampleStorage).write(saved.capture());
+        List<InterfaceSample> samples = List.copyOf(saved.getValue());
+        assertEquals(2, samples.size()); // The coalesced snapshot's rates are kept too
+        assertEquals(1L, samples.get(0).getDeviceId());
+        assertEquals(earlier, samples.get(0).getSampledAt());
+        assertEquals(800f, samples.get(0).getInBps());
+        assertEquals(1600f, samples.get(1).get(InterfaceMetric.IN_BPS));
+    }
+
+    @Test
+    void testApplyAll_SampleWriteFailureDoesNotFailThePoll() {
+        // Arrange
+        LocalDateTime polledAt = LocalDateTime.now().minusSeconds(5);
+        DevicePollSnapshot snapshot = DevicePollSnapshot.reachable(1L, polledAt, Map.of(), Map.of(), List.of(), List.of())
+                .withInterfaceRates(List.of(new InterfaceRates(3, 30_000, Map.of(InterfaceMetric.IN_BPS, 800f))));
+        doThrow(new RuntimeException("no partition of relation \"interface_samples\" found for row"))
+                .when(sampleStorage).write(anyCollection());
+
+        // Act
+        boolean pollable = pollResultWriter.apply(snapshot);
+
+        // Assert
+        assertTrue(pollable);
+        verify(sampleStorage).write(anyCollection());
+        verify(deviceConfigRepository).saveAll(List.of(config));
+        verify(pollChangeTracker).record(1L, snapshot.getChanges(), Set.of());
+        assertEquals(DeviceConfig.PollStatus.SUCCESS, config.getLastPollStatus());
+    }
+
+    @Test
+    void testApply_RatesAndScalarCountersAreBuffered() {
+        // Arrange
+        when(recentMetricsStore.isEnabled()).thenReturn(true);
+        LocalDateTime polledAt = LocalDateTime.now().withNano(0);
+        long second = polledAt.atZone(ZoneId.systemDefault()).toEpochSecond();
+        Map<ScalarPollGroup, SnmpScalars> scalars = new LinkedHashMap<>();
+        scalars.put(systemGroup, scalars(SYS_NAME_OID, new OctetString("router")));
+        scalars.put(udpGroup, scalars(UDP_IN_DATAGRAMS_OID, new Counter32(42)));
+        DevicePollSnapshot snapshot = DevicePollSnapshot.reachable(1L, polledAt, scalars, Map.of(), List.of(), List.of())
+                .withInterfaceRates(List.of(new InterfaceRates(3, 30_000, Map.of(InterfaceMetric.OUT_BPS, 800f))))
+                .withScalarRates(Map.of(UDP_IN_DATAGRAMS_OID, 1.5f));
+
+        // Act
+        pollResultWriter.apply(snapshot);
+
+        // Assert
+        verify(recentMetricsStore).append(new MetricSeries(1L, "out_bps", 3), second, 800.0);
+        // The counter's rate, not its cumulative value of 42
+        verify(recentMetricsStore).append(new MetricSeries(1L, UDP_IN_DATAGRAMS_OID.toDottedString(), 0), second, 1.5);
+        verify(recentMetricsStore, times(2)).append(any(), anyLong(), anyDouble());
+    }
+
+    private static SnmpScalars scalars(OID oid, Variable value) {
+        Map<OID, Variable> values = new HashMap<>();
+        if (value != null) {
+            values.put(oid, value);
+        }
+        return SnmpScalars.from(SnmpColumns.of(oid), values);
+    }
+}
@@ -0,0 +1,83 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PollTimingWheelTest {
+
+    private PollTimingWheel wheel;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new PollTimingWheel(100, 8, 0);
+    }
+
+    @Test
+    void entryFiresAtDeadlineAndNotBefore() {
+        wheel.schedule(1L, 450, 1000);
+
+        assertEquals(List.of(), wheel.advance(400));
+        assertEquals(List.of(1L), wheel.advance(500));
+        assertEquals(List.of(), wheel.advance(600));
+    }
+
+    @Test
+    void periodicEntryDoesNotDrift() {
+        wheel.schedule(1L, 1000, 3000);
+
+        // Fired late at 1250, but the next deadline still follows the original one
+        assertEquals(List.of(1L), wheel.advance(1250));
+        assertEquals(List.of(), wheel.advance(3900));
+        assertEquals(List.of(1L), wheel.advance(4000));
+    }
+
+    @Test
+    void deadlinesBeyondOneRevolutionWaitForTheirRound() {
+        // Wheel covers 800 ms; 2500 lands in the same bucket as 100 and 900
+        wheel.schedule(1L, 2500, 10_000);
+
+        for (long now = 100; now < 2500; now += 100) {
+            assertEquals(List.of(), wheel.advance(now), "fired early at " + now);
+        }
+        assertEquals(List.of(1L), wheel.advance(2500));
+    }
+
+    @Test
+    void largeJumpFiresEveryDueEntryOnceAndSkipsMissedPeriods() {
+        wheel.schedule(1L, 100, 500);
+        wheel.schedule(2L, 700, 500);
+        wheel.schedule(3L, 50_000, 500);
+
+        List<Long> due = wheel.advance(10_000);
+
+        assertEquals(2, due.size());
+        assertTrue(due.containsAll(List.of(1L, 2L)));
+        assertTrue(wheel.getMissedPeriods() > 0);
+        assertEquals(List.of(), wheel.advance(10_100));
+    }
+
+    @Test
+    void rescheduleReplacesAndCancelRemoves() {
+        wheel.schedule(1L, 200, 1000);
+        wheel.schedule(1L, 600, 1000);
+
+        assertEquals(1, wheel.size());
+        assertEquals(List.of(), wheel.advance(300));
+
+        assertTrue(wheel.cancel(1L));
+        assertFalse(wheel.contains(1L));
+        assertEquals(List.of(), wheel.advance(700));
+    }
+
+    @Test
+    void pastDeadlineFiresOnNextTick() {
+        wheel.advance(1000);
+        wheel.schedule(1L, 0, 1000);
+
+        assertEquals(List.of(1L), wheel.advance(1100));
+    }
+}
@@ -0,0 +1,101 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RttEstimatorTest {
+
+    private RttEstimator estimator;
+    private DeviceConfig config;
+
+    @BeforeEach
+    void setUp() {
+        estimator = new RttEstimator(new SnmpProperties());
+        config = DeviceConfig.builder()
+            .targetIp("192.168.1.1")
+            .snmpPort(161)
+            .snmpTimeout(5000)
+            .snmpRetries(3)
+            .build();
+    }
+
+    @Test
+    void unknownDeviceUsesConfiguredValues() {
+        RttEstimator.Budget budget = estimator.budget(config);
+
+        assertEquals(5000, budget.getTimeoutMillis());
+        assertEquals(3, budget.getRetries());
+        assertTrue(estimator.snapshot(config).isEmpty());
+    }
+
+    @Test
+    void fastDeviceGetsShortTimeoutButNotBelowFloor() {
+        for (int i = 0; i < 20; i++) {
+            estimator.onResponse(config, estimator.budget(config), 2);
+        }
+
+        RttEstimator.Budget budget = estimator.budget(config);
+        assertEquals(102, budget.getTimeoutMillis()); // srtt 2ms + 100ms floor
+        assertEquals(3, budget.getRetries());
+    }
+
+    @Test
+    void slowVariableDeviceIsBoundedByConfiguredTimeout() {
+        long[] samples = {400, 1200, 300, 2500, 450, 3000};
+        for (long sample : samples) {
+            estimator.onResponse(config, new RttEstimator.Budget(5000, 3), sample);
+        }
+
+        int timeout = estimator.budget(config).getTimeoutMillis();
+        assertTrue(timeout > 1000, "variance must widen the timeout, was " + timeout);
+        assertTrue(timeout <= 5000);
+    }
+
+    @Test
+    void responseSlowerThanTimeoutIsNotSampled() {
+        estimator.onResponse(config, estimator.budget(config), 10);
+        estimator.onResponse(config, new RttEstimator.Budget(110, 3), 150); // may answer a retransmission
+
+        RttEstimator.Snapshot snapshot = estimator.snapshot(config).orElseThrow();
+        assertEquals(1, snapshot.getSamples());
+        assertEquals(1, snapshot.getDiscardedSamples());
+        assertEquals(10.0, snapshot.getSmoothedRttMillis());
+    }
+
+    @Test
+    void timeoutsBackOffAndMarkDeviceDead() {
+        estimator.onResponse(config, estimator.budget(config), 20);
+        int base = estimator.budget(config).getTimeoutMillis();
+
+        estimator.onTimeout(config);
+        assertEquals(base * 2, estimator.budget(config).getTimeoutMillis());
+        assertEquals(2, estimator.budget(config).getRetries());
+
+        estimator.onTimeout(config);
+        estimator.onTimeout(config);
+        RttEstimator.Budget dead = estimator.budget(config);
+        assertEquals(0, dead.getRetries());
+        assertEquals(base * 8, dead.getTimeoutMillis());
+        assertTrue(estimator.snapshot(config).orElseThrow().isDead());
+
+        estimator.onResponse(config, dead, 20);
+        assertEquals(3, estimator.budget(config).getRetries());
+        assertEquals(base, estimator.budget(config).getTimeoutMillis());
+        assertFalse(estimator.snapshot(config).orElseThrow().isDead());
+    }
+
+    @Test
+    void neverAnsweringDeviceCostsOneConfiguredTimeout() {
+        for (int i = 0; i < 3; i++) {
+            estimator.onTimeout(config);
+        }
+
+        RttEstimator.Budget budget = estimator.budget(config);
+        assertEquals(5000, budget.getTimeoutMillis());
+        assertEquals(0, budget.getRetries());
+    }
+}
@@ -0,0 +1,80 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import com.farukgenc.boilerplate.springboot.event.DeviceConfigChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.snmp4j.smi.Counter32;
+import org.snmp4j.smi.Counter64;
+import org.snmp4j.smi.Gauge32;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.Variable;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScalarRateCalculatorTest {
+
+    private static final OID IN = SnmpOids.UDP_IN_DATAGRAMS;
+    private static final OID OUT = SnmpOids.UDP_OUT_DATAGRAMS;
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private final ScalarRateCalculator calculator = new ScalarRateCalculator(new SnmpProperties());
+
+    @Test
+    void firstPollOnlySetsTheBaseline() {
+        assertEquals(Map.of(), calculator.sample(7L, T0, 100_000L, List.of(scalars(new Counter32(10), null))));
+    }
+
+    @Test
+    void ratesArePerSecondAndCounter32WrapsOnce() {
+        calculator.sample(7L, T0, 100_000L, List.of(scalars(new Counter32(4_294_967_000L), new Counter64(5_000))));
+
+        Map<OID, Float> rates = calculator.sample(7L, T0.plusSeconds(10), 101_000L,
+            List.of(scalars(new Counter32(704), new Counter64(6_000))));
+
+        assertEquals(Map.of(IN, 100f, OUT, 100f), rates);
+    }
+
+    @Test
+    void gaugesAndResetCounter64sGiveNoRate() {
+        calculator.sample(7L, T0, 100_000L, List.of(scalars(new Gauge32(10), new Counter64(5_000))));
+
+        assertEquals(Map.of(), calculator.sample(7L, T0.plusSeconds(10), 101_000L,
+            List.of(scalars(new Gauge32(20), new Counter64(10)))));
+    }
+
+    @Test
+    void agentRestartAndLongGapsGiveNoRates() {
+        calculator.sample(7L, T0, 100_000L, List.of(scalars(new Counter32(1_000), null)));
+
+        assertEquals(Map.of(), calculator.sample(7L, T0.plusSeconds(60), 500L, List.of(scalars(new Counter32(10), null))));
+        assertEquals(Map.of(), calculator.sample(7L, T0.plusHours(1), 360_500L, List.of(scalars(new Counter32(20), null))));
+        assertEquals(1, calculator.sample(7L, T0.plusHours(1).plusSeconds(10), 361_500L,
+            List.of(scalars(new Counter32(30), null))).size());
+    }
+
+    @Test
+    void deletedConfigIsForgotten() {
+        calculator.sample(7L, T0, 100_000L, List.of(scalars(new Counter32(0), null)));
+
+        calculator.onDeviceConfigChanged(new DeviceConfigChangedEvent(this, 7L, 300, false, false,
+            DeviceConfigChangedEvent.EventType.DELETED));
+
+        assertEquals(Map.of(), calculator.sample(7L, T0.plusSeconds(10), 101_000L, List.of(scalars(new Counter32(10), null))));
+    }
+
+    private static SnmpScalars scalars(Variable in, Variable out) {
+        Map<OID, Variable> values = new HashMap<>();
+        if (in != null) {
+            values.put(IN, in);
+        }
+        if (out != null) {
+            values.put(OUT, out);
+        }
+        return SnmpScalars.from(SnmpColumns.of(IN, OUT), values);
+    }
+}
@@ -0,0 +1,78 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.model.SystemUnit;
+import com.farukgenc.boilerplate.springboot.repository.SystemUnitRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class SnapshotReconcilerTest {
+
+    private final SystemUnitRepository repository = mock(SystemUnitRepository.class);
+
+    @Test
+    void matchesCreatesAndDeletesByNaturalKey() {
+        SystemUnit kept = SystemUnit.builder().id(1L).unitIndex(1).unitName("old").build();
+        SystemUnit stale = SystemUnit.builder().id(2L).unitIndex(2).build();
+        SystemUnit duplicate = SystemUnit.builder().id(3L).unitIndex(1).build();
+        Map<Integer, String> polled = new LinkedHashMap<>();
+        polled.put(1, "cpu");
+        polled.put(5, "fan");
+
+        SnapshotReconciler.Result result = SnapshotReconciler.reconcile(List.of(kept, stale, duplicate),
+            SystemUnit::getUnitIndex, polled,
+            unitIndex -> SystemUnit.builder().unitIndex(unitIndex).build(),
+            SystemUnit::setUnitName, repository);
+
+        assertEquals(new SnapshotReconciler.Result(1, 1, 2), result);
+        assertEquals("cpu", kept.getUnitName());
+        verify(repository).saveAll(argThat(rows -> {
+            List<SystemUnit> saved = (List<SystemUnit>) rows;
+            return saved.size() == 2 && saved.get(0) == kept
+                && saved.get(1).getUnitIndex() == 5 && "fan".equals(saved.get(1).getUnitName());
+        }));
+        verify(repository).deleteAll(List.of(stale, duplicate));
+    }
+
+    @Test
+    void unchangedTableIssuesNoDelete() {
+        SystemUnit unit = SystemUnit.builder().id(1L).unitIndex(1).build();
+
+        SnapshotReconciler.Result result = SnapshotReconciler.reconcile(List.of(unit), SystemUnit::getUnitIndex,
+            Map.of(1, "cpu"), unitIndex -> SystemUnit.builder().unitIndex(unitIndex).build(),
+            SystemUnit::setUnitName, repository);
+
+        assertEquals(new SnapshotReconciler.Result(0, 1, 0), result);
+        verify(repository).saveAll(List.of(unit));
+        verify(repository, never()).deleteAll(anyList());
+    }
+
+    @Test
+    void unchangedRowsAreNeitherUpdatedNorSaved() {
+        SystemUnit same = SystemUnit.builder().id(1L).unitIndex(1).unitName("cpu").build();
+        SystemUnit moved = SystemUnit.builder().id(2L).unitIndex(2).unitName("fan").build();
+        Map<Integer, String> polled = new LinkedHashMap<>();
+        polled.put(1, "ignored");
+        polled.put(2, "fan tray");
+        polled.put(3, "psu");
+
+        SnapshotReconciler.Result result = SnapshotReconciler.reconcile(List.of(same, moved),
+            SystemUnit::getUnitIndex, polled, unitIndex -> unitIndex != 1,
+            unitIndex -> SystemUnit.builder().unitIndex(unitIndex).build(),
+            SystemUnit::setUnitName, repository);
+
+        assertEquals(new SnapshotReconciler.Result(1, 1, 0), result);
+        assertEquals("cpu", same.getUnitName());
+        verify(repository).saveAll(argThat(rows -> {
+            List<SystemUnit> saved = (List<SystemUnit>) rows;
+            return saved.size() == 2 && saved.get(0) == moved && saved.get(1).getUnitIndex() == 3;
+        }));
+        verify(repository, never()).deleteAll(anyList());
+    }
+}
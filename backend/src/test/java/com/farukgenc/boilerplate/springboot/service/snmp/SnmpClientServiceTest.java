@@ -1,151 +1,235 @@
 package com.farukgenc.boilerplate.springboot.service.snmp;
 
-import com.farukgenc.boilerplate.springboot.model.Device;
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
 import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
-import com.farukgenc.boilerplate.springboot.model.SystemInfo;
-import com.farukgenc.boilerplate.springboot.repository.SystemInfoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
-import org.snmp4j.smi.Variable;
-import org.snmp4j.smi.OctetString;
-import org.snmp4j.smi.Integer32;
-import org.snmp4j.smi.TimeTicks;
-
-import java.util.*;
-
-import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.Mockito.*;
-import static org.junit.jupiter.api.Assertions.*;
+import org.snmp4j.PDU;
+import org.snmp4j.Snmp;
+import org.snmp4j.Target;
+import org.snmp4j.event.ResponseEvent;
+import org.snmp4j.event.ResponseListener;
+import org.snmp4j.smi.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.UnaryOperator;
 
-@ExtendWith(MockitoExtension.class)
-class SystemInfoPollServiceTest {
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
-    @Mock
-    private SnmpClientService snmpClientService;
+class SnmpClientServiceTest {
 
-    @Mock
-    private SystemInfoRepository systemInfoRepository;
+    private static final String SYS_NAME = "1.3.6.1.2.1.1.5.0";
+    private static final String SYS_LOCATION = "1.3.6.1.2.1.1.6.0";
+    private static final String IF_DESCR = "1.3.6.1.2.1.2.2.1.2";
 
-    @InjectMocks
-    private SystemInfoPollService systemInfoPollService;
+    private final NavigableMap<OID, Variable> mib = new TreeMap<>();
+    private final List<PDU> requests = new ArrayList<>();
 
-    private Device testDevice;
-    private DeviceConfig testConfig;
+    private SnmpClientService snmpClientService;
+    private DeviceConfig config;
+    private UnaryOperator<PDU> responder = this::respond;
 
     @BeforeEach
-    void setUp() {
-        testDevice = Device.builder()
-            .id(1L)
-            .name("Test Device")
-            .build();
-
-        testConfig = DeviceConfig.builder()
-            .id(1L)
-            .device(testDevice)
-            .targetIp("192.168.1.1")
+    void setUp() throws Exception {
+        mib.put(new OID(SYS_NAME), new OctetString("router"));
+        mib.put(new OID(SYS_LOCATION), new OctetString("rack 4"));
+        for (int i = 1; i <= 3; i++) {
+            mib.put(new OID(IF_DESCR + "." + i), new OctetString("eth" + i));
+            mib.put(new OID("1.3.6.1.2.1.2.2.1.3." + i), new Integer32(6));
+        }
+
+        config = DeviceConfig.builder()
+            .targetIp("192.0.2.1")
             .snmpPort(161)
             .communityString("public")
+            .snmpVersion(DeviceConfig.SnmpVersion.V2C)
             .build();
+
+        // The agent answers from the send call itself, so every future is complete once the call returns
+        Snmp snmp = mock(Snmp.class);
+        UdpAddress address = new UdpAddress("192.0.2.1/161");
+        doAnswer(invocation -> {
+            PDU request = invocation.getArgument(0);
+            requests.add(request);
+            ResponseListener listener = invocation.getArgument(3);
+            listener.onResponse(new ResponseEvent<>(snmp, address, request, responder.apply(request), invocation.getArgument(2)));
+            return null;
+        }).when(snmp).send(any(PDU.class), any(Target.class), any(), any(ResponseListener.class));
+
+        SnmpSessionPool.PooledTarget pooled = mock(SnmpSessionPool.PooledTarget.class);
+        when(pooled.getSnmp()).thenReturn(snmp);
+        when(pooled.getAddress()).thenReturn(address);
+        SnmpSessionPool sessionPool = mock(SnmpSessionPool.class);
+        when(sessionPool.acquire(config)).thenReturn(pooled);
+
+        SnmpProperties properties = new SnmpProperties();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        snmpClientService = new SnmpClientService(sessionPool, new BulkRepetitionTuner(properties),
+            new RttEstimator(properties), new SnmpRequestLimiter(properties, meterRegistry),
+            new UsmSecurityCache(meterRegistry));
     }
 
     @Test
-    void testPollDeviceSystemInfo_Success() {
-        // Arrange
-        Map<String, Variable> systemData = new HashMap<>();
-        systemData.put("1.3.6.1.2.1.1.1.0", new OctetString("Linux Test Device 5.4.0"));
-        systemData.put("1.3.6.1.2.1.1.2.0", new OctetString("1.3.6.1.4.1.8072.3.2.10"));
-        systemData.put("1.3.6.1.2.1.1.3.0", new TimeTicks(123456));
-        systemData.put("1.3.6.1.2.1.1.4.0", new OctetString("admin@example.com"));
-        systemData.put("1.3.6.1.2.1.1.5.0", new OctetString("test-device"));
-        systemData.put("1.3.6.1.2.1.1.6.0", new OctetString("Data Center"));
-        systemData.put("1.3.6.1.2.1.1.7.0", new Integer32(72));
-
-        when(snmpClientService.snmpGetMultiple(eq(testConfig), anyList()))
-            .thenReturn(systemData);
-        when(systemInfoRepository.findByDeviceId(testDevice.getId()))
-            .thenReturn(Optional.empty());
-
-        // Act
-        systemInfoPollService.pollDeviceSystemInfo(testDevice, testConfig);
-
-        // Assert
-        verify(snmpClientService).snmpGetMultiple(eq(testConfig), anyList());
-        verify(systemInfoRepository).save(any(SystemInfo.class));
+    void getAsyncCompletesWithTheValue() {
+        CompletableFuture<Optional<Variable>> sysName = snmpClientService.snmpGetAsync(config, SYS_NAME);
+
+        assertTrue(sysName.isDone());
+        assertEquals(Optional.of(new OctetString("router")), sysName.join());
+        assertEquals(PDU.GET, requests.get(0).getType());
     }
 
     @Test
-    void testPollDeviceSystemInfo_NoData() {
-        // Arrange
-        when(snmpClientService.snmpGetMultiple(eq(testConfig), anyList()))
-            .thenReturn(new HashMap<>());
+    void unansweredRequestCompletesExceptionallyWithTimeout() {
+        responder = request -> null;
 
-        // Act
-        systemInfoPollService.pollDeviceSystemInfo(testDevice, testConfig);
+        PDU pdu = new PDU();
+        pdu.add(new VariableBinding(new OID(SYS_NAME)));
+        CompletableFuture<PDU> response = snmpClientService.sendAsync(config, pdu);
 
-        // Assert
-        verify(snmpClientService).snmpGetMultiple(eq(testConfig), anyList());
-        verify(systemInfoRepository, never()).save(any(SystemInfo.class));
+        CompletionException e = assertThrows(CompletionException.class, response::join);
+        assertInstanceOf(TimeoutException.class, SnmpClientService.rootCause(e));
     }
 
     @Test
-    void testPollDeviceSystemInfo_UpdateExisting() {
-        // Arrange
-        SystemInfo existingSystemInfo = SystemInfo.builder()
-            .id(1L)
-            .device(testDevice)
-            .sysDescr("Old Description")
-            .build();
+    void getAsyncYieldsEmptyOnTimeout() {
+        responder = request -> null;
+
+        CompletableFuture<Optional<Variable>> sysName = snmpClientService.snmpGetAsync(config, SYS_NAME);
+
+        assertFalse(sysName.isCompletedExceptionally());
+        assertEquals(Optional.empty(), sysName.join());
+    }
+
+    @Test
+    void getAsyncYieldsEmptyOnErrorStatus() {
+        responder = request -> errorResponse(PDU.genErr);
+
+        assertEquals(Optional.empty(), snmpClientService.snmpGetAsync(config, SYS_NAME).join());
+    }
+
+    @Test
+    void getMultipleAsyncReturnsEveryBindingInOnePdu() {
+        Map<String, Variable> values = snmpClientService.snmpGetMultipleAsync(config, List.of(SYS_NAME, SYS_LOCATION)).join();
 
-        Map<String, Variable> systemData = new HashMap<>();
-        systemData.put("1.3.6.1.2.1.1.1.0", new OctetString("Updated Description"));
-        systemData.put("1.3.6.1.2.1.1.5.0", new OctetString("updated-name"));
+        assertEquals(Map.of(SYS_NAME, new OctetString("router"), SYS_LOCATION, new OctetString("rack 4")), values);
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    void getMultipleAsyncYieldsEmptyMapOnErrorStatusOrTimeout() {
+        responder = request -> errorResponse(PDU.noSuchName);
+        assertEquals(Map.of(), snmpClientService.snmpGetMultipleAsync(config, List.of(SYS_NAME, SYS_LOCATION)).join());
+
+        responder = request -> null;
+        assertEquals(Map.of(), snmpClientService.snmpGetMultipleAsync(config, List.of(SYS_NAME, SYS_LOCATION)).join());
+    }
+
+    @Test
+    void walkAsyncChainsGetNextUntilTheEndOfTheSubtree() {
+        config.setSnmpVersion(DeviceConfig.SnmpVersion.V1);
+
+        Map<String, Variable> descr = snmpClientService.snmpWalkAsync(config, IF_DESCR, 10).join();
+
+        assertEquals(List.of(IF_DESCR + ".1", IF_DESCR + ".2", IF_DESCR + ".3"), List.copyOf(descr.keySet()));
+        assertEquals(new OctetString("eth2"), descr.get(IF_DESCR + ".2"));
+        // One request per row, each starting from the previous row, plus the one that leaves the subtree
+        assertEquals(4, requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            assertEquals(PDU.GETNEXT, requests.get(i).getType());
+            assertEquals(i == 0 ? new OID(IF_DESCR) : new OID(IF_DESCR + "." + i), requests.get(i).get(0).getOid());
+        }
+    }
+
+    @Test
+    void walkAsyncUsesGetBulkForV2c() {
+        Map<String, Variable> descr = snmpClientService.snmpWalkAsync(config, IF_DESCR, 10).join();
 
-        when(snmpClientService.snmpGetMultiple(eq(testConfig), anyList()))
-            .thenReturn(systemData);
-        when(systemInfoRepository.findByDeviceId(testDevice.getId()))
-            .thenReturn(Optional.of(existingSystemInfo));
+        assertEquals(3, descr.size());
+        assertEquals(PDU.GETBULK, requests.get(0).getType());
+        assertEquals(1, requests.size());
+    }
 
-        // Act
-        systemInfoPollService.pollDeviceSystemInfo(testDevice, testConfig);
+    @Test
+    void walkAsyncKeepsRowsCollectedBeforeAFailure() {
+        config.setSnmpVersion(DeviceConfig.SnmpVersion.V1);
+        responder = request -> requests.size() <= 2 ? respond(request) : null;
 
-        // Assert
-        verify(systemInfoRepository).save(eq(existingSystemInfo));
-        assertEquals("Updated Description", existingSystemInfo.getSysDescr());
-        assertEquals("updated-name", existingSystemInfo.getSysName());
+        CompletableFuture<Map<String, Variable>> descr = snmpClientService.snmpWalkAsync(config, IF_DESCR, 10);
+
+        assertFalse(descr.isCompletedExceptionally());
+        assertEquals(2, descr.join().size());
     }
 
     @Test
-    void testPollDeviceSystemInfo_Exception() {
-        // Arrange
-        when(snmpClientService.snmpGetMultiple(eq(testConfig), anyList()))
-            .thenThrow(new RuntimeException("SNMP error"));
-
-        // Act & Assert
-        assertThrows(RuntimeException.class, () -> {
-            systemInfoPollService.pollDeviceSystemInfo(testDevice, testConfig);
-        });
+    void walkAsyncEndsOnV1NoSuchName() {
+        config.setSnmpVersion(DeviceConfig.SnmpVersion.V1);
+        mib.tailMap(new OID(IF_DESCR), true).clear();
+        mib.put(new OID(IF_DESCR + ".1"), new OctetString("eth1"));
+        responder = request -> mib.higherKey(request.get(0).getOid()) == null ? errorResponse(PDU.noSuchName) : respond(request);
+
+        assertEquals(1, snmpClientService.snmpWalkAsync(config, IF_DESCR, 10).join().size());
     }
 
     @Test
-    void testPollDeviceSystemInfo_PartialData() {
-        // Arrange
-        Map<String, Variable> systemData = new HashMap<>();
-        systemData.put("1.3.6.1.2.1.1.1.0", new OctetString("Partial Description"));
-        // Missing other fields to test partial updates
-
-        when(snmpClientService.snmpGetMultiple(eq(testConfig), anyList()))
-            .thenReturn(systemData);
-        when(systemInfoRepository.findByDeviceId(testDevice.getId()))
-            .thenReturn(Optional.empty());
-
-        // Act
-        systemInfoPollService.pollDeviceSystemInfo(testDevice, testConfig);
-
-        // Assert
-        verify(systemInfoRepository).save(any(SystemInfo.class));
+    void blockingWrappersKeepTheirReturnContracts() {
+        assertEquals(Optional.of(new OctetString("router")), snmpClientService.snmpGet(config, SYS_NAME));
+        assertEquals(2, snmpClientService.snmpGetMultiple(config, List.of(SYS_NAME, SYS_LOCATION)).size());
+        assertEquals(3, snmpClientService.snmpWalk(config, IF_DESCR, 10).size());
+        assertTrue(snmpClientService.testConnection(config));
+
+        // Failures are still reported as empty results rather than thrown
+        responder = request -> null;
+        assertEquals(Optional.empty(), snmpClientService.snmpGet(config, SYS_NAME));
+        assertEquals(Map.of(), snmpClientService.snmpGetMultiple(config, List.of(SYS_NAME)));
+        assertEquals(Map.of(), snmpClientService.snmpWalk(config, IF_DESCR, 10));
+        assertFalse(snmpClientService.testConnection(config));
+    }
+
+    /**
+     * Minimal GET/GETNEXT/GETBULK responder over the in-memory MIB
+     */
+    private PDU respond(PDU request) {
+        PDU response = new PDU();
+        response.setType(PDU.RESPONSE);
+        if (request.getType() == PDU.GET) {
+            for (VariableBinding vb : request.getVariableBindings()) {
+                Variable value = mib.get(vb.getOid());
+                response.add(new VariableBinding(vb.getOid(), value == null ? Null.noSuchObject : value));
+            }
+            return response;
+        }
+
+        int repetitions = request.getType() == PDU.GETBULK ? request.getMaxRepetitions() : 1;
+        OID cursor = request.get(0).getOid();
+        for (int r = 0; r < repetitions; r++) {
+            Map.Entry<OID, Variable> next = mib.higherEntry(cursor);
+            if (next == null) {
+                response.add(new VariableBinding(cursor, Null.endOfMibView));
+                break;
+            }
+            response.add(new VariableBinding(next.getKey(), next.getValue()));
+            cursor = next.getKey();
+        }
+        return response;
+    }
+
+    private static PDU errorResponse(int errorStatus) {
+        PDU response = new PDU();
+        response.setType(PDU.RESPONSE);
+        response.setErrorStatus(errorStatus);
+        return response;
     }
 }
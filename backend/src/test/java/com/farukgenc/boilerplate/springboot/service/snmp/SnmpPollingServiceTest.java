@@ -11,12 +11,12 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
 
 @ExtendWith(MockitoExtension.class)
 class SnmpPollingServiceTest {
@@ -28,22 +28,13 @@ class SnmpPollingServiceTest {
     private SnmpClientService snmpClientService;
 
     @Mock
-    private SystemInfoPollService systemInfoPollService;
+    private DevicePollCollector devicePollCollector;
 
     @Mock
-    private SystemUnitPollService systemUnitPollService;
+    private DevicePollTransformer devicePollTransformer;
 
     @Mock
-    private InterfacePollService interfacePollService;
-
-    @Mock
-    private IpProfilePollService ipProfilePollService;
-
-    @Mock
-    private IcmpProfilePollService icmpProfilePollService;
-
-    @Mock
-    private UdpProfilePollService udpProfilePollService;
+    private PollResultWriter pollResultWriter;
 
     @InjectMocks
     private SnmpPollingService snmpPollingService;
@@ -57,6 +48,7 @@ class SnmpPollingServiceTest {
                 .id(1L)
                 .name("Test Device")
                 .description("Test Description")
+                .monitoringEnabled(true)
                 .build();
 
         config = DeviceConfig.builder()
@@ -73,64 +65,31 @@ class SnmpPollingServiceTest {
     }
 
     @Test
-    void testScheduledPollAllDevices_Success() {
+    void testPollDevice_CollectorErrorIsRecorded() {
         // Arrange
-        when(deviceConfigRepository.findByEnabledTrue()).thenReturn(Arrays.asList(config));
+        when(devicePollCollector.collect(config)).thenThrow(new IllegalStateException("plan failed"));
 
         // Act
-        snmpPollingService.scheduledPollAllDevices();
-
-        // Assert
-        verify(deviceConfigRepository).findByEnabledTrue();
-    }
-
-    @Test
-    void testScheduledPollAllDevices_NoEnabledDevices() {
-        // Arrange
-        when(deviceConfigRepository.findByEnabledTrue()).thenReturn(Collections.emptyList());
-
-        // Act
-        snmpPollingService.scheduledPollAllDevices();
+        snmpPollingService.pollDevice(config);
 
         // Assert
-        verify(deviceConfigRepository).findByEnabledTrue();
+        verify(pollResultWriter).recordFailure(1L, "Polling failed: plan failed");
+        verify(pollResultWriter, never()).apply(any());
     }
 
     @Test
     void testPollDevice_Success() {
         // Arrange
         config.setLastPollTime(LocalDateTime.now().minusMinutes(10)); // Make it eligible for polling
-        when(snmpClientService.testConnection(config)).thenReturn(true);
-        when(deviceConfigRepository.save(any(DeviceConfig.class))).thenReturn(config);
-
-        // Act
-        snmpPollingService.pollDevice(config);
-
-        // Assert
-        verify(snmpClientService).testConnection(config);
-        verify(systemInfoPollService).pollDeviceSystemInfo(device, config);
-        verify(interfacePollService).pollDeviceInterfaces(device, config);
-        verify(systemUnitPollService).pollDeviceSystemUnits(device, config);
-        verify(ipProfilePollService).pollDeviceIpProfile(device, config);
-        verify(icmpProfilePollService).pollDeviceIcmpProfile(device, config);
-        verify(udpProfilePollService).pollDeviceUdpProfile(device, config);
-        verify(deviceConfigRepository).save(config);
-    }
-
-    @Test
-    void testPollDevice_ConnectionFailure() {
-        // Arrange
-        config.setLastPollTime(LocalDateTime.now().minusMinutes(10));
-        when(snmpClientService.testConnection(config)).thenReturn(false);
-        when(deviceConfigRepository.save(any(DeviceConfig.class))).thenReturn(config);
+        DevicePollSnapshot snapshot = stubCollect();
 
         // Act
         snmpPollingService.pollDevice(config);
 
         // Assert
-        verify(snmpClientService).testConnection(config);
-        verify(systemInfoPollService, never()).pollDeviceSystemInfo(any(), any());
-        verify(deviceConfigRepository).save(config);
+        verify(devicePollCollector).collect(config);
+        verify(snmpClientService, never()).testConnection(any());
+        verify(pollResultWriter).apply(snapshot);
     }
 
     @Test
@@ -143,76 +102,82 @@ class SnmpPollingServiceTest {
         snmpPollingService.pollDevice(config);
 
         // Assert
-        verify(snmpClientService, never()).testConnection(any());
-        verify(systemInfoPollService, never()).pollDeviceSystemInfo(any(), any());
+        verify(devicePollCollector, never()).collect(any());
+        verify(pollResultWriter, never()).apply(any());
     }
 
     @Test
-    void testPollDevice_SystemInfoException() {
+    void testPollDevice_MonitoringDisabled() {
         // Arrange
-        config.setLastPollTime(LocalDateTime.now().minusMinutes(10));
-        when(snmpClientService.testConnection(config)).thenReturn(true);
-        doThrow(new RuntimeException("System info error")).when(systemInfoPollService).pollDeviceSystemInfo(device, config);
-        when(deviceConfigRepository.save(any(DeviceConfig.class))).thenReturn(config);
+        device.setMonitoringEnabled(false);
 
         // Act
         snmpPollingService.pollDevice(config);
 
         // Assert
-        verify(snmpClientService).testConnection(config);
-        verify(systemInfoPollService).pollDeviceSystemInfo(device, config);
-        verify(interfacePollService).pollDeviceInterfaces(device, config); // Should continue despite error
-        verify(deviceConfigRepository).save(config);
+        verify(devicePollCollector, never()).collect(any());
     }
 
     @Test
     void testPollDeviceById_Found() {
         // Arrange
-        when(deviceConfigRepository.findById(1L)).thenReturn(Optional.of(config));
-        config.setLastPollTime(LocalDateTime.now().minusMinutes(10));
-        when(snmpClientService.testConnection(config)).thenReturn(true);
-        when(deviceConfigRepository.save(any(DeviceConfig.class))).thenReturn(config);
+        when(deviceConfigRepository.findByDeviceIdWithDevice(1L)).thenReturn(Optional.of(config));
+        DevicePollSnapshot snapshot = stubCollect();
 
         // Act
         snmpPollingService.pollDeviceById(1L);
 
         // Assert
-        verify(deviceConfigRepository).findById(1L);
-        verify(snmpClientService).testConnection(config);
-        verify(systemInfoPollService).pollDeviceSystemInfo(device, config);
+        verify(deviceConfigRepository).findByDeviceIdWithDevice(1L);
+        verify(pollResultWriter).apply(snapshot);
     }
 
     @Test
     void testPollDeviceById_NotFound() {
         // Arrange
-        when(deviceConfigRepository.findById(1L)).thenReturn(Optional.empty());
+        when(deviceConfigRepository.findByDeviceIdWithDevice(1L)).thenReturn(Optional.empty());
 
         // Act & Assert
-        try {
-            snmpPollingService.pollDeviceById(1L);
-        } catch (RuntimeException e) {
-            // Expected
-        }
+        assertThrows(RuntimeException.class, () -> snmpPollingService.pollDeviceById(1L));
 
-        verify(deviceConfigRepository).findById(1L);
-        verify(snmpClientService, never()).testConnection(any());
+        verify(devicePollCollector, never()).collect(any());
+    }
+
+    @Test
+    void testPollDevicesByIds_FailingDeviceDoesNotStopOthers() {
+        // Arrange
+        when(deviceConfigRepository.findByDeviceIdWithDevice(2L)).thenReturn(Optional.empty());
+        when(deviceConfigRepository.findByDeviceIdWithDevice(1L)).thenReturn(Optional.of(config));
+        DevicePollSnapshot snapshot = stubCollect();
+
+        // Act
+        snmpPollingService.pollDevicesByIds(List.of(2L, 1L));
+
+        // Assert
+        verify(pollResultWriter).apply(snapshot);
     }
 
     @Test
     void testPollDeviceAsync_Success() {
         // Arrange
-        config.setLastPollTime(LocalDateTime.now().minusMinutes(10));
-        when(snmpClientService.testConnection(config)).thenReturn(true);
-        when(deviceConfigRepository.save(any(DeviceConfig.class))).thenReturn(config);
+        DevicePollSnapshot snapshot = stubCollect();
 
         // Act
-        snmpPollingService.pollDeviceAsync(config);
+        snmpPollingService.pollDeviceAsync(config).join();
 
         // Assert
-        verify(snmpClientService).testConnection(config);
-        verify(systemInfoPollService).pollDeviceSystemInfo(device, config);
-        verify(deviceConfigRepository).save(config);
-    }    @Test
+        verify(pollResultWriter).apply(snapshot);
+    }
+
+    private DevicePollSnapshot stubCollect() {
+        DevicePollSnapshot snapshot = DevicePollSnapshot.reachable(1L, LocalDateTime.now(),
+                Map.of(), Map.of(), List.of(), List.of());
+        when(devicePollCollector.collect(config)).thenReturn(CompletableFuture.completedFuture(snapshot));
+        when(devicePollTransformer.transform(snapshot)).thenReturn(snapshot);
+        return snapshot;
+    }
+
+    @Test
     void testGetPollingStatistics() {
         // Arrange
         when(deviceConfigRepository.count()).thenReturn(5L);
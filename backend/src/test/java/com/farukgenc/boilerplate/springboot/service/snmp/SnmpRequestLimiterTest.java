@@ -0,0 +1,129 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalDouble;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnmpRequestLimiterTest {
+
+    private SnmpProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SnmpProperties();
+        properties.getLimiter().setPerTarget(2);
+        properties.getLimiter().setInitialLimit(4);
+        properties.getLimiter().setMinLimit(2);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void capsInFlightRequestsPerTarget() {
+        SnmpRequestLimiter limiter = new SnmpRequestLimiter(properties, meterRegistry);
+        List<CompletableFuture<String>> pending = new ArrayList<>();
+
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(limiter.submit("10.0.0.1:161", () -> track(pending)));
+        }
+
+        assertEquals(2, pending.size());
+        assertEquals(3, limiter.getQueued());
+
+        pending.get(0).complete("first");
+        assertEquals("first", results.get(0).join());
+        assertEquals(3, pending.size());
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    void capsInFlightRequestsGloballyAndServesTargetsRoundRobin() {
+        SnmpRequestLimiter limiter = new SnmpRequestLimiter(properties, meterRegistry);
+        List<CompletableFuture<String>> pending = new ArrayList<>();
+        List<String> started = new ArrayList<>();
+
+        for (String target : List.of("a", "a", "a", "b", "b", "c", "c")) {
+            limiter.submit(target, () -> {
+                started.add(target);
+                return track(pending);
+            });
+        }
+        assertEquals(List.of("a", "a", "b", "b"), started);
+        assertEquals(3, limiter.getQueued());
+        assertEquals(2, limiter.getWaitingTargets());
+
+        pending.get(0).complete("done");
+        assertEquals("c", started.get(4));
+        assertEquals(4, limiter.getInFlight());
+    }
+
+    @Test
+    void releasesSlotWhenRequestFails() {
+        SnmpRequestLimiter limiter = new SnmpRequestLimiter(properties, meterRegistry);
+
+        CompletableFuture<String> failed = limiter.submit("a",
+            () -> CompletableFuture.failedFuture(new TimeoutException("timed out")));
+        CompletableFuture<String> thrown = limiter.submit("a", () -> {
+            throw new IllegalStateException("no session");
+        });
+
+        assertTrue(failed.isCompletedExceptionally());
+        assertTrue(thrown.isCompletedExceptionally());
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(0, limiter.getQueued());
+    }
+
+    @Test
+    void shrinksOncePerWindowOnTimeoutsOfResponsiveTargets() {
+        properties.getLimiter().setInitialLimit(100);
+        SnmpRequestLimiter limiter = new SnmpRequestLimiter(properties, meterRegistry);
+        List<CompletableFuture<String>> pending = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            limiter.submit("target-" + i, () -> track(pending));
+        }
+
+        limiter.onTimeout(false);
+        assertEquals(100.0, limiter.getLimit());
+
+        limiter.onTimeout(true);
+        limiter.onTimeout(true);
+        assertEquals(90.0, limiter.getLimit(), 1e-9);
+
+        pending.forEach(future -> future.complete("ok"));
+        limiter.onTimeout(true);
+        assertEquals(81.0, limiter.getLimit(), 1e-9);
+        assertEquals(2.0, meterRegistry.get("snmp.limiter.decreases").counter().count());
+    }
+
+    @Test
+    void growsWhileBusyAndShrinksOnLatencySpikes() {
+        SnmpRequestLimiter limiter = new SnmpRequestLimiter(properties, meterRegistry);
+        List<CompletableFuture<String>> pending = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            limiter.submit("target-" + i, () -> track(pending));
+        }
+
+        limiter.onResponse(10, OptionalDouble.of(10));
+        assertEquals(4.25, limiter.getLimit(), 1e-9);
+
+        limiter.onResponse(100, OptionalDouble.of(10));
+        assertEquals(4.25 * 0.9, limiter.getLimit(), 1e-9);
+        assertEquals(4.25 * 0.9, meterRegistry.get("snmp.limiter.limit").gauge().value(), 1e-9);
+    }
+
+    private static CompletableFuture<String> track(List<CompletableFuture<String>> pending) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        pending.add(future);
+        return future;
+    }
+}
@@ -0,0 +1,82 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnmpSessionPoolTest {
+
+    private SnmpProperties properties;
+    private SnmpSessionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SnmpProperties();
+        properties.getPool().setTransports(2);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        pool = new SnmpSessionPool(properties, meterRegistry, new UsmSecurityCache(meterRegistry));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void testAcquire_ReusesEntryForSameTarget() throws Exception {
+        SnmpSessionPool.PooledTarget first = pool.acquire(config("10.0.0.1"));
+        SnmpSessionPool.PooledTarget second = pool.acquire(config("10.0.0.1"));
+
+        assertSame(first, second);
+        assertEquals(1, pool.getTargetCount());
+        assertEquals(0.5, pool.getHitRatio(), 0.0001);
+    }
+
+    @Test
+    void testAcquire_MultiplexesTargetsOverFixedTransports() throws Exception {
+        for (int i = 1; i <= 50; i++) {
+            pool.acquire(config("10.0.0." + i));
+        }
+
+        assertEquals(50, pool.getTargetCount());
+        assertTrue(pool.getOpenSockets() <= 2);
+    }
+
+    @Test
+    void testEvictIdleTargets_RemovesExpiredEntries() throws Exception {
+        properties.getPool().setIdleTimeout(Duration.ZERO);
+        pool.acquire(config("10.0.0.1"));
+
+        pool.evictIdleTargets();
+
+        assertEquals(0, pool.getTargetCount());
+    }
+
+    @Test
+    void testEvictIdleTargets_TrimsLeastRecentlyUsed() throws Exception {
+        properties.getPool().setMaxTargets(2);
+        SnmpSessionPool.PooledTarget oldest = pool.acquire(config("10.0.0.1"));
+        pool.acquire(config("10.0.0.2"));
+        pool.acquire(config("10.0.0.3"));
+
+        pool.evictIdleTargets();
+
+        assertEquals(2, pool.getTargetCount());
+        assertNotSame(oldest, pool.acquire(config("10.0.0.1")));
+    }
+
+    private DeviceConfig config(String ip) {
+        return DeviceConfig.builder()
+            .targetIp(ip)
+            .snmpPort(161)
+            .communityString("public")
+            .build();
+    }
+}
@@ -0,0 +1,173 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.snmp4j.PDU;
+import org.snmp4j.smi.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SnmpTableFetcherTest {
+
+    private static final OID IF_DESCR = SnmpOids.IF_DESCR;
+    private static final OID IF_OPER_STATUS = SnmpOids.IF_OPER_STATUS;
+
+    private final NavigableMap<OID, Variable> mib = new TreeMap<>();
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private SnmpClientService snmpClientService;
+    private SnmpTableFetcher fetcher;
+    private DeviceConfig config;
+    private int maxResponseBindings = Integer.MAX_VALUE;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 1; i <= 48; i++) {
+            mib.put(SnmpOids.instance(IF_DESCR, i), new OctetString("port" + i));
+            mib.put(SnmpOids.instance(IF_OPER_STATUS, i), new Integer32(1));
+        }
+        mib.put(new OID("1.3.6.1.2.1.2.2.1.9.1"), new TimeTicks(0));
+
+        config = DeviceConfig.builder()
+            .targetIp("192.168.1.1")
+            .snmpPort(161)
+            .communityString("public")
+            .snmpVersion(DeviceConfig.SnmpVersion.V2C)
+            .build();
+
+        snmpClientService = mock(SnmpClientService.class);
+        when(snmpClientService.sendAsync(eq(config), any(PDU.class)))
+            .thenAnswer(invocation -> CompletableFuture.completedFuture(respond(invocation.getArgument(1))));
+
+        SnmpProperties properties = new SnmpProperties();
+        properties.getWalk().setInitialMaxRepetitions(20);
+        properties.getWalk().setMaxRepetitions(40);
+        fetcher = new SnmpTableFetcher(snmpClientService, new BulkRepetitionTuner(properties));
+    }
+
+    @Test
+    void fetchesAllColumnsIntoRowsInFewRequests() {
+        List<SnmpTableRow> rows = fetcher.fetchTable(config, SnmpColumns.of(IF_DESCR, IF_OPER_STATUS));
+
+        assertEquals(48, rows.size());
+        assertEquals(1, rows.get(0).getIndexAsInt());
+        assertEquals("port1", rows.get(0).getValue(IF_DESCR).toString());
+        assertEquals(1, rows.get(47).getValue(1).toInt());
+        assertEquals("port48", rows.get(47).getValue(0).toString());
+        // 96 bindings at up to 40 per response, plus the one that runs off the table
+        assertTrue(requests.get() <= 5, "requests: " + requests.get());
+    }
+
+    @Test
+    void shrinksRepetitionsOnTooBig() {
+        maxResponseBindings = 10;
+
+        List<SnmpTableRow> rows = fetcher.fetchTable(config, SnmpColumns.of(IF_DESCR, IF_OPER_STATUS));
+
+        assertEquals(48, rows.size());
+        assertNotNull(rows.get(30).getValue(IF_OPER_STATUS));
+    }
+
+    @Test
+    void fallsBackToGetNextForV1() {
+        config.setSnmpVersion(DeviceConfig.SnmpVersion.V1);
+
+        List<SnmpTableRow> rows = fetcher.fetchTable(config, SnmpColumns.of(IF_DESCR, IF_OPER_STATUS));
+
+        assertEquals(48, rows.size());
+        assertEquals(49, requests.get());
+    }
+
+    @Test
+    void failsInsteadOfReturningPartialTableOnTimeout() {
+        when(snmpClientService.sendAsync(eq(config), any(PDU.class)))
+            .thenAnswer(invocation -> CompletableFuture.completedFuture(respond(invocation.getArgument(1))))
+            .thenReturn(CompletableFuture.failedFuture(new TimeoutException("timed out")));
+
+        CompletableFuture<List<SnmpTableRow>> rows = fetcher.fetchTableAsync(config, SnmpColumns.of(IF_DESCR, IF_OPER_STATUS));
+
+        CompletionException e = assertThrows(CompletionException.class, rows::join);
+        assertInstanceOf(TimeoutException.class, SnmpClientService.rootCause(e));
+    }
+
+    @Test
+    void failsOnErrorStatusPartWayThroughTable() {
+        when(snmpClientService.sendAsync(eq(config), any(PDU.class)))
+            .thenAnswer(invocation -> CompletableFuture.completedFuture(respond(invocation.getArgument(1))))
+            .thenAnswer(invocation -> {
+                PDU response = new PDU();
+                response.setType(PDU.RESPONSE);
+                response.setErrorStatus(PDU.genErr);
+                return CompletableFuture.completedFuture(response);
+            });
+
+        assertThrows(CompletionException.class, () -> fetcher.fetchTable(config, SnmpColumns.of(IF_DESCR, IF_OPER_STATUS)));
+    }
+
+    @Test
+    void failsInsteadOfReturningPartialTableWhenAgentRepeatsAnOid() {
+        config.setSnmpVersion(DeviceConfig.SnmpVersion.V1);
+        when(snmpClientService.sendAsync(eq(config), any(PDU.class)))
+            .thenAnswer(invocation -> {
+                PDU request = invocation.getArgument(1);
+                if (requests.get() < 3) {
+                    return CompletableFuture.completedFuture(respond(request));
+                }
+                // A looping agent answers with the OIDs it was asked to go past
+                PDU response = new PDU();
+                response.setType(PDU.RESPONSE);
+                request.getVariableBindings().forEach(vb -> response.add(new VariableBinding(vb.getOid(), mib.get(vb.getOid()))));
+                return CompletableFuture.completedFuture(response);
+            });
+
+        CompletableFuture<List<SnmpTableRow>> rows = fetcher.fetchTableAsync(config, SnmpColumns.of(IF_DESCR, IF_OPER_STATUS));
+
+        CompletionException e = assertThrows(CompletionException.class, rows::join);
+        assertInstanceOf(IOException.class, SnmpClientService.rootCause(e));
+        assertTrue(e.getMessage().contains("out of order"), e.getMessage());
+    }
+
+    /**
+     * Minimal GETNEXT/GETBULK responder over the in-memory MIB
+     */
+    private PDU respond(PDU request) {
+        requests.incrementAndGet();
+        PDU response = new PDU();
+        response.setType(PDU.RESPONSE);
+        int repetitions = request.getType() == PDU.GETBULK ? request.getMaxRepetitions() : 1;
+        if (repetitions * request.size() > maxResponseBindings) {
+            response.setErrorStatus(PDU.tooBig);
+            return response;
+        }
+
+        OID[] cursors = request.getVariableBindings().stream().map(VariableBinding::getOid).toArray(OID[]::new);
+        for (int r = 0; r < repetitions; r++) {
+            for (int c = 0; c < cursors.length; c++) {
+                Map.Entry<OID, Variable> next = mib.higherEntry(cursors[c]);
+                if (next == null) {
+                    response.add(new VariableBinding(cursors[c], Null.endOfMibView));
+                } else {
+                    response.add(new VariableBinding(next.getKey(), next.getValue()));
+                    cursors[c] = next.getKey();
+                }
+            }
+        }
+        return response;
+    }
+}
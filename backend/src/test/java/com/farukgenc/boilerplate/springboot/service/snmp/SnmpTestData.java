@@ -0,0 +1,25 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.Variable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds the SNMP values that the mocked {@link SnmpClientService} returns in the poll service tests
+ */
+final class SnmpTestData {
+
+    private SnmpTestData() {
+    }
+
+    /**
+     * Values of the requested columns, keyed by dotted OID as the tests write them
+     */
+    static SnmpScalars scalars(SnmpColumns columns, Map<String, Variable> data) {
+        Map<OID, Variable> values = new HashMap<>();
+        data.forEach((oid, value) -> values.put(new OID(oid), value));
+        return SnmpScalars.from(columns, values);
+    }
+}
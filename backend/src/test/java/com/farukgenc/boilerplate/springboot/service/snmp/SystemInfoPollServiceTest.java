@@ -17,6 +17,7 @@ import org.snmp4j.smi.TimeTicks;
 
 import java.util.*;
 
+import static com.farukgenc.boilerplate.springboot.service.snmp.SnmpTestData.scalars;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -64,8 +65,8 @@ class SystemInfoPollServiceTest {
         systemData.put("1.3.6.1.2.1.1.6.0", new OctetString("Data Center"));
         systemData.put("1.3.6.1.2.1.1.7.0", new Integer32(72));
 
-        when(snmpClientService.snmpGetMultiple(eq(testConfig), anyList()))
-            .thenReturn(systemData);
+        when(snmpClientService.snmpGetScalars(eq(testConfig), any(SnmpColumns.class)))
+            .thenAnswer(invocation -> scalars(invocation.getArgument(1), systemData));
         when(systemInfoRepository.findByDeviceId(testDevice.getId()))
             .thenReturn(Optional.empty());
 
@@ -73,21 +74,21 @@ class SystemInfoPollServiceTest {
         systemInfoPollService.pollDeviceSystemInfo(testDevice, testConfig);
 
         // Assert
-        verify(snmpClientService).snmpGetMultiple(eq(testConfig), anyList());
+        verify(snmpClientService).snmpGetScalars(eq(testConfig), any(SnmpColumns.class));
         verify(systemInfoRepository).save(any(SystemInfo.class));
     }
 
     @Test
     void testPollDeviceSystemInfo_NoData() {
         // Arrange
-        when(snmpClientService.snmpGetMultiple(eq(testConfig), anyList()))
-            .thenReturn(new HashMap<>());
+        when(snmpClientService.snmpGetScalars(eq(testConfig), any(SnmpColumns.class)))
+            .thenAnswer(invocation -> scalars(invocation.getArgument(1), new HashMap<>()));
 
         // Act
         systemInfoPollService.pollDeviceSystemInfo(testDevice, testConfig);
 
         // Assert
-        verify(snmpClientService).snmpGetMultiple(eq(testConfig), anyList());
+        verify(snmpClientService).snmpGetScalars(eq(testConfig), any(SnmpColumns.class));
         verify(systemInfoRepository, never()).save(any(SystemInfo.class));
     }
 
@@ -104,8 +105,8 @@ class SystemInfoPollServiceTest {
         systemData.put("1.3.6.1.2.1.1.1.0", new OctetString("Updated Description"));
         systemData.put("1.3.6.1.2.1.1.5.0", new OctetString("updated-name"));
 
-        when(snmpClientService.snmpGetMultiple(eq(testConfig), anyList()))
-            .thenReturn(systemData);
+        when(snmpClientService.snmpGetScalars(eq(testConfig), any(SnmpColumns.class)))
+            .thenAnswer(invocation -> scalars(invocation.getArgument(1), systemData));
         when(systemInfoRepository.findByDeviceId(testDevice.getId()))
             .thenReturn(Optional.of(existingSystemInfo));
 
@@ -121,7 +122,7 @@ class SystemInfoPollServiceTest {
     @Test
     void testPollDeviceSystemInfo_Exception() {
         // Arrange
-        when(snmpClientService.snmpGetMultiple(eq(testConfig), anyList()))
+        when(snmpClientService.snmpGetScalars(eq(testConfig), any(SnmpColumns.class)))
             .thenThrow(new RuntimeException("SNMP error"));
 
         // Act & Assert
@@ -137,8 +138,8 @@ class SystemInfoPollServiceTest {
         systemData.put("1.3.6.1.2.1.1.1.0", new OctetString("Partial Description"));
         // Missing other fields to test partial updates
 
-        when(snmpClientService.snmpGetMultiple(eq(testConfig), anyList()))
-            .thenReturn(systemData);
+        when(snmpClientService.snmpGetScalars(eq(testConfig), any(SnmpColumns.class)))
+            .thenAnswer(invocation -> scalars(invocation.getArgument(1), systemData));
         when(systemInfoRepository.findByDeviceId(testDevice.getId()))
             .thenReturn(Optional.empty());
 
@@ -7,21 +7,25 @@ import com.farukgenc.boilerplate.springboot.repository.SystemUnitRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.snmp4j.smi.Variable;
+import org.snmp4j.smi.Integer32;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.OctetString;
 
 import java.util.*;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
 
 @ExtendWith(MockitoExtension.class)
 class SystemUnitPollServiceTest {
 
     @Mock
-    private SnmpClientService snmpClientService;
+    private SnmpTableFetcher snmpTableFetcher;
 
     @Mock
     private SystemUnitRepository systemUnitRepository;
@@ -48,7 +52,9 @@ class SystemUnitPollServiceTest {
                 .snmpPort(161)
                 .communityString("public")
                 .enabled(true)
-                .build();        existingUnit = SystemUnit.builder()
+                .build();
+
+        existingUnit = SystemUnit.builder()
                 .id(1L)
                 .device(device)
                 .unitIndex(1)
@@ -59,53 +65,55 @@ class SystemUnitPollServiceTest {
     }
 
     @Test
-    void testPollDeviceSystemUnits_Success() {        // Arrange
-        Map<String, Variable> systemData = createMockSystemUnitData();
-        when(snmpClientService.snmpWalk(eq(config), anyString(), anyInt())).thenReturn(systemData);
-        when(systemUnitRepository.findByDeviceAndUnitIndex(device, 1)).thenReturn(Optional.of(existingUnit));
-        when(systemUnitRepository.save(any(SystemUnit.class))).thenReturn(existingUnit);
+    void testPollDeviceSystemUnits_Success() {
+        // Arrange
+        when(snmpTableFetcher.fetchTable(eq(config), any(SnmpColumns.class))).thenReturn(List.of(unitRow(1, "Intel CPU", 12, "CPU 1")));
+        when(systemUnitRepository.findByDevice(device)).thenReturn(List.of(existingUnit));
 
         // Act
         systemUnitPollService.pollDeviceSystemUnits(device, config);
 
         // Assert
-        verify(snmpClientService, times(4)).snmpWalk(eq(config), anyString(), anyInt()); // 4 walks for different tables
-        verify(systemUnitRepository).findByDeviceAndUnitIndex(device, 1);
-        verify(systemUnitRepository).save(any(SystemUnit.class));
-    }    @Test
+        verify(snmpTableFetcher, times(1)).fetchTable(eq(config), any(SnmpColumns.class)); // whole entPhysicalTable in one fetch
+        verify(systemUnitRepository, times(1)).findByDevice(device); // existing units in one query
+        verify(systemUnitRepository).saveAll(List.of(existingUnit));
+        assertEquals("cpu", existingUnit.getUnitType());
+    }
+
+    @Test
     void testPollDeviceSystemUnits_NewUnit() {
         // Arrange
-        Map<String, Variable> systemData = createMockSystemUnitData();
-        when(snmpClientService.snmpWalk(eq(config), anyString(), anyInt())).thenReturn(systemData);
-        when(systemUnitRepository.findByDeviceAndUnitIndex(device, 1)).thenReturn(Optional.empty());
-        when(systemUnitRepository.save(any(SystemUnit.class))).thenReturn(existingUnit);
+        when(snmpTableFetcher.fetchTable(eq(config), any(SnmpColumns.class))).thenReturn(List.of(unitRow(1, "Intel CPU", 12, "CPU 1")));
+        when(systemUnitRepository.findByDevice(device)).thenReturn(List.of());
 
         // Act
         systemUnitPollService.pollDeviceSystemUnits(device, config);
 
         // Assert
-        verify(snmpClientService, times(4)).snmpWalk(eq(config), anyString(), anyInt());
-        verify(systemUnitRepository).findByDeviceAndUnitIndex(device, 1);
-        verify(systemUnitRepository).save(any(SystemUnit.class));
+        ArgumentCaptor<List<SystemUnit>> saved = ArgumentCaptor.forClass(List.class);
+        verify(systemUnitRepository).saveAll(saved.capture());
+        assertEquals(1, saved.getValue().size());
+        assertEquals(1, saved.getValue().get(0).getUnitIndex());
+        assertEquals("Intel CPU", saved.getValue().get(0).getUnitDescription());
     }
 
     @Test
     void testPollDeviceSystemUnits_EmptyData() {
         // Arrange
-        when(snmpClientService.snmpWalk(eq(config), anyString(), anyInt())).thenReturn(new HashMap<>());
+        when(snmpTableFetcher.fetchTable(eq(config), any(SnmpColumns.class))).thenReturn(new ArrayList<>());
 
         // Act
         systemUnitPollService.pollDeviceSystemUnits(device, config);
 
         // Assert
-        verify(snmpClientService, times(4)).snmpWalk(eq(config), anyString(), anyInt());
-        verify(systemUnitRepository, never()).save(any());
+        verify(snmpTableFetcher).fetchTable(eq(config), any(SnmpColumns.class));
+        verify(systemUnitRepository, never()).saveAll(any());
     }
 
     @Test
     void testPollDeviceSystemUnits_SnmpException() {
         // Arrange
-        when(snmpClientService.snmpWalk(eq(config), anyString(), anyInt())).thenThrow(new RuntimeException("SNMP error"));
+        when(snmpTableFetcher.fetchTable(eq(config), any(SnmpColumns.class))).thenThrow(new RuntimeException("SNMP error"));
 
         // Act & Assert
         try {
@@ -114,110 +122,52 @@ class SystemUnitPollServiceTest {
             // Expected
         }
 
-        verify(snmpClientService).snmpWalk(eq(config), anyString(), anyInt());
-        verify(systemUnitRepository, never()).save(any());
+        verify(snmpTableFetcher).fetchTable(eq(config), any(SnmpColumns.class));
+        verify(systemUnitRepository, never()).saveAll(any());
     }
 
     @Test
-    void testPollDeviceSystemUnits_PartialData() {
+    void testPollDeviceSystemUnits_RemovesStaleUnits() {
         // Arrange
-        Map<String, Variable> partialData = new HashMap<>();
-        Variable mockName = mock(Variable.class);
-        when(mockName.toString()).thenReturn("CPU 2");
-        partialData.put("1.3.6.1.2.1.47.1.1.1.1.7.1", mockName); // hrDeviceDescr.1
-
-        when(snmpClientService.snmpWalk(eq(config), anyString(), anyInt()))
-            .thenReturn(partialData)
-            .thenReturn(new HashMap<>())
-            .thenReturn(new HashMap<>())
-            .thenReturn(new HashMap<>());
-        
-        when(systemUnitRepository.findByDeviceAndUnitIndex(device, 1)).thenReturn(Optional.of(existingUnit));
-        when(systemUnitRepository.save(any(SystemUnit.class))).thenReturn(existingUnit);
+        SystemUnit staleUnit = SystemUnit.builder().id(2L).device(device).unitIndex(2).build();
+        when(snmpTableFetcher.fetchTable(eq(config), any(SnmpColumns.class))).thenReturn(List.of(unitRow(1, "Intel CPU", 12, "CPU 1")));
+        when(systemUnitRepository.findByDevice(device)).thenReturn(List.of(existingUnit, staleUnit));
 
         // Act
         systemUnitPollService.pollDeviceSystemUnits(device, config);
 
         // Assert
-        verify(snmpClientService, times(4)).snmpWalk(eq(config), anyString(), anyInt());
-        verify(systemUnitRepository).findByDeviceAndUnitIndex(device, 1);
-        verify(systemUnitRepository).save(any(SystemUnit.class));
+        verify(systemUnitRepository).deleteAll(List.of(staleUnit));
     }
 
     @Test
     void testPollDeviceSystemUnits_MultipleUnits() {
         // Arrange
-        Map<String, Variable> systemData = createMockMultipleUnitsData();
-        when(snmpClientService.snmpWalk(eq(config), anyString(), anyInt())).thenReturn(systemData);
-        when(systemUnitRepository.findByDeviceAndUnitIndex(device, 1)).thenReturn(Optional.of(existingUnit));
-        when(systemUnitRepository.findByDeviceAndUnitIndex(device, 2)).thenReturn(Optional.empty());
-        when(systemUnitRepository.save(any(SystemUnit.class))).thenReturn(existingUnit);
+        when(snmpTableFetcher.fetchTable(eq(config), any(SnmpColumns.class))).thenReturn(List.of(
+            unitRow(1, "Intel CPU", 12, "CPU 1"),
+            unitRow(2, "Network Interface", 10, "Gi0/1")
+        ));
+        when(systemUnitRepository.findByDevice(device)).thenReturn(List.of(existingUnit));
 
         // Act
         systemUnitPollService.pollDeviceSystemUnits(device, config);
 
         // Assert
-        verify(snmpClientService, times(4)).snmpWalk(eq(config), anyString(), anyInt());
-        verify(systemUnitRepository).findByDeviceAndUnitIndex(device, 1);
-        verify(systemUnitRepository).findByDeviceAndUnitIndex(device, 2);
-        verify(systemUnitRepository, times(2)).save(any(SystemUnit.class));
-    }
-
-    private Map<String, Variable> createMockSystemUnitData() {
-        Map<String, Variable> data = new HashMap<>();
-        
-        // hrDeviceDescr.1
-        Variable deviceDescr = mock(Variable.class);
-        when(deviceDescr.toString()).thenReturn("Intel CPU");
-        data.put("1.3.6.1.2.1.47.1.1.1.1.7.1", deviceDescr);
-        
-        // hrDeviceType.1 
-        Variable deviceType = mock(Variable.class);
-        when(deviceType.toInt()).thenReturn(3); // hrDeviceProcessor
-        data.put("1.3.6.1.2.1.25.3.2.1.2.1", deviceType);
-        
-        // hrDeviceStatus.1
-        Variable deviceStatus = mock(Variable.class);
-        when(deviceStatus.toInt()).thenReturn(2); // running
-        data.put("1.3.6.1.2.1.25.3.2.1.5.1", deviceStatus);
-        
-        // hrProcessorLoad.1
-        Variable processorLoad = mock(Variable.class);
-        when(processorLoad.toInt()).thenReturn(25);
-        data.put("1.3.6.1.2.1.25.3.3.1.2.1", processorLoad);
-
-        return data;
+        verify(snmpTableFetcher, times(1)).fetchTable(eq(config), any(SnmpColumns.class));
+        verify(systemUnitRepository, times(1)).findByDevice(device);
+        verify(systemUnitRepository, never()).findByDeviceAndUnitIndex(any(), anyInt());
+        ArgumentCaptor<List<SystemUnit>> saved = ArgumentCaptor.forClass(List.class);
+        verify(systemUnitRepository).saveAll(saved.capture());
+        assertEquals(2, saved.getValue().size());
     }
 
-    private Map<String, Variable> createMockMultipleUnitsData() {
-        Map<String, Variable> data = new HashMap<>();
-        
-        // Unit 1
-        Variable deviceDescr1 = mock(Variable.class);
-        when(deviceDescr1.toString()).thenReturn("Intel CPU");
-        data.put("1.3.6.1.2.1.47.1.1.1.1.7.1", deviceDescr1);
-        
-        Variable deviceType1 = mock(Variable.class);
-        when(deviceType1.toInt()).thenReturn(3);
-        data.put("1.3.6.1.2.1.25.3.2.1.2.1", deviceType1);
-        
-        Variable deviceStatus1 = mock(Variable.class);
-        when(deviceStatus1.toInt()).thenReturn(2);
-        data.put("1.3.6.1.2.1.25.3.2.1.5.1", deviceStatus1);
-        
-        // Unit 2
-        Variable deviceDescr2 = mock(Variable.class);
-        when(deviceDescr2.toString()).thenReturn("Network Interface");
-        data.put("1.3.6.1.2.1.47.1.1.1.1.7.2", deviceDescr2);
-        
-        Variable deviceType2 = mock(Variable.class);
-        when(deviceType2.toInt()).thenReturn(6); // hrDeviceNetwork
-        data.put("1.3.6.1.2.1.25.3.2.1.2.2", deviceType2);
-        
-        Variable deviceStatus2 = mock(Variable.class);
-        when(deviceStatus2.toInt()).thenReturn(2);
-        data.put("1.3.6.1.2.1.25.3.2.1.5.2", deviceStatus2);
-
-        return data;
+    private SnmpTableRow unitRow(int unitIndex, String descr, int physicalClass, String name) {
+        SnmpColumns columns = SnmpColumns.of(SnmpOids.ENT_PHYSICAL_DESCR, SnmpOids.ENT_PHYSICAL_CLASS,
+            SnmpOids.ENT_PHYSICAL_NAME);
+        SnmpTableRow row = new SnmpTableRow(new OID(new int[]{unitIndex}), columns);
+        row.setValue(0, new OctetString(descr));
+        row.setValue(1, new Integer32(physicalClass));
+        row.setValue(2, new OctetString(name));
+        return row;
     }
 }
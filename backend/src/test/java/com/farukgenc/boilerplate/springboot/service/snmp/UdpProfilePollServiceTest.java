@@ -10,14 +10,20 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.snmp4j.smi.Integer32;
+import org.snmp4j.smi.IpAddress;
+import org.snmp4j.smi.OID;
 import org.snmp4j.smi.Variable;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import static com.farukgenc.boilerplate.springboot.service.snmp.SnmpTestData.scalars;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
 
 @ExtendWith(MockitoExtension.class)
 class UdpProfilePollServiceTest {
@@ -25,6 +31,9 @@ class UdpProfilePollServiceTest {
     @Mock
     private SnmpClientService snmpClientService;
 
+    @Mock
+    private SnmpTableFetcher snmpTableFetcher;
+
     @Mock
     private UdpProfileRepository udpProfileRepository;
 
@@ -65,7 +74,7 @@ class UdpProfilePollServiceTest {
     void testPollDeviceUdpProfile_Success() {
         // Arrange
         Map<String, Variable> udpData = createMockUdpData();
-        when(snmpClientService.snmpGetMultiple(eq(config), any())).thenReturn(udpData);
+        when(snmpClientService.snmpGetScalars(eq(config), any())).thenAnswer(invocation -> scalars(invocation.getArgument(1), udpData));
         when(udpProfileRepository.findByDeviceId(device.getId())).thenReturn(Optional.of(existingProfile));
         when(udpProfileRepository.save(any(UdpProfile.class))).thenReturn(existingProfile);
 
@@ -73,7 +82,7 @@ class UdpProfilePollServiceTest {
         udpProfilePollService.pollDeviceUdpProfile(device, config);
 
         // Assert
-        verify(snmpClientService, atLeastOnce()).snmpGetMultiple(eq(config), any());
+        verify(snmpClientService, atLeastOnce()).snmpGetScalars(eq(config), any());
         verify(udpProfileRepository).findByDeviceId(device.getId());
         verify(udpProfileRepository).save(any(UdpProfile.class));
     }
@@ -82,7 +91,7 @@ class UdpProfilePollServiceTest {
     void testPollDeviceUdpProfile_NewProfile() {
         // Arrange
         Map<String, Variable> udpData = createMockUdpData();
-        when(snmpClientService.snmpGetMultiple(eq(config), any())).thenReturn(udpData);
+        when(snmpClientService.snmpGetScalars(eq(config), any())).thenAnswer(invocation -> scalars(invocation.getArgument(1), udpData));
         when(udpProfileRepository.findByDeviceId(device.getId())).thenReturn(Optional.empty());
         when(udpProfileRepository.save(any(UdpProfile.class))).thenReturn(existingProfile);
 
@@ -90,7 +99,7 @@ class UdpProfilePollServiceTest {
         udpProfilePollService.pollDeviceUdpProfile(device, config);
 
         // Assert
-        verify(snmpClientService, atLeastOnce()).snmpGetMultiple(eq(config), any());
+        verify(snmpClientService, atLeastOnce()).snmpGetScalars(eq(config), any());
         verify(udpProfileRepository).findByDeviceId(device.getId());
         verify(udpProfileRepository).save(any(UdpProfile.class));
     }
@@ -98,20 +107,20 @@ class UdpProfilePollServiceTest {
     @Test
     void testPollDeviceUdpProfile_EmptyData() {
         // Arrange
-        when(snmpClientService.snmpGetMultiple(eq(config), any())).thenReturn(new HashMap<>());
+        when(snmpClientService.snmpGetScalars(eq(config), any())).thenAnswer(invocation -> scalars(invocation.getArgument(1), new HashMap<>()));
 
         // Act
         udpProfilePollService.pollDeviceUdpProfile(device, config);
 
         // Assert
-        verify(snmpClientService).snmpGetMultiple(eq(config), any());
+        verify(snmpClientService).snmpGetScalars(eq(config), any());
         verify(udpProfileRepository, never()).save(any());
     }
 
     @Test
     void testPollDeviceUdpProfile_SnmpException() {
         // Arrange
-        when(snmpClientService.snmpGetMultiple(eq(config), any())).thenThrow(new RuntimeException("SNMP error"));
+        when(snmpClientService.snmpGetScalars(eq(config), any())).thenThrow(new RuntimeException("SNMP error"));
 
         // Act & Assert
         try {
@@ -120,7 +129,7 @@ class UdpProfilePollServiceTest {
             // Expected
         }
 
-        verify(snmpClientService).snmpGetMultiple(eq(config), any());
+        verify(snmpClientService).snmpGetScalars(eq(config), any());
         verify(udpProfileRepository, never()).save(any());
     }
 
@@ -128,11 +137,9 @@ class UdpProfilePollServiceTest {
     void testPollDeviceUdpProfile_WithConnectionInfo() {
         // Arrange
         Map<String, Variable> udpData = createMockUdpData();
-        Map<String, Variable> connectionData = createMockConnectionData();
         
-        when(snmpClientService.snmpGetMultiple(eq(config), any()))
-            .thenReturn(udpData)
-            .thenReturn(connectionData);
+        when(snmpClientService.snmpGetScalars(eq(config), any())).thenAnswer(invocation -> scalars(invocation.getArgument(1), udpData));
+        when(snmpTableFetcher.fetchTable(eq(config), any(SnmpColumns.class))).thenReturn(List.of(createMockConnectionRow()));
         when(udpProfileRepository.findByDeviceId(device.getId())).thenReturn(Optional.of(existingProfile));
         when(udpProfileRepository.save(any(UdpProfile.class))).thenReturn(existingProfile);
 
@@ -140,9 +147,12 @@ class UdpProfilePollServiceTest {
         udpProfilePollService.pollDeviceUdpProfile(device, config);
 
         // Assert
-        verify(snmpClientService, times(2)).snmpGetMultiple(eq(config), any());
+        verify(snmpClientService, times(1)).snmpGetScalars(eq(config), any());
+        verify(snmpTableFetcher).fetchTable(eq(config), any(SnmpColumns.class));
         verify(udpProfileRepository).findByDeviceId(device.getId());
         verify(udpProfileRepository).save(any(UdpProfile.class));
+        assertEquals("192.168.1.10", existingProfile.getUdpLocalAddress());
+        assertEquals(53, existingProfile.getUdpLocalPort());
     }
 
     @Test
@@ -150,9 +160,8 @@ class UdpProfilePollServiceTest {
         // Arrange
         Map<String, Variable> udpData = createMockUdpData();
         
-        when(snmpClientService.snmpGetMultiple(eq(config), any()))
-            .thenReturn(udpData)
-            .thenThrow(new RuntimeException("Connection info error"));
+        when(snmpClientService.snmpGetScalars(eq(config), any())).thenAnswer(invocation -> scalars(invocation.getArgument(1), udpData));
+        when(snmpTableFetcher.fetchTable(eq(config), any(SnmpColumns.class))).thenThrow(new RuntimeException("Connection info error"));
         when(udpProfileRepository.findByDeviceId(device.getId())).thenReturn(Optional.of(existingProfile));
         when(udpProfileRepository.save(any(UdpProfile.class))).thenReturn(existingProfile);
 
@@ -160,9 +169,10 @@ class UdpProfilePollServiceTest {
         udpProfilePollService.pollDeviceUdpProfile(device, config);
 
         // Assert
-        verify(snmpClientService, times(2)).snmpGetMultiple(eq(config), any());
+        verify(snmpClientService, times(1)).snmpGetScalars(eq(config), any());
         verify(udpProfileRepository).findByDeviceId(device.getId());
         verify(udpProfileRepository).save(any(UdpProfile.class));
+        assertEquals("0.0.0.0", existingProfile.getUdpLocalAddress());
     }
 
     private Map<String, Variable> createMockUdpData() {
@@ -187,17 +197,12 @@ class UdpProfilePollServiceTest {
         return data;
     }
 
-    private Map<String, Variable> createMockConnectionData() {
-        Map<String, Variable> data = new HashMap<>();
-        
-        Variable localAddress = mock(Variable.class);
-        when(localAddress.toString()).thenReturn("192.168.1.10");
-        data.put("1.3.6.1.2.1.7.5.1.1.1", localAddress);
-        
-        Variable localPort = mock(Variable.class);
-        when(localPort.toInt()).thenReturn(53);
-        data.put("1.3.6.1.2.1.7.5.1.2.1", localPort);
-
-        return data;
+    private SnmpTableRow createMockConnectionRow() {
+        // udpTable is indexed by udpLocalAddress.udpLocalPort
+        SnmpTableRow row = new SnmpTableRow(new OID("192.168.1.10.53"),
+            SnmpColumns.of(SnmpOids.UDP_LOCAL_ADDRESS, SnmpOids.UDP_LOCAL_PORT));
+        row.setValue(0, new IpAddress("192.168.1.10"));
+        row.setValue(1, new Integer32(53));
+        return row;
     }
 }
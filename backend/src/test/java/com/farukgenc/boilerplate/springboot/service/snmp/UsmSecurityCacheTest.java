@@ -0,0 +1,109 @@
+package com.farukgenc.boilerplate.springboot.service.snmp;
+
+import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.snmp4j.Snmp;
+import org.snmp4j.mp.MPv3;
+import org.snmp4j.security.AuthSHA;
+import org.snmp4j.security.PrivAES128;
+import org.snmp4j.security.SecurityModel;
+import org.snmp4j.security.USM;
+import org.snmp4j.smi.GenericAddress;
+import org.snmp4j.smi.Integer32;
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.transport.DefaultUdpTransportMapping;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UsmSecurityCacheTest {
+
+    private static final OctetString ENGINE_A = OctetString.fromHexString("80:00:1f:88:80:01:02:03:04");
+    private static final OctetString ENGINE_B = OctetString.fromHexString("80:00:1f:88:80:05:06:07:08");
+
+    private SimpleMeterRegistry meterRegistry;
+    private UsmSecurityCache cache;
+    private Snmp snmp;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new UsmSecurityCache(meterRegistry);
+        DefaultUdpTransportMapping transport = new DefaultUdpTransportMapping();
+        snmp = new Snmp(transport);
+        cache.install(snmp);
+        transport.listen();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        snmp.close();
+        cache.close();
+    }
+
+    @Test
+    void installedTransportsShareOneUsm() throws Exception {
+        DefaultUdpTransportMapping otherTransport = new DefaultUdpTransportMapping();
+        Snmp other = new Snmp(otherTransport);
+        cache.install(other);
+        try {
+            SecurityModel first = ((MPv3) snmp.getMessageProcessingModel(MPv3.ID))
+                .getSecurityModels().getSecurityModel(new Integer32(USM.SECURITY_MODEL_USM));
+            SecurityModel second = ((MPv3) other.getMessageProcessingModel(MPv3.ID))
+                .getSecurityModels().getSecurityModel(new Integer32(USM.SECURITY_MODEL_USM));
+
+            assertNotNull(first);
+            assertSame(first, second);
+        } finally {
+            other.close();
+        }
+    }
+
+    @Test
+    void localizesKeysOncePerEngineUserAndCredentials() {
+        DeviceConfig config = v3Config("authpass123");
+
+        cache.ensureUser(ENGINE_A, config, AuthSHA.ID, PrivAES128.ID);
+        cache.ensureUser(ENGINE_A, config, AuthSHA.ID, PrivAES128.ID);
+        assertEquals(1.0, localizations());
+
+        cache.ensureUser(ENGINE_B, config, AuthSHA.ID, PrivAES128.ID);
+        assertEquals(2.0, localizations());
+
+        cache.ensureUser(ENGINE_A, v3Config("changedpass1"), AuthSHA.ID, PrivAES128.ID);
+        assertEquals(3.0, localizations());
+    }
+
+    @Test
+    void failedDiscoveryIsNotCached() {
+        CompletableFuture<OctetString> discovery = cache.engineId(snmp, GenericAddress.parse("udp:127.0.0.1/9"), 200);
+
+        CompletionException error = assertThrows(CompletionException.class, discovery::join);
+        assertInstanceOf(TimeoutException.class, error.getCause());
+        assertEquals(0, cache.getEngineCount());
+        assertEquals(1.0, meterRegistry.get("snmp.usm.discoveries").counter().count());
+    }
+
+    private double localizations() {
+        return meterRegistry.get("snmp.usm.localizations").counter().count();
+    }
+
+    private static DeviceConfig v3Config(String authPassphrase) {
+        return DeviceConfig.builder()
+            .targetIp("192.168.1.1")
+            .snmpPort(161)
+            .snmpVersion(DeviceConfig.SnmpVersion.V3)
+            .securityName("monitor")
+            .authProtocol(DeviceConfig.AuthProtocol.SHA)
+            .authPassphrase(authPassphrase)
+            .privProtocol(DeviceConfig.PrivProtocol.AES128)
+            .privPassphrase("privpass123")
+            .build();
+    }
+}
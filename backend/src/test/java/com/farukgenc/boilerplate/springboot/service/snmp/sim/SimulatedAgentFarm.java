@@ -0,0 +1,167 @@
+package com.farukgenc.boilerplate.springboot.service.snmp.sim;
+
+import com.farukgenc.boilerplate.springboot.model.Device;
+import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * A set of {@link SimulatedSnmpAgent}s on loopback ports, used as the stand-in for real
+ * devices in polling regression tests and throughput benchmarks.
+ *
+ * <pre>{@code
+ * try (SimulatedAgentFarm farm = SimulatedAgentFarm.builder()
+ *         .agents(1000).interfaces(500).latencyMillis(5).lossRate(0.01).start()) {
+ *     DeviceConfig config = farm.deviceConfig(0);
+ *     ...
+ * }
+ * }</pre>
+ */
+public class SimulatedAgentFarm implements AutoCloseable {
+
+    public static final String COMMUNITY = "public";
+
+    private final List<SimulatedSnmpAgent> agents;
+    private final ScheduledExecutorService scheduler;
+
+    private SimulatedAgentFarm(List<SimulatedSnmpAgent> agents, ScheduledExecutorService scheduler) {
+        this.agents = agents;
+        this.scheduler = scheduler;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public List<SimulatedSnmpAgent> getAgents() {
+        return Collections.unmodifiableList(agents);
+    }
+
+    public SimulatedSnmpAgent agent(int i) {
+        return agents.get(i);
+    }
+
+    public int size() {
+        return agents.size();
+    }
+
+    /**
+     * A v2c {@link DeviceConfig} pointing at agent {@code i}
+     */
+    public DeviceConfig deviceConfig(int i) {
+        Device device = Device.builder()
+            .id((long) i + 1)
+            .name("sim-agent-" + i)
+            .monitoringEnabled(true)
+            .build();
+        return DeviceConfig.builder()
+            .id((long) i + 1)
+            .device(device)
+            .targetIp("127.0.0.1")
+            .snmpPort(agents.get(i).getPort())
+            .snmpVersion(DeviceConfig.SnmpVersion.V2C)
+            .communityString(COMMUNITY)
+            .snmpTimeout(1000)
+            .snmpRetries(1)
+            .build();
+    }
+
+    /**
+     * Advances every agent's counters, as if {@code seconds} had elapsed at {@code bytesPerSecond}
+     */
+    public void advance(long seconds, long bytesPerSecond) {
+        for (SimulatedSnmpAgent agent : agents) {
+            agent.getMib().tick(seconds * bytesPerSecond, seconds * 100);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (SimulatedSnmpAgent agent : agents) {
+            agent.close();
+        }
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static class Builder {
+
+        private int agents = 1;
+        private int interfaces = 4;
+        private int entities = 2;
+        private long latencyMillis;
+        private double lossRate;
+        private long seed = 42L;
+        private IntFunction<SimulatedMib> mibFactory;
+
+        public Builder agents(int agents) {
+            this.agents = agents;
+            return this;
+        }
+
+        public Builder interfaces(int interfaces) {
+            this.interfaces = interfaces;
+            return this;
+        }
+
+        public Builder entities(int entities) {
+            this.entities = entities;
+            return this;
+        }
+
+        public Builder latencyMillis(long latencyMillis) {
+            this.latencyMillis = latencyMillis;
+            return this;
+        }
+
+        public Builder lossRate(double lossRate) {
+            this.lossRate = lossRate;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Replaces the synthetic MIB, e.g. with one loaded from a recorded walk
+         */
+        public Builder mib(IntFunction<SimulatedMib> mibFactory) {
+            this.mibFactory = mibFactory;
+            return this;
+        }
+
+        public SimulatedAgentFarm start() throws IOException {
+            ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2, r -> {
+                Thread t = new Thread(r, "sim-agent-latency");
+                t.setDaemon(true);
+                return t;
+            });
+            List<SimulatedSnmpAgent> started = new ArrayList<>(agents);
+            for (int i = 0; i < agents; i++) {
+                SimulatedMib mib = mibFactory != null ? mibFactory.apply(i) : new SimulatedMib()
+                    .withSystemGroup("sim-agent-" + i)
+                    .withInterfaces(interfaces)
+                    .withPhysicalEntities(entities)
+                    .withProtocolCounters();
+                started.add(new SimulatedSnmpAgent(mib, COMMUNITY, scheduler, seed + i)
+                    .latency(latencyMillis)
+                    .loss(lossRate)
+                    .start());
+            }
+            return new SimulatedAgentFarm(started, scheduler);
+        }
+    }
+}
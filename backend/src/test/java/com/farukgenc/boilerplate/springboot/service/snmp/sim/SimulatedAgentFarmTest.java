@@ -0,0 +1,97 @@
+package com.farukgenc.boilerplate.springboot.service.snmp.sim;
+
+import com.farukgenc.boilerplate.springboot.configuration.SnmpProperties;
+import com.farukgenc.boilerplate.springboot.model.DeviceConfig;
+import com.farukgenc.boilerplate.springboot.service.snmp.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.snmp4j.smi.Counter32;
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.Variable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulatedAgentFarmTest {
+
+    private SnmpClientService snmpClientService;
+
+    @BeforeEach
+    void setUp() {
+        SnmpProperties properties = new SnmpProperties();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        UsmSecurityCache usmSecurity = new UsmSecurityCache(meterRegistry);
+        snmpClientService = new SnmpClientService(
+            new SnmpSessionPool(properties, meterRegistry, usmSecurity),
+            new BulkRepetitionTuner(properties),
+            new RttEstimator(properties),
+            new SnmpRequestLimiter(properties, meterRegistry),
+            usmSecurity);
+    }
+
+    @AfterEach
+    void tearDown() {
+        snmpClientService.closeAllSessions();
+    }
+
+    @Test
+    void testWalk_ReturnsWholeInterfaceTableFromEveryAgent() throws Exception {
+        try (SimulatedAgentFarm farm = SimulatedAgentFarm.builder().agents(3).interfaces(50).start()) {
+            for (int i = 0; i < farm.size(); i++) {
+                Map<String, Variable> descr = snmpClientService.snmpWalk(farm.deviceConfig(i), "1.3.6.1.2.1.2.2.1.2", 20);
+
+                assertEquals(50, descr.size());
+                assertEquals(new OctetString("GigabitEthernet0/50"), descr.get("1.3.6.1.2.1.2.2.1.2.50"));
+            }
+        }
+    }
+
+    @Test
+    void testAdvance_IncrementsCountersWithWrap() throws Exception {
+        try (SimulatedAgentFarm farm = SimulatedAgentFarm.builder().interfaces(1).start()) {
+            DeviceConfig config = farm.deviceConfig(0);
+            farm.agent(0).getMib().put("1.3.6.1.2.1.2.2.1.10.1", new Counter32(0xFFFFFFF0L));
+
+            farm.advance(1, 0x20);
+
+            assertEquals(Optional.of(new Counter32(0x10)), snmpClientService.snmpGet(config, "1.3.6.1.2.1.2.2.1.10.1"));
+        }
+    }
+
+    @Test
+    void testLoss_DropsRequestsButRetriesStillSucceed() throws Exception {
+        try (SimulatedAgentFarm farm = SimulatedAgentFarm.builder().lossRate(0.3).start()) {
+            DeviceConfig config = farm.deviceConfig(0);
+            config.setSnmpTimeout(200);
+            config.setSnmpRetries(5);
+
+            for (int i = 0; i < 10; i++) {
+                assertTrue(snmpClientService.testConnection(config));
+            }
+            assertTrue(farm.agent(0).getDroppedCount() > 0);
+        }
+    }
+
+    @Test
+    void testReplay_ServesRecordedWalk() throws Exception {
+        List<String> walk = List.of(
+            ".1.3.6.1.2.1.1.5.0 = STRING: \"core-sw1\"",
+            ".1.3.6.1.2.1.2.2.1.8.1 = INTEGER: up(1)",
+            ".1.3.6.1.2.1.2.2.1.8.2 = INTEGER: down(2)");
+
+        try (SimulatedAgentFarm farm = SimulatedAgentFarm.builder()
+                .mib(i -> new SimulatedMib().loadWalk(walk))
+                .start()) {
+            DeviceConfig config = farm.deviceConfig(0);
+
+            assertEquals(Optional.of(new OctetString("core-sw1")), snmpClientService.snmpGet(config, "1.3.6.1.2.1.1.5.0"));
+            Map<String, Variable> operStatus = snmpClientService.snmpWalk(config, "1.3.6.1.2.1.2.2.1.8", 10);
+            assertEquals(2, operStatus.get("1.3.6.1.2.1.2.2.1.8.2").toInt());
+        }
+    }
+}
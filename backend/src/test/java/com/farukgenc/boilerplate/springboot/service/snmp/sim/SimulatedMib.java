@@ -0,0 +1,206 @@
+package com.farukgenc.boilerplate.springboot.service.snmp.sim;
+
+import org.snmp4j.smi.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Ordered OID → value store served by a {@link SimulatedSnmpAgent}.
+ * Builder methods lay out synthetic MIB-II, IF-MIB and ENTITY-MIB content.
+ */
+public class SimulatedMib {
+
+    private static final Pattern WALK_LINE = Pattern.compile("^\\.?([0-9.]+)\\s*=\\s*(?:([A-Za-z0-9-]+):\\s*)?(.*)$");
+    private static final Pattern NUMBER = Pattern.compile("-?\\d+");
+
+    private final NavigableMap<OID, Variable> values = new ConcurrentSkipListMap<>();
+
+    public SimulatedMib put(String oid, Variable value) {
+        values.put(new OID(oid), value);
+        return this;
+    }
+
+    public Variable get(OID oid) {
+        return values.get(oid);
+    }
+
+    /**
+     * First entry strictly after {@code oid}, or {@code null} at the end of the MIB view
+     */
+    public Map.Entry<OID, Variable> next(OID oid) {
+        return values.higherEntry(oid);
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * RFC 1213 system group plus HOST-RESOURCES scalars
+     */
+    public SimulatedMib withSystemGroup(String sysName) {
+        put("1.3.6.1.2.1.1.1.0", new OctetString("Simulated agent " + sysName));
+        put("1.3.6.1.2.1.1.2.0", new OID("1.3.6.1.4.1.8072.3.2.10"));
+        put("1.3.6.1.2.1.1.3.0", new TimeTicks(360000));
+        put("1.3.6.1.2.1.1.4.0", new OctetString("noc@example.com"));
+        put("1.3.6.1.2.1.1.5.0", new OctetString(sysName));
+        put("1.3.6.1.2.1.1.6.0", new OctetString("Lab rack 1"));
+        put("1.3.6.1.2.1.1.7.0", new Integer32(72));
+        put("1.3.6.1.2.1.25.1.1.0", new TimeTicks(360500));
+        put("1.3.6.1.2.1.25.1.5.0", new Gauge32(2));
+        put("1.3.6.1.2.1.25.1.6.0", new Gauge32(120));
+        return this;
+    }
+
+    /**
+     * IP, ICMP and UDP scalar counters plus a small udpTable
+     */
+    public SimulatedMib withProtocolCounters() {
+        put("1.3.6.1.2.1.4.1.0", new Integer32(1));
+        put("1.3.6.1.2.1.4.2.0", new Integer32(64));
+        for (int i = 3; i <= 19; i++) {
+            put("1.3.6.1.2.1.4." + i + ".0", new Counter32(1000L * i));
+        }
+        put("1.3.6.1.2.1.4.13.0", new Integer32(60));
+        put("1.3.6.1.2.1.4.23.0", new Counter32(0));
+        for (int i = 1; i <= 26; i++) {
+            put("1.3.6.1.2.1.5." + i + ".0", new Counter32(10L * i));
+        }
+        for (int i = 1; i <= 4; i++) {
+            put("1.3.6.1.2.1.7." + i + ".0", new Counter32(500L * i));
+        }
+        put("1.3.6.1.2.1.7.5.1.1.0.0.0.0.161", new IpAddress("0.0.0.0"));
+        put("1.3.6.1.2.1.7.5.1.2.0.0.0.0.161", new Integer32(161));
+        put("1.3.6.1.2.1.7.5.1.1.127.0.0.1.123", new IpAddress("127.0.0.1"));
+        put("1.3.6.1.2.1.7.5.1.2.127.0.0.1.123", new Integer32(123));
+        return this;
+    }
+
+    /**
+     * IF-MIB ifTable with {@code count} rows, ifIndex 1..count
+     */
+    public SimulatedMib withInterfaces(int count) {
+        put("1.3.6.1.2.1.2.1.0", new Integer32(count));
+        for (int i = 1; i <= count; i++) {
+            String s = "." + i;
+            put("1.3.6.1.2.1.2.2.1.1" + s, new Integer32(i));
+            put("1.3.6.1.2.1.2.2.1.2" + s, new OctetString("GigabitEthernet0/" + i));
+            put("1.3.6.1.2.1.2.2.1.3" + s, new Integer32(6));
+            put("1.3.6.1.2.1.2.2.1.4" + s, new Integer32(1500));
+            put("1.3.6.1.2.1.2.2.1.5" + s, new Gauge32(1_000_000_000L));
+            put("1.3.6.1.2.1.2.2.1.6" + s, new OctetString(new byte[]{0, 0x1b, 0x21, 0, (byte) (i >> 8), (byte) i}));
+            put("1.3.6.1.2.1.2.2.1.7" + s, new Integer32(1));
+            put("1.3.6.1.2.1.2.2.1.8" + s, new Integer32(i % 4 == 0 ? 2 : 1));
+            put("1.3.6.1.2.1.2.2.1.9" + s, new TimeTicks(100));
+            for (int column : new int[]{10, 11, 13, 14, 16, 17, 19, 20}) {
+                put("1.3.6.1.2.1.2.2.1." + column + s, new Counter32((long) i * column));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * ENTITY-MIB entPhysicalTable with {@code count} rows
+     */
+    public SimulatedMib withPhysicalEntities(int count) {
+        for (int i = 1; i <= count; i++) {
+            String s = "." + i;
+            put("1.3.6.1.2.1.47.1.1.1.1.2" + s, new OctetString("Module " + i));
+            put("1.3.6.1.2.1.47.1.1.1.1.3" + s, new OID("0.0"));
+            put("1.3.6.1.2.1.47.1.1.1.1.5" + s, new Integer32(i == 1 ? 3 : 9));
+            put("1.3.6.1.2.1.47.1.1.1.1.7" + s, new OctetString("slot " + i));
+            put("1.3.6.1.2.1.47.1.1.1.1.8" + s, new OctetString("V01"));
+            put("1.3.6.1.2.1.47.1.1.1.1.9" + s, new OctetString("1.0.2"));
+            put("1.3.6.1.2.1.47.1.1.1.1.10" + s, new OctetString("17.3.1"));
+            put("1.3.6.1.2.1.47.1.1.1.1.11" + s, new OctetString("SN" + (100000 + i)));
+            put("1.3.6.1.2.1.47.1.1.1.1.12" + s, new OctetString("Simulated Inc."));
+            put("1.3.6.1.2.1.47.1.1.1.1.13" + s, new OctetString("SIM-" + i));
+            put("1.3.6.1.2.1.47.1.1.1.1.14" + s, new OctetString(""));
+            put("1.3.6.1.2.1.47.1.1.1.1.15" + s, new OctetString(""));
+            put("1.3.6.1.2.1.47.1.1.1.1.16" + s, new Integer32(i == 1 ? 2 : 1));
+        }
+        return this;
+    }
+
+    /**
+     * Advances every Counter32/Counter64 by {@code delta}, wrapping Counter32 at 2^32,
+     * and TimeTicks by {@code ticks}
+     */
+    public void tick(long delta, long ticks) {
+        for (Map.Entry<OID, Variable> entry : values.entrySet()) {
+            Variable v = entry.getValue();
+            if (v instanceof Counter32 c) {
+                values.put(entry.getKey(), new Counter32((c.getValue() + delta) & 0xFFFFFFFFL));
+            } else if (v instanceof Counter64 c) {
+                values.put(entry.getKey(), new Counter64(c.getValue() + delta));
+            } else if (v instanceof TimeTicks t) {
+                values.put(entry.getKey(), new TimeTicks((t.getValue() + ticks) & 0xFFFFFFFFL));
+            }
+        }
+    }
+
+    /**
+     * Loads a recorded walk in net-snmp numeric format ({@code snmpwalk -On}), e.g.
+     * {@code .1.3.6.1.2.1.1.5.0 = STRING: "core-sw1"}
+     */
+    public SimulatedMib loadWalk(Path file) throws IOException {
+        return loadWalk(Files.readAllLines(file));
+    }
+
+    public SimulatedMib loadWalk(List<String> lines) {
+        for (String line : lines) {
+            Matcher m = WALK_LINE.matcher(line.trim());
+            if (!m.matches()) {
+                continue;
+            }
+            Variable value = parseValue(m.group(2), m.group(3).trim());
+            if (value != null) {
+                values.put(new OID(m.group(1)), value);
+            }
+        }
+        return this;
+    }
+
+    private static Variable parseValue(String type, String raw) {
+        if (type == null) {
+            return new OctetString(unquote(raw));
+        }
+        return switch (type.toUpperCase()) {
+            case "INTEGER" -> new Integer32(Integer.parseInt(leadingNumber(raw)));
+            case "STRING" -> new OctetString(unquote(raw));
+            case "HEX-STRING" -> OctetString.fromHexString(raw.replace(' ', ':'));
+            case "OID" -> new OID(raw.startsWith(".") ? raw.substring(1) : raw);
+            case "TIMETICKS" -> new TimeTicks(Long.parseLong(raw.replaceAll("^\\((\\d+)\\).*$", "$1")));
+            case "COUNTER32" -> new Counter32(Long.parseLong(raw));
+            case "COUNTER64" -> new Counter64(Long.parseUnsignedLong(raw));
+            case "GAUGE32", "UNSIGNED32" -> new Gauge32(Long.parseLong(raw));
+            case "IPADDRESS" -> new IpAddress(raw);
+            default -> null;
+        };
+    }
+
+    private static String leadingNumber(String raw) {
+        Matcher m = NUMBER.matcher(raw);
+        // "up(1)" style enums carry the number in parentheses
+        String found = null;
+        while (m.find()) {
+            found = m.group();
+        }
+        return found == null ? "0" : found;
+    }
+
+    private static String unquote(String raw) {
+        if (raw.length() >= 2 && raw.startsWith("\"") && raw.endsWith("\"")) {
+            return raw.substring(1, raw.length() - 1);
+        }
+        return raw;
+    }
+}
@@ -0,0 +1,202 @@
+package com.farukgenc.boilerplate.springboot.service.snmp.sim;
+
+import org.snmp4j.*;
+import org.snmp4j.mp.MessageProcessingModel;
+import org.snmp4j.mp.StatusInformation;
+import org.snmp4j.smi.*;
+import org.snmp4j.transport.DefaultUdpTransportMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process v1/v2c command responder bound to a loopback UDP port.
+ * Answers GET, GETNEXT and GETBULK from a {@link SimulatedMib}, with optional
+ * response latency, random packet loss and a response size limit that triggers {@code tooBig}.
+ */
+public class SimulatedSnmpAgent implements CommandResponder, AutoCloseable {
+
+    private final SimulatedMib mib;
+    private final String community;
+    private final ScheduledExecutorService delayer;
+    private final Random random;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile long latencyMillis;
+    private volatile double lossRate;
+    private volatile int maxResponseBindings = Integer.MAX_VALUE;
+
+    private Snmp snmp;
+    private UdpAddress address;
+
+    public SimulatedSnmpAgent(SimulatedMib mib, String community, ScheduledExecutorService delayer, long seed) {
+        this.mib = mib;
+        this.community = community;
+        this.delayer = delayer;
+        this.random = new Random(seed);
+    }
+
+    public SimulatedSnmpAgent start() throws IOException {
+        DefaultUdpTransportMapping transport = new DefaultUdpTransportMapping(new UdpAddress("127.0.0.1/0"));
+        snmp = new Snmp(transport);
+        snmp.addCommandResponder(this);
+        transport.listen();
+        address = transport.getListenAddress();
+        return this;
+    }
+
+    public int getPort() {
+        return address.getPort();
+    }
+
+    public SimulatedMib getMib() {
+        return mib;
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public SimulatedSnmpAgent latency(long millis) {
+        this.latencyMillis = millis;
+        return this;
+    }
+
+    public SimulatedSnmpAgent loss(double rate) {
+        this.lossRate = rate;
+        return this;
+    }
+
+    /**
+     * Responses that would carry more bindings than this are answered with {@code tooBig}
+     */
+    public SimulatedSnmpAgent maxResponseBindings(int max) {
+        this.maxResponseBindings = max;
+        return this;
+    }
+
+    @Override
+    public <A extends Address> void processPdu(CommandResponderEvent<A> event) {
+        if (!community.equals(new String(event.getSecurityName()))) {
+            return;
+        }
+        event.setProcessed(true);
+        requests.incrementAndGet();
+
+        boolean drop;
+        synchronized (random) {
+            drop = lossRate > 0 && random.nextDouble() < lossRate;
+        }
+        if (drop) {
+            dropped.incrementAndGet();
+            return;
+        }
+
+        PDU response = answer(event.getPDU(), event.getMessageProcessingModel() == MessageProcessingModel.MPv1);
+        if (latencyMillis > 0) {
+            delayer.schedule(() -> reply(event, response), latencyMillis, TimeUnit.MILLISECONDS);
+        } else {
+            reply(event, response);
+        }
+    }
+
+    private PDU answer(PDU request, boolean v1) {
+        PDU response = new PDU();
+        response.setType(PDU.RESPONSE);
+        response.setRequestID(request.getRequestID());
+
+        switch (request.getType()) {
+            case PDU.GET -> {
+                for (VariableBinding vb : request.getVariableBindings()) {
+                    Variable value = mib.get(vb.getOid());
+                    response.add(new VariableBinding(vb.getOid(), value != null ? value : Null.noSuchObject));
+                }
+            }
+            case PDU.GETNEXT -> {
+                for (VariableBinding vb : request.getVariableBindings()) {
+                    response.add(nextBinding(vb.getOid()));
+                }
+            }
+            case PDU.GETBULK -> {
+                int nonRepeaters = Math.max(0, request.getNonRepeaters());
+                int maxRepetitions = Math.max(0, request.getMaxRepetitions());
+                var bindings = request.getVariableBindings();
+                for (int i = 0; i < Math.min(nonRepeaters, bindings.size()); i++) {
+                    response.add(nextBinding(bindings.get(i).getOid()));
+                }
+                OID[] cursors = new OID[bindings.size() - Math.min(nonRepeaters, bindings.size())];
+                for (int i = 0; i < cursors.length; i++) {
+                    cursors[i] = bindings.get(nonRepeaters + i).getOid();
+                }
+                for (int r = 0; r < maxRepetitions && cursors.length > 0; r++) {
+                    boolean allEnded = true;
+                    for (int i = 0; i < cursors.length; i++) {
+                        VariableBinding next = nextBinding(cursors[i]);
+                        response.add(next);
+                        cursors[i] = next.getOid();
+                        allEnded &= next.isException();
+                    }
+                    if (allEnded) {
+                        break;
+                    }
+                }
+            }
+            default -> response.setErrorStatus(PDU.genErr);
+        }
+
+        // SNMPv1 has no exception values: the end of the view is a noSuchName error
+        if (v1) {
+            for (int i = 0; i < response.size(); i++) {
+                if (response.get(i).isException()) {
+                    response.setErrorStatus(PDU.noSuchName);
+                    response.setErrorIndex(i + 1);
+                    break;
+                }
+            }
+        }
+
+        if (response.size() > maxResponseBindings) {
+            PDU tooBig = new PDU();
+            tooBig.setType(PDU.RESPONSE);
+            tooBig.setRequestID(request.getRequestID());
+            tooBig.setErrorStatus(PDU.tooBig);
+            return tooBig;
+        }
+        return response;
+    }
+
+    private VariableBinding nextBinding(OID oid) {
+        Map.Entry<OID, Variable> next = mib.next(oid);
+        if (next == null) {
+            return new VariableBinding(oid, Null.endOfMibView);
+        }
+        return new VariableBinding(next.getKey(), next.getValue());
+    }
+
+    private <A extends Address> void reply(CommandResponderEvent<A> event, PDU response) {
+        try {
+            event.getMessageDispatcher().returnResponsePdu(
+                event.getMessageProcessingModel(), event.getSecurityModel(), event.getSecurityName(),
+                event.getSecurityLevel(), response, event.getMaxSizeResponsePDU(),
+                event.getStateReference(), new StatusInformation());
+        } catch (MessageException e) {
+            throw new IllegalStateException("Simulated agent failed to reply", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (snmp != null) {
+            snmp.close();
+        }
+    }
+}